@@ -0,0 +1,28 @@
+package de.retest.web.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks like the JMH main class (accepting the same options), but always with the GC profiler to report
+ * the allocation rate ({@code gc.alloc.rate.norm} is the allocation per page) next to the throughput of each stage.
+ */
+public class BenchmarkMain {
+
+	private BenchmarkMain() {}
+
+	public static void main( final String[] args ) throws Exception {
+		final CommandLineOptions commandLineOptions = new CommandLineOptions( args );
+		if ( commandLineOptions.shouldHelp() || commandLineOptions.shouldList() ) {
+			org.openjdk.jmh.Main.main( args );
+			return;
+		}
+		new Runner( new OptionsBuilder() //
+				.parent( commandLineOptions ) //
+				.addProfiler( GCProfiler.class ) //
+				.build() ).run();
+	}
+
+}
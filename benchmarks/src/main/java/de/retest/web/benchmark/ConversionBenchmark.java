@@ -0,0 +1,198 @@
+package de.retest.web.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.retest.recheck.ui.DefaultValueFinder;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.descriptors.idproviders.RetestIdProvider;
+import de.retest.recheck.util.RetestIdProviderUtil;
+import de.retest.web.AttributesProvider;
+import de.retest.web.FrameConverter;
+import de.retest.web.RecheckSeleniumAdapter;
+import de.retest.web.WebElementPeer;
+import de.retest.web.YamlAttributesProvider;
+import de.retest.web.benchmark.SyntheticPage.Shape;
+import de.retest.web.extraction.JavaScriptExtractionEngine;
+import de.retest.web.mapping.CompactPathsToWebDataMapping;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.WebData;
+import de.retest.web.util.TextAttributeUtil;
+
+/**
+ * Benchmarks the stages of the conversion of an extracted page into a {@link RootElement}, from decoding the script
+ * result to the final element tree. Each benchmark is one stage over the whole page, so the throughput is given in
+ * pages per second. Run with the GC profiler (the default of {@link BenchmarkMain}) to get the allocation rate per
+ * stage.
+ *
+ * Only the public API is benchmarked, so that the benchmarks are independent of the package layout.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Warmup( iterations = 3, time = 2 )
+@Measurement( iterations = 5, time = 2 )
+@Fork( value = 1, jvmArgsAppend = { "-Xss16m", "-Xmx4g" } )
+public class ConversionBenchmark {
+
+	@Param( { "WIDE_TABLE", "DEEP_NESTING", "FRAMES" } )
+	Shape shape;
+
+	@Param( { "1000", "10000", "100000" } )
+	int nodes;
+
+	private Map<String, Map<String, Object>> document;
+	private Map<String, Object> compactDocument;
+	private PathsToWebDataMapping mapping;
+	private Map<String, PathsToWebDataMapping> frameMappings;
+	private List<Peer> peers;
+	private List<IdentifyingAttributes> identifyingAttributes;
+	private List<String> texts;
+	private List<String> paths;
+	private List<String> cssAttributes;
+
+	private RetestIdProvider retestIdProvider;
+	private AttributesProvider attributesProvider;
+	private DefaultValueFinder defaultValueFinder;
+	private RecheckSeleniumAdapter adapter;
+	private FrameConverter frameConverter;
+
+	@Setup( Level.Trial )
+	public void setUp() {
+		final SyntheticPage page = SyntheticPage.generate( shape, nodes );
+		document = page.getDocument();
+		compactDocument = SyntheticPage.toCompact( document );
+		mapping = new PathsToWebDataMapping( document );
+		frameMappings = page.getFrameMappings();
+		cssAttributes = page.getCssAttributes();
+
+		retestIdProvider = RetestIdProviderUtil.getConfiguredRetestIdProvider();
+		attributesProvider = YamlAttributesProvider.getInstance();
+		adapter = new RecheckSeleniumAdapter( retestIdProvider, attributesProvider );
+		defaultValueFinder = adapter.getDefaultValueFinder();
+		frameConverter = new FrameConverter( new JavaScriptExtractionEngine(), retestIdProvider, attributesProvider,
+				defaultValueFinder );
+
+		peers = new ArrayList<>( mapping.size() );
+		identifyingAttributes = new ArrayList<>( mapping.size() );
+		texts = new ArrayList<>( mapping.size() );
+		paths = new ArrayList<>( mapping.size() );
+		for ( final Entry<String, WebData> entry : mapping ) {
+			final Peer peer = new Peer( retestIdProvider, attributesProvider, entry.getValue(), entry.getKey(),
+					defaultValueFinder );
+			peers.add( peer );
+			identifyingAttributes.add( peer.identifyingAttributes() );
+			texts.add( entry.getValue().getText() );
+			paths.add( entry.getKey() );
+		}
+	}
+
+	/**
+	 * Decoding of the map payload format.
+	 */
+	@Benchmark
+	public PathsToWebDataMapping decodeMap() {
+		return new PathsToWebDataMapping( document );
+	}
+
+	/**
+	 * Decoding of the compact payload format.
+	 */
+	@Benchmark
+	public PathsToWebDataMapping decodeCompact() {
+		return new CompactPathsToWebDataMapping( compactDocument );
+	}
+
+	/**
+	 * Conversion of the page (and its frames) into the element tree, which includes decoding the map and all of the
+	 * following stages.
+	 */
+	@Benchmark
+	public RootElement convertToPeers() {
+		final RootElement root = adapter.convert( document, "url", "title", null );
+		if ( !frameMappings.isEmpty() ) {
+			// All frames are already extracted, so there is no need for a driver.
+			frameConverter.addChildrenFromFrames( null, null, root, frameMappings );
+		}
+		return root;
+	}
+
+	@Benchmark
+	public void retrieveIdentifyingAttributes( final Blackhole blackhole ) {
+		for ( final Peer peer : peers ) {
+			blackhole.consume( peer.identifyingAttributes() );
+		}
+	}
+
+	@Benchmark
+	public void retrieveStateAttributes( final Blackhole blackhole ) {
+		for ( int i = 0; i < peers.size(); i++ ) {
+			blackhole.consume( peers.get( i ).stateAttributes( identifyingAttributes.get( i ) ) );
+		}
+	}
+
+	/**
+	 * Default value lookups of all CSS attributes of all elements.
+	 */
+	@Benchmark
+	public void isDefaultValue( final Blackhole blackhole ) {
+		for ( int i = 0; i < peers.size(); i++ ) {
+			final WebData webData = peers.get( i ).getWebData();
+			final IdentifyingAttributes attributes = identifyingAttributes.get( i );
+			for ( final String cssAttribute : cssAttributes ) {
+				blackhole.consume(
+						defaultValueFinder.isDefaultValue( attributes, cssAttribute, webData.getAsString( cssAttribute ) ) );
+			}
+		}
+	}
+
+	@Benchmark
+	public void createTextAttribute( final Blackhole blackhole ) {
+		for ( int i = 0; i < texts.size(); i++ ) {
+			blackhole.consume( TextAttributeUtil.createTextAttribute( paths.get( i ), texts.get( i ) ) );
+		}
+	}
+
+	/**
+	 * Exposes the attribute retrieval, which subclasses of {@link WebElementPeer} may override.
+	 */
+	private static class Peer extends WebElementPeer {
+
+		Peer( final RetestIdProvider retestIdProvider, final AttributesProvider attributesProvider,
+				final WebData webData, final String path, final DefaultValueFinder defaultValueFinder ) {
+			super( retestIdProvider, attributesProvider, webData, path, defaultValueFinder );
+		}
+
+		IdentifyingAttributes identifyingAttributes() {
+			return retrieveIdentifyingAttributes();
+		}
+
+		MutableAttributes stateAttributes( final IdentifyingAttributes identifyingAttributes ) {
+			return retrieveStateAttributes( identifyingAttributes );
+		}
+
+		WebData getWebData() {
+			return webData;
+		}
+	}
+
+}
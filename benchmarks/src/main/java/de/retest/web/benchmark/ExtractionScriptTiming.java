@@ -0,0 +1,120 @@
+package de.retest.web.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import de.retest.web.benchmark.SyntheticPage.Shape;
+
+/**
+ * Times {@code getAllElementsByPath.js} of the benchmarked recheck-web version (after) against a given baseline script
+ * (before) within headless Chrome, on the synthetic pages of {@link SyntheticPage} rendered as HTML. The duration is
+ * measured within the browser, so it excludes the transfer of the result. Both scripts must return the same result
+ * for each page, otherwise the timing is aborted. Usage:
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Dbenchmark.main=de.retest.web.benchmark.ExtractionScriptTiming \
+ *     -Dbenchmark.args="&lt;baseline.js&gt; [nodes...]"
+ * </pre>
+ */
+public class ExtractionScriptTiming {
+
+	private static final String SCRIPT_PATH = "/javascript/getAllElementsByPath.js";
+	private static final List<Integer> DEFAULT_NODES = Arrays.asList( 1000, 10000, 50000 );
+	private static final int WARMUPS = 2;
+	private static final int ITERATIONS = 5;
+
+	private final WebDriver driver;
+	private final List<String> cssAttributes;
+
+	private ExtractionScriptTiming( final WebDriver driver, final List<String> cssAttributes ) {
+		this.driver = driver;
+		this.cssAttributes = cssAttributes;
+	}
+
+	public static void main( final String[] args ) throws IOException {
+		if ( args.length < 1 ) {
+			System.err.println( "Usage: ExtractionScriptTiming <baseline.js> [nodes...]" );
+			System.exit( 1 );
+		}
+		final String baseline = new String( Files.readAllBytes( new File( args[0] ).toPath() ), StandardCharsets.UTF_8 );
+		final String current = readScript();
+		final List<Integer> sizes = new ArrayList<>();
+		for ( int i = 1; i < args.length; i++ ) {
+			sizes.add( Integer.valueOf( args[i] ) );
+		}
+
+		final WebDriver driver =
+				new ChromeDriver( new ChromeOptions().addArguments( "--headless", "--window-size=1200,800" ) );
+		try {
+			final ExtractionScriptTiming timing = new ExtractionScriptTiming( driver,
+					SyntheticPage.generate( Shape.WIDE_TABLE, 1 ).getCssAttributes() );
+			System.out.printf( "%-13s %8s %14s %14s %8s%n", "shape", "nodes", "before (ms)", "after (ms)", "speedup" );
+			for ( final Shape shape : Shape.values() ) {
+				for ( final int nodes : sizes.isEmpty() ? DEFAULT_NODES : sizes ) {
+					timing.time( shape, nodes, baseline, current );
+				}
+			}
+		} finally {
+			driver.quit();
+		}
+	}
+
+	private void time( final Shape shape, final int nodes, final String baseline, final String current )
+			throws IOException {
+		final File page = File.createTempFile( "synthetic-" + shape, ".html" );
+		try {
+			final String html = SyntheticPage.generate( shape, nodes ).toHtml();
+			Files.write( page.toPath(), html.getBytes( StandardCharsets.UTF_8 ) );
+			driver.get( page.toURI().toString() );
+			if ( !Objects.equals( execute( baseline ), execute( current ) ) ) {
+				throw new IllegalStateException( "Scripts return different results for " + shape + " with " + nodes
+						+ " nodes, the timing would not be comparable." );
+			}
+			final double before = median( baseline );
+			final double after = median( current );
+			System.out.printf( "%-13s %8d %14.1f %14.1f %7.2fx%n", shape, nodes, before, after, before / after );
+		} finally {
+			page.delete();
+		}
+	}
+
+	private double median( final String script ) {
+		final String timed = "var start = performance.now();\n" //
+				+ "(function() {\n" + script + "\n}).apply(null, arguments);\n" //
+				+ "return performance.now() - start;";
+		for ( int i = 0; i < WARMUPS; i++ ) {
+			execute( timed );
+		}
+		final List<Double> durations = new ArrayList<>();
+		for ( int i = 0; i < ITERATIONS; i++ ) {
+			durations.add( ((Number) execute( timed )).doubleValue() );
+		}
+		Collections.sort( durations );
+		return durations.get( ITERATIONS / 2 );
+	}
+
+	private Object execute( final String script ) {
+		return ((JavascriptExecutor) driver).executeScript( script, cssAttributes, null, "map", true );
+	}
+
+	private static String readScript() throws IOException {
+		try ( final InputStream script = ExtractionScriptTiming.class.getResourceAsStream( SCRIPT_PATH ) ) {
+			return IOUtils.toString( script, StandardCharsets.UTF_8 );
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+package de.retest.web.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import de.retest.web.AttributesUtil;
+import de.retest.web.YamlAttributesProvider;
+import de.retest.web.mapping.PathsToWebDataMapping;
+
+/**
+ * Generates tag mappings as returned by {@code getAllElementsByPath.js} (map format, in document order) at different
+ * shapes, so the conversion can be benchmarked without a browser. Every element has outlines, most have a class, some
+ * have an ID and a text, and all configured CSS attributes are set, mostly to default values. The generation is
+ * deterministic for a given shape and size.
+ */
+public class SyntheticPage {
+
+	public enum Shape {
+		/**
+		 * A table with {@value SyntheticPage#TABLE_COLUMNS} columns and as many rows as needed, each cell containing
+		 * text.
+		 */
+		WIDE_TABLE,
+		/**
+		 * Chains of nested elements up to a depth of {@value SyntheticPage#MAX_DEPTH} (e.g. component wrappers), one
+		 * after another.
+		 */
+		DEEP_NESTING,
+		/**
+		 * A page with {@value SyntheticPage#FRAME_COUNT} iframes, the nodes are evenly distributed over the page and
+		 * its frames.
+		 */
+		FRAMES
+	}
+
+	static final int TABLE_COLUMNS = 10;
+	static final int MAX_DEPTH = 64;
+	static final int FRAME_COUNT = 4;
+
+	private static final String[] DEFAULT_CSS_VALUES = { "auto", "normal", "none", "0px", "rgb(0, 0, 0)", "visible",
+			"static", "0s", "ease", "1", "start", "baseline" };
+	private static final String[] OTHER_CSS_VALUES = { "12px", "16px", "1.5", "rgb(51, 51, 51)", "block", "flex",
+			"relative", "solid", "center", "bold", "pointer", "rgba(0, 0, 0, 0.5)" };
+	private static final String[] CLASSES = { "row", "col", "container", "btn btn-primary", "nav-item", "card",
+			"card-body", "text-muted", "d-flex justify-content-between" };
+	private static final String[] WORDS = { "Lorem", "ipsum", "dolor", "sit", "amet,", "consectetur", "adipiscing",
+			"elit", "\n", "  " };
+
+	private final Map<String, Map<String, Object>> document = new LinkedHashMap<>();
+	private final Map<String, Map<String, Map<String, Object>>> frames = new LinkedHashMap<>();
+	private final List<String> cssAttributes;
+	private final Random random;
+
+	private Map<String, Map<String, Object>> current;
+	private int y;
+
+	private SyntheticPage( final long seed ) {
+		cssAttributes = new ArrayList<>( YamlAttributesProvider.getInstance().getCssAttributes() );
+		random = new Random( seed );
+	}
+
+	/**
+	 * @param shape
+	 *            The shape of the page.
+	 * @param nodes
+	 *            The (approximate) total number of nodes, including the nodes of frames.
+	 * @return The generated page.
+	 */
+	public static SyntheticPage generate( final Shape shape, final int nodes ) {
+		final SyntheticPage page = new SyntheticPage( shape.ordinal() * 31L + nodes );
+		switch ( shape ) {
+			case WIDE_TABLE:
+				page.generateTable( page.document, nodes );
+				break;
+			case DEEP_NESTING:
+				page.generateNesting( page.document, nodes );
+				break;
+			case FRAMES:
+				page.generateFrames( nodes );
+				break;
+			default:
+				throw new IllegalArgumentException( "Unknown shape " + shape + "." );
+		}
+		return page;
+	}
+
+	/**
+	 * @return The raw map of paths to maps of attributes of the page (without frame contents).
+	 */
+	public Map<String, Map<String, Object>> getDocument() {
+		return document;
+	}
+
+	/**
+	 * @return The raw frame contents, mapped by the path of the frame (without leading slash).
+	 */
+	public Map<String, Map<String, Map<String, Object>>> getFrames() {
+		return frames;
+	}
+
+	/**
+	 * @return The decoded frame contents, as passed to the {@code FrameConverter}.
+	 */
+	public Map<String, PathsToWebDataMapping> getFrameMappings() {
+		final Map<String, PathsToWebDataMapping> result = new HashMap<>();
+		frames.forEach( ( framePath, frame ) -> result.put( framePath, new PathsToWebDataMapping( framePath, frame ) ) );
+		return result;
+	}
+
+	/**
+	 * @return The page as HTML, with the frame contents as {@code srcdoc} of the frames, e.g. to time the extraction
+	 *         within a browser. Only the structure, classes, IDs and texts are rendered, the outlines and CSS attributes
+	 *         are left to the browser.
+	 */
+	public String toHtml() {
+		return toHtml( document );
+	}
+
+	private String toHtml( final Map<String, Map<String, Object>> mapping ) {
+		final StringBuilder html = new StringBuilder( "<!DOCTYPE html>" );
+		final Deque<String> open = new ArrayDeque<>();
+		for ( final Entry<String, Map<String, Object>> element : mapping.entrySet() ) {
+			final String path = element.getKey();
+			while ( !open.isEmpty() && !path.startsWith( open.peek() + "/" ) ) {
+				html.append( "</" ).append( mapping.get( open.pop() ).get( AttributesUtil.TAG_NAME ) ).append( '>' );
+			}
+			final Map<String, Object> data = element.getValue();
+			html.append( '<' ).append( data.get( AttributesUtil.TAG_NAME ) );
+			appendAttribute( html, AttributesUtil.CLASS, data.get( AttributesUtil.CLASS ) );
+			appendAttribute( html, AttributesUtil.ID, data.get( AttributesUtil.ID ) );
+			final Map<String, Map<String, Object>> frame = frames.get( path.substring( 2 ) );
+			if ( frame != null ) {
+				appendAttribute( html, "srcdoc", toHtml( frame ) );
+			}
+			html.append( '>' ).append( escape( (String) data.get( AttributesUtil.TEXT ) ) );
+			open.push( path );
+		}
+		while ( !open.isEmpty() ) {
+			html.append( "</" ).append( mapping.get( open.pop() ).get( AttributesUtil.TAG_NAME ) ).append( '>' );
+		}
+		return html.toString();
+	}
+
+	private static void appendAttribute( final StringBuilder html, final String name, final Object value ) {
+		if ( value != null ) {
+			html.append( ' ' ).append( name ).append( "=\"" ).append( escape( value.toString() ) ).append( '"' );
+		}
+	}
+
+	private static String escape( final String text ) {
+		return text.replace( "&", "&amp;" ).replace( "<", "&lt;" ).replace( ">", "&gt;" ).replace( "\"", "&quot;" );
+	}
+
+	public List<String> getCssAttributes() {
+		return cssAttributes;
+	}
+
+	public int size() {
+		return document.size() + frames.values().stream().mapToInt( Map::size ).sum();
+	}
+
+	/**
+	 * Encodes the given raw mapping into the compact payload format of {@code getAllElementsByPath.js}.
+	 *
+	 * @param mapping
+	 *            The raw mapping in document order.
+	 * @return The compact payload.
+	 */
+	public static Map<String, Object> toCompact( final Map<String, Map<String, Object>> mapping ) {
+		final Map<String, Integer> keyIndices = new LinkedHashMap<>();
+		final Map<Object, Integer> valueIndices = new LinkedHashMap<>();
+		final Map<String, Integer> elementIndices = new HashMap<>();
+		final List<Integer> parents = new ArrayList<>();
+		final List<Integer> indices = new ArrayList<>();
+		final List<List<Integer>> attributes = new ArrayList<>();
+		String rootPath = null;
+		for ( final Entry<String, Map<String, Object>> element : mapping.entrySet() ) {
+			final String path = element.getKey();
+			final int separator = path.lastIndexOf( '/' );
+			final Integer parent = elementIndices.get( path.substring( 0, separator ) );
+			if ( parent == null ) {
+				rootPath = path;
+			}
+			elementIndices.put( path, parents.size() );
+			parents.add( parent != null ? parent : -1 );
+			indices.add( Integer.valueOf( path.substring( path.lastIndexOf( '[' ) + 1, path.length() - 1 ) ) );
+			final List<Integer> keyValues = new ArrayList<>();
+			element.getValue().forEach( ( key, value ) -> {
+				keyValues.add( keyIndices.computeIfAbsent( key, k -> keyIndices.size() ) );
+				keyValues.add( valueIndices.computeIfAbsent( value, v -> valueIndices.size() ) );
+			} );
+			attributes.add( keyValues );
+		}
+		final Map<String, Object> payload = new HashMap<>();
+		payload.put( "rootPath", rootPath );
+		payload.put( "keys", new ArrayList<>( keyIndices.keySet() ) );
+		payload.put( "values", new ArrayList<>( valueIndices.keySet() ) );
+		payload.put( "parents", parents );
+		payload.put( "indices", indices );
+		payload.put( "attributes", attributes );
+		return payload;
+	}
+
+	private void generateTable( final Map<String, Map<String, Object>> target, final int nodes ) {
+		final String body = begin( target );
+		final String table = add( body, "table", 1, null );
+		final String tbody = add( table, "tbody", 1, null );
+		for ( int row = 1; current.size() < nodes; row++ ) {
+			final String tr = add( tbody, "tr", row, null );
+			for ( int column = 1; column <= TABLE_COLUMNS; column++ ) {
+				add( tr, "td", column, text() );
+			}
+		}
+	}
+
+	private void generateNesting( final Map<String, Map<String, Object>> target, final int nodes ) {
+		final String body = begin( target );
+		for ( int chain = 1; current.size() < nodes; chain++ ) {
+			String parent = add( body, "div", chain, null );
+			final int depth = Math.min( MAX_DEPTH, nodes - current.size() );
+			for ( int level = 1; level < depth; level++ ) {
+				parent = add( parent, level % 3 == 0 ? "section" : "div", 1, level == depth - 1 ? text() : null );
+			}
+		}
+	}
+
+	private void generateFrames( final int nodes ) {
+		final int nodesPerDocument = nodes / (FRAME_COUNT + 1);
+		final String body = begin( document );
+		final List<String> framePaths = new ArrayList<>();
+		for ( int frame = 1; frame <= FRAME_COUNT; frame++ ) {
+			framePaths.add( add( body, "iframe", frame, null ).substring( 2 ) );
+		}
+		generateContent( body, nodesPerDocument );
+		for ( final String framePath : framePaths ) {
+			final Map<String, Map<String, Object>> frame = new LinkedHashMap<>();
+			generateContent( begin( frame ), nodesPerDocument );
+			frames.put( framePath, frame );
+		}
+	}
+
+	/**
+	 * Generates a typical layout of sections with headings, paragraphs, lists and links.
+	 */
+	private void generateContent( final String body, final int nodes ) {
+		for ( int section = 1; current.size() < nodes; section++ ) {
+			final String div = add( body, "div", section, null );
+			add( div, "h2", 1, text() );
+			final String ul = add( div, "ul", 1, null );
+			for ( int item = 1; item <= 5; item++ ) {
+				final String li = add( ul, "li", item, null );
+				add( li, "a", 1, text() );
+			}
+			add( div, "p", 1, text() );
+			final String pre = add( div, "pre", 1, text() );
+			add( pre, "span", 1, text() );
+		}
+	}
+
+	private String begin( final Map<String, Map<String, Object>> target ) {
+		current = target;
+		y = 0;
+		final String html = add( "/", "html", 1, null );
+		add( html, "head", 1, null );
+		return add( html, "body", 1, null );
+	}
+
+	private String add( final String parentPath, final String tag, final int index, final String text ) {
+		final String path = parentPath + "/" + tag + "[" + index + "]";
+		final Map<String, Object> data = new HashMap<>();
+		data.put( AttributesUtil.TAG_NAME, tag );
+		data.put( AttributesUtil.TEXT, text != null ? text : "" );
+		data.put( "shown", true );
+		if ( random.nextInt( 3 ) > 0 ) {
+			data.put( AttributesUtil.CLASS, CLASSES[random.nextInt( CLASSES.length )] );
+		}
+		if ( random.nextInt( 10 ) == 0 ) {
+			data.put( AttributesUtil.ID, tag + "-" + current.size() );
+		}
+		final long width = 100 + random.nextInt( 900 );
+		final long height = 10 + random.nextInt( 40 );
+		data.put( AttributesUtil.ABSOLUTE_X, (long) random.nextInt( 200 ) );
+		data.put( AttributesUtil.ABSOLUTE_Y, (long) y );
+		data.put( AttributesUtil.ABSOLUTE_WIDTH, width );
+		data.put( AttributesUtil.ABSOLUTE_HEIGHT, height );
+		data.put( AttributesUtil.X, (long) random.nextInt( 20 ) );
+		data.put( AttributesUtil.Y, (long) random.nextInt( 20 ) );
+		data.put( AttributesUtil.WIDTH, width );
+		data.put( AttributesUtil.HEIGHT, height );
+		for ( final String cssAttribute : cssAttributes ) {
+			data.put( cssAttribute, random.nextInt( 10 ) == 0 ? OTHER_CSS_VALUES[random.nextInt( OTHER_CSS_VALUES.length )]
+					: DEFAULT_CSS_VALUES[random.nextInt( DEFAULT_CSS_VALUES.length )] );
+		}
+		y += height / 4;
+		current.put( path, data );
+		return path;
+	}
+
+	private String text() {
+		final int words = 1 + random.nextInt( 8 );
+		final StringBuilder text = new StringBuilder();
+		for ( int i = 0; i < words; i++ ) {
+			text.append( WORDS[random.nextInt( WORDS.length )] ).append( ' ' );
+		}
+		return text.toString();
+	}
+}
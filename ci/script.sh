@@ -10,8 +10,8 @@ export $(dbus-launch)
 export NSS_USE_SHARED_DB=ENABLED
 
 ###### Maven ######
-# Compile with JDK 8
-mvn ${MVN_ARGS} clean package -DskipTests
+# Compile with JDK 8 (including the benchmarks)
+mvn ${MVN_ARGS} clean package -DskipTests -Pbenchmarks
 
 # Test with JDK 13
 wget --quiet https://github.com/sormuras/bach/raw/master/install-jdk.sh && . ./install-jdk.sh -F 13
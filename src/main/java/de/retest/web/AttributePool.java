@@ -0,0 +1,135 @@
+package de.retest.web;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.retest.recheck.ui.descriptors.Attribute;
+import de.retest.recheck.ui.descriptors.Attributes;
+
+/**
+ * Interns the attribute keys and values, identifying attributes and whole state attribute sets of converted elements,
+ * so that equal ones are shared within a state and across the states of a run (e.g. the many checks of an
+ * {@code AutocheckingRecheckDriver}) instead of being held once per element and state. This only works because
+ * {@link Attribute}s and {@link Attributes} are immutable.
+ *
+ * The pool is bounded: each kind holds at most the number of entries given via {@value #POOL_SIZE_PROPERTY} (default
+ * {@value #DEFAULT_SIZE}) per generation. If the current generation is full, it becomes the previous one and the one
+ * before is dropped; entries that are still used are carried over on their next lookup. A size of {@code 0} disables
+ * the pool.
+ */
+public final class AttributePool {
+
+	public static final String POOL_SIZE_PROPERTY = "de.retest.recheck.web.attributePoolSize";
+
+	static final int DEFAULT_SIZE = 50_000;
+
+	private static final AttributePool shared = new AttributePool( getConfiguredSize() );
+
+	private final Interner<String> strings;
+	private final Interner<Attribute> attributes;
+	private final Interner<Attributes> attributeSets;
+
+	AttributePool( final int size ) {
+		strings = new Interner<>( size );
+		attributes = new Interner<>( size );
+		attributeSets = new Interner<>( size );
+	}
+
+	/**
+	 * @return The pool of the current run.
+	 */
+	public static AttributePool shared() {
+		return shared;
+	}
+
+	/**
+	 * @param value
+	 *            An attribute key or value, may be {@code null}.
+	 * @return The pooled equal string.
+	 */
+	public String string( final String value ) {
+		return strings.intern( value );
+	}
+
+	/**
+	 * @param attribute
+	 *            An attribute, may be {@code null}.
+	 * @return The pooled equal attribute.
+	 */
+	@SuppressWarnings( "unchecked" )
+	public <A extends Attribute> A attribute( final A attribute ) {
+		final Attribute pooled = attributes.intern( attribute );
+		// Equal attributes of different classes are not shared.
+		return pooled != null && pooled.getClass() == attribute.getClass() ? (A) pooled : attribute;
+	}
+
+	/**
+	 * @param attributeSet
+	 *            The state attributes of an element, may be {@code null}.
+	 * @return The pooled equal attributes.
+	 */
+	public Attributes attributes( final Attributes attributeSet ) {
+		return attributeSets.intern( attributeSet );
+	}
+
+	/**
+	 * @return The number of pooled strings, attributes and attribute sets.
+	 */
+	int size() {
+		return strings.size() + attributes.size() + attributeSets.size();
+	}
+
+	static int getConfiguredSize() {
+		final String size = System.getProperty( POOL_SIZE_PROPERTY );
+		if ( size == null || size.trim().isEmpty() ) {
+			return DEFAULT_SIZE;
+		}
+		try {
+			return Math.max( 0, Integer.parseInt( size.trim() ) );
+		} catch ( final NumberFormatException e ) {
+			throw new IllegalArgumentException( "Invalid attribute pool size '" + size + "' given via '"
+					+ POOL_SIZE_PROPERTY + "', use a number of entries or 0 to disable the pool.", e );
+		}
+	}
+
+	private static class Interner<T> {
+
+		private final int capacity;
+		private volatile Map<T, T> current = new ConcurrentHashMap<>();
+		private volatile Map<T, T> previous = new ConcurrentHashMap<>();
+
+		Interner( final int capacity ) {
+			this.capacity = capacity;
+		}
+
+		T intern( final T value ) {
+			if ( value == null || capacity == 0 ) {
+				return value;
+			}
+			final Map<T, T> generation = current;
+			final T known = generation.get( value );
+			if ( known != null ) {
+				return known;
+			}
+			final T carriedOver = previous.get( value );
+			final T candidate = carriedOver != null ? carriedOver : value;
+			final T existing = generation.putIfAbsent( candidate, candidate );
+			if ( existing == null && generation.size() > capacity ) {
+				rotate( generation );
+			}
+			return existing != null ? existing : candidate;
+		}
+
+		int size() {
+			return current.size() + previous.size();
+		}
+
+		private synchronized void rotate( final Map<T, T> full ) {
+			if ( current == full ) {
+				previous = full;
+				current = new ConcurrentHashMap<>();
+			}
+		}
+	}
+
+}
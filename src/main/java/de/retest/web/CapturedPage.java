@@ -0,0 +1,76 @@
+package de.retest.web;
+
+import java.awt.image.BufferedImage;
+
+import org.openqa.selenium.WebDriver;
+
+import de.retest.web.extraction.Extraction;
+import de.retest.web.selenium.UnbreakableDriver;
+import lombok.Getter;
+
+/**
+ * Everything of a page that requires the browser to check it, i.e. the screenshot and the extraction including the
+ * content of all frames, as captured by {@link RecheckSeleniumAdapter#capture(WebDriver)}. The captured page can be
+ * converted later without accessing the browser, e.g. in the background while the test continues.
+ *
+ * If the page did not change since the previous check, nothing needs to be captured and the state of the previous
+ * check is reused instead (see {@link #unchanged(UnbreakableDriver)}).
+ */
+@Getter
+public class CapturedPage {
+
+	/**
+	 * The driver the page was captured with, which is not accessed anymore when converting the page.
+	 */
+	private final WebDriver driver;
+	private final String url;
+	private final String title;
+	private final BufferedImage screenshot;
+	private final Extraction extraction;
+	private final boolean unchanged;
+	/**
+	 * If the page is still shown when converting it, i.e. it is not converted in the background.
+	 */
+	private final boolean current;
+
+	CapturedPage( final WebDriver driver, final String url, final String title, final BufferedImage screenshot,
+			final Extraction extraction ) {
+		this( driver, url, title, screenshot, extraction, false, false );
+	}
+
+	private CapturedPage( final WebDriver driver, final String url, final String title,
+			final BufferedImage screenshot, final Extraction extraction, final boolean unchanged,
+			final boolean current ) {
+		this.driver = driver;
+		this.url = url;
+		this.title = title;
+		this.screenshot = screenshot;
+		this.extraction = extraction;
+		this.unchanged = unchanged;
+		this.current = current;
+	}
+
+	/**
+	 * @param driver
+	 *            The driver of the page, which did not change since the previous check.
+	 * @return A page that converts to the last actual state of the given driver (i.e. the state of the previous check)
+	 *         at the time it is converted.
+	 */
+	public static CapturedPage unchanged( final UnbreakableDriver driver ) {
+		return unchanged( driver, false );
+	}
+
+	/**
+	 * @param driver
+	 *            The driver of the page, which did not change since the previous check.
+	 * @param current
+	 *            If the page is converted right away, so that the screenshot of the reused state can still be taken
+	 *            if the previous check deferred it (see {@link DeferredScreenshot}).
+	 * @return A page that converts to the last actual state of the given driver (i.e. the state of the previous check)
+	 *         at the time it is converted.
+	 */
+	public static CapturedPage unchanged( final UnbreakableDriver driver, final boolean current ) {
+		return new CapturedPage( driver, null, null, null, null, true, current );
+	}
+
+}
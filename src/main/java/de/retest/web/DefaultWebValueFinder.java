@@ -5,6 +5,7 @@ import java.io.InputStream;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -59,6 +60,21 @@ public class DefaultWebValueFinder implements DefaultValueFinder {
 		return defaultValues;
 	}
 
+	/**
+	 * @return The default values per (lower case) tag and attribute, with the default values of all tags as
+	 *         {@code all}.
+	 */
+	public Map<String, Map<String, String>> getDefaultValues() {
+		return Collections.unmodifiableMap( defaultValues );
+	}
+
+	/**
+	 * @return The values that are considered default for attributes without a specific default value.
+	 */
+	public static Set<String> getCommonDefaults() {
+		return Collections.unmodifiableSet( commonDefaults );
+	}
+
 	@Override
 	public boolean isDefaultValue( final IdentifyingAttributes identifyingAttributes, final String attributeKey,
 			final Serializable attributeValue ) {
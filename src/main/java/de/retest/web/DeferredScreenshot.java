@@ -0,0 +1,77 @@
+package de.retest.web;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.image.ImageUtils;
+import de.retest.web.util.PageScript;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A screenshot that is only taken if it is actually needed, i.e. if the checked state differs from the Golden Master
+ * or there is no Golden Master yet. Since the page may have changed between extraction and screenshot, a cheap
+ * fingerprint of the page is taken before extraction and re-validated after the screenshot; the screenshot is dropped
+ * if they do not match.
+ *
+ * Lazy screenshots can be enabled via the {@value #LAZY_SCREENSHOT_PROPERTY} system property, but are only taken when
+ * checking via {@link RecheckWebImpl}.
+ */
+@Slf4j
+class DeferredScreenshot {
+
+	static final String LAZY_SCREENSHOT_PROPERTY = "de.retest.recheck.web.lazyScreenshot";
+
+	private static final PageScript GET_FINGERPRINT_JS = PageScript.of( "/javascript/getFingerprint.js" );
+	private static final int SCROLL_X = 0;
+	private static final int SCROLL_Y = 1;
+
+	private final WebDriver driver;
+	private final WebElement element;
+	private final BiFunction<WebDriver, WebElement, BufferedImage> shooter;
+	private final List<?> fingerprint;
+
+	DeferredScreenshot( final WebDriver driver, final WebElement element,
+			final BiFunction<WebDriver, WebElement, BufferedImage> shooter ) {
+		this.driver = driver;
+		this.element = element;
+		this.shooter = shooter;
+		fingerprint = (List<?>) GET_FINGERPRINT_JS.execute( (JavascriptExecutor) driver, element );
+	}
+
+	static boolean isEnabled() {
+		return Boolean.getBoolean( LAZY_SCREENSHOT_PROPERTY );
+	}
+
+	static DeferredScreenshot prepare( final WebDriver driver, final WebElement element ) {
+		return new DeferredScreenshot( driver, element, ScreenshotProvider::shoot );
+	}
+
+	/**
+	 * Takes the screenshot and attaches it to the given state, if the page did not change in the meantime.
+	 *
+	 * @param rootElement
+	 *            The state that was extracted after this screenshot was prepared.
+	 */
+	void attachTo( final RootElement rootElement ) {
+		final BufferedImage screenshot = shooter.apply( driver, element );
+		if ( screenshot == null ) {
+			return;
+		}
+		// Restores the scroll position, as scrolling screenshots may not.
+		final List<?> current = (List<?>) GET_FINGERPRINT_JS.execute( (JavascriptExecutor) driver, element,
+				fingerprint.get( SCROLL_X ), fingerprint.get( SCROLL_Y ) );
+		if ( !fingerprint.equals( current ) ) {
+			log.warn( "Page changed after checking '{}', dropping the inconsistent screenshot (fingerprint was {}, is {}).",
+					rootElement, fingerprint, current );
+			return;
+		}
+		rootElement.setScreenshot( ImageUtils.image2Screenshot( rootElement.getRetestId(), screenshot ) );
+	}
+
+}
@@ -0,0 +1,148 @@
+package de.retest.web;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.Attributes;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts a tree of peers into elements in three passes over the peers in pre-order (parents before children,
+ * siblings in document order), none of which recurses:
+ *
+ * <ol>
+ * <li>The paths are built from the path of the parent (sequentially, as recheck caches paths globally).</li>
+ * <li>The identifying and state attributes are retrieved, which is the bulk of the work. This is done in parallel (via
+ * the common fork-join pool) for trees with at least {@value #PARALLEL_THRESHOLD_PROPERTY} elements (default
+ * {@value #DEFAULT_PARALLEL_THRESHOLD}, {@code 0} to always convert sequentially).</li>
+ * <li>The retest IDs are assigned and the elements are created. Since the {@code RetestIdProvider} depends on the order
+ * it is consulted in, this is always done sequentially, so the result is identical either way.</li>
+ * </ol>
+ */
+@Slf4j
+class ElementConverter {
+
+	public static final String PARALLEL_THRESHOLD_PROPERTY = "de.retest.recheck.web.parallelConversionThreshold";
+
+	static final int DEFAULT_PARALLEL_THRESHOLD = 5_000;
+
+	private static final int NO_PARENT = -1;
+
+	private final int parallelThreshold;
+
+	private final List<WebElementPeer> peers = new ArrayList<>();
+	private int[] parents;
+
+	ElementConverter() {
+		this( getConfiguredParallelThreshold() );
+	}
+
+	ElementConverter( final int parallelThreshold ) {
+		this.parallelThreshold = parallelThreshold;
+	}
+
+	/**
+	 * @param root
+	 *            The peer to convert along with its descendants, must have data.
+	 * @param parent
+	 *            The already converted parent element.
+	 * @return The converted element.
+	 */
+	Element convert( final WebElementPeer root, final Element parent ) {
+		collect( root );
+		final int size = peers.size();
+
+		final Path[] paths = new Path[size];
+		paths[0] = root.toPath( parent != null ? parent.getIdentifyingAttributes().getPathTyped() : null );
+		for ( int i = 1; i < size; i++ ) {
+			paths[i] = peers.get( i ).toPath( paths[parents[i]] );
+		}
+
+		final IdentifyingAttributes[] identifyingAttributes = new IdentifyingAttributes[size];
+		final Attributes[] stateAttributes = new Attributes[size];
+		final IntConsumer retrieveAttributes = i -> {
+			final WebElementPeer peer = peers.get( i );
+			identifyingAttributes[i] = peer.retrieveIdentifyingAttributes( paths[i] );
+			stateAttributes[i] = AttributePool.shared()
+					.attributes( peer.retrieveStateAttributes( identifyingAttributes[i] ).immutable() );
+		};
+		if ( isParallel( size ) ) {
+			log.debug( "Retrieving attributes of {} elements in parallel.", size );
+			IntStream.range( 0, size ).parallel().forEach( retrieveAttributes );
+		} else {
+			IntStream.range( 0, size ).forEach( retrieveAttributes );
+		}
+
+		final Element[] elements = new Element[size];
+		@SuppressWarnings( "unchecked" )
+		final List<Element>[] children = new List[size];
+		elements[0] = root.createElement( parent, identifyingAttributes[0], stateAttributes[0] );
+		for ( int i = 1; i < size; i++ ) {
+			final int parentIndex = parents[i];
+			elements[i] = peers.get( i ).createElement( elements[parentIndex], identifyingAttributes[i],
+					stateAttributes[i] );
+			if ( children[parentIndex] == null ) {
+				children[parentIndex] = new ArrayList<>( peers.get( parentIndex ).children.size() );
+			}
+			children[parentIndex].add( elements[i] );
+		}
+		for ( int i = 0; i < size; i++ ) {
+			if ( children[i] != null ) {
+				elements[i].addChildren( children[i] );
+			}
+		}
+		return elements[0];
+	}
+
+	/**
+	 * Collects the peers with data in pre-order along with the index of their parent. Peers without data are skipped
+	 * along with their descendants.
+	 */
+	private void collect( final WebElementPeer root ) {
+		final List<Integer> parentIndices = new ArrayList<>();
+		final Deque<WebElementPeer> stack = new ArrayDeque<>();
+		final Deque<Integer> stackParents = new ArrayDeque<>();
+		stack.push( root );
+		stackParents.push( NO_PARENT );
+		while ( !stack.isEmpty() ) {
+			final WebElementPeer peer = stack.pop();
+			final int parentIndex = stackParents.pop();
+			if ( peer.webData == null ) {
+				continue;
+			}
+			final int index = peers.size();
+			peers.add( peer );
+			parentIndices.add( parentIndex );
+			for ( int i = peer.children.size() - 1; i >= 0; i-- ) {
+				stack.push( peer.children.get( i ) );
+				stackParents.push( index );
+			}
+		}
+		parents = parentIndices.stream().mapToInt( Integer::intValue ).toArray();
+	}
+
+	private boolean isParallel( final int size ) {
+		return parallelThreshold > 0 && size >= parallelThreshold && Runtime.getRuntime().availableProcessors() > 1;
+	}
+
+	static int getConfiguredParallelThreshold() {
+		final String threshold = System.getProperty( PARALLEL_THRESHOLD_PROPERTY );
+		if ( threshold == null || threshold.trim().isEmpty() ) {
+			return DEFAULT_PARALLEL_THRESHOLD;
+		}
+		try {
+			return Integer.parseInt( threshold.trim() );
+		} catch ( final NumberFormatException e ) {
+			throw new IllegalArgumentException( "Invalid parallel conversion threshold '" + threshold + "' given via '"
+					+ PARALLEL_THRESHOLD_PROPERTY + "', use a number of elements or 0 to disable it.", e );
+		}
+	}
+
+}
@@ -1,13 +1,17 @@
 package de.retest.web;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
+import org.apache.commons.lang3.StringUtils;
 import org.openqa.selenium.By;
-import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
@@ -16,7 +20,12 @@ import de.retest.recheck.ui.descriptors.Attribute;
 import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.RootElement;
 import de.retest.recheck.ui.descriptors.idproviders.RetestIdProvider;
+import de.retest.web.extraction.JavaScriptExtractionEngine;
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
 import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhaseEvent;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -24,19 +33,124 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class FrameConverter {
 
-	private final String queryJs;
+	private final JavaScriptExtractionEngine engine;
 	private final RetestIdProvider retestIdProvider;
 	private final AttributesProvider attributesProvider;
 	private final DefaultValueFinder defaultValueFinder;
 
 	public void addChildrenFromFrames( final WebDriver driver, final Set<String> cssAttributes,
 			final RootElement lastChecked ) {
+		addChildrenFromFrames( driver, cssAttributes, lastChecked, Collections.emptyMap() );
+	}
+
+	/**
+	 * Adds the content of all frames to the given state. Frames whose content was already extracted along with the page
+	 * (i.e. same-origin frames) are converted directly, all other (i.e. cross-origin) frames are extracted by switching
+	 * to them.
+	 *
+	 * @param driver
+	 *            The driver to switch to cross-origin frames or {@code null} to skip frames that were not extracted.
+	 * @param cssAttributes
+	 *            The CSS attributes to extract.
+	 * @param lastChecked
+	 *            The state to add the frame contents to.
+	 * @param extractedFrames
+	 *            The frame contents already extracted along with the page, mapped by the path of the frame.
+	 */
+	public void addChildrenFromFrames( final WebDriver driver, final Set<String> cssAttributes,
+			final RootElement lastChecked, final Map<String, PathsToWebDataMapping> extractedFrames ) {
+		final long start = System.nanoTime();
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.FRAME_CONVERSION );
+		final int elementsBefore =
+				CheckMetrics.isEnabled() || event.isEnabled() ? lastChecked.countAllContainedElements() : 0;
+		final Map<String, PathsToWebDataMapping> extractedFramesByPath = new HashMap<>( extractedFrames );
+
 		final List<Element> frames =
 				de.retest.web.selenium.By.findElements( lastChecked.getContainedElements(), isFrame() );
 		log.debug( "Found {} frame(s), getting data per frame.", frames.size() );
+		final Deque<Element> nestedFrames = new ArrayDeque<>();
+		int frameCount = frames.size();
 		for ( final Element frame : frames ) {
-			addChildrenFromFrame( driver, cssAttributes, frame );
-			driver.switchTo().defaultContent();
+			final PathsToWebDataMapping mapping = extractedFramesByPath.remove( frame.getIdentifyingAttributes().getPath() );
+			if ( mapping != null ) {
+				nestedFrames.addAll( addChildrenFromMapping( frame, mapping ) );
+			} else if ( driver == null ) {
+				log.warn( "Frame '{}' was not extracted along with the page, skipping it.", frame );
+			} else {
+				log.debug( "Frame '{}' was not extracted along with the page (e.g. cross-origin), switching to it.",
+						frame );
+				addChildrenFromFrame( driver, cssAttributes, frame );
+				driver.switchTo().defaultContent();
+			}
+		}
+		while ( !nestedFrames.isEmpty() ) {
+			final Element frame = nestedFrames.poll();
+			final PathsToWebDataMapping mapping = extractedFramesByPath.remove( frame.getIdentifyingAttributes().getPath() );
+			if ( mapping != null ) {
+				frameCount++;
+				nestedFrames.addAll( addChildrenFromMapping( frame, mapping ) );
+			} else {
+				log.debug( "Nested frame '{}' was not extracted along with the page (e.g. cross-origin), skipping it.",
+						frame );
+			}
+		}
+		final int convertedFrames = frameCount;
+		CheckMetrics.publish( () -> CheckPhaseEvent.frames( System.nanoTime() - start, convertedFrames,
+				lastChecked.countAllContainedElements() - elementsBefore ) );
+		if ( event.isEnabled() ) {
+			event.elementCount( lastChecked.countAllContainedElements() - elementsBefore ).commit();
+		}
+	}
+
+	/**
+	 * Extracts the content of the frames of the given document that were not extracted along with it (i.e.
+	 * cross-origin frames) by switching to them. Afterwards, {@link #addChildrenFromFrames(WebDriver, Set, RootElement,
+	 * Map)} does not need the driver anymore, e.g. to convert the page in the background.
+	 *
+	 * @param driver
+	 *            The driver to switch to cross-origin frames.
+	 * @param cssAttributes
+	 *            The CSS attributes to extract.
+	 * @param document
+	 *            The extracted document.
+	 * @param extractedFrames
+	 *            The frame contents already extracted along with the page, mapped by the path of the frame.
+	 * @return The contents of all frames of the document, mapped by the path of the frame.
+	 */
+	public Map<String, PathsToWebDataMapping> extractFrames( final WebDriver driver, final Set<String> cssAttributes,
+			final PathsToWebDataMapping document, final Map<String, PathsToWebDataMapping> extractedFrames ) {
+		Map<String, PathsToWebDataMapping> frames = extractedFrames;
+		for ( int i = 0; i < document.size(); i++ ) {
+			final String tag = document.getWebData( i ).getTag();
+			final String framePath = StringUtils.stripStart( document.getPath( i ), "/" );
+			if ( !isFrame( tag ) || frames.containsKey( framePath ) ) {
+				continue;
+			}
+			if ( frames == extractedFrames ) {
+				frames = new HashMap<>( extractedFrames );
+			}
+			try {
+				log.debug( "Frame '{}' was not extracted along with the page (e.g. cross-origin), switching to it.",
+						framePath );
+				driver.switchTo().frame( driver.findElement( By.xpath( "/" + framePath ) ) );
+				frames.put( framePath, engine.extractFrame( driver, cssAttributes, framePath ) );
+			} catch ( final Exception e ) {
+				log.error( "Exception retrieving data content of frame '{}'.", framePath, e );
+			} finally {
+				driver.switchTo().defaultContent();
+			}
+		}
+		return frames;
+	}
+
+	private List<Element> addChildrenFromMapping( final Element frame, final PathsToWebDataMapping mapping ) {
+		try {
+			log.debug( "Converting already extracted data content of frame '{}'.", frame );
+			final List<Element> frameContent = addChildren( frame, mapping );
+			return de.retest.web.selenium.By.findElements( frameContent, isFrame() );
+		} catch ( final Exception e ) {
+			log.error( "Exception converting data content of frame '{}'.", frame, e );
+			return Collections.emptyList();
 		}
 	}
 
@@ -50,17 +164,18 @@ public class FrameConverter {
 			driver.switchTo().frame( frameWebElement );
 
 			log.debug( "Retrieving data content of frame '{}'.", frame );
-			final JavascriptExecutor jsExecutor = (JavascriptExecutor) driver;
-			@SuppressWarnings( "unchecked" )
-			final PathsToWebDataMapping mapping = new PathsToWebDataMapping( framePath,
-					(Map<String, Map<String, Object>>) jsExecutor.executeScript( queryJs, cssAttributes ) );
-			final RootElement frameContent = convert( mapping, getFrameTitle( frame ), framePath );
-			frame.addChildren( frameContent.getContainedElements() );
+			addChildren( frame, engine.extractFrame( driver, cssAttributes, framePath ) );
 		} catch ( final Exception e ) {
 			log.error( "Exception retrieving data content of frame '{}'.", frame, e );
 		}
 	}
 
+	private List<Element> addChildren( final Element frame, final PathsToWebDataMapping mapping ) {
+		final RootElement frameContent = convert( mapping, getFrameTitle( frame ) );
+		frame.addChildren( frameContent.getContainedElements() );
+		return frameContent.getContainedElements();
+	}
+
 	private String getFrameTitle( final Element frame ) {
 		final String prefix = "frame-";
 		final Attribute id = frame.getIdentifyingAttributes().getAttribute( AttributesUtil.ID );
@@ -74,24 +189,18 @@ public class FrameConverter {
 		return prefix + frame.getRetestId();
 	}
 
-	private RootElement convert( final PathsToWebDataMapping mapping, final String frameTitle,
-			final String framePath ) {
+	private RootElement convert( final PathsToWebDataMapping mapping, final String frameTitle ) {
 		final PeerConverter peerConverter = new PeerConverter( retestIdProvider, attributesProvider, mapping,
-				frameTitle, null, defaultValueFinder, framePath ) {
-			@Override
-			protected boolean isRoot( final String parentPath ) {
-				// Handle trailing slashes.
-				return framePath.equals( parentPath.replaceAll( "/$", "" ) );
-			}
-		};
+				frameTitle, null, defaultValueFinder );
 		return peerConverter.convertToPeers();
 	}
 
 	private static Predicate<Element> isFrame() {
-		return element -> {
-			final String type = element.getIdentifyingAttributes().getType();
-			return Stream.of( "iframe", "frame" ).anyMatch( type::equalsIgnoreCase );
-		};
+		return element -> isFrame( element.getIdentifyingAttributes().getType() );
+	}
+
+	private static boolean isFrame( final String type ) {
+		return type != null && Stream.of( "iframe", "frame" ).anyMatch( type::equalsIgnoreCase );
 	}
 
 }
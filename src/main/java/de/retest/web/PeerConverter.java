@@ -1,9 +1,6 @@
 package de.retest.web;
 
 import java.awt.image.BufferedImage;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import de.retest.recheck.ui.DefaultValueFinder;
 import de.retest.recheck.ui.descriptors.RootElement;
@@ -12,48 +9,56 @@ import de.retest.web.mapping.PathsToWebDataMapping;
 import de.retest.web.mapping.WebData;
 import de.retest.web.mapping.WebDataFilter;
 
+/**
+ * Converts the extracted mapping into a tree of peers in a single pass over the elements in document order, using the
+ * parent indices resolved by the {@link PathsToWebDataMapping}. Neither this nor the conversion of the peers into
+ * elements recurses, so the depth of the page is not limited by the call stack.
+ */
 class PeerConverter {
 
-	private final Map<String, WebElementPeer> converted = new HashMap<>();
-
 	private final RetestIdProvider retestIdProvider;
 	private final AttributesProvider attributesProvider;
 	private final PathsToWebDataMapping mapping;
 	private final String title;
 	private final BufferedImage screenshot;
 	private final DefaultValueFinder defaultValueFinder;
-	private final String rootParentPath;
 
 	private RootElementPeer root = null;
 
 	public PeerConverter( final RetestIdProvider retestIdProvider, final AttributesProvider attributesProvider,
 			final PathsToWebDataMapping mapping, final String title, final BufferedImage screenshot,
-			final DefaultValueFinder defaultValueFinder, final String rootPath ) {
+			final DefaultValueFinder defaultValueFinder ) {
 		this.retestIdProvider = retestIdProvider;
 		this.attributesProvider = attributesProvider;
 		this.mapping = mapping;
 		this.title = title;
 		this.screenshot = screenshot;
 		this.defaultValueFinder = defaultValueFinder;
-		rootParentPath = getRootParentPath( rootPath );
-	}
-
-	protected String getRootParentPath( final String rootPath ) {
-		if ( rootPath == null ) {
-			return null;
-		}
-		return rootPath.substring( 0, rootPath.lastIndexOf( "/" ) );
 	}
 
 	public RootElement convertToPeers() {
 		retestIdProvider.reset();
-		for ( final Entry<String, WebData> entry : mapping ) {
-			final String path = entry.getKey();
-			final WebData webData = entry.getValue();
-			if ( !isRoot( getParentPath( path ) ) && WebDataFilter.shouldIgnore( webData ) ) {
-				continue;
+		final int size = mapping.size();
+		// Ignored elements are still converted if they have converted descendants, hence resolve this bottom-up.
+		final boolean[] convert = new boolean[size];
+		final int[] childCounts = new int[size];
+		for ( int i = size - 1; i >= 0; i-- ) {
+			final int parent = mapping.getParentIndex( i );
+			if ( parent == PathsToWebDataMapping.NO_PARENT ) {
+				convert[i] = true;
+			} else if ( convert[i] || !WebDataFilter.shouldIgnore( mapping.getWebData( i ) ) ) {
+				convert[i] = true;
+				convert[parent] = true;
+				childCounts[parent]++;
+			}
+		}
+
+		final WebElementPeer[] peers = new WebElementPeer[size];
+		for ( int i = 0; i < size; i++ ) {
+			if ( convert[i] ) {
+				peers[i] = convertToPeer( i, peers );
+				peers[i].ensureChildCapacity( childCounts[i] );
 			}
-			convertToPeer( path, webData );
 		}
 
 		if ( root == null ) {
@@ -63,44 +68,24 @@ class PeerConverter {
 		return root.toElement( null );
 	}
 
-	private WebElementPeer convertToPeer( final String path, final WebData webData ) {
-		final String parentPath = getParentPath( path );
-		WebElementPeer peer = converted.get( path );
-
-		if ( peer != null ) {
-			return peer;
-		}
+	private WebElementPeer convertToPeer( final int index, final WebElementPeer[] peers ) {
+		final String path = mapping.getPath( index );
+		final WebData webData = mapping.getWebData( index );
+		final int parent = mapping.getParentIndex( index );
 
-		if ( isRoot( parentPath ) ) {
-			assert root == null : "We can only have one root element!";
+		if ( parent == PathsToWebDataMapping.NO_PARENT ) {
+			if ( root != null ) {
+				throw new ConversionException( "Element '" + path + "' has no parent within the extracted elements, "
+						+ "but '" + mapping.getRootPath() + "' is the root element already." );
+			}
 			root = new RootElementPeer( retestIdProvider, attributesProvider, webData, path, title, screenshot,
 					defaultValueFinder );
-			peer = root;
-		} else {
-			peer = new WebElementPeer( retestIdProvider, attributesProvider, webData, path, defaultValueFinder );
-			WebElementPeer parent = converted.get( parentPath );
-			if ( parent == null ) {
-				parent = convertToPeer( parentPath, mapping.getWebData( parentPath ) );
-			}
-			parent.addChild( peer );
+			return root;
 		}
 
-		converted.put( path, peer );
+		final WebElementPeer peer =
+				new WebElementPeer( retestIdProvider, attributesProvider, webData, path, defaultValueFinder );
+		peers[parent].addChild( peer );
 		return peer;
 	}
-
-	protected boolean isRoot( final String parentPath ) {
-		return parentPath == null || parentPath.equals( rootParentPath );
-	}
-
-	static String getParentPath( final String path ) {
-		if ( !path.contains( "/" ) ) {
-			return null;
-		}
-		final String parentPath = path.substring( 0, path.lastIndexOf( '/' ) );
-		if ( parentPath.length() == 1 ) {
-			return null;
-		}
-		return parentPath;
-	}
 }
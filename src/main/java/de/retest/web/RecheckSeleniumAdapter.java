@@ -3,16 +3,10 @@ package de.retest.web;
 import static de.retest.web.ScreenshotProvider.shoot;
 
 import java.awt.image.BufferedImage;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
-import org.apache.commons.io.IOUtils;
-import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.RemoteWebElement;
@@ -24,15 +18,22 @@ import de.retest.recheck.ui.DefaultValueFinder;
 import de.retest.recheck.ui.descriptors.RootElement;
 import de.retest.recheck.ui.descriptors.idproviders.RetestIdProvider;
 import de.retest.recheck.util.RetestIdProviderUtil;
+import de.retest.web.extraction.Extraction;
+import de.retest.web.extraction.ExtractionEngine;
+import de.retest.web.extraction.JavaScriptExtractionEngine;
+import de.retest.web.jfr.CheckContext;
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
 import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhaseEvent;
+import de.retest.web.selenium.AutocheckingRecheckDriver;
 import de.retest.web.selenium.UnbreakableDriver;
 import de.retest.web.util.SeleniumWrapperUtil;
 import de.retest.web.util.SeleniumWrapperUtil.WrapperOf;
 
 public class RecheckSeleniumAdapter implements RecheckAdapter {
 
-	private static final String GET_ALL_ELEMENTS_BY_PATH_JS_PATH = "/javascript/getAllElementsByPath.js";
-
 	private static final Logger logger = LoggerFactory.getLogger( RecheckSeleniumAdapter.class );
 
 	private final DefaultValueFinder defaultValueFinder = new DefaultWebValueFinder();
@@ -40,6 +41,8 @@ public class RecheckSeleniumAdapter implements RecheckAdapter {
 	private final RetestIdProvider retestIdProvider;
 	private final AttributesProvider attributesProvider;
 
+	private Runnable deferredScreenshot;
+
 	public RecheckSeleniumAdapter( final RetestIdProvider retestIdProvider,
 			final AttributesProvider attributesProvider ) {
 		this.retestIdProvider = retestIdProvider;
@@ -59,7 +62,7 @@ public class RecheckSeleniumAdapter implements RecheckAdapter {
 		if ( toVerify instanceof RemoteWebElement ) {
 			return true;
 		}
-		if ( toVerify instanceof UnbreakableDriver ) {
+		if ( toVerify instanceof UnbreakableDriver || toVerify instanceof CapturedPage ) {
 			return true;
 		}
 		if ( SeleniumWrapperUtil.isWrapper( WrapperOf.DRIVER, toVerify ) ) {
@@ -82,6 +85,9 @@ public class RecheckSeleniumAdapter implements RecheckAdapter {
 		if ( toVerify instanceof UnbreakableDriver ) {
 			return convertWebDriver( (UnbreakableDriver) toVerify );
 		}
+		if ( toVerify instanceof CapturedPage ) {
+			return convertCapturedPage( (CapturedPage) toVerify );
+		}
 		if ( SeleniumWrapperUtil.isWrapper( WrapperOf.DRIVER, toVerify ) ) {
 			return convert( SeleniumWrapperUtil.getWrapped( WrapperOf.DRIVER, toVerify ) );
 		}
@@ -102,40 +108,124 @@ public class RecheckSeleniumAdapter implements RecheckAdapter {
 	}
 
 	private Set<RootElement> convert( final WebDriver driver, final RemoteWebElement webElement ) {
-		// Do not inline this, as we want the screenshot created before retrieving elements
-		final BufferedImage screenshot = shoot( driver, webElement );
+		final String url = driver.getCurrentUrl();
+		CheckContext.setUrl( url );
+		// Do not inline this, as we want the screenshot created (or at least prepared) before retrieving elements
+		final DeferredScreenshot deferred =
+				DeferredScreenshot.isEnabled() ? DeferredScreenshot.prepare( driver, webElement ) : null;
+		final BufferedImage screenshot = deferred == null ? shoot( driver, webElement ) : null;
 		final Set<String> cssAttributes = attributesProvider.getCssAttributes();
-		final JavascriptExecutor jsExecutor = (JavascriptExecutor) driver;
-		@SuppressWarnings( "unchecked" )
-		final Map<String, Map<String, Object>> tagMapping =
-				(Map<String, Map<String, Object>>) jsExecutor.executeScript( getQueryJS(), cssAttributes, webElement );
-		final RootElement lastChecked = convert( tagMapping, driver.getCurrentUrl(), driver.getTitle(), screenshot );
+		final Extraction extraction = getExtractionEngine( driver ).extract( driver, webElement, cssAttributes );
+		final RootElement lastChecked =
+				convert( extraction.getDocument(), url, driver.getTitle(), screenshot );
 
-		final FrameConverter frameConverter =
-				new FrameConverter( getQueryJS(), retestIdProvider, attributesProvider, defaultValueFinder );
-		frameConverter.addChildrenFromFrames( driver, cssAttributes, lastChecked );
+		createFrameConverter().addChildrenFromFrames( driver, cssAttributes, lastChecked, extraction.getFrames() );
 
 		if ( driver instanceof UnbreakableDriver ) {
 			((UnbreakableDriver) driver).setLastActualState( lastChecked );
 		}
+		deferredScreenshot = deferred != null ? () -> deferred.attachTo( lastChecked ) : null;
 
 		return Collections.singleton( lastChecked );
 	}
 
+	/**
+	 * Captures everything of the current page of the given driver that requires the browser, i.e. the screenshot
+	 * (which is never deferred) and the extraction including cross-origin frames. The returned page can then be
+	 * converted via {@link #convert(Object)} without accessing the browser.
+	 *
+	 * @param driver
+	 *            The driver of the page to capture.
+	 * @return The captured page.
+	 */
+	public CapturedPage capture( final WebDriver driver ) {
+		logger.info( "Capturing attributes for each element." );
+		final String url = driver.getCurrentUrl();
+		CheckContext.setUrl( url );
+		final BufferedImage screenshot = shoot( driver, null );
+		final Set<String> cssAttributes = attributesProvider.getCssAttributes();
+		final Extraction extraction = getExtractionEngine( driver ).extract( driver, null, cssAttributes );
+		final Map<String, PathsToWebDataMapping> frames = createFrameConverter().extractFrames( driver, cssAttributes,
+				extraction.getDocument(), extraction.getFrames() );
+		return new CapturedPage( driver, url, driver.getTitle(), screenshot,
+				new Extraction( extraction.getDocument(), frames ) );
+	}
+
+	Set<RootElement> convertCapturedPage( final CapturedPage page ) {
+		if ( page.isUnchanged() ) {
+			return reuseLastActualState( page );
+		}
+		CheckContext.setUrl( page.getUrl() );
+		final Extraction extraction = page.getExtraction();
+		final RootElement lastChecked =
+				convert( extraction.getDocument(), page.getUrl(), page.getTitle(), page.getScreenshot() );
+		// All frames were extracted when capturing the page, so the browser is not accessed anymore.
+		createFrameConverter().addChildrenFromFrames( null, Collections.emptySet(), lastChecked,
+				extraction.getFrames() );
+
+		if ( page.getDriver() instanceof UnbreakableDriver ) {
+			((UnbreakableDriver) page.getDriver()).setLastActualState( lastChecked );
+		}
+		deferredScreenshot = null;
+
+		return Collections.singleton( lastChecked );
+	}
+
+	private Set<RootElement> reuseLastActualState( final CapturedPage page ) {
+		final RootElement previous = page.getDriver() instanceof UnbreakableDriver
+				? ((UnbreakableDriver) page.getDriver()).getLastActualState() : null;
+		if ( previous == null ) {
+			throw new IllegalStateException( "No previous state to reuse for the unchanged page." );
+		}
+		logger.info( "Reusing the state of the previous check, as the page did not change." );
+		// The previous check may have deferred its screenshot without needing it, but this check may need it.
+		final DeferredScreenshot deferred =
+				page.isCurrent() && previous.getScreenshot() == null && DeferredScreenshot.isEnabled()
+						? DeferredScreenshot.prepare( page.getDriver(), null ) : null;
+		deferredScreenshot = deferred != null ? () -> deferred.attachTo( previous ) : null;
+		return Collections.singleton( previous );
+	}
+
+	private FrameConverter createFrameConverter() {
+		// Frames that were not extracted along with the page (e.g. cross-origin) are always extracted via JavaScript
+		return new FrameConverter( new JavaScriptExtractionEngine(), retestIdProvider, attributesProvider,
+				defaultValueFinder );
+	}
+
 	public RootElement convert( final Map<String, Map<String, Object>> tagMapping, final String url, final String title,
 			final BufferedImage screenshot ) {
-		final PathsToWebDataMapping mapping = new PathsToWebDataMapping( tagMapping );
+		return convert( new PathsToWebDataMapping( tagMapping ), url, title, screenshot );
+	}
 
+	RootElement convert( final PathsToWebDataMapping mapping, final String url, final String title,
+			final BufferedImage screenshot ) {
 		logger.info( "Checking website {} with {} elements.", url, mapping.size() );
-		return new PeerConverter( retestIdProvider, attributesProvider, mapping, title, screenshot, defaultValueFinder,
-				mapping.getRootPath() ).convertToPeers();
+		final long start = System.nanoTime();
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.PEER_CONVERSION );
+		final RootElement converted = new PeerConverter( retestIdProvider, attributesProvider, mapping, title,
+				screenshot, defaultValueFinder ).convertToPeers();
+		CheckMetrics.publish( () -> CheckPhaseEvent.conversion( System.nanoTime() - start, mapping.size() ) );
+		event.elementCount( mapping.size() ).commit();
+		return converted;
+	}
+
+	private static ExtractionEngine getExtractionEngine( final WebDriver driver ) {
+		if ( driver instanceof AutocheckingRecheckDriver ) {
+			final ExtractionEngine engine = ((AutocheckingRecheckDriver) driver).getExtractionEngine();
+			if ( engine != null ) {
+				return engine;
+			}
+		}
+		return ExtractionEngine.getConfigured();
 	}
 
-	private String getQueryJS() {
-		try ( final InputStream url = getClass().getResourceAsStream( GET_ALL_ELEMENTS_BY_PATH_JS_PATH ) ) {
-			return String.join( "\n", IOUtils.readLines( url, StandardCharsets.UTF_8 ) );
-		} catch ( final IOException e ) {
-			throw new UncheckedIOException( "Exception reading '" + GET_ALL_ELEMENTS_BY_PATH_JS_PATH + "'.", e );
+	/**
+	 * Takes the screenshot of the last converted state, if it was deferred (see {@link DeferredScreenshot}).
+	 */
+	void takeDeferredScreenshot() {
+		if ( deferredScreenshot != null ) {
+			deferredScreenshot.run();
+			deferredScreenshot = null;
 		}
 	}
 
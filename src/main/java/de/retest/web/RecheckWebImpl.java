@@ -1,27 +1,69 @@
 package de.retest.web;
 
 import java.io.File;
+import java.util.Set;
 
 import de.retest.recheck.RecheckAdapter;
 import de.retest.recheck.RecheckImpl;
 import de.retest.recheck.RecheckOptions;
+import de.retest.recheck.persistence.RecheckSutState;
+import de.retest.recheck.report.ActionReplayResult;
+import de.retest.recheck.report.action.ActionReplayData;
+import de.retest.recheck.report.action.WindowRetriever;
+import de.retest.recheck.ui.DefaultValueFinder;
+import de.retest.recheck.ui.descriptors.RootElement;
 import de.retest.recheck.ui.descriptors.SutState;
+import de.retest.recheck.util.FileUtil;
+import de.retest.web.jfr.CheckContext;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhaseEvent;
+import de.retest.web.selenium.HealingMemo;
 import de.retest.web.selenium.UnbreakableDriver;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * This class is specifically needed in conjunction with the {@link UnbreakableDriver}. For simple explicit calls to
  * {@link #check(Object, String)}, a {@link RecheckImpl} suffices.
+ *
+ * If enabled via the {@value #SKIP_UNCHANGED_PROPERTY} system property, the {@link SubtreeHashes hash} of the checked
+ * state is compared to a hash persisted next to the Golden Master (see {@link StateHashFile}). If they match, the Golden
+ * Master is neither loaded nor compared. While enabled, the hash is written next to new Golden Masters as well as next
+ * to loaded ones without an up-to-date hash.
+ *
+ * Broken locators healed by the {@link UnbreakableDriver} are remembered next to the Golden Master (see
+ * {@link HealingMemo}), so that subsequent runs do not have to heal them again. This can be disabled via the
+ * {@value #HEALING_MEMO_PROPERTY} system property.
+ *
+ * If screenshots are deferred (see {@link DeferredScreenshot}), they are only taken when the Golden Master is created
+ * or differs from the checked state.
  */
+@Slf4j
 public class RecheckWebImpl extends RecheckImpl {
 
+	public static final String SKIP_UNCHANGED_PROPERTY = "de.retest.recheck.web.skipUnchanged";
+	public static final String HEALING_MEMO_PROPERTY = "de.retest.recheck.web.healingMemo";
+
+	private final RecheckOptions options;
+	private final String suiteName;
+	private String testName;
+	private boolean goldenMastersResolvable = true;
 	private UnbreakableDriver driver;
+	private StateRecordingAdapter checking;
 
 	public RecheckWebImpl() {
-		super();
+		this( RecheckOptions.builder().build() );
 	}
 
 	public RecheckWebImpl( final RecheckOptions opts ) {
 		super( opts );
+		options = opts;
+		suiteName = opts.getNamingStrategy().getSuiteName();
+	}
+
+	@Override
+	public void startTest( final String testName ) {
+		super.startTest( testName );
+		this.testName = testName;
 	}
 
 	@Override
@@ -29,6 +71,9 @@ public class RecheckWebImpl extends RecheckImpl {
 		if ( driver instanceof UnbreakableDriver ) {
 			this.driver = (UnbreakableDriver) driver;
 		}
+		if ( driver instanceof CapturedPage && ((CapturedPage) driver).getDriver() instanceof UnbreakableDriver ) {
+			this.driver = (UnbreakableDriver) ((CapturedPage) driver).getDriver();
+		}
 		super.check( driver, seleniumAdapter, currentStep );
 	}
 
@@ -40,6 +85,70 @@ public class RecheckWebImpl extends RecheckImpl {
 		super.check( driver, currentStep );
 	}
 
+	@Override
+	protected ActionReplayResult createActionReplayResult( final Object toVerify, final RecheckAdapter adapter,
+			final String currentStep ) {
+		checking = new StateRecordingAdapter( adapter, currentStep );
+		final StateRecordingAdapter recording = checking;
+		final long start = System.nanoTime();
+		try ( final CheckContext context = CheckContext.enter( currentStep ) ) {
+			final ActionReplayResult unchanged = checkUnchanged( toVerify, currentStep );
+			if ( unchanged != null ) {
+				return unchanged;
+			}
+			return super.createActionReplayResult( toVerify, checking, currentStep );
+		} finally {
+			checking = null;
+			// Everything besides the conversion, i.e. loading and comparing the Golden Master.
+			CheckMetrics.publish( () -> CheckPhaseEvent.comparison(
+					System.nanoTime() - start - recording.conversionNanos,
+					recording.actualState != null ? recording.actualState.getRootElements().stream()
+							.mapToInt( RootElement::countAllContainedElements ).sum() : 0 ) );
+		}
+	}
+
+	/**
+	 * @return The result of the check if the actual state is identical to the Golden Master according to their hashes,
+	 *         otherwise {@code null} to load and compare the Golden Master.
+	 */
+	private ActionReplayResult checkUnchanged( final Object toVerify, final String currentStep ) {
+		if ( driver == null || !isSkipUnchanged() ) {
+			return null;
+		}
+		final File goldenMaster = getGoldenMaster( currentStep );
+		final String expectedHash = goldenMaster != null ? new StateHashFile( goldenMaster ).read() : null;
+		if ( expectedHash == null ) {
+			return null;
+		}
+		final SutState actualState = checking.convertState( toVerify );
+		if ( !expectedHash.equals( new SubtreeHashes().get( actualState ) ) ) {
+			return null;
+		}
+		log.debug( "State of step '{}' is identical to Golden Master '{}', skipping comparison.", currentStep,
+				goldenMaster );
+		// The states are identical, so the actual state serves as well for healing.
+		driver.setLastExpectedState( actualState.getRootElements().get( 0 ) );
+		driver.setHealingMemo( loadHealingMemo( goldenMaster, actualState ) );
+		return ActionReplayResult.withoutDifference(
+				ActionReplayData.withoutTarget( currentStep, goldenMaster.getPath() ),
+				WindowRetriever.of( actualState ), 0L );
+	}
+
+	/**
+	 * Resolves the Golden Master of the given step like {@link RecheckImpl} does, which is verified against the Golden
+	 * Masters it actually loads.
+	 *
+	 * @return The Golden Master of the given step or {@code null}, if it cannot be resolved.
+	 */
+	@SuppressWarnings( "deprecation" )
+	private File getGoldenMaster( final String currentStep ) {
+		if ( !goldenMastersResolvable || testName == null || options.getFileNamerStrategy() != null ) {
+			return null;
+		}
+		return options.getProjectLayout().getGoldenMaster( suiteName, testName, FileUtil.normalize( currentStep ) )
+				.toFile();
+	}
+
 	@Override
 	public SutState loadExpected( final File file ) {
 		final SutState result = super.loadExpected( file );
@@ -49,8 +158,123 @@ public class RecheckWebImpl extends RecheckImpl {
 		}
 		if ( result != null ) {
 			driver.setLastExpectedState( result.getRootElements().get( 0 ) );
+			driver.setHealingMemo( loadHealingMemo( file, result ) );
+			final SutState actualState = checking != null ? checking.actualState : null;
+			if ( actualState != null ) {
+				compareToActual( file, result, actualState );
+			}
 		}
 		return result;
 	}
 
+	private void compareToActual( final File file, final SutState expectedState, final SutState actualState ) {
+		final SubtreeHashes hashes = new SubtreeHashes();
+		final String expectedHash = hashes.get( expectedState );
+		if ( !expectedHash.equals( hashes.get( actualState ) ) ) {
+			checking.takeDeferredScreenshot();
+		}
+		if ( isSkipUnchanged() ) {
+			verifyGoldenMaster( file );
+			final StateHashFile hashFile = new StateHashFile( file );
+			if ( !expectedHash.equals( hashFile.read() ) ) {
+				hashFile.write( expectedHash );
+			}
+		}
+	}
+
+	private void verifyGoldenMaster( final File file ) {
+		final File resolved = getGoldenMaster( checking.currentStep );
+		if ( resolved != null && !resolved.getAbsoluteFile().equals( file.getAbsoluteFile() ) ) {
+			log.warn( "Golden Master '{}' differs from the resolved '{}', not skipping unchanged checks anymore.", file,
+					resolved );
+			goldenMastersResolvable = false;
+		}
+	}
+
+	@Override
+	public SutState createNew( final File file, final SutState state ) {
+		if ( checking != null ) {
+			checking.takeDeferredScreenshot();
+		}
+		final SutState result = super.createNew( file, state );
+		if ( isSkipUnchanged() ) {
+			new StateHashFile( file ).write( new SubtreeHashes().get( state ) );
+		}
+		return result;
+	}
+
+	private static HealingMemo loadHealingMemo( final File file, final SutState expectedState ) {
+		// The state is only hashed if there is a memo to validate or to write.
+		return isHealingMemo() ? HealingMemo.load( file, () -> new SubtreeHashes().get( expectedState ) ) : null;
+	}
+
+	private static boolean isHealingMemo() {
+		return Boolean.parseBoolean( System.getProperty( HEALING_MEMO_PROPERTY, "true" ) );
+	}
+
+	private static boolean isSkipUnchanged() {
+		return Boolean.getBoolean( SKIP_UNCHANGED_PROPERTY );
+	}
+
+	/**
+	 * Remembers the converted state, so that it can be compared to the hash of the Golden Master before loading it. The
+	 * state is only converted once per check, even if it is converted before delegating to {@link RecheckImpl}.
+	 */
+	private static class StateRecordingAdapter implements RecheckAdapter {
+
+		private final RecheckAdapter delegate;
+		private final String currentStep;
+		private Set<RootElement> converted;
+		private SutState actualState;
+		private long conversionNanos;
+
+		StateRecordingAdapter( final RecheckAdapter delegate, final String currentStep ) {
+			this.delegate = delegate;
+			this.currentStep = currentStep;
+		}
+
+		@Override
+		public RecheckAdapter initialize( final RecheckOptions options ) {
+			delegate.initialize( options );
+			return this;
+		}
+
+		@Override
+		public boolean canCheck( final Object toVerify ) {
+			return delegate.canCheck( toVerify );
+		}
+
+		@Override
+		public Set<RootElement> convert( final Object toVerify ) {
+			if ( converted != null ) {
+				return converted;
+			}
+			final long start = System.nanoTime();
+			converted = delegate.convert( toVerify );
+			conversionNanos += System.nanoTime() - start;
+			actualState = new SutState( converted );
+			return converted;
+		}
+
+		SutState convertState( final Object toVerify ) {
+			return RecheckSutState.convert( toVerify, this );
+		}
+
+		@Override
+		public DefaultValueFinder getDefaultValueFinder() {
+			return delegate.getDefaultValueFinder();
+		}
+
+		@Override
+		public void notifyAboutDifferences( final ActionReplayResult actionReplayResult ) {
+			delegate.notifyAboutDifferences( actionReplayResult );
+		}
+
+		void takeDeferredScreenshot() {
+			if ( delegate instanceof RecheckSeleniumAdapter ) {
+				((RecheckSeleniumAdapter) delegate).takeDeferredScreenshot();
+			}
+		}
+	}
+
 }
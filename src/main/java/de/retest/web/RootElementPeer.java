@@ -3,9 +3,9 @@ package de.retest.web;
 import java.awt.image.BufferedImage;
 
 import de.retest.recheck.ui.DefaultValueFinder;
+import de.retest.recheck.ui.descriptors.Attributes;
 import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
-import de.retest.recheck.ui.descriptors.MutableAttributes;
 import de.retest.recheck.ui.descriptors.RootElement;
 import de.retest.recheck.ui.descriptors.idproviders.RetestIdProvider;
 import de.retest.recheck.ui.image.ImageUtils;
@@ -30,8 +30,12 @@ public class RootElementPeer extends WebElementPeer {
 		if ( webData == null ) {
 			throw new IllegalStateException( "RootElement was not properly initialized!" );
 		}
-		final IdentifyingAttributes identifyingAttributes = retrieveIdentifyingAttributes();
+		return (RootElement) super.toElement( parent );
+	}
 
+	@Override
+	protected RootElement createElement( final Element parent, final IdentifyingAttributes identifyingAttributes,
+			final Attributes stateAttributes ) {
 		// If this is a WebElement
 		String screen = title;
 		String title = this.title;
@@ -40,13 +44,9 @@ public class RootElementPeer extends WebElementPeer {
 			title = identifyingAttributes.getPath();
 		}
 
-		final MutableAttributes stateAttributes = retrieveStateAttributes( identifyingAttributes );
 		final String retestId = retestIdProvider.getRetestId( identifyingAttributes );
 		final Screenshot ss = ImageUtils.image2Screenshot( retestId, screenshot );
-		final RootElement rootElement =
-				new RootElement( retestId, identifyingAttributes, stateAttributes.immutable(), ss, screen, 1, title );
-		rootElement.addChildren( convertChildren( rootElement ) );
-		return rootElement;
+		return new RootElement( retestId, identifyingAttributes, stateAttributes, ss, screen, 1, title );
 	}
 
 }
@@ -14,6 +14,11 @@ import org.slf4j.LoggerFactory;
 import com.assertthat.selenium_shutterbug.core.Shutterbug;
 import com.assertthat.selenium_shutterbug.utils.web.ScrollStrategy;
 
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhaseEvent;
+
 public class ScreenshotProvider {
 
 	private static final String VIEWPORT_ONLY_SCREENSHOT_PROPERTY = "de.retest.recheck.web.viewportOnlyScreenshot";
@@ -27,6 +32,19 @@ public class ScreenshotProvider {
 	private ScreenshotProvider() {}
 
 	public static BufferedImage shoot( final WebDriver driver, final WebElement element ) {
+		final long start = System.nanoTime();
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.SCREENSHOT );
+		final BufferedImage screenshot = shootQuietly( driver, element );
+		CheckMetrics.publish( () -> CheckPhaseEvent.screenshot( System.nanoTime() - start, screenshot ) );
+		if ( screenshot != null ) {
+			// The size of the uncompressed ARGB image
+			event.byteCount( 4L * screenshot.getWidth() * screenshot.getHeight() );
+		}
+		event.commit();
+		return screenshot;
+	}
+
+	private static BufferedImage shootQuietly( final WebDriver driver, final WebElement element ) {
 		try {
 			if ( element != null ) {
 				return shootElement( driver, element );
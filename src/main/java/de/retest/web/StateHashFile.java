@@ -0,0 +1,84 @@
+package de.retest.web;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.DigestInputStream;
+import java.util.Properties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Persists the {@link SubtreeHashes hash} of a Golden Master next to its {@code retest.xml}. As the Golden Master may
+ * be changed by other tools (e.g. when accepting differences), the file also contains a digest of the
+ * {@code retest.xml} it was written for and is ignored if that does not match anymore.
+ */
+@Slf4j
+class StateHashFile {
+
+	static final String FILE_NAME = "state-hash.properties";
+
+	private static final String GOLDEN_MASTER_KEY = "goldenMaster";
+	private static final String STATE_KEY = "state";
+
+	private final File goldenMaster;
+	private final File file;
+
+	StateHashFile( final File goldenMaster ) {
+		this.goldenMaster = new File( goldenMaster, de.retest.recheck.Properties.DEFAULT_XML_FILE_NAME );
+		file = new File( goldenMaster, FILE_NAME );
+	}
+
+	/**
+	 * @return The hash of the Golden Master or {@code null}, if not known or outdated.
+	 */
+	String read() {
+		if ( !file.isFile() || !goldenMaster.isFile() ) {
+			return null;
+		}
+		try ( final InputStream in = Files.newInputStream( file.toPath() ) ) {
+			final Properties properties = new Properties();
+			properties.load( in );
+			if ( !digestGoldenMaster().equals( properties.getProperty( GOLDEN_MASTER_KEY ) ) ) {
+				log.debug( "State hash in '{}' is outdated.", file );
+				return null;
+			}
+			return properties.getProperty( STATE_KEY );
+		} catch ( final IOException e ) {
+			log.warn( "Could not read state hash from '{}'.", file, e );
+			return null;
+		}
+	}
+
+	/**
+	 * @param hash
+	 *            The {@link SubtreeHashes hash} of the state that is persisted as Golden Master.
+	 */
+	void write( final String hash ) {
+		if ( !goldenMaster.isFile() ) {
+			return;
+		}
+		try ( final OutputStream out = Files.newOutputStream( file.toPath() ) ) {
+			final Properties properties = new Properties();
+			properties.setProperty( GOLDEN_MASTER_KEY, digestGoldenMaster() );
+			properties.setProperty( STATE_KEY, hash );
+			properties.store( out, "Generated by recheck-web, allows to skip checks of unchanged states." );
+		} catch ( final IOException e ) {
+			log.warn( "Could not write state hash to '{}'.", file, e );
+		}
+	}
+
+	private String digestGoldenMaster() throws IOException {
+		try ( final DigestInputStream in =
+				new DigestInputStream( Files.newInputStream( goldenMaster.toPath() ), SubtreeHashes.createDigest() ) ) {
+			final byte[] buffer = new byte[8192];
+			while ( in.read( buffer ) != -1 ) {
+				// Just digest the content.
+			}
+			return SubtreeHashes.encode( in.getMessageDigest().digest() );
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+package de.retest.web;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import de.retest.recheck.ui.descriptors.Attribute;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.descriptors.SutState;
+
+/**
+ * Merkle-style hashes of element subtrees. The hash of an element covers its retest ID, its identifying and state
+ * attributes as well as the hashes of its children (in order). Hence, two elements with equal hashes have identical
+ * subtrees, which allows to skip comparing them.
+ *
+ * Hashes are computed lazily and cached per element instance for the lifetime of this object, which is usually owned
+ * by the state it hashes (e.g. by its {@link de.retest.web.selenium.ElementIndex}). Hence, the elements must not be
+ * modified afterwards. Instances are not thread-safe, but do not share anything with each other.
+ */
+public final class SubtreeHashes {
+
+	private static final String ALGORITHM = "SHA-256";
+	// 128 bit are plenty to avoid accidental collisions.
+	private static final int HASH_LENGTH = 16;
+	private static final byte SEPARATOR = 0;
+
+	private final Map<Element, String> hashes = new IdentityHashMap<>();
+	private final MessageDigest digest = createDigest();
+
+	/**
+	 * @param element
+	 *            The element to get the subtree hash for.
+	 * @return The hash of the subtree of the given element, computed if not yet known.
+	 */
+	public String get( final Element element ) {
+		final String known = hashes.get( element );
+		if ( known != null ) {
+			return known;
+		}
+		// Post-order traversal, so that the hashes of all children are known when hashing their parent.
+		final Deque<Element> stack = new ArrayDeque<>();
+		stack.push( element );
+		while ( !stack.isEmpty() ) {
+			final Element current = stack.peek();
+			boolean childrenHashed = true;
+			for ( final Element child : current.getContainedElements() ) {
+				if ( !hashes.containsKey( child ) ) {
+					stack.push( child );
+					childrenHashed = false;
+				}
+			}
+			if ( childrenHashed ) {
+				stack.pop();
+				hashes.put( current, computeHash( current ) );
+			}
+		}
+		return hashes.get( element );
+	}
+
+	/**
+	 * @param state
+	 *            The state to get the hash for.
+	 * @return The combined hash of all root elements of the given state.
+	 */
+	public String get( final SutState state ) {
+		final List<RootElement> rootElements = state.getRootElements();
+		if ( rootElements.size() == 1 ) {
+			return get( rootElements.get( 0 ) );
+		}
+		final StringBuilder result = new StringBuilder();
+		for ( final RootElement rootElement : rootElements ) {
+			result.append( get( rootElement ) ).append( ';' );
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Looks for the one element within the given state that has the same subtree hash as the given element.
+	 *
+	 * @param element
+	 *            The element to look for.
+	 * @param state
+	 *            The state to search.
+	 * @return The only element with an identical subtree or {@code null}, if there is none or there are several.
+	 */
+	public Element findIdentical( final Element element, final Element state ) {
+		final String hash = get( element );
+		get( state );
+		Element result = null;
+		final Deque<Element> toVisit = new ArrayDeque<>();
+		toVisit.push( state );
+		while ( !toVisit.isEmpty() ) {
+			final Element current = toVisit.pop();
+			if ( hash.equals( get( current ) ) ) {
+				if ( result != null ) {
+					return null;
+				}
+				result = current;
+				// Identical subtree, no need to look at the children.
+				continue;
+			}
+			current.getContainedElements().forEach( toVisit::push );
+		}
+		return result;
+	}
+
+	private String computeHash( final Element element ) {
+		update( element.getRetestId() );
+		if ( element instanceof RootElement ) {
+			final RootElement rootElement = (RootElement) element;
+			update( rootElement.getScreen() );
+			update( rootElement.getTitle() );
+			update( Integer.toString( rootElement.getScreenId() ) );
+		}
+		final List<Attribute> identifyingAttributes = new ArrayList<>();
+		if ( element.getIdentifyingAttributes() != null ) {
+			identifyingAttributes.addAll( element.getIdentifyingAttributes().getAttributes() );
+		}
+		identifyingAttributes.sort( Comparator.comparing( Attribute::getKey ) );
+		for ( final Attribute attribute : identifyingAttributes ) {
+			update( attribute.getKey() );
+			update( Objects.toString( attribute.getValue() ) );
+		}
+		update( "" );
+		final List<Entry<String, Object>> stateAttributes = new ArrayList<>();
+		if ( element.getAttributes() != null ) {
+			element.getAttributes().forEach( stateAttributes::add );
+		}
+		stateAttributes.sort( Entry.comparingByKey() );
+		for ( final Entry<String, Object> attribute : stateAttributes ) {
+			update( attribute.getKey() );
+			update( Objects.toString( attribute.getValue() ) );
+		}
+		update( "" );
+		for ( final Element child : element.getContainedElements() ) {
+			update( hashes.get( child ) );
+		}
+		final byte[] hash = digest.digest();
+		return encode( Arrays.copyOf( hash, HASH_LENGTH ) );
+	}
+
+	private void update( final String value ) {
+		if ( value != null ) {
+			digest.update( value.getBytes( StandardCharsets.UTF_8 ) );
+		}
+		digest.update( SEPARATOR );
+	}
+
+	/**
+	 * @return A new digest of the algorithm of all hashes, including the one of the Golden Master file (see
+	 *         {@link StateHashFile}).
+	 */
+	static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance( ALGORITHM );
+		} catch ( final NoSuchAlgorithmException e ) {
+			throw new IllegalStateException( "Every Java platform is required to support " + ALGORITHM + ".", e );
+		}
+	}
+
+	/**
+	 * @return The given hash as URL-safe Base64 without padding.
+	 */
+	static String encode( final byte[] hash ) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString( hash );
+	}
+
+}
@@ -5,13 +5,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 
 import de.retest.recheck.ui.DefaultValueFinder;
 import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.PathElement;
 import de.retest.recheck.ui.descriptors.Attribute;
+import de.retest.recheck.ui.descriptors.Attributes;
 import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
 import de.retest.recheck.ui.descriptors.MutableAttributes;
@@ -47,19 +48,59 @@ public class WebElementPeer {
 		children.add( child );
 	}
 
+	/**
+	 * Converts this peer and its descendants, see {@link ElementConverter}.
+	 *
+	 * @param parent
+	 *            The already converted parent element.
+	 * @return The converted element or {@code null}, if this peer has no data.
+	 */
 	public Element toElement( final Element parent ) {
 		if ( webData == null ) {
 			return null;
 		}
-		final IdentifyingAttributes identifyingAttributes = retrieveIdentifyingAttributes();
-		final MutableAttributes stateAttributes = retrieveStateAttributes( identifyingAttributes );
+		return new ElementConverter().convert( this, parent );
+	}
+
+	/**
+	 * @param parent
+	 *            The already converted parent element.
+	 * @param identifyingAttributes
+	 *            The identifying attributes of this peer.
+	 * @param stateAttributes
+	 *            The state attributes of this peer.
+	 * @return The element of this peer without its children.
+	 */
+	protected Element createElement( final Element parent, final IdentifyingAttributes identifyingAttributes,
+			final Attributes stateAttributes ) {
 		final String retestId = retestIdProvider.getRetestId( identifyingAttributes );
-		final Element element = Element.create( retestId, parent, identifyingAttributes, stateAttributes.immutable() );
-		element.addChildren( convertChildren( element ) );
-		return element;
+		return Element.create( retestId, parent, identifyingAttributes, stateAttributes );
+	}
+
+	/**
+	 * Builds the path of this peer from the given path of its parent, if that is its prefix. Parsing the whole path
+	 * instead (see {@link Path#fromString(String)}) takes time quadratic in its length, which adds up for deep pages.
+	 */
+	Path toPath( final Path parentPath ) {
+		final int separator = path.lastIndexOf( '/' );
+		if ( separator > 0 && parentPath != null ) {
+			int start = 0;
+			while ( path.charAt( start ) == '/' ) {
+				start++;
+			}
+			final String prefix = parentPath.toString();
+			if ( separator - start == prefix.length() && path.regionMatches( start, prefix, 0, prefix.length() ) ) {
+				return Path.path( parentPath, PathElement.fromString( path.substring( separator + 1 ) ) );
+			}
+		}
+		return Path.fromString( path );
 	}
 
 	protected IdentifyingAttributes retrieveIdentifyingAttributes() {
+		return retrieveIdentifyingAttributes( Path.fromString( path ) );
+	}
+
+	protected IdentifyingAttributes retrieveIdentifyingAttributes( final Path typedPath ) {
 		final List<Attribute> identifyingAttributes = new ArrayList<>();
 
 		final Rectangle absoluteOutline = webData.getAbsoluteOutline();
@@ -77,17 +118,19 @@ public class WebElementPeer {
 			identifyingAttributes.add( TextAttributeUtil.createTextAttribute( path, text ) );
 		}
 
+		final AttributePool pool = AttributePool.shared();
 		final List<String> htmlAttributes =
 				Arrays.asList( AttributesUtil.CLASS, AttributesUtil.ID, AttributesUtil.NAME );
 		for ( final String key : htmlAttributes ) {
 			final String value = webData.getAsString( key );
 			if ( StringUtils.isNotBlank( value ) ) {
-				identifyingAttributes.add( new StringAttribute( key, value ) );
+				identifyingAttributes.add( pool.attribute( new StringAttribute( key, value ) ) );
 			}
 		}
 
-		identifyingAttributes.add( new StringAttribute( IdentifyingAttributes.TYPE_ATTRIBUTE_KEY, webData.getTag() ) );
-		identifyingAttributes.add( new PathAttribute( Path.fromString( path ) ) );
+		identifyingAttributes.add(
+				pool.attribute( new StringAttribute( IdentifyingAttributes.TYPE_ATTRIBUTE_KEY, webData.getTag() ) ) );
+		identifyingAttributes.add( new PathAttribute( typedPath ) );
 		identifyingAttributes.add( new SuffixAttribute( extractSuffix() ) );
 
 		return new IdentifyingAttributes( identifyingAttributes );
@@ -100,21 +143,15 @@ public class WebElementPeer {
 
 	protected MutableAttributes retrieveStateAttributes( final IdentifyingAttributes identifyingAttributes ) {
 		final MutableAttributes state = new MutableAttributes();
+		final AttributePool pool = AttributePool.shared();
 		webData.getKeys().stream() //
 				.filter( Objects::nonNull ) //
 				.filter( key -> AttributesUtil.isStateAttribute( key, attributesProvider ) && !defaultValueFinder
 						.isDefaultValue( identifyingAttributes, key, webData.getAsString( key ) ) ) //
-				.forEach( key -> state.put( key, webData.getAsString( key ) ) );
+				.forEach( key -> state.put( pool.string( key ), pool.string( webData.getAsString( key ) ) ) );
 		return state;
 	}
 
-	protected List<Element> convertChildren( final Element parent ) {
-		return children.stream() //
-				.map( webElementPeer -> webElementPeer.toElement( parent ) ) //
-				.filter( Objects::nonNull ) //
-				.collect( Collectors.toList() );
-	}
-
 	@Override
 	public String toString() {
 		return path;
@@ -124,4 +161,8 @@ public class WebElementPeer {
 		return children;
 	}
 
+	void ensureChildCapacity( final int capacity ) {
+		((ArrayList<WebElementPeer>) children).ensureCapacity( capacity );
+	}
+
 }
@@ -0,0 +1,103 @@
+package de.retest.web.extraction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import de.retest.web.mapping.PayloadFormat;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhaseEvent;
+import de.retest.web.util.PageScript;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Extracts the page with a single {@code DOMSnapshot.captureSnapshot} call via the Chrome DevTools Protocol, instead of
+ * reading the attributes, rectangles and styles node by node within the page. The snapshot is converted into the same
+ * data {@code getAllElementsByPath.js} returns, see {@link DomSnapshotConverter} for the known differences. As the
+ * snapshot lacks the styles of elements that are not rendered, these are read with a second script call.
+ *
+ * Falls back to {@link JavaScriptExtractionEngine} for single elements, browsers other than Chrome and if the snapshot
+ * fails.
+ */
+@Slf4j
+public class CdpExtractionEngine implements ExtractionEngine {
+
+	static final String CAPTURE_SNAPSHOT = "DOMSnapshot.captureSnapshot";
+
+	private static final PageScript getComputedStyles = PageScript.of( "/javascript/getComputedStyles.js" );
+
+	// Unknown properties let the snapshot fail, the script ignores them anyway.
+	private static final String SUPPORTED_CSS_ATTRIBUTES_JS =
+			"return arguments[0].filter( function( p ) { return CSS.supports( p, 'inherit' ); } );";
+
+	private final JavaScriptExtractionEngine fallback;
+
+	public CdpExtractionEngine() {
+		this( new JavaScriptExtractionEngine() );
+	}
+
+	CdpExtractionEngine( final JavaScriptExtractionEngine fallback ) {
+		this.fallback = fallback;
+	}
+
+	@Override
+	public Extraction extract( final WebDriver driver, final WebElement element, final Set<String> cssAttributes ) {
+		if ( element != null ) {
+			log.debug( "Snapshot of single elements is not supported, falling back to JavaScript." );
+			return fallback.extract( driver, element, cssAttributes );
+		}
+		final ChromeDevTools devTools = ChromeDevTools.of( driver );
+		if ( devTools == null ) {
+			log.debug( "Driver does not support the Chrome DevTools Protocol, falling back to JavaScript." );
+			return fallback.extract( driver, element, cssAttributes );
+		}
+		try {
+			return extract( driver, devTools, cssAttributes );
+		} catch ( final RuntimeException e ) {
+			log.warn( "Exception capturing DOM snapshot, falling back to JavaScript.", e );
+			return fallback.extract( driver, element, cssAttributes );
+		}
+	}
+
+	private static Extraction extract( final WebDriver driver, final ChromeDevTools devTools,
+			final Set<String> cssAttributes ) {
+		final List<String> computedStyles = getSupportedCssAttributes( driver, cssAttributes );
+		final Map<String, Object> params = new HashMap<>();
+		params.put( "computedStyles", computedStyles );
+		params.put( "includeDOMRects", false );
+		final long start = System.nanoTime();
+		final Map<String, Object> snapshot = devTools.send( CAPTURE_SNAPSHOT, params );
+		final long deserializationStart = System.nanoTime();
+		CheckMetrics.publish( () -> CheckPhaseEvent.extraction( deserializationStart - start ) );
+		final Map<String, Object> result = new DomSnapshotConverter( computedStyles,
+				elements -> readStyles( driver, computedStyles, elements ) ).convert( snapshot );
+		return Extraction.fromPayload( PayloadFormat.MAP, result, deserializationStart );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	static List<List<String>> readStyles( final WebDriver driver, final List<String> computedStyles,
+			final List<List<String>> elements ) {
+		return (List<List<String>>) getComputedStyles.execute( (JavascriptExecutor) driver, computedStyles,
+				elements );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	static List<String> getSupportedCssAttributes( final WebDriver driver, final Set<String> cssAttributes ) {
+		if ( cssAttributes.isEmpty() ) {
+			return Collections.emptyList();
+		}
+		final List<Object> supported = (List<Object>) ((JavascriptExecutor) driver)
+				.executeScript( SUPPORTED_CSS_ATTRIBUTES_JS, new ArrayList<>( cssAttributes ) );
+		final List<String> result = new ArrayList<>();
+		supported.forEach( attribute -> result.add( (String) attribute ) );
+		return result;
+	}
+
+}
@@ -0,0 +1,120 @@
+package de.retest.web.extraction;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.CommandExecutor;
+import org.openqa.selenium.remote.CommandInfo;
+import org.openqa.selenium.remote.HttpCommandExecutor;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.openqa.selenium.remote.Response;
+import org.openqa.selenium.remote.http.HttpMethod;
+
+import de.retest.web.util.SeleniumWrapperUtil;
+import de.retest.web.util.SeleniumWrapperUtil.WrapperOf;
+
+/**
+ * Sends Chrome DevTools Protocol commands via the ChromeDriver specific endpoint, as Selenium 3 has no API for this
+ * (Shutterbug does the same for full page screenshots). Since the needed methods are not public, they are accessed
+ * reflectively. The methods are looked up once and the command is defined once per command executor.
+ */
+class ChromeDevTools {
+
+	private static final String SEND_COMMAND = "sendCommandWithResult";
+	private static final String SEND_COMMAND_PATH = "/session/:sessionId/chromium/send_command_and_get_result";
+
+	private static final Set<CommandExecutor> definedExecutors =
+			Collections.synchronizedSet( Collections.newSetFromMap( new WeakHashMap<>() ) );
+
+	private final RemoteWebDriver driver;
+
+	private ChromeDevTools( final RemoteWebDriver driver ) {
+		this.driver = driver;
+	}
+
+	/**
+	 * @param driver
+	 *            The (possibly wrapped) driver.
+	 * @return The dev tools of the given driver or {@code null}, if it does not drive Chrome.
+	 */
+	static ChromeDevTools of( final WebDriver driver ) {
+		WebDriver current = driver;
+		while ( SeleniumWrapperUtil.isWrapper( WrapperOf.DRIVER, current ) ) {
+			current = (WebDriver) SeleniumWrapperUtil.getWrapped( WrapperOf.DRIVER, current );
+		}
+		if ( !(current instanceof RemoteWebDriver) ) {
+			return null;
+		}
+		final RemoteWebDriver remoteDriver = (RemoteWebDriver) current;
+		if ( !(remoteDriver.getCommandExecutor() instanceof HttpCommandExecutor)
+				|| !"chrome".equalsIgnoreCase( remoteDriver.getCapabilities().getBrowserName() ) ) {
+			return null;
+		}
+		return new ChromeDevTools( remoteDriver );
+	}
+
+	/**
+	 * @param command
+	 *            The CDP command, e.g. {@code DOMSnapshot.captureSnapshot}.
+	 * @param params
+	 *            The parameters of the command.
+	 * @return The result of the command.
+	 */
+	@SuppressWarnings( "unchecked" )
+	Map<String, Object> send( final String command, final Map<String, Object> params ) {
+		final Map<String, Object> parameters = new HashMap<>();
+		parameters.put( "cmd", command );
+		parameters.put( "params", params );
+		try {
+			defineCommand( driver.getCommandExecutor() );
+			final Response response = (Response) Methods.get().execute.invoke( driver, SEND_COMMAND, parameters );
+			return (Map<String, Object>) response.getValue();
+		} catch ( final InvocationTargetException e ) {
+			throw new IllegalStateException( "Exception sending '" + command + "'.", e.getCause() );
+		} catch ( final ReflectiveOperationException e ) {
+			throw new IllegalStateException( "Cannot send '" + command + "' with this Selenium version.", e );
+		}
+	}
+
+	private static void defineCommand( final CommandExecutor executor ) throws ReflectiveOperationException {
+		if ( definedExecutors.contains( executor ) ) {
+			return;
+		}
+		Methods.get().defineCommand.invoke( executor, SEND_COMMAND,
+				new CommandInfo( SEND_COMMAND_PATH, HttpMethod.POST ) );
+		definedExecutors.add( executor );
+	}
+
+	/**
+	 * The reflectively accessed methods, looked up on first use.
+	 */
+	private static final class Methods {
+
+		private static Methods instance;
+
+		private final Method execute;
+		private final Method defineCommand;
+
+		private Methods() throws ReflectiveOperationException {
+			execute = RemoteWebDriver.class.getDeclaredMethod( "execute", String.class, Map.class );
+			execute.setAccessible( true );
+			defineCommand =
+					HttpCommandExecutor.class.getDeclaredMethod( "defineCommand", String.class, CommandInfo.class );
+			defineCommand.setAccessible( true );
+		}
+
+		static synchronized Methods get() throws ReflectiveOperationException {
+			if ( instance == null ) {
+				instance = new Methods();
+			}
+			return instance;
+		}
+	}
+
+}
@@ -0,0 +1,669 @@
+package de.retest.web.extraction;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the result of the CDP command {@code DOMSnapshot.captureSnapshot} into the payload that
+ * {@code getAllElementsByPath.js} returns (in the {@link de.retest.web.mapping.PayloadFormat#MAP map format} and with
+ * frames extracted), i.e. this mirrors the script for the flattened snapshot.
+ *
+ * The snapshot contains computed styles and bounds only for rendered nodes (i.e. nodes having a layout object).
+ * Elements that are not rendered (e.g. within {@code head} or styled with {@code display: none}) get the position
+ * (0, 0) and size (0, 0), just like their bounding client rect within the script. Their computed styles are read with
+ * the given {@link StyleReader} instead, all at once. There are some approximations left:
+ *
+ * <ul>
+ * <li>If the styles of elements that are not rendered cannot be read (e.g. within cross-origin frames), only
+ * {@code display: none} is reported as their style, if their parent is rendered. Rendered elements whose parent is not
+ * rendered (e.g. {@code display: contents}) are then compared with the styles of the nearest rendered ancestor.</li>
+ * <li>The {@code value} of elements is derived from attributes and form state, e.g. {@code meter} and
+ * {@code progress} are not clamped to their range.</li>
+ * </ul>
+ */
+class DomSnapshotConverter {
+
+	private static final int ELEMENT_NODE = 1;
+	private static final int TEXT_NODE = 3;
+	private static final int DOCUMENT_NODE = 9;
+
+	private static final String ROOT_PATH = "//html[1]";
+	private static final String TEXT_NODE_TAG = "textnode";
+
+	private static final Set<String> DISABLEABLE =
+			asSet( "button", "input", "select", "textarea", "optgroup", "option", "fieldset", "link" );
+	private static final Set<String> FOCUSABLE = asSet( "a", "area", "button", "frame", "iframe", "input", "object",
+			"select", "textarea", "summary" );
+	private static final Set<String> EMPTY_VALUE = asSet( "button", "data", "param" );
+	private static final Set<String> NUMERIC_VALUE = asSet( "li", "meter", "progress" );
+
+	private static final Pattern INTEGER = Pattern.compile( "^[\\t\\n\\f\\r ]*([+-]?\\d+)" );
+
+	private final List<String> cssAttributes;
+	private final StyleReader styleReader;
+
+	/**
+	 * Reads the computed styles of elements that are not rendered, as the snapshot does not contain them.
+	 */
+	interface StyleReader {
+
+		/**
+		 * @param elements
+		 *            The elements as pairs of the path of their frame (empty for the document) and their path.
+		 * @return The values of the CSS attributes (in the requested order) per element, {@code null} for each element
+		 *         whose styles cannot be read.
+		 */
+		List<List<String>> read( List<List<String>> elements );
+	}
+
+	/**
+	 * @param cssAttributes
+	 *            The CSS attributes in the order they were requested as {@code computedStyles}.
+	 * @param styleReader
+	 *            The reader of the styles of elements that are not rendered or {@code null} to approximate them.
+	 */
+	DomSnapshotConverter( final List<String> cssAttributes, final StyleReader styleReader ) {
+		this.cssAttributes = cssAttributes;
+		this.styleReader = styleReader;
+	}
+
+	/**
+	 * @param snapshot
+	 *            The result of {@code DOMSnapshot.captureSnapshot}.
+	 * @return The document and the frames, as returned by {@code getAllElementsByPath.js}.
+	 */
+	Map<String, Object> convert( final Map<String, Object> snapshot ) {
+		final List<String> strings = toStrings( snapshot.get( "strings" ) );
+		final List<?> rawDocuments = (List<?>) snapshot.get( "documents" );
+		final Map<Integer, Snapshot> documents = new HashMap<>();
+		final Snapshot main = getDocument( documents, rawDocuments, strings, 0 );
+
+		final Map<String, Object> frames = new LinkedHashMap<>();
+		final List<ExtractedElement> pending = new ArrayList<>();
+		final Map<String, Object> result = new LinkedHashMap<>();
+		result.put( Extraction.DOCUMENT_KEY, extract( main, "", frames, documents, rawDocuments, strings, pending ) );
+		result.put( Extraction.FRAMES_KEY, frames );
+
+		readUnrenderedStyles( pending );
+		// Like the script, after all attributes are known and before the coordinates.
+		for ( final ExtractedElement element : pending ) {
+			addStyles( element.attributes, element.document, element.node );
+			addCoordinates( element.attributes, element.document, element.node );
+		}
+		return result;
+	}
+
+	private void readUnrenderedStyles( final List<ExtractedElement> pending ) {
+		if ( styleReader == null || cssAttributes.isEmpty() ) {
+			return;
+		}
+		final List<ExtractedElement> unrendered = new ArrayList<>();
+		final List<List<String>> locators = new ArrayList<>();
+		for ( final ExtractedElement element : pending ) {
+			if ( !element.document.isRendered( element.node ) ) {
+				unrendered.add( element );
+				locators.add( Arrays.asList( element.framePath, element.path ) );
+			}
+		}
+		if ( unrendered.isEmpty() ) {
+			return;
+		}
+		final List<List<String>> styles = styleReader.read( locators );
+		for ( int i = 0; i < unrendered.size() && i < styles.size(); i++ ) {
+			if ( styles.get( i ) != null ) {
+				unrendered.get( i ).document.readStyles.put( unrendered.get( i ).node, styles.get( i ) );
+			}
+		}
+	}
+
+	private Map<String, Map<String, Object>> extract( final Snapshot document, final String framePath,
+			final Map<String, Object> frames, final Map<Integer, Snapshot> documents, final List<?> rawDocuments,
+			final List<String> strings, final List<ExtractedElement> pending ) {
+		final Map<String, Map<String, Object>> elements = new LinkedHashMap<>();
+		final int root = document.getDocumentElement();
+		if ( root < 0 ) {
+			return elements;
+		}
+		elements.put( ROOT_PATH, transform( document, root, framePath, ROOT_PATH, pending ) );
+
+		final Deque<Integer> nodes = new ArrayDeque<>();
+		final Deque<String> paths = new ArrayDeque<>();
+		nodes.push( root );
+		paths.push( ROOT_PATH );
+		while ( !nodes.isEmpty() ) {
+			final int node = nodes.pop();
+			final String path = paths.pop();
+			final List<Integer> children = document.getChildNodes( node );
+			final boolean containsOtherElements = children.stream().anyMatch( document::isElement );
+			final Map<String, Integer> counter = new HashMap<>();
+			final List<Integer> childElements = new ArrayList<>();
+			final List<String> childPaths = new ArrayList<>();
+			for ( final int child : children ) {
+				final boolean isText = document.nodeType[child] == TEXT_NODE;
+				final boolean isNonEmptyText = isText && containsOtherElements && !isBlank( document, child );
+				if ( !document.isElement( child ) && !isNonEmptyText ) {
+					continue;
+				}
+				final String tagName = isText ? TEXT_NODE_TAG : document.nodeName[child];
+				final int count = counter.merge( tagName, 1, Integer::sum );
+				final String childPath = path + "/" + tagName.toLowerCase() + "[" + count + "]";
+				elements.put( childPath, transform( document, child, framePath, childPath, pending ) );
+				final Integer contentDocument = document.contentDocumentIndex.get( child );
+				if ( isFrame( document, child ) && contentDocument != null ) {
+					final String childFramePath = framePath + "/" + childPath.replaceAll( "^/+", "" );
+					final Snapshot frameDocument = getDocument( documents, rawDocuments, strings, contentDocument );
+					if ( frameDocument.getDocumentElement() >= 0 ) {
+						frames.put( childFramePath,
+								extract( frameDocument, childFramePath, frames, documents, rawDocuments, strings,
+										pending ) );
+					}
+				}
+				if ( !isText ) {
+					childElements.add( child );
+					childPaths.add( childPath );
+				}
+			}
+			// Push in reverse to keep the document order (not needed for the result, but eases debugging).
+			for ( int i = childElements.size() - 1; i >= 0; i-- ) {
+				nodes.push( childElements.get( i ) );
+				paths.push( childPaths.get( i ) );
+			}
+		}
+		return elements;
+	}
+
+	/**
+	 * Transforms everything but the styles and coordinates of elements, which are added once the styles of elements
+	 * that are not rendered are read.
+	 */
+	private Map<String, Object> transform( final Snapshot document, final int node, final String framePath,
+			final String path, final List<ExtractedElement> pending ) {
+		final Map<String, Object> extracted = new LinkedHashMap<>();
+		final boolean isText = document.nodeType[node] == TEXT_NODE;
+		final String tagName = isText ? TEXT_NODE_TAG : document.nodeName[node].toLowerCase();
+		extracted.put( "tagName", tagName );
+		extracted.put( "text", getText( document, node ) );
+		extracted.put( "value", isText ? null : getValue( document, node, tagName ) );
+		extracted.put( "tab-index", isText ? null : getTabIndex( document, node, tagName ) );
+		extracted.put( "shown", isShown( document, node ) );
+
+		if ( isText ) {
+			addCoordinates( extracted, document, document.parentIndex[node] );
+			return extracted;
+		}
+
+		extracted.putAll( document.attributes.get( node ) );
+
+		extracted.put( "checked", tagName.equals( "input" ) ? document.inputChecked.contains( node ) : null );
+		extracted.put( "disabled",
+				DISABLEABLE.contains( tagName ) && document.attributes.get( node ).containsKey( "disabled" ) );
+		extracted.put( "read-only", tagName.equals( "input" ) || tagName.equals( "textarea" )
+				? document.attributes.get( node ).containsKey( "readonly" ) : null );
+
+		pending.add( new ExtractedElement( document, node, framePath, path, extracted ) );
+		return extracted;
+	}
+
+	private void addStyles( final Map<String, Object> extracted, final Snapshot document, final int node ) {
+		final int parent = document.parentIndex[node];
+		final boolean hasParentElement = parent >= 0 && document.isElement( parent );
+		final List<String> style = document.getStyle( node );
+		final List<String> parentStyle = hasParentElement ? getNearestStyle( document, parent ) : null;
+		for ( int i = 0; i < cssAttributes.size(); i++ ) {
+			final String attribute = cssAttributes.get( i );
+			if ( isTruthy( extracted.get( attribute ) ) ) {
+				continue;
+			}
+			if ( style != null ) {
+				final String value = getStyleValue( style, i );
+				final String parentValue = getStyleValue( parentStyle, i );
+				if ( value != null && !value.equals( parentValue ) ) {
+					extracted.put( attribute, value );
+				}
+			} else if ( attribute.equals( "display" ) && hasParentElement && document.isRendered( parent ) ) {
+				extracted.put( attribute, "none" );
+			}
+		}
+	}
+
+	private static String getStyleValue( final List<String> style, final int index ) {
+		return style != null && index < style.size() ? style.get( index ) : null;
+	}
+
+	private static List<String> getNearestStyle( final Snapshot document, final int node ) {
+		int current = node;
+		while ( current >= 0 && document.isElement( current ) ) {
+			final List<String> style = document.getStyle( current );
+			if ( style != null ) {
+				return style;
+			}
+			current = document.parentIndex[current];
+		}
+		return null;
+	}
+
+	private static void addCoordinates( final Map<String, Object> extracted, final Snapshot document,
+			final int node ) {
+		final double[] bounds = document.getBounds( node );
+		extracted.put( "absolute-x", toNumber( bounds[0] ) );
+		extracted.put( "absolute-y", toNumber( bounds[1] ) );
+		extracted.put( "absolute-width", toNumber( bounds[2] ) );
+		extracted.put( "absolute-height", toNumber( bounds[3] ) );
+		final int parent = document.parentIndex[node];
+		if ( parent >= 0 && document.isElement( parent ) ) {
+			final double[] parentBounds = document.getBounds( parent );
+			extracted.put( "x", toNumber( bounds[0] - parentBounds[0] ) );
+			extracted.put( "y", toNumber( bounds[1] - parentBounds[1] ) );
+			extracted.put( "width", toNumber( bounds[2] - parentBounds[2] ) );
+			extracted.put( "height", toNumber( bounds[3] - parentBounds[3] ) );
+		} else {
+			extracted.put( "x", toNumber( bounds[0] ) );
+			extracted.put( "y", toNumber( bounds[1] ) );
+			extracted.put( "width", toNumber( bounds[2] ) );
+			extracted.put( "height", toNumber( bounds[3] ) );
+		}
+	}
+
+	private static String getText( final Snapshot document, final int node ) {
+		if ( document.nodeType[node] == TEXT_NODE ) {
+			return document.nodeValue[node];
+		}
+		final List<Integer> children = document.getChildNodes( node );
+		if ( !children.isEmpty() && document.nodeType[children.get( 0 )] == TEXT_NODE ) {
+			return document.nodeValue[children.get( 0 )];
+		}
+		return "";
+	}
+
+	private static Object getValue( final Snapshot document, final int node, final String tagName ) {
+		final String value = document.attributes.get( node ).get( "value" );
+		if ( value != null ) {
+			// The attribute overwrites the property within the script.
+			return value;
+		}
+		switch ( tagName ) {
+			case "input":
+				return document.inputValue.getOrDefault( node, isCheckable( document, node ) ? "on" : "" );
+			case "textarea":
+				return document.textValue.getOrDefault( node, "" );
+			case "select":
+				return getSelectValue( document, node );
+			case "option":
+				return getOptionText( document, node );
+			case "output":
+				return getTextContent( document, node );
+			default:
+				if ( EMPTY_VALUE.contains( tagName ) ) {
+					return "";
+				}
+				if ( NUMERIC_VALUE.contains( tagName ) ) {
+					return 0L;
+				}
+				return null;
+		}
+	}
+
+	private static boolean isCheckable( final Snapshot document, final int node ) {
+		final String type = document.attributes.get( node ).get( "type" );
+		return "checkbox".equalsIgnoreCase( type ) || "radio".equalsIgnoreCase( type );
+	}
+
+	private static String getSelectValue( final Snapshot document, final int select ) {
+		final Deque<Integer> nodes = new ArrayDeque<>( document.getChildNodes( select ) );
+		while ( !nodes.isEmpty() ) {
+			final int node = nodes.poll();
+			if ( !document.isElement( node ) ) {
+				continue;
+			}
+			if ( document.optionSelected.contains( node ) ) {
+				return (String) getValue( document, node, "option" );
+			}
+			final List<Integer> children = document.getChildNodes( node );
+			for ( int i = children.size() - 1; i >= 0; i-- ) {
+				nodes.push( children.get( i ) );
+			}
+		}
+		return "";
+	}
+
+	private static String getOptionText( final Snapshot document, final int option ) {
+		return getTextContent( document, option ).replaceAll( "[\\t\\n\\f\\r ]+", " " ).trim();
+	}
+
+	private static String getTextContent( final Snapshot document, final int node ) {
+		final StringBuilder text = new StringBuilder();
+		final Deque<Integer> nodes = new ArrayDeque<>();
+		nodes.push( node );
+		while ( !nodes.isEmpty() ) {
+			final int current = nodes.pop();
+			if ( document.nodeType[current] == TEXT_NODE ) {
+				text.append( document.nodeValue[current] );
+			}
+			final List<Integer> children = document.getChildNodes( current );
+			for ( int i = children.size() - 1; i >= 0; i-- ) {
+				nodes.push( children.get( i ) );
+			}
+		}
+		return text.toString();
+	}
+
+	private static Long getTabIndex( final Snapshot document, final int node, final String tagName ) {
+		final Map<String, String> attributes = document.attributes.get( node );
+		final String tabIndex = attributes.get( "tabindex" );
+		if ( tabIndex != null ) {
+			final Matcher matcher = INTEGER.matcher( tabIndex );
+			if ( matcher.find() ) {
+				try {
+					return Long.valueOf( Integer.parseInt( matcher.group( 1 ) ) );
+				} catch ( final NumberFormatException e ) {
+					// Out of range, falls back to the default like an invalid value.
+				}
+			}
+		}
+		final String contentEditable = attributes.get( "contenteditable" );
+		final boolean isEditingHost = contentEditable != null && !contentEditable.equalsIgnoreCase( "false" );
+		return FOCUSABLE.contains( tagName ) || isEditingHost ? 0L : -1L;
+	}
+
+	private static boolean isShown( final Snapshot document, final int node ) {
+		if ( document.nodeType[node] == TEXT_NODE ) {
+			return isShown( document, document.parentIndex[node] );
+		}
+		return document.isRendered( node );
+	}
+
+	private static boolean isFrame( final Snapshot document, final int node ) {
+		return document.isElement( node )
+				&& (document.nodeName[node].equals( "IFRAME" ) || document.nodeName[node].equals( "FRAME" ));
+	}
+
+	private static boolean isBlank( final Snapshot document, final int node ) {
+		final String value = document.nodeValue[node];
+		return value == null || trim( value ).isEmpty();
+	}
+
+	/**
+	 * Trims like JavaScript, i.e. including non-breaking and other Unicode spaces.
+	 */
+	static String trim( final String value ) {
+		int start = 0;
+		int end = value.length();
+		while ( start < end && isJsWhitespace( value.charAt( start ) ) ) {
+			start++;
+		}
+		while ( end > start && isJsWhitespace( value.charAt( end - 1 ) ) ) {
+			end--;
+		}
+		return value.substring( start, end );
+	}
+
+	private static boolean isJsWhitespace( final char c ) {
+		return Character.isWhitespace( c ) || Character.isSpaceChar( c ) || c == '\uFEFF';
+	}
+
+	private static boolean isTruthy( final Object value ) {
+		if ( value == null ) {
+			return false;
+		}
+		if ( value instanceof Boolean ) {
+			return (Boolean) value;
+		}
+		if ( value instanceof Number ) {
+			final double number = ((Number) value).doubleValue();
+			return number != 0 && !Double.isNaN( number );
+		}
+		return !value.toString().isEmpty();
+	}
+
+	/**
+	 * Selenium returns integral JavaScript numbers as {@link Long} and all others as {@link Double}.
+	 */
+	static Number toNumber( final double value ) {
+		if ( value == Math.rint( value ) && Math.abs( value ) < 1L << 53 ) {
+			return (long) value;
+		}
+		return value;
+	}
+
+	private static Snapshot getDocument( final Map<Integer, Snapshot> documents, final List<?> rawDocuments,
+			final List<String> strings, final int index ) {
+		return documents.computeIfAbsent( index, i -> new Snapshot( asMap( rawDocuments.get( i ) ), strings ) );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private static Map<String, Object> asMap( final Object value ) {
+		return value == null ? Collections.emptyMap() : (Map<String, Object>) value;
+	}
+
+	private static List<?> asList( final Object value ) {
+		return value == null ? Collections.emptyList() : (List<?>) value;
+	}
+
+	private static List<String> toStrings( final Object value ) {
+		final List<String> strings = new ArrayList<>();
+		for ( final Object string : asList( value ) ) {
+			strings.add( (String) string );
+		}
+		return strings;
+	}
+
+	private static int toInt( final Object value ) {
+		return ((Number) value).intValue();
+	}
+
+	private static double toDouble( final Object value ) {
+		return value == null ? 0 : ((Number) value).doubleValue();
+	}
+
+	private static Set<String> asSet( final String... values ) {
+		return Collections.unmodifiableSet( new HashSet<>( Arrays.asList( values ) ) );
+	}
+
+	/**
+	 * An element whose styles and coordinates are still to be added.
+	 */
+	private static class ExtractedElement {
+
+		private final Snapshot document;
+		private final int node;
+		private final String framePath;
+		private final String path;
+		private final Map<String, Object> attributes;
+
+		ExtractedElement( final Snapshot document, final int node, final String framePath, final String path,
+				final Map<String, Object> attributes ) {
+			this.document = document;
+			this.node = node;
+			this.framePath = framePath;
+			this.path = path;
+			this.attributes = attributes;
+		}
+	}
+
+	/**
+	 * The parsed (columnar) nodes and layout of a single document of the snapshot.
+	 */
+	private static class Snapshot {
+
+		private final int[] parentIndex;
+		private final int[] nodeType;
+		private final String[] nodeName;
+		private final String[] nodeValue;
+		private final List<Map<String, String>> attributes = new ArrayList<>();
+		private final Map<Integer, String> inputValue;
+		private final Map<Integer, String> textValue;
+		private final Set<Integer> inputChecked;
+		private final Set<Integer> optionSelected;
+		private final Map<Integer, Integer> contentDocumentIndex;
+		private final Set<Integer> ignored = new HashSet<>();
+		private final List<List<Integer>> childNodes = new ArrayList<>();
+
+		private final Map<Integer, Integer> layoutIndex = new HashMap<>();
+		private final List<List<String>> styles = new ArrayList<>();
+		private final List<double[]> bounds = new ArrayList<>();
+		private final Map<Integer, List<String>> readStyles = new HashMap<>();
+		private final double scrollX;
+		private final double scrollY;
+
+		Snapshot( final Map<String, Object> document, final List<String> strings ) {
+			final Map<String, Object> nodes = asMap( document.get( "nodes" ) );
+			final List<?> parents = asList( nodes.get( "parentIndex" ) );
+			final int size = parents.size();
+			parentIndex = new int[size];
+			nodeType = new int[size];
+			nodeName = new String[size];
+			nodeValue = new String[size];
+			final List<?> types = asList( nodes.get( "nodeType" ) );
+			final List<?> names = asList( nodes.get( "nodeName" ) );
+			final List<?> values = asList( nodes.get( "nodeValue" ) );
+			final List<?> rawAttributes = asList( nodes.get( "attributes" ) );
+			for ( int i = 0; i < size; i++ ) {
+				parentIndex[i] = toInt( parents.get( i ) );
+				nodeType[i] = toInt( types.get( i ) );
+				nodeName[i] = getString( strings, names.get( i ) );
+				nodeValue[i] = i < values.size() ? getString( strings, values.get( i ) ) : null;
+				final Map<String, String> nodeAttributes = new LinkedHashMap<>();
+				final List<?> pairs = asList( i < rawAttributes.size() ? rawAttributes.get( i ) : null );
+				for ( int j = 0; j + 1 < pairs.size(); j += 2 ) {
+					nodeAttributes.put( getString( strings, pairs.get( j ) ),
+							getString( strings, pairs.get( j + 1 ) ) );
+				}
+				attributes.add( nodeAttributes );
+				childNodes.add( new ArrayList<>() );
+			}
+			inputValue = toRareStrings( nodes.get( "inputValue" ), strings );
+			textValue = toRareStrings( nodes.get( "textValue" ), strings );
+			inputChecked = toRareBooleans( nodes.get( "inputChecked" ) );
+			optionSelected = toRareBooleans( nodes.get( "optionSelected" ) );
+			contentDocumentIndex = toRareIntegers( nodes.get( "contentDocumentIndex" ) );
+			// Neither pseudo elements nor shadow roots are child nodes within the script.
+			ignored.addAll( toRareStrings( nodes.get( "pseudoType" ), strings ).keySet() );
+			ignored.addAll( toRareStrings( nodes.get( "shadowRootType" ), strings ).keySet() );
+			for ( int i = 0; i < size; i++ ) {
+				if ( nodeType[i] == 11 ) {
+					ignored.add( i );
+				}
+			}
+			// Nodes are in document order, so children are appended in order.
+			for ( int i = 0; i < size; i++ ) {
+				if ( parentIndex[i] >= 0 && !ignored.contains( i ) ) {
+					childNodes.get( parentIndex[i] ).add( i );
+				}
+			}
+
+			final Map<String, Object> layout = asMap( document.get( "layout" ) );
+			final List<?> layoutNodes = asList( layout.get( "nodeIndex" ) );
+			final List<?> layoutStyles = asList( layout.get( "styles" ) );
+			final List<?> layoutBounds = asList( layout.get( "bounds" ) );
+			for ( int i = 0; i < layoutNodes.size(); i++ ) {
+				// Text nodes have multiple layout entries (e.g. for each line), the first one wins.
+				layoutIndex.putIfAbsent( toInt( layoutNodes.get( i ) ), i );
+				final List<String> style = new ArrayList<>();
+				for ( final Object index : asList( i < layoutStyles.size() ? layoutStyles.get( i ) : null ) ) {
+					style.add( getString( strings, index ) );
+				}
+				styles.add( style );
+				final List<?> rect = asList( i < layoutBounds.size() ? layoutBounds.get( i ) : null );
+				final double[] bound = new double[4];
+				for ( int j = 0; j < Math.min( 4, rect.size() ); j++ ) {
+					bound[j] = toDouble( rect.get( j ) );
+				}
+				bounds.add( bound );
+			}
+			scrollX = toDouble( document.get( "scrollOffsetX" ) );
+			scrollY = toDouble( document.get( "scrollOffsetY" ) );
+		}
+
+		boolean isElement( final int node ) {
+			return nodeType[node] == ELEMENT_NODE;
+		}
+
+		List<Integer> getChildNodes( final int node ) {
+			return childNodes.get( node );
+		}
+
+		int getDocumentElement() {
+			for ( int i = 0; i < nodeType.length; i++ ) {
+				if ( nodeType[i] == DOCUMENT_NODE ) {
+					for ( final int child : childNodes.get( i ) ) {
+						if ( isElement( child ) ) {
+							return child;
+						}
+					}
+					return -1;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * @return The style from the layout or the style that was read for a node that is not rendered.
+		 */
+		List<String> getStyle( final int node ) {
+			final Integer index = layoutIndex.get( node );
+			return index == null ? readStyles.get( node ) : styles.get( index );
+		}
+
+		boolean isRendered( final int node ) {
+			return layoutIndex.containsKey( node );
+		}
+
+		/**
+		 * @return The bounds like the bounding client rect plus the scroll offset, i.e. relative to the document.
+		 */
+		double[] getBounds( final int node ) {
+			final Integer index = layoutIndex.get( node );
+			if ( index == null ) {
+				return new double[] { scrollX, scrollY, 0, 0 };
+			}
+			return bounds.get( index );
+		}
+
+		private static String getString( final List<String> strings, final Object index ) {
+			final int i = index == null ? -1 : toInt( index );
+			return i >= 0 && i < strings.size() ? strings.get( i ) : null;
+		}
+
+		private static Map<Integer, String> toRareStrings( final Object value, final List<String> strings ) {
+			final Map<String, Object> rare = asMap( value );
+			final List<?> indices = asList( rare.get( "index" ) );
+			final List<?> values = asList( rare.get( "value" ) );
+			final Map<Integer, String> result = new HashMap<>();
+			for ( int i = 0; i < indices.size(); i++ ) {
+				result.put( toInt( indices.get( i ) ), getString( strings, values.get( i ) ) );
+			}
+			return result;
+		}
+
+		private static Map<Integer, Integer> toRareIntegers( final Object value ) {
+			final Map<String, Object> rare = asMap( value );
+			final List<?> indices = asList( rare.get( "index" ) );
+			final List<?> values = asList( rare.get( "value" ) );
+			final Map<Integer, Integer> result = new HashMap<>();
+			for ( int i = 0; i < indices.size(); i++ ) {
+				result.put( toInt( indices.get( i ) ), toInt( values.get( i ) ) );
+			}
+			return result;
+		}
+
+		private static Set<Integer> toRareBooleans( final Object value ) {
+			final Set<Integer> result = new HashSet<>();
+			for ( final Object index : asList( asMap( value ).get( "index" ) ) ) {
+				result.add( toInt( index ) );
+			}
+			return result;
+		}
+	}
+
+}
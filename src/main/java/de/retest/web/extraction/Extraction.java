@@ -0,0 +1,131 @@
+package de.retest.web.extraction;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.PayloadFormat;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhase;
+import de.retest.web.metrics.CheckPhaseEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The result of an {@link ExtractionEngine}: the extracted document and the extracted content of (same-origin) frames.
+ * Frames that are not contained have to be extracted separately, e.g. by switching to them.
+ */
+@Getter
+@AllArgsConstructor
+@Slf4j
+public class Extraction {
+
+	static final String DOCUMENT_KEY = "document";
+	static final String FRAMES_KEY = "frames";
+
+	private final PathsToWebDataMapping document;
+
+	/**
+	 * The content of frames, mapped by the path of the frame element (e.g. {@code html[1]/body[1]/iframe[1]}).
+	 */
+	private final Map<String, PathsToWebDataMapping> frames;
+
+	/**
+	 * @return The number of attribute values of the document and all frames.
+	 */
+	public long countAttributeValues() {
+		long count = countAttributeValues( document );
+		for ( final PathsToWebDataMapping frame : frames.values() ) {
+			count += countAttributeValues( frame );
+		}
+		return count;
+	}
+
+	private static long countAttributeValues( final PathsToWebDataMapping mapping ) {
+		long count = 0;
+		for ( int i = 0; i < mapping.size(); i++ ) {
+			count += mapping.getWebData( i ).getKeys().size();
+		}
+		return count;
+	}
+
+	/**
+	 * Decodes the given result and publishes the {@link CheckPhase#DESERIALIZATION} metrics.
+	 *
+	 * @param payloadFormat
+	 *            The format of the payloads.
+	 * @param result
+	 *            The raw extraction result.
+	 * @param start
+	 *            When the deserialization started (e.g. including a conversion of the raw result) as given by
+	 *            {@link System#nanoTime()}.
+	 * @return The decoded extraction.
+	 */
+	static Extraction fromPayload( final PayloadFormat payloadFormat, final Map<String, Object> result,
+			final long start ) {
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.MAPPING_DECODE ).detail( payloadFormat.name() );
+		final Extraction extraction = fromPayload( payloadFormat, result );
+		if ( event.isEnabled() ) {
+			event.elementCount( extraction.getDocument().size() + extraction.getFrames().values().stream()
+					.mapToInt( PathsToWebDataMapping::size ).sum() ).commit();
+		}
+		return extraction.published( System.nanoTime() - start );
+	}
+
+	/**
+	 * Publishes the {@link CheckPhase#DESERIALIZATION} metrics of an extraction that was decoded otherwise, e.g. in
+	 * chunks.
+	 *
+	 * @param document
+	 *            The decoded document.
+	 * @param frames
+	 *            The decoded frames.
+	 * @param durationNanos
+	 *            The total duration of the deserialization.
+	 * @return The extraction.
+	 */
+	static Extraction decoded( final PathsToWebDataMapping document, final Map<String, PathsToWebDataMapping> frames,
+			final long durationNanos ) {
+		return new Extraction( document, frames ).published( durationNanos );
+	}
+
+	private Extraction published( final long durationNanos ) {
+		CheckMetrics.publish( () -> CheckPhaseEvent.deserialization( durationNanos, document.size(), frames.size(),
+				countAttributeValues() ) );
+		return this;
+	}
+
+	/**
+	 * @param payloadFormat
+	 *            The format of the payloads.
+	 * @param result
+	 *            The raw extraction result, consisting of the payload of the document and the payloads of the frames
+	 *            mapped by their path.
+	 * @return The decoded extraction, frames that cannot be decoded are left out.
+	 */
+	static Extraction fromPayload( final PayloadFormat payloadFormat, final Map<String, Object> result ) {
+		final PathsToWebDataMapping document = payloadFormat.toMapping( "/", result.get( DOCUMENT_KEY ) );
+		@SuppressWarnings( "unchecked" )
+		final Map<String, Object> payloads = (Map<String, Object>) result.get( FRAMES_KEY );
+		if ( payloads == null || payloads.isEmpty() ) {
+			return new Extraction( document, Collections.emptyMap() );
+		}
+		final Map<String, PathsToWebDataMapping> frames = new HashMap<>();
+		payloads.forEach( ( path, payload ) -> {
+			final String framePath = StringUtils.stripStart( path, "/" );
+			try {
+				frames.put( framePath, payloadFormat.toMapping( framePath, payload ) );
+			} catch ( final RuntimeException e ) {
+				log.error( "Exception decoding data content of frame '{}'.", framePath, e );
+			}
+		} );
+		return new Extraction( document, frames );
+	}
+
+}
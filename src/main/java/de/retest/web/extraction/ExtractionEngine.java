@@ -0,0 +1,50 @@
+package de.retest.web.extraction;
+
+import java.util.Set;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+/**
+ * Extracts the elements and their attributes from the page (see {@link Extraction}). The engine can be selected via
+ * the {@value #EXTRACTION_ENGINE_PROPERTY} system property:
+ *
+ * <ul>
+ * <li>{@code js} (default): {@link JavaScriptExtractionEngine}</li>
+ * <li>{@code cdp}: {@link CdpExtractionEngine}</li>
+ * <li>the fully qualified name of a class implementing this interface, having a public no-arg constructor</li>
+ * </ul>
+ */
+public interface ExtractionEngine {
+
+	String EXTRACTION_ENGINE_PROPERTY = "de.retest.recheck.web.extractionEngine";
+
+	/**
+	 * @param driver
+	 *            The driver of the page to extract.
+	 * @param element
+	 *            The element to extract or {@code null} to extract the whole page.
+	 * @param cssAttributes
+	 *            The CSS attributes to extract.
+	 * @return The extracted document and the content of all frames that could be extracted along with it.
+	 */
+	Extraction extract( WebDriver driver, WebElement element, Set<String> cssAttributes );
+
+	static ExtractionEngine getConfigured() {
+		final String engine = System.getProperty( EXTRACTION_ENGINE_PROPERTY );
+		if ( engine == null || engine.trim().isEmpty() || engine.trim().equalsIgnoreCase( "js" ) ) {
+			return new JavaScriptExtractionEngine();
+		}
+		if ( engine.trim().equalsIgnoreCase( "cdp" ) ) {
+			return new CdpExtractionEngine();
+		}
+		try {
+			return (ExtractionEngine) Class.forName( engine.trim() ).getDeclaredConstructor().newInstance();
+		} catch ( final ReflectiveOperationException | ClassCastException e ) {
+			throw new IllegalArgumentException( "Unknown extraction engine '" + engine + "' given via '"
+					+ EXTRACTION_ENGINE_PROPERTY + "', use one of 'js', 'cdp' or the name of a class implementing "
+					+ ExtractionEngine.class.getName() + ".", e );
+		}
+	}
+
+}
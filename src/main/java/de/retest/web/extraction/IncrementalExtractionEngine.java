@@ -0,0 +1,130 @@
+package de.retest.web.extraction;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import de.retest.web.AttributesUtil;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.WebData;
+import de.retest.web.util.PageScript;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Extracts only the subtrees that changed since the last extraction and merges them into the last extraction. The
+ * changes are tracked by a {@code MutationObserver} (plus listeners for input, focus, hover, scroll, resize and load
+ * events), which is installed once per document. Can be enabled via the {@value #INCREMENTAL_EXTRACTION_PROPERTY}
+ * system property.
+ *
+ * Falls back to a full extraction with the given engine after navigation, if there are too many changed subtrees, if
+ * the size of the document or of a changed subtree changed (as the layout of the rest of the page may have changed as
+ * well) and for pages with frames. Style changes that are neither caused by DOM mutations nor by the tracked events
+ * (e.g. {@code :focus-within} or animations) are not detected.
+ */
+@Slf4j
+public class IncrementalExtractionEngine implements ExtractionEngine {
+
+	public static final String INCREMENTAL_EXTRACTION_PROPERTY = "de.retest.recheck.web.incrementalExtraction";
+
+	private static final String OBSERVE_MUTATIONS_JS_PATH = "/javascript/observeMutations.js";
+
+	private static final int MAX_DIRTY_ELEMENTS = 50;
+
+	private static final String TOKEN_KEY = "token";
+	private static final String FULL_KEY = "full";
+	private static final String DIRTY_KEY = "dirty";
+
+	private final ExtractionEngine fullEngine;
+	private final JavaScriptExtractionEngine subtreeEngine;
+	private final PageScript script;
+
+	private String lastToken;
+	private Set<String> lastCssAttributes;
+	private Extraction lastExtraction;
+
+	public IncrementalExtractionEngine() {
+		this( ExtractionEngine.getConfigured(), new JavaScriptExtractionEngine() );
+	}
+
+	IncrementalExtractionEngine( final ExtractionEngine fullEngine, final JavaScriptExtractionEngine subtreeEngine ) {
+		this.fullEngine = fullEngine;
+		this.subtreeEngine = subtreeEngine;
+		script = PageScript.of( OBSERVE_MUTATIONS_JS_PATH );
+	}
+
+	public static boolean isEnabled() {
+		return Boolean.getBoolean( INCREMENTAL_EXTRACTION_PROPERTY );
+	}
+
+	@Override
+	public synchronized Extraction extract( final WebDriver driver, final WebElement element,
+			final Set<String> cssAttributes ) {
+		if ( element != null ) {
+			return fullEngine.extract( driver, element, cssAttributes );
+		}
+		@SuppressWarnings( "unchecked" )
+		final Map<String, Object> changes =
+				(Map<String, Object>) script.execute( (JavascriptExecutor) driver, MAX_DIRTY_ELEMENTS );
+		final String token = (String) changes.get( TOKEN_KEY );
+		if ( lastExtraction == null || !token.equals( lastToken ) || !cssAttributes.equals( lastCssAttributes )
+				|| Boolean.TRUE.equals( changes.get( FULL_KEY ) ) ) {
+			return extractFully( driver, cssAttributes, token );
+		}
+		@SuppressWarnings( "unchecked" )
+		final List<WebElement> dirty = (List<WebElement>) changes.get( DIRTY_KEY );
+		PathsToWebDataMapping document = lastExtraction.getDocument();
+		for ( final WebElement subtreeRoot : dirty ) {
+			final Extraction subtree = subtreeEngine.extract( driver, subtreeRoot, cssAttributes );
+			if ( !subtree.getFrames().isEmpty() || !hasSameOutline( document, subtree.getDocument() ) ) {
+				log.debug( "Layout of changed subtree '{}' changed, extracting the whole page.",
+						subtree.getDocument().getRootPath() );
+				return extractFully( driver, cssAttributes, token );
+			}
+			document = document.withSubtree( subtree.getDocument() );
+		}
+		log.debug( "Extracted {} changed subtree(s) only.", dirty.size() );
+		lastExtraction = new Extraction( document, lastExtraction.getFrames() );
+		return lastExtraction;
+	}
+
+	private Extraction extractFully( final WebDriver driver, final Set<String> cssAttributes, final String token ) {
+		final Extraction extraction = fullEngine.extract( driver, null, cssAttributes );
+		// Frames are not observed, so pages with frames are always extracted fully.
+		final boolean cacheable = extraction.getFrames().isEmpty() && !containsFrames( extraction.getDocument() );
+		lastExtraction = cacheable ? extraction : null;
+		lastToken = token;
+		lastCssAttributes = new HashSet<>( cssAttributes );
+		return extraction;
+	}
+
+	private static boolean hasSameOutline( final PathsToWebDataMapping document,
+			final PathsToWebDataMapping subtree ) {
+		final WebData before = document.getWebData( subtree.getRootPath() );
+		final WebData after = subtree.getWebData( subtree.getRootPath() );
+		if ( before == null || after == null ) {
+			return false;
+		}
+		return Stream.of( AttributesUtil.ABSOLUTE_X, AttributesUtil.ABSOLUTE_Y, AttributesUtil.ABSOLUTE_WIDTH,
+				AttributesUtil.ABSOLUTE_HEIGHT ).allMatch( key -> {
+					final String value = before.getAsString( key );
+					return value != null && value.equals( after.getAsString( key ) );
+				} );
+	}
+
+	private static boolean containsFrames( final PathsToWebDataMapping document ) {
+		for ( final Map.Entry<String, WebData> entry : document ) {
+			final String tag = entry.getValue().getTag();
+			if ( "iframe".equalsIgnoreCase( tag ) || "frame".equalsIgnoreCase( tag ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
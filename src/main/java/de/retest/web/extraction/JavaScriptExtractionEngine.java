@@ -0,0 +1,192 @@
+package de.retest.web.extraction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import de.retest.web.ConversionException;
+import de.retest.web.DefaultWebValueFinder;
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
+import de.retest.web.mapping.CompactChunkDecoder;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.PayloadFormat;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhaseEvent;
+import de.retest.web.util.PageScript;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Extracts the page via {@code getAllElementsByPath.js}, which walks the DOM and reads the attributes, bounding
+ * rectangles and computed styles of every node. Same-origin frames are extracted in the same pass. The script is
+ * installed once per document, see {@link PageScript}.
+ *
+ * The default values of {@link DefaultWebValueFinder} are installed along with the script, so that CSS values which
+ * would be dropped as default anyway are not transferred at all. This can be disabled via the
+ * {@value #FILTER_DEFAULTS_PROPERTY} system property; the default values are filtered again when converting either
+ * way.
+ *
+ * For very large pages, the result can be fetched in chunks of at most {@value #CHUNK_SIZE_PROPERTY} elements (which
+ * implies the {@link PayloadFormat#COMPACT} format). The script then buffers the result within the page and each chunk
+ * is decoded as soon as it arrives, so that only one chunk of the raw result is held at a time.
+ */
+@Slf4j
+public class JavaScriptExtractionEngine implements ExtractionEngine {
+
+	public static final String FILTER_DEFAULTS_PROPERTY = "de.retest.recheck.web.filterDefaultsInBrowser";
+	public static final String CHUNK_SIZE_PROPERTY = "de.retest.recheck.web.extractionChunkSize";
+
+	private static final String GET_ALL_ELEMENTS_BY_PATH_JS_PATH = "/javascript/getAllElementsByPath.js";
+	private static final String FETCH_CHUNK_JS_PATH = "/javascript/fetchChunk.js";
+
+	private static final PageScript script = PageScript.of( GET_ALL_ELEMENTS_BY_PATH_JS_PATH, getDefaultValues() );
+	private static final PageScript fetchChunk = PageScript.of( FETCH_CHUNK_JS_PATH );
+
+	static final String TOKEN_KEY = "token";
+	static final String PARTS_KEY = "parts";
+
+	// Whether the script descends into same-origin frames, it then returns the document and frames separately.
+	private static final boolean WITH_FRAMES = true;
+	private static final boolean WITHOUT_FRAMES = false;
+
+	private final PayloadFormat payloadFormat;
+	private final boolean filterDefaults;
+	private final int chunkSize;
+
+	public JavaScriptExtractionEngine() {
+		this( PayloadFormat.getConfigured() );
+	}
+
+	public JavaScriptExtractionEngine( final PayloadFormat payloadFormat ) {
+		this( payloadFormat, isFilterDefaults() );
+	}
+
+	public JavaScriptExtractionEngine( final PayloadFormat payloadFormat, final boolean filterDefaults ) {
+		this( payloadFormat, filterDefaults, getConfiguredChunkSize() );
+	}
+
+	/**
+	 * @param payloadFormat
+	 *            The format of the result, {@link PayloadFormat#COMPACT} if chunks are fetched.
+	 * @param filterDefaults
+	 *            If default values should be filtered within the browser.
+	 * @param chunkSize
+	 *            The maximum number of elements to fetch at once, {@code 0} to fetch the whole result at once.
+	 */
+	public JavaScriptExtractionEngine( final PayloadFormat payloadFormat, final boolean filterDefaults,
+			final int chunkSize ) {
+		this.payloadFormat = chunkSize > 0 ? PayloadFormat.COMPACT : payloadFormat;
+		this.filterDefaults = filterDefaults;
+		this.chunkSize = Math.max( 0, chunkSize );
+	}
+
+	public static boolean isFilterDefaults() {
+		return Boolean.parseBoolean( System.getProperty( FILTER_DEFAULTS_PROPERTY, "true" ) );
+	}
+
+	public static int getConfiguredChunkSize() {
+		final String chunkSize = System.getProperty( CHUNK_SIZE_PROPERTY );
+		if ( chunkSize == null || chunkSize.trim().isEmpty() ) {
+			return 0;
+		}
+		try {
+			return Integer.parseInt( chunkSize.trim() );
+		} catch ( final NumberFormatException e ) {
+			throw new IllegalArgumentException( "Invalid chunk size '" + chunkSize + "' given via '"
+					+ CHUNK_SIZE_PROPERTY + "', use a number of elements or 0 to disable chunks.", e );
+		}
+	}
+
+	@Override
+	public Extraction extract( final WebDriver driver, final WebElement element, final Set<String> cssAttributes ) {
+		final long start = System.nanoTime();
+		final Map<String, Object> result = execute( driver, element, cssAttributes );
+		if ( result != null && result.containsKey( TOKEN_KEY ) ) {
+			return fetchChunks( (JavascriptExecutor) driver, result, start );
+		}
+		final long deserializationStart = System.nanoTime();
+		CheckMetrics.publish( () -> CheckPhaseEvent.extraction( deserializationStart - start ) );
+		return Extraction.fromPayload( payloadFormat, result, deserializationStart );
+	}
+
+	/**
+	 * @return The raw result of the script, either the payload or the header of the chunks to fetch.
+	 */
+	@SuppressWarnings( "unchecked" )
+	Map<String, Object> execute( final WebDriver driver, final WebElement element, final Set<String> cssAttributes ) {
+		return (Map<String, Object>) script.execute( (JavascriptExecutor) driver, cssAttributes, element,
+				payloadFormat.toScriptArgument(), WITH_FRAMES, filterDefaults, chunkSize );
+	}
+
+	private Extraction fetchChunks( final JavascriptExecutor executor, final Map<String, Object> header,
+			final long start ) {
+		final String token = (String) header.get( TOKEN_KEY );
+		@SuppressWarnings( "unchecked" )
+		final List<Map<String, Object>> parts = (List<Map<String, Object>>) header.get( PARTS_KEY );
+		long deserializationNanos = 0;
+		PathsToWebDataMapping document = null;
+		final Map<String, PathsToWebDataMapping> frames = new HashMap<>();
+		for ( int part = 0; part < parts.size(); part++ ) {
+			final String framePath = StringUtils.stripStart( (String) parts.get( part ).get( "framePath" ), "/" );
+			final int size = ((Number) parts.get( part ).get( "size" )).intValue();
+			final CompactChunkDecoder decoder = new CompactChunkDecoder( part == 0 ? "/" : framePath,
+					(String) parts.get( part ).get( "rootPath" ), size );
+			while ( decoder.getDecoded() < size ) {
+				final int offset = decoder.getDecoded();
+				@SuppressWarnings( "unchecked" )
+				final Map<String, Object> chunk =
+						(Map<String, Object>) fetchChunk.execute( executor, token, part, offset, chunkSize );
+				if ( chunk == null ) {
+					throw new ConversionException( "Buffered extraction result is gone after " + offset + " of " + size
+							+ " elements, the page has probably changed in the meantime." );
+				}
+				final long decodeStart = System.nanoTime();
+				final PhaseEvent event = PhaseEvent.begin( RecordedPhase.MAPPING_DECODE ).detail( "chunk" );
+				decoder.add( chunk );
+				event.elementCount( decoder.getDecoded() - offset ).commit();
+				deserializationNanos += System.nanoTime() - decodeStart;
+			}
+			if ( part == 0 ) {
+				document = decoder.build();
+			} else {
+				frames.put( framePath, decoder.build() );
+			}
+		}
+		log.debug( "Fetched {} parts of the extraction result in chunks of {} elements.", parts.size(), chunkSize );
+		final long extractionNanos = System.nanoTime() - start - deserializationNanos;
+		CheckMetrics.publish( () -> CheckPhaseEvent.extraction( extractionNanos ) );
+		return Extraction.decoded( document, frames, deserializationNanos );
+	}
+
+	/**
+	 * Extracts the document of the frame the given driver is currently switched to, without descending into further
+	 * frames.
+	 *
+	 * @param driver
+	 *            The driver that is switched to the frame.
+	 * @param cssAttributes
+	 *            The CSS attributes to extract.
+	 * @param framePath
+	 *            The path of the frame element.
+	 * @return The extracted document of the frame.
+	 */
+	public PathsToWebDataMapping extractFrame( final WebDriver driver, final Set<String> cssAttributes,
+			final String framePath ) {
+		return payloadFormat.toMapping( framePath, script.execute( (JavascriptExecutor) driver, cssAttributes, null,
+				payloadFormat.toScriptArgument(), WITHOUT_FRAMES, filterDefaults ) );
+	}
+
+	private static Map<String, Object> getDefaultValues() {
+		final Map<String, Object> constants = new HashMap<>();
+		constants.put( "defaultValues", new DefaultWebValueFinder().getDefaultValues() );
+		constants.put( "commonDefaults", DefaultWebValueFinder.getCommonDefaults() );
+		return constants;
+	}
+
+}
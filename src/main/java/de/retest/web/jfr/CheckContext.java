@@ -0,0 +1,65 @@
+package de.retest.web.jfr;
+
+/**
+ * Holds the name and URL of the check that is currently executed by this thread, so that the {@link PhaseEvent}s
+ * happening during the check can refer to them. The context is only held while phase events are recorded.
+ *
+ * <pre>
+ * try ( final CheckContext context = CheckContext.enter( checkName ) ) {
+ * 	// ...
+ * }
+ * </pre>
+ */
+public final class CheckContext implements AutoCloseable {
+
+	private static final ThreadLocal<CheckContext> current = new ThreadLocal<>();
+
+	private final String checkName;
+	private String url;
+
+	private CheckContext( final String checkName ) {
+		this.checkName = checkName;
+	}
+
+	/**
+	 * @param checkName
+	 *            The name of the check that is entered.
+	 * @return The entered context to close after the check, or {@code null} if phase events are not recorded or the
+	 *         current thread already executes a check (e.g. when an autocheck is delegated to {@code RecheckWebImpl}).
+	 */
+	public static CheckContext enter( final String checkName ) {
+		if ( !PhaseEvent.isRecording() || current.get() != null ) {
+			return null;
+		}
+		final CheckContext context = new CheckContext( checkName );
+		current.set( context );
+		return context;
+	}
+
+	/**
+	 * @param url
+	 *            The URL of the page that is checked by the current check (if any).
+	 */
+	public static void setUrl( final String url ) {
+		final CheckContext context = current.get();
+		if ( context != null ) {
+			context.url = url;
+		}
+	}
+
+	public static String getCheckName() {
+		final CheckContext context = current.get();
+		return context != null ? context.checkName : null;
+	}
+
+	public static String getUrl() {
+		final CheckContext context = current.get();
+		return context != null ? context.url : null;
+	}
+
+	@Override
+	public void close() {
+		current.remove();
+	}
+
+}
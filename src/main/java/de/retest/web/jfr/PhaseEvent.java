@@ -0,0 +1,80 @@
+package de.retest.web.jfr;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A Java Flight Recorder event for a phase of a check, see {@link RecordedPhase}. Usage:
+ *
+ * <pre>
+ * final PhaseEvent event = PhaseEvent.begin( RecordedPhase.SCREENSHOT );
+ * // ...
+ * event.elementCount( count ).commit();
+ * </pre>
+ *
+ * The events are recorded as {@code de.retest.web.Phase} by the {@link PhaseRecorder} within {@code src/main/java11},
+ * which is only available on Java 11 and newer. Otherwise and if the event is not enabled within the flight recording,
+ * a shared disabled instance is returned, so events cost nothing if JFR is off.
+ */
+@Slf4j
+public class PhaseEvent {
+
+	private static final String RECORDER = "de.retest.web.jfr.JfrPhaseRecorder";
+
+	private static final PhaseEvent DISABLED = new PhaseEvent();
+
+	private static final PhaseRecorder recorder = loadRecorder();
+
+	PhaseEvent() {}
+
+	/**
+	 * @return If phase events are currently recorded, e.g. to skip gathering expensive event fields.
+	 */
+	public static boolean isRecording() {
+		return recorder != null && recorder.isRecording();
+	}
+
+	/**
+	 * @param phase
+	 *            The phase that begins.
+	 * @return The event to {@link #commit()} when the phase ended.
+	 */
+	public static PhaseEvent begin( final RecordedPhase phase ) {
+		// Nothing is allocated unless the event is enabled.
+		return isRecording() ? recorder.begin( phase ) : DISABLED;
+	}
+
+	private static PhaseRecorder loadRecorder() {
+		try {
+			return (PhaseRecorder) Class.forName( RECORDER ).getDeclaredConstructor().newInstance();
+		} catch ( final ReflectiveOperationException | LinkageError e ) {
+			log.debug( "Java Flight Recorder is not available, phase events are not recorded.", e );
+			return null;
+		}
+	}
+
+	/**
+	 * @return If this event is recorded, i.e. if it is worth to set its fields.
+	 */
+	public boolean isEnabled() {
+		return false;
+	}
+
+	public PhaseEvent elementCount( final int elementCount ) {
+		return this;
+	}
+
+	public PhaseEvent byteCount( final long byteCount ) {
+		return this;
+	}
+
+	public PhaseEvent detail( final String detail ) {
+		return this;
+	}
+
+	/**
+	 * Ends the phase and commits the event, filling in the URL and name of the current check (see
+	 * {@link CheckContext}).
+	 */
+	public void commit() {}
+
+}
@@ -0,0 +1,21 @@
+package de.retest.web.jfr;
+
+/**
+ * Records {@link PhaseEvent}s with the Java Flight Recorder. The implementation is compiled from {@code src/main/java11}
+ * (on JDK 11 and newer only) and cannot be loaded on Java 8.
+ */
+interface PhaseRecorder {
+
+	/**
+	 * @return If the event is enabled within the flight recording.
+	 */
+	boolean isRecording();
+
+	/**
+	 * @param phase
+	 *            The phase that begins.
+	 * @return The recorded event.
+	 */
+	PhaseEvent begin( RecordedPhase phase );
+
+}
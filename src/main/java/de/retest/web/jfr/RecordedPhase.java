@@ -0,0 +1,43 @@
+package de.retest.web.jfr;
+
+/**
+ * The phases recorded as {@link PhaseEvent}s.
+ */
+public enum RecordedPhase {
+
+	/**
+	 * Taking the screenshot of the page or element.
+	 */
+	SCREENSHOT,
+
+	/**
+	 * Executing a script within the browser, the byte count is the size of the script(s) sent.
+	 */
+	SCRIPT_EXECUTION,
+
+	/**
+	 * Decoding the extracted payload into paths to web data mappings.
+	 */
+	MAPPING_DECODE,
+
+	/**
+	 * Converting the document into the element tree.
+	 */
+	PEER_CONVERSION,
+
+	/**
+	 * Converting (and, if necessary, extracting) the content of all frames.
+	 */
+	FRAME_CONVERSION,
+
+	/**
+	 * Looking up a broken locator within the last Golden Master, the detail is the locator.
+	 */
+	HEALING,
+
+	/**
+	 * An automatic check of the {@code AutocheckingRecheckDriver}, including all of the above.
+	 */
+	AUTOCHECK
+
+}
@@ -0,0 +1,92 @@
+package de.retest.web.mapping;
+
+import static de.retest.web.mapping.CompactPathsToWebDataMapping.KEYS;
+import static de.retest.web.mapping.CompactPathsToWebDataMapping.PARENTS;
+import static de.retest.web.mapping.CompactPathsToWebDataMapping.VALUES;
+import static de.retest.web.mapping.CompactPathsToWebDataMapping.get;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import de.retest.web.ConversionException;
+
+/**
+ * Decodes a compact payload (see {@link CompactPathsToWebDataMapping}) that is received in consecutive chunks, so that
+ * only one chunk of the raw payload has to be held at a time. Each chunk contains a range of elements plus the
+ * dictionary entries that were added for them, i.e. the dictionaries of all chunks concatenated are the dictionaries of
+ * the whole payload. Example:
+ *
+ * <pre>
+ * {
+ *   keys       = [ class, ... ],
+ *   values     = [ a, 10, ... ],
+ *   parents    = [ 1, 1, ... ],
+ *   indices    = [ 1, 2, ... ],
+ *   attributes = [ [ 0, 0, 1, 2, ... ], ... ]
+ * }
+ * </pre>
+ */
+public class CompactChunkDecoder {
+
+	private final String rootPath;
+	private final String[] paths;
+	private final WebData[] webData;
+	private final int[] parents;
+
+	private final List<Object> keys = new ArrayList<>();
+	private final List<Object> values = new ArrayList<>();
+	private int decoded;
+
+	/**
+	 * @param frameParentPath
+	 *            The parent path of the frame ({@code "/"} for the top-level document).
+	 * @param rootPath
+	 *            The raw root path of the payload, e.g. {@code //html[1]}.
+	 * @param size
+	 *            The number of elements of the whole payload.
+	 */
+	public CompactChunkDecoder( final String frameParentPath, final String rootPath, final int size ) {
+		this.rootPath = CompactPathsToWebDataMapping.toRootPath( frameParentPath, rootPath );
+		paths = new String[size];
+		webData = new WebData[size];
+		parents = new int[size];
+	}
+
+	/**
+	 * @param chunk
+	 *            The raw next chunk of the payload.
+	 */
+	public void add( final Map<String, Object> chunk ) {
+		final int count = get( chunk, PARENTS, List.class ).size();
+		if ( decoded + count > paths.length ) {
+			throw new ConversionException( "Chunk of " + count + " elements exceeds the payload of " + paths.length
+					+ " elements, of which " + decoded + " are decoded already." );
+		}
+		keys.addAll( get( chunk, KEYS, List.class ) );
+		values.addAll( get( chunk, VALUES, List.class ) );
+		CompactPathsToWebDataMapping.decode( rootPath, keys, values, chunk, decoded, paths, webData, parents );
+		decoded += count;
+	}
+
+	/**
+	 * @return The number of elements decoded so far.
+	 */
+	public int getDecoded() {
+		return decoded;
+	}
+
+	/**
+	 * @return The mapping of all elements.
+	 * @throws ConversionException
+	 *             If not all elements have been decoded.
+	 */
+	public PathsToWebDataMapping build() {
+		if ( decoded != paths.length ) {
+			throw new ConversionException(
+					"Only " + decoded + " of " + paths.length + " elements of the payload have been received." );
+		}
+		return new CompactPathsToWebDataMapping( rootPath, paths, webData, parents );
+	}
+
+}
@@ -0,0 +1,117 @@
+package de.retest.web.mapping;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.retest.web.AttributesUtil;
+import de.retest.web.ConversionException;
+
+/**
+ * Paths to web data mapping that is decoded from the compact (columnar) payload of {@code getAllElementsByPath.js}.
+ * Instead of repeating every path and every attribute key per element, the payload consists of dictionaries and index
+ * arrays. Example:
+ *
+ * <pre>
+ * {
+ *   rootPath   = //html[1],
+ *   keys       = [ tagName, text, class, ... ],
+ *   values     = [ html, body, "", 0px, ... ],
+ *   parents    = [ -1, 0, 1, 1, ... ],
+ *   indices    = [ 1, 1, 1, 2, ... ],
+ *   attributes = [ [ 0, 0, 1, 2, ... ], [ 0, 1, 1, 2, ... ], ... ]
+ * }
+ * </pre>
+ *
+ * Elements are given in document order, hence a parent always precedes its children. The path of an element is the
+ * path of its parent plus its tag name and its index among the siblings with the same tag name. The attributes of an
+ * element are pairs of key and value indices.
+ */
+public class CompactPathsToWebDataMapping extends PathsToWebDataMapping {
+
+	static final String ROOT_PATH = "rootPath";
+	static final String KEYS = "keys";
+	static final String VALUES = "values";
+	static final String PARENTS = "parents";
+	static final String INDICES = "indices";
+	static final String ATTRIBUTES = "attributes";
+
+	public CompactPathsToWebDataMapping( final Map<String, Object> payload ) {
+		this( "/", payload );
+	}
+
+	/**
+	 * @param frameParentPath
+	 *            The parent path of the frame.
+	 * @param payload
+	 *            The raw compact payload.
+	 */
+	public CompactPathsToWebDataMapping( final String frameParentPath, final Map<String, Object> payload ) {
+		this( toRootPath( frameParentPath, get( payload, ROOT_PATH, String.class ) ),
+				get( payload, PARENTS, List.class ).size(), payload );
+	}
+
+	private CompactPathsToWebDataMapping( final String rootPath, final int size, final Map<String, Object> payload ) {
+		this( rootPath, new String[size], new WebData[size], new int[size], payload );
+	}
+
+	private CompactPathsToWebDataMapping( final String rootPath, final String[] paths, final WebData[] webData,
+			final int[] parents, final Map<String, Object> payload ) {
+		this( rootPath, decode( rootPath, get( payload, KEYS, List.class ), get( payload, VALUES, List.class ),
+				payload, 0, paths, webData, parents ), webData, parents );
+	}
+
+	CompactPathsToWebDataMapping( final String rootPath, final String[] paths, final WebData[] webData,
+			final int[] parents ) {
+		super( paths, webData, parents, rootPath );
+	}
+
+	static String toRootPath( final String frameParentPath, final String rootPath ) {
+		return frameParentPath + rootPath.replace( "//", "/" );
+	}
+
+	/**
+	 * Decodes the elements of the given payload into the given arrays, starting at the given offset. Parent and
+	 * dictionary indices refer to all elements and dictionary entries decoded so far, which allows to decode a payload
+	 * in chunks (see {@link CompactChunkDecoder}).
+	 *
+	 * @return The given paths.
+	 */
+	static String[] decode( final String rootPath, final List<?> keys, final List<?> values,
+			final Map<String, Object> payload, final int offset, final String[] paths, final WebData[] webData,
+			final int[] parents ) {
+		final List<?> parentIndices = get( payload, PARENTS, List.class );
+		final List<?> indices = get( payload, INDICES, List.class );
+		final List<?> attributes = get( payload, ATTRIBUTES, List.class );
+
+		for ( int chunkIndex = 0; chunkIndex < parentIndices.size(); chunkIndex++ ) {
+			final int i = offset + chunkIndex;
+			final List<?> keyValueIndices = (List<?>) attributes.get( chunkIndex );
+			final Map<String, Object> data = new HashMap<>( capacity( keyValueIndices.size() / 2 ) );
+			for ( int j = 0; j + 1 < keyValueIndices.size(); j += 2 ) {
+				final String key = (String) keys.get( toInt( keyValueIndices.get( j ) ) );
+				data.put( key, values.get( toInt( keyValueIndices.get( j + 1 ) ) ) );
+			}
+			final int parent = toInt( parentIndices.get( chunkIndex ) );
+			parents[i] = parent < 0 ? NO_PARENT : parent;
+			paths[i] = parent < 0 ? rootPath
+					: paths[parent] + "/" + data.get( AttributesUtil.TAG_NAME ) + "["
+							+ toInt( indices.get( chunkIndex ) ) + "]";
+			webData[i] = new WebData( data );
+		}
+		return paths;
+	}
+
+	static <T> T get( final Map<String, Object> payload, final String key, final Class<T> type ) {
+		final Object value = payload.get( key );
+		if ( !type.isInstance( value ) ) {
+			throw new ConversionException( "Compact payload has no valid '" + key + "' entry, but " + value + "." );
+		}
+		return type.cast( value );
+	}
+
+	private static int toInt( final Object index ) {
+		return ((Number) index).intValue();
+	}
+
+}
@@ -1,11 +1,13 @@
 package de.retest.web.mapping;
 
-import static org.apache.commons.lang3.StringUtils.countMatches;
-
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
 
 import org.openqa.selenium.JavascriptExecutor;
 
@@ -20,12 +22,26 @@ import org.openqa.selenium.JavascriptExecutor;
  *   ...
  * }
  * </pre>
+ *
+ * The elements are indexed in document order (a parent always precedes its children) and the index of the parent of
+ * each element is resolved once while decoding, so the tree can be built without parsing the paths again.
  */
 public class PathsToWebDataMapping implements Iterable<Entry<String, WebData>> {
 
-	private final Map<String, WebData> mapping;
+	/**
+	 * Parent index of elements without parent within this mapping, i.e. the root element.
+	 */
+	public static final int NO_PARENT = -1;
+
+	private final String[] paths;
+	private final WebData[] webData;
+	private final int[] parents;
 	private final String rootPath;
 
+	private Map<String, Integer> indicesByPath;
+	private int[] childOffsets;
+	private int[] children;
+
 	public PathsToWebDataMapping( final Map<String, Map<String, Object>> mapping ) {
 		this( "/", mapping );
 	}
@@ -37,28 +53,290 @@ public class PathsToWebDataMapping implements Iterable<Entry<String, WebData>> {
 	 *            The raw map of paths to maps of attributes.
 	 */
 	public PathsToWebDataMapping( final String frameParentPath, final Map<String, Map<String, Object>> mapping ) {
-		rootPath = frameParentPath + mapping.keySet().stream().reduce(
-				( rootPath, path ) -> countMatches( path, "/" ) < countMatches( rootPath, "/" ) ? path : rootPath )
-				.orElse( "" ).replace( "//", "/" );
-		this.mapping = mapping.entrySet().stream() //
-				.collect( Collectors.toMap( entry -> frameParentPath + entry.getKey().replace( "//", "/" ),
-						entry -> new WebData( entry.getValue() ) ) );
+		// Keep the (document) order of the script result.
+		final Map<String, WebData> decoded = new LinkedHashMap<>( capacity( mapping.size() ) );
+		mapping.forEach( ( path, data ) -> decoded.put( frameParentPath + path.replace( "//", "/" ),
+				new WebData( data ) ) );
+		final int size = decoded.size();
+		final String[] paths = decoded.keySet().toArray( new String[size] );
+		final int[] parents = new int[size];
+		final Map<String, Integer> indicesByPath = new HashMap<>( capacity( size ) );
+		for ( int i = 0; i < size; i++ ) {
+			indicesByPath.put( paths[i], i );
+		}
+		for ( int i = 0; i < size; i++ ) {
+			final int separator = paths[i].lastIndexOf( '/' );
+			final Integer parent = separator > 0 ? indicesByPath.get( paths[i].substring( 0, separator ) ) : null;
+			parents[i] = parent != null ? parent : NO_PARENT;
+		}
+		final int[] order = toParentFirstOrder( parents );
+		if ( order == null ) {
+			this.paths = paths;
+			webData = decoded.values().toArray( new WebData[size] );
+			this.parents = parents;
+			this.indicesByPath = indicesByPath;
+		} else {
+			final WebData[] unordered = decoded.values().toArray( new WebData[size] );
+			final int[] newIndices = new int[size];
+			for ( int i = 0; i < size; i++ ) {
+				newIndices[order[i]] = i;
+			}
+			this.paths = new String[size];
+			webData = new WebData[size];
+			this.parents = new int[size];
+			for ( int i = 0; i < size; i++ ) {
+				this.paths[i] = paths[order[i]];
+				webData[i] = unordered[order[i]];
+				final int parent = parents[order[i]];
+				this.parents[i] = parent == NO_PARENT ? NO_PARENT : newIndices[parent];
+			}
+		}
+		rootPath = size > 0 ? this.paths[0] : frameParentPath;
+	}
+
+	/**
+	 * For subclasses that decode a different payload format.
+	 *
+	 * @param paths
+	 *            The (frame-prefixed) paths of the elements, where a parent always precedes its children.
+	 * @param webData
+	 *            The web data of the elements.
+	 * @param parents
+	 *            The index of the parent of each element or {@link #NO_PARENT}.
+	 * @param rootPath
+	 *            The (frame-prefixed) path of the root element.
+	 */
+	protected PathsToWebDataMapping( final String[] paths, final WebData[] webData, final int[] parents,
+			final String rootPath ) {
+		if ( paths.length != webData.length || paths.length != parents.length ) {
+			throw new IllegalArgumentException( "Paths, web data and parents must have the same length." );
+		}
+		for ( int i = 0; i < parents.length; i++ ) {
+			if ( parents[i] >= i ) {
+				throw new IllegalArgumentException( "Parent of element " + i + " does not precede it." );
+			}
+		}
+		this.paths = paths;
+		this.webData = webData;
+		this.parents = parents;
+		this.rootPath = rootPath;
 	}
 
 	public int size() {
-		return mapping.size();
+		return paths.length;
 	}
 
 	public WebData getWebData( final String path ) {
-		return mapping.get( path );
+		final Integer index = getIndicesByPath().get( path );
+		return index != null ? webData[index] : null;
+	}
+
+	/**
+	 * @param index
+	 *            The index of the element in document order.
+	 * @return The path of the element.
+	 */
+	public String getPath( final int index ) {
+		return paths[index];
+	}
+
+	/**
+	 * @param index
+	 *            The index of the element in document order.
+	 * @return The web data of the element.
+	 */
+	public WebData getWebData( final int index ) {
+		return webData[index];
+	}
+
+	/**
+	 * @param index
+	 *            The index of the element in document order.
+	 * @return The index of the parent of the element (which is always lower than the given index) or
+	 *         {@link #NO_PARENT}.
+	 */
+	public int getParentIndex( final int index ) {
+		return parents[index];
+	}
+
+	/**
+	 * @param index
+	 *            The index of the element in document order.
+	 * @return The indices of the children of the element in document order.
+	 */
+	public int[] getChildIndices( final int index ) {
+		final int[] offsets = getChildOffsets();
+		return Arrays.copyOfRange( children, offsets[index], offsets[index + 1] );
 	}
 
 	@Override
 	public Iterator<Entry<String, WebData>> iterator() {
-		return mapping.entrySet().iterator();
+		return new Iterator<Entry<String, WebData>>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < paths.length;
+			}
+
+			@Override
+			public Entry<String, WebData> next() {
+				if ( !hasNext() ) {
+					throw new NoSuchElementException();
+				}
+				final int index = next++;
+				return new SimpleImmutableEntry<>( paths[index], webData[index] );
+			}
+		};
 	}
 
 	public String getRootPath() {
 		return rootPath;
 	}
+
+	/**
+	 * @param subtree
+	 *            The newly extracted subtree, whose root has to be contained in this mapping.
+	 * @return A new mapping, where the subtree at the root path of the given mapping is replaced (in place, to keep
+	 *         the document order).
+	 */
+	public PathsToWebDataMapping withSubtree( final PathsToWebDataMapping subtree ) {
+		final Integer subtreeRoot = getIndicesByPath().get( subtree.getRootPath() );
+		if ( subtreeRoot == null ) {
+			return this;
+		}
+		final int size = size() - countSubtree( subtreeRoot ) + subtree.size();
+		final String[] mergedPaths = new String[size];
+		final WebData[] mergedWebData = new WebData[size];
+		final int[] mergedParents = new int[size];
+		final int[] newIndices = new int[size()];
+		final boolean[] replaced = new boolean[size()];
+		int next = 0;
+		for ( int i = 0; i < size(); i++ ) {
+			final int parent = parents[i];
+			replaced[i] = i == subtreeRoot || parent != NO_PARENT && replaced[parent];
+			if ( i == subtreeRoot ) {
+				final int offset = next;
+				for ( int j = 0; j < subtree.size(); j++ ) {
+					final int subtreeParent = subtree.getParentIndex( j );
+					mergedPaths[next] = subtree.getPath( j );
+					mergedWebData[next] = subtree.getWebData( j );
+					mergedParents[next] = subtreeParent != NO_PARENT ? offset + subtreeParent
+							: parent != NO_PARENT ? newIndices[parent] : NO_PARENT;
+					next++;
+				}
+			} else if ( !replaced[i] ) {
+				newIndices[i] = next;
+				mergedPaths[next] = paths[i];
+				mergedWebData[next] = webData[i];
+				mergedParents[next] = parent != NO_PARENT ? newIndices[parent] : NO_PARENT;
+				next++;
+			}
+		}
+		return new PathsToWebDataMapping( mergedPaths, mergedWebData, mergedParents, rootPath );
+	}
+
+	private int countSubtree( final int root ) {
+		final boolean[] contained = new boolean[size()];
+		int count = 0;
+		for ( int i = root; i < size(); i++ ) {
+			contained[i] = i == root || parents[i] != NO_PARENT && contained[parents[i]];
+			if ( contained[i] ) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private synchronized Map<String, Integer> getIndicesByPath() {
+		if ( indicesByPath == null ) {
+			final Map<String, Integer> indices = new HashMap<>( capacity( paths.length ) );
+			for ( int i = 0; i < paths.length; i++ ) {
+				indices.put( paths[i], i );
+			}
+			indicesByPath = indices;
+		}
+		return indicesByPath;
+	}
+
+	private synchronized int[] getChildOffsets() {
+		if ( childOffsets == null ) {
+			final int[] offsets = new int[paths.length + 1];
+			for ( final int parent : parents ) {
+				if ( parent != NO_PARENT ) {
+					offsets[parent + 1]++;
+				}
+			}
+			for ( int i = 0; i < paths.length; i++ ) {
+				offsets[i + 1] += offsets[i];
+			}
+			final int[] filled = Arrays.copyOf( offsets, paths.length );
+			final int[] indices = new int[offsets[paths.length]];
+			for ( int i = 0; i < parents.length; i++ ) {
+				if ( parents[i] != NO_PARENT ) {
+					indices[filled[parents[i]]++] = i;
+				}
+			}
+			children = indices;
+			childOffsets = offsets;
+		}
+		return childOffsets;
+	}
+
+	/**
+	 * @return The old indices in an order where a parent always precedes its children (keeping the given order
+	 *         otherwise) or {@code null} if this already holds.
+	 */
+	private static int[] toParentFirstOrder( final int[] parents ) {
+		boolean ordered = true;
+		for ( int i = 0; i < parents.length && ordered; i++ ) {
+			ordered = parents[i] < i;
+		}
+		if ( ordered ) {
+			return null;
+		}
+		// Pre-order traversal of the tree, with the children in the given order.
+		final int[] firstChild = new int[parents.length];
+		final int[] nextSibling = new int[parents.length];
+		final int[] lastChild = new int[parents.length];
+		Arrays.fill( firstChild, NO_PARENT );
+		Arrays.fill( nextSibling, NO_PARENT );
+		for ( int i = 0; i < parents.length; i++ ) {
+			final int parent = parents[i];
+			if ( parent == NO_PARENT ) {
+				continue;
+			}
+			if ( firstChild[parent] == NO_PARENT ) {
+				firstChild[parent] = i;
+			} else {
+				nextSibling[lastChild[parent]] = i;
+			}
+			lastChild[parent] = i;
+		}
+		final int[] order = new int[parents.length];
+		int next = 0;
+		for ( int root = 0; root < parents.length; root++ ) {
+			if ( parents[root] != NO_PARENT ) {
+				continue;
+			}
+			int current = root;
+			while ( current != NO_PARENT ) {
+				order[next++] = current;
+				if ( firstChild[current] != NO_PARENT ) {
+					current = firstChild[current];
+					continue;
+				}
+				while ( current != root && nextSibling[current] == NO_PARENT ) {
+					current = parents[current];
+				}
+				current = current == root ? NO_PARENT : nextSibling[current];
+			}
+		}
+		return order;
+	}
+
+	static int capacity( final int expectedSize ) {
+		return (int) (expectedSize / 0.75f) + 1;
+	}
 }
@@ -0,0 +1,64 @@
+package de.retest.web.mapping;
+
+import java.util.Map;
+
+/**
+ * The format in which {@code getAllElementsByPath.js} returns the extracted elements. It can be selected via the
+ * {@value #PAYLOAD_FORMAT_PROPERTY} system property, the default is {@link #MAP}.
+ */
+public enum PayloadFormat {
+
+	/**
+	 * A map of full paths to maps of attributes, see {@link PathsToWebDataMapping}.
+	 */
+	MAP {
+		@Override
+		@SuppressWarnings( "unchecked" )
+		public PathsToWebDataMapping toMapping( final String frameParentPath, final Object payload ) {
+			return new PathsToWebDataMapping( frameParentPath, (Map<String, Map<String, Object>>) payload );
+		}
+	},
+
+	/**
+	 * Dictionaries and index arrays, see {@link CompactPathsToWebDataMapping}.
+	 */
+	COMPACT {
+		@Override
+		@SuppressWarnings( "unchecked" )
+		public PathsToWebDataMapping toMapping( final String frameParentPath, final Object payload ) {
+			return new CompactPathsToWebDataMapping( frameParentPath, (Map<String, Object>) payload );
+		}
+	};
+
+	public static final String PAYLOAD_FORMAT_PROPERTY = "de.retest.recheck.web.payloadFormat";
+
+	/**
+	 * @param frameParentPath
+	 *            The parent path of the frame ({@code "/"} for the top-level document).
+	 * @param payload
+	 *            The raw result of the script execution.
+	 * @return The decoded mapping.
+	 */
+	public abstract PathsToWebDataMapping toMapping( String frameParentPath, Object payload );
+
+	/**
+	 * @return The value that is passed to the script to select this format.
+	 */
+	public String toScriptArgument() {
+		return name().toLowerCase();
+	}
+
+	public static PayloadFormat getConfigured() {
+		final String format = System.getProperty( PAYLOAD_FORMAT_PROPERTY );
+		if ( format == null || format.trim().isEmpty() ) {
+			return MAP;
+		}
+		try {
+			return valueOf( format.trim().toUpperCase() );
+		} catch ( final IllegalArgumentException e ) {
+			throw new IllegalArgumentException( "Unknown payload format '" + format + "' given via '"
+					+ PAYLOAD_FORMAT_PROPERTY + "', use one of 'map' or 'compact'.", e );
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+package de.retest.web.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Notifies the enabled {@link CheckMetricsListener}s about finished phases. The events are only created if there is
+ * an enabled listener, so gathering metrics costs nothing otherwise.
+ */
+@Slf4j
+public final class CheckMetrics {
+
+	private static final List<CheckMetricsListener> listeners = loadListeners();
+
+	private CheckMetrics() {}
+
+	public static boolean isEnabled() {
+		return !listeners.isEmpty();
+	}
+
+	/**
+	 * @param event
+	 *            Creates the event of the finished phase, only called if metrics are enabled.
+	 */
+	public static void publish( final Supplier<CheckPhaseEvent> event ) {
+		if ( listeners.isEmpty() ) {
+			return;
+		}
+		final CheckPhaseEvent finished = event.get();
+		for ( final CheckMetricsListener listener : listeners ) {
+			try {
+				listener.phaseFinished( finished );
+			} catch ( final RuntimeException e ) {
+				log.warn( "Exception notifying '{}' about {}.", listener, finished, e );
+			}
+		}
+	}
+
+	static List<CheckMetricsListener> loadListeners() {
+		final List<CheckMetricsListener> result = new ArrayList<>();
+		for ( final CheckMetricsListener listener : ServiceLoader.load( CheckMetricsListener.class ) ) {
+			if ( listener.isEnabled() ) {
+				log.debug( "Notifying '{}' about check metrics.", listener.getClass().getName() );
+				result.add( listener );
+			}
+		}
+		return Collections.unmodifiableList( result );
+	}
+
+}
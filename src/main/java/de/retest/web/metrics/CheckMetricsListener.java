@@ -0,0 +1,24 @@
+package de.retest.web.metrics;
+
+/**
+ * Gets notified about each finished phase of a check, e.g. to find out why checks are slow. Implementations are
+ * discovered via {@link java.util.ServiceLoader}, i.e. they have to be registered within
+ * {@code META-INF/services/de.retest.web.metrics.CheckMetricsListener}. See {@link JsonCheckMetricsReport} for the
+ * default implementation.
+ *
+ * Listeners are called synchronously from the checking thread, so they should be quick (and thread-safe, if checks run
+ * in parallel).
+ */
+public interface CheckMetricsListener {
+
+	/**
+	 * @return If this listener should be notified at all, which is determined once when the listeners are loaded. If
+	 *         no listener is enabled, no metrics are gathered.
+	 */
+	default boolean isEnabled() {
+		return true;
+	}
+
+	void phaseFinished( CheckPhaseEvent event );
+
+}
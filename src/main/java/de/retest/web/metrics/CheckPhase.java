@@ -0,0 +1,45 @@
+package de.retest.web.metrics;
+
+/**
+ * The phases of a check, in the order in which they usually happen.
+ */
+public enum CheckPhase {
+
+	/**
+	 * Taking the screenshot (if it is not deferred or when the deferred screenshot is taken).
+	 */
+	SCREENSHOT,
+
+	/**
+	 * Executing the extraction within the browser (i.e. the {@code executeScript} or DevTools round trip).
+	 */
+	EXTRACTION,
+
+	/**
+	 * Decoding the extracted payload into paths to web data mappings.
+	 */
+	DESERIALIZATION,
+
+	/**
+	 * Converting the document into the element tree.
+	 */
+	CONVERSION,
+
+	/**
+	 * Converting (and, if necessary, extracting) the content of all frames.
+	 */
+	FRAMES,
+
+	/**
+	 * Loading the Golden Master and comparing it to the checked state (only when checking via {@code RecheckWebImpl}).
+	 */
+	COMPARISON,
+
+	/**
+	 * Aligning the last expected and the last actual state to heal a locator with the {@code UnbreakableDriver}, which
+	 * happens after the check. The alignment is cached until either state changes, see
+	 * {@link CheckPhaseEvent#getCacheHits()}.
+	 */
+	ALIGNMENT
+
+}
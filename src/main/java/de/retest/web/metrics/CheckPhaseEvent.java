@@ -0,0 +1,84 @@
+package de.retest.web.metrics;
+
+import java.awt.image.BufferedImage;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A finished {@link CheckPhase} with its duration and the sizes it dealt with. Sizes that do not apply to the phase are
+ * {@value #NOT_AVAILABLE}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor( access = AccessLevel.PRIVATE )
+public class CheckPhaseEvent {
+
+	public static final int NOT_AVAILABLE = -1;
+
+	private final CheckPhase phase;
+	private final long durationNanos;
+
+	/**
+	 * The number of elements extracted, converted or compared.
+	 */
+	private final int elementCount;
+
+	/**
+	 * The number of frames extracted or converted.
+	 */
+	private final int frameCount;
+
+	/**
+	 * The number of attribute values within the extracted payload (not its size in bytes).
+	 */
+	private final long attributeValueCount;
+
+	private final int screenshotWidth;
+	private final int screenshotHeight;
+
+	/**
+	 * The number of results taken from a cache instead of being computed (i.e. {@code 0} or {@code 1}).
+	 */
+	private final int cacheHits;
+
+	public static CheckPhaseEvent screenshot( final long durationNanos, final BufferedImage screenshot ) {
+		return new CheckPhaseEvent( CheckPhase.SCREENSHOT, durationNanos, NOT_AVAILABLE, NOT_AVAILABLE, NOT_AVAILABLE,
+				screenshot != null ? screenshot.getWidth() : NOT_AVAILABLE,
+				screenshot != null ? screenshot.getHeight() : NOT_AVAILABLE, NOT_AVAILABLE );
+	}
+
+	public static CheckPhaseEvent extraction( final long durationNanos ) {
+		return new CheckPhaseEvent( CheckPhase.EXTRACTION, durationNanos, NOT_AVAILABLE, NOT_AVAILABLE, NOT_AVAILABLE,
+				NOT_AVAILABLE, NOT_AVAILABLE, NOT_AVAILABLE );
+	}
+
+	public static CheckPhaseEvent deserialization( final long durationNanos, final int elementCount,
+			final int frameCount, final long attributeValueCount ) {
+		return new CheckPhaseEvent( CheckPhase.DESERIALIZATION, durationNanos, elementCount, frameCount,
+				attributeValueCount, NOT_AVAILABLE, NOT_AVAILABLE, NOT_AVAILABLE );
+	}
+
+	public static CheckPhaseEvent conversion( final long durationNanos, final int elementCount ) {
+		return new CheckPhaseEvent( CheckPhase.CONVERSION, durationNanos, elementCount, NOT_AVAILABLE, NOT_AVAILABLE,
+				NOT_AVAILABLE, NOT_AVAILABLE, NOT_AVAILABLE );
+	}
+
+	public static CheckPhaseEvent frames( final long durationNanos, final int frameCount, final int elementCount ) {
+		return new CheckPhaseEvent( CheckPhase.FRAMES, durationNanos, elementCount, frameCount, NOT_AVAILABLE,
+				NOT_AVAILABLE, NOT_AVAILABLE, NOT_AVAILABLE );
+	}
+
+	public static CheckPhaseEvent comparison( final long durationNanos, final int elementCount ) {
+		return new CheckPhaseEvent( CheckPhase.COMPARISON, durationNanos, elementCount, NOT_AVAILABLE, NOT_AVAILABLE,
+				NOT_AVAILABLE, NOT_AVAILABLE, NOT_AVAILABLE );
+	}
+
+	public static CheckPhaseEvent alignment( final long durationNanos, final int elementCount, final boolean cached ) {
+		return new CheckPhaseEvent( CheckPhase.ALIGNMENT, durationNanos, elementCount, NOT_AVAILABLE, NOT_AVAILABLE,
+				NOT_AVAILABLE, NOT_AVAILABLE, cached ? 1 : 0 );
+	}
+
+}
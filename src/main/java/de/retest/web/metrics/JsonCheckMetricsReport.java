@@ -0,0 +1,142 @@
+package de.retest.web.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Aggregates the metrics of all checks of a run per phase and writes them as JSON report when the JVM exits. Enabled
+ * by setting the {@value #METRICS_REPORT_PROPERTY} system property to the file to write the report to. Example:
+ *
+ * <pre>
+ * {
+ *   "checks" : 12,
+ *   "phases" : {
+ *     "SCREENSHOT" : { "count" : 12, "totalMillis" : 5230.2, "minMillis" : 310.5, "maxMillis" : 820.1, ... },
+ *     ...
+ *     "ALIGNMENT" : { "count" : 40, ..., "cacheHits" : 36, "cacheHitRatio" : 0.9 }
+ *   }
+ * }
+ * </pre>
+ */
+@Slf4j
+public class JsonCheckMetricsReport implements CheckMetricsListener {
+
+	public static final String METRICS_REPORT_PROPERTY = "de.retest.recheck.web.metricsReport";
+
+	private final File report;
+	private final Map<CheckPhase, PhaseStatistics> statistics = new EnumMap<>( CheckPhase.class );
+
+	public JsonCheckMetricsReport() {
+		this( getConfiguredReport() );
+		if ( report != null ) {
+			Runtime.getRuntime().addShutdownHook( new Thread( this::writeQuietly, "recheck-web-metrics-report" ) );
+		}
+	}
+
+	JsonCheckMetricsReport( final File report ) {
+		this.report = report;
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return report != null;
+	}
+
+	@Override
+	public synchronized void phaseFinished( final CheckPhaseEvent event ) {
+		statistics.computeIfAbsent( event.getPhase(), phase -> new PhaseStatistics() ).add( event );
+	}
+
+	synchronized void write() throws IOException {
+		final Map<String, Object> phases = new LinkedHashMap<>();
+		statistics.forEach( ( phase, phaseStatistics ) -> phases.put( phase.name(), phaseStatistics.toMap() ) );
+		final PhaseStatistics conversions = statistics.get( CheckPhase.CONVERSION );
+		final Map<String, Object> result = new LinkedHashMap<>();
+		result.put( "checks", conversions != null ? conversions.count : 0 );
+		result.put( "phases", phases );
+		final File parent = report.getAbsoluteFile().getParentFile();
+		if ( parent != null ) {
+			parent.mkdirs();
+		}
+		new ObjectMapper().enable( SerializationFeature.INDENT_OUTPUT ).writeValue( report, result );
+	}
+
+	private void writeQuietly() {
+		try {
+			write();
+			log.info( "Wrote check metrics to '{}'.", report );
+		} catch ( final IOException | UncheckedIOException e ) {
+			log.error( "Exception writing check metrics to '{}'.", report, e );
+		}
+	}
+
+	private static File getConfiguredReport() {
+		final String report = System.getProperty( METRICS_REPORT_PROPERTY );
+		return report == null || report.trim().isEmpty() ? null : new File( report.trim() );
+	}
+
+	private static class PhaseStatistics {
+
+		private int count;
+		private long totalNanos;
+		private long minNanos = Long.MAX_VALUE;
+		private long maxNanos;
+		private long elements;
+		private long frames;
+		private long attributeValues;
+		private int maxScreenshotWidth;
+		private int maxScreenshotHeight;
+		private int cached;
+		private int cacheHits;
+
+		void add( final CheckPhaseEvent event ) {
+			count++;
+			totalNanos += event.getDurationNanos();
+			minNanos = Math.min( minNanos, event.getDurationNanos() );
+			maxNanos = Math.max( maxNanos, event.getDurationNanos() );
+			elements += Math.max( 0, event.getElementCount() );
+			frames += Math.max( 0, event.getFrameCount() );
+			attributeValues += Math.max( 0, event.getAttributeValueCount() );
+			maxScreenshotWidth = Math.max( maxScreenshotWidth, event.getScreenshotWidth() );
+			maxScreenshotHeight = Math.max( maxScreenshotHeight, event.getScreenshotHeight() );
+			if ( event.getCacheHits() != CheckPhaseEvent.NOT_AVAILABLE ) {
+				cached++;
+				cacheHits += event.getCacheHits();
+			}
+		}
+
+		Map<String, Object> toMap() {
+			final Map<String, Object> result = new LinkedHashMap<>();
+			result.put( "count", count );
+			result.put( "totalMillis", toMillis( totalNanos ) );
+			result.put( "minMillis", toMillis( minNanos ) );
+			result.put( "maxMillis", toMillis( maxNanos ) );
+			result.put( "meanMillis", toMillis( totalNanos / count ) );
+			result.put( "elements", elements );
+			result.put( "frames", frames );
+			result.put( "attributeValues", attributeValues );
+			result.put( "maxScreenshotWidth", maxScreenshotWidth );
+			result.put( "maxScreenshotHeight", maxScreenshotHeight );
+			if ( cached > 0 ) {
+				result.put( "cacheHits", cacheHits );
+				result.put( "cacheHitRatio", cacheHits / (double) cached );
+			}
+			return result;
+		}
+
+		private static double toMillis( final long nanos ) {
+			return nanos / (double) TimeUnit.MILLISECONDS.toNanos( 1 );
+		}
+	}
+
+}
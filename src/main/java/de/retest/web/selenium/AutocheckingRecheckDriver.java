@@ -9,20 +9,57 @@ import org.openqa.selenium.WebElement;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
 import de.retest.recheck.RecheckOptions;
+import de.retest.web.CapturedPage;
+import de.retest.web.RecheckSeleniumAdapter;
 import de.retest.web.RecheckWebImpl;
 import de.retest.web.RecheckWebOptions;
+import de.retest.web.extraction.ExtractionEngine;
+import de.retest.web.extraction.IncrementalExtractionEngine;
+import de.retest.web.jfr.CheckContext;
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
+import de.retest.web.util.PageScript;
 
 /**
  * Extends {@link UnbreakableDriver} and automagically creates a check <em>after</em> any executed action (usually
  * starting with {@link WebDriver#get(String)}). Consequently, you can omit using a {@code Recheck} instance such as
  * {@code RecheckImpl} or {@code RecheckWebImpl} instance. It utilizes the given {@link AutocheckingCheckNamingStrategy}
  * to create names for the checks.
+ *
+ * Checks can be executed asynchronously via the {@value #ASYNC_CHECKS_PROPERTY} system property. Then only the
+ * browser-facing part of a check (the screenshot and the extraction, see {@link CapturedPage}) blocks the test, while
+ * the conversion, the comparison with the Golden Master and persisting it are executed in the background. At most
+ * {@value #ASYNC_CHECKS_CAPACITY_PROPERTY} checks (default {@value #DEFAULT_ASYNC_CHECKS_CAPACITY}) are pending at
+ * once. The checks are awaited by {@link #capTest()}, {@link #cap()} and when starting a test, as well as before
+ * healing broken locators with the states of the last check. Lazy screenshots are not supported then, as the page
+ * has usually changed once the check is done.
+ *
+ * Redundant checks can be skipped via the {@value #SKIP_REDUNDANT_CHECKS_PROPERTY} system property. Then a cheap
+ * fingerprint of the page (counting DOM mutations, input events and scrolled containers, as well as the scroll
+ * position, the viewport size and the URL) is evaluated before each check. If it did not change since the previous
+ * check (e.g. after {@code clear()} on an empty field or a click that only focuses an element), the page is neither
+ * extracted nor shot again, but the state of the previous check is reused for the check (see
+ * {@link #getSkippedChecks()}). Changes not reflected by the DOM (e.g. of {@code :hover} or {@code :focus} styles or
+ * canvas contents) go unnoticed then. Pages with frames are always checked, as are pages whose previous check is still
+ * pending or failed.
  */
 public class AutocheckingRecheckDriver extends UnbreakableDriver {
 
+	public static final String ASYNC_CHECKS_PROPERTY = "de.retest.recheck.web.asyncChecks";
+	public static final String ASYNC_CHECKS_CAPACITY_PROPERTY = "de.retest.recheck.web.asyncChecksCapacity";
+	static final int DEFAULT_ASYNC_CHECKS_CAPACITY = 16;
+	public static final String SKIP_REDUNDANT_CHECKS_PROPERTY = "de.retest.recheck.web.skipRedundantChecks";
+
+	private static final PageScript GET_PAGE_FINGERPRINT_JS = PageScript.of( "/javascript/getPageFingerprint.js" );
+
 	private RecheckWebImpl re;
 	private final RecheckOptions options;
 	private final AutocheckingCheckNamingStrategy checkNamingStrategy;
+	private ExtractionEngine extractionEngine;
+	private CheckPipeline checkPipeline;
+	private Object lastFingerprint;
+	private int fingerprintGeneration;
+	private int skippedChecks;
 
 	public AutocheckingRecheckDriver( final RemoteWebDriver wrapped ) {
 		this( wrapped, RecheckWebOptions.builder().build() );
@@ -65,6 +102,8 @@ public class AutocheckingRecheckDriver extends UnbreakableDriver {
 	}
 
 	public void startTest() {
+		awaitChecks();
+		resetSkippedChecks();
 		checkNamingStrategy.nextTest();
 		if ( re == null ) {
 			re = new RecheckWebImpl( options );
@@ -73,6 +112,8 @@ public class AutocheckingRecheckDriver extends UnbreakableDriver {
 	}
 
 	public void startTest( final String testName ) {
+		awaitChecks();
+		resetSkippedChecks();
 		if ( re == null ) {
 			re = new RecheckWebImpl( options );
 		}
@@ -80,10 +121,12 @@ public class AutocheckingRecheckDriver extends UnbreakableDriver {
 	}
 
 	public void capTest() {
+		awaitChecks();
 		re.capTest();
 	}
 
 	public void cap() {
+		awaitChecks();
 		checkNamingStrategy.nextTest();
 		re.cap();
 	}
@@ -96,9 +139,13 @@ public class AutocheckingRecheckDriver extends UnbreakableDriver {
 
 	@Override
 	public void close() {
-		// Is this sensible? What about tests using separate sessions?
-		cap();
-		super.close();
+		try {
+			// Is this sensible? What about tests using separate sessions?
+			cap();
+		} finally {
+			closeCheckPipeline();
+			super.close();
+		}
 	}
 
 	@Override
@@ -107,6 +154,7 @@ public class AutocheckingRecheckDriver extends UnbreakableDriver {
 			// Is this sensible? What about tests using separate sessions?
 			cap();
 		} finally {
+			closeCheckPipeline();
 			super.quit();
 		}
 	}
@@ -143,18 +191,188 @@ public class AutocheckingRecheckDriver extends UnbreakableDriver {
 				.collect( Collectors.toList() );
 	}
 
+	@Override
+	public List<WebElement> findEach( final List<By> bys ) {
+		return super.findEach( bys ).stream() //
+				.map( element -> element instanceof AutocheckingWebElement ? element
+						: new AutocheckingWebElement( element, this ) ) //
+				.collect( Collectors.toList() );
+	}
+
 	void check( final String action, final WebElement target, final Object... params ) {
 		if ( re == null ) {
 			startTest();
 		}
-		re.check( this, checkNamingStrategy.getUniqueCheckName( action, target, params ) );
+		checkPage( checkNamingStrategy.getUniqueCheckName( action, target, params ), re );
 	}
 
 	void check( final String action ) {
 		if ( re == null ) {
 			startTest();
 		}
-		re.check( this, checkNamingStrategy.getUniqueCheckName( action ) );
+		checkPage( checkNamingStrategy.getUniqueCheckName( action ), re );
+	}
+
+	private void checkPage( final String checkName, final RecheckWebImpl re ) {
+		final Object fingerprint = getFingerprint();
+		final CheckPipeline pipeline = getCheckPipeline();
+		if ( fingerprint != null && fingerprint.equals( getLastFingerprint() ) ) {
+			skippedChecks++;
+			check( checkName, re, CapturedPage.unchanged( this, pipeline == null ), createAdapter(), pipeline,
+					() -> {} );
+			return;
+		}
+		// Forget the fingerprint until the page is checked successfully, which may happen in the background.
+		final int generation = forgetFingerprint();
+		final Runnable checked = () -> rememberFingerprint( generation, fingerprint );
+		if ( pipeline == null ) {
+			try ( final CheckContext context = CheckContext.enter( checkName ) ) {
+				final PhaseEvent event = PhaseEvent.begin( RecordedPhase.AUTOCHECK );
+				re.check( this, checkName );
+				event.commit();
+			}
+			checked.run();
+			return;
+		}
+		final RecheckSeleniumAdapter adapter = createAdapter();
+		final CapturedPage page;
+		try ( final CheckContext context = CheckContext.enter( checkName ) ) {
+			page = adapter.capture( this );
+		}
+		check( checkName, re, page, adapter, pipeline, checked );
+	}
+
+	private RecheckSeleniumAdapter createAdapter() {
+		final RecheckSeleniumAdapter adapter = new RecheckSeleniumAdapter();
+		adapter.initialize( options );
+		return adapter;
+	}
+
+	private static void check( final String checkName, final RecheckWebImpl re, final CapturedPage page,
+			final RecheckSeleniumAdapter adapter, final CheckPipeline pipeline, final Runnable checked ) {
+		final Runnable check = () -> {
+			try ( final CheckContext context = CheckContext.enter( checkName ) ) {
+				final PhaseEvent event = PhaseEvent.begin( RecordedPhase.AUTOCHECK );
+				re.check( page, adapter, checkName );
+				event.commit();
+			}
+			checked.run();
+		};
+		if ( pipeline == null ) {
+			check.run();
+		} else {
+			pipeline.submit( check );
+		}
+	}
+
+	/**
+	 * @return The fingerprint of the page if redundant checks are skipped, otherwise (or if the page cannot be
+	 *         fingerprinted) {@code null}.
+	 */
+	private Object getFingerprint() {
+		if ( !isSkipRedundantChecks() ) {
+			return null;
+		}
+		return GET_PAGE_FINGERPRINT_JS.execute( this );
+	}
+
+	/**
+	 * @return The number of checks of the current test that were skipped, i.e. reused the state of the previous check
+	 *         as the page did not change since.
+	 * @see #SKIP_REDUNDANT_CHECKS_PROPERTY
+	 */
+	public int getSkippedChecks() {
+		return skippedChecks;
+	}
+
+	private void resetSkippedChecks() {
+		skippedChecks = 0;
+		forgetFingerprint();
+	}
+
+	private synchronized Object getLastFingerprint() {
+		return lastFingerprint;
+	}
+
+	/**
+	 * @return The generation of the fingerprint to remember once the page is checked successfully.
+	 */
+	private synchronized int forgetFingerprint() {
+		lastFingerprint = null;
+		return ++fingerprintGeneration;
+	}
+
+	private synchronized void rememberFingerprint( final int generation, final Object fingerprint ) {
+		// A later check (or test) may have forgotten the fingerprint since.
+		if ( generation == fingerprintGeneration ) {
+			lastFingerprint = fingerprint;
+		}
+	}
+
+	static boolean isSkipRedundantChecks() {
+		return Boolean.getBoolean( SKIP_REDUNDANT_CHECKS_PROPERTY );
+	}
+
+	/**
+	 * @return The pipeline to execute the checks in the background if enabled, otherwise {@code null}.
+	 */
+	synchronized CheckPipeline getCheckPipeline() {
+		if ( checkPipeline == null && isAsyncChecks() ) {
+			checkPipeline = new CheckPipeline( getAsyncChecksCapacity() );
+		}
+		return checkPipeline;
+	}
+
+	private void closeCheckPipeline() {
+		final CheckPipeline pipeline;
+		synchronized ( this ) {
+			pipeline = checkPipeline;
+			checkPipeline = null;
+		}
+		// Not within the lock, as the pending checks update the states of this driver.
+		if ( pipeline != null ) {
+			pipeline.close();
+		}
+	}
+
+	private void awaitChecks() {
+		final CheckPipeline pipeline = getCheckPipeline();
+		if ( pipeline != null ) {
+			pipeline.await();
+		}
+	}
+
+	@Override
+	protected void awaitLastStates() {
+		awaitChecks();
+	}
+
+	static boolean isAsyncChecks() {
+		return Boolean.getBoolean( ASYNC_CHECKS_PROPERTY );
+	}
+
+	static int getAsyncChecksCapacity() {
+		final String capacity = System.getProperty( ASYNC_CHECKS_CAPACITY_PROPERTY );
+		if ( capacity == null || capacity.trim().isEmpty() ) {
+			return DEFAULT_ASYNC_CHECKS_CAPACITY;
+		}
+		try {
+			return Integer.parseInt( capacity.trim() );
+		} catch ( final NumberFormatException e ) {
+			throw new IllegalArgumentException( "Invalid capacity '" + capacity + "' given via '"
+					+ ASYNC_CHECKS_CAPACITY_PROPERTY + "', use the maximum number of pending checks.", e );
+		}
+	}
+
+	/**
+	 * @return The engine to extract the page with, which only extracts the changes since the last check if enabled
+	 *         (see {@link IncrementalExtractionEngine}), otherwise {@code null} to use the configured engine.
+	 */
+	public synchronized ExtractionEngine getExtractionEngine() {
+		if ( extractionEngine == null && IncrementalExtractionEngine.isEnabled() ) {
+			extractionEngine = new IncrementalExtractionEngine();
+		}
+		return extractionEngine;
 	}
 
 	@Override
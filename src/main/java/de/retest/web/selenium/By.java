@@ -1,12 +1,16 @@
 package de.retest.web.selenium;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.RootElement;
 import de.retest.recheck.ui.diff.Alignment;
+import de.retest.web.SubtreeHashes;
 
 public abstract class By extends org.openqa.selenium.By {
 
@@ -23,8 +27,35 @@ public abstract class By extends org.openqa.selenium.By {
 		if ( resultFromExpected == null ) {
 			return null;
 		}
-		final Alignment alignment = Alignment.createAlignment( lastExpectedState, lastActualState );
-		final Element resultFromActual = alignment.get( resultFromExpected );
+		final Element identical = new SubtreeHashes().findIdentical( resultFromExpected, lastActualState );
+		return toActual( resultFromExpected, identical,
+				() -> Alignment.createAlignment( lastExpectedState, lastActualState ) );
+	}
+
+	/**
+	 * Like {@link #findElement(RootElement, RootElement, Predicate)}, but for an element already looked up in the last
+	 * expected state of the given driver. Uses the index and alignment of the driver, which are kept until its states
+	 * change.
+	 *
+	 * @param driver
+	 *            The driver with the last expected (usually the Golden Master) and actual (usually the current) state.
+	 * @param resultFromExpected
+	 *            The element found in the last expected state, may be {@code null}.
+	 * @return The corresponding element of the last actual state or {@code null}, if none was found in the last
+	 *         expected state.
+	 */
+	public static Element findElement( final UnbreakableDriver driver, final Element resultFromExpected ) {
+		if ( resultFromExpected == null ) {
+			return null;
+		}
+		final Element identical = driver.getLastActualIndex().findIdentical( resultFromExpected );
+		return toActual( resultFromExpected, identical, driver::getLastAlignment );
+	}
+
+	private static Element toActual( final Element resultFromExpected, final Element identical,
+			final Supplier<Alignment> alignment ) {
+		// Identical subtrees are paired up at once, only differing states need the (expensive) alignment.
+		final Element resultFromActual = identical != null ? identical : alignment.get().get( resultFromExpected );
 		if ( resultFromActual == null ) {
 			throw new NoElementWithHighEnoughMatchFoundException( resultFromExpected );
 		}
@@ -32,29 +63,46 @@ public abstract class By extends org.openqa.selenium.By {
 	}
 
 	private static Element findElement( final List<Element> children, final Predicate<Element> predicate ) {
-		for ( final Element element : children ) {
+		final Deque<Element> stack = new ArrayDeque<>();
+		pushReversed( stack, children );
+		while ( !stack.isEmpty() ) {
+			final Element element = stack.pop();
 			if ( predicate.test( element ) ) {
 				return element;
 			}
-			final Element result = findElement( element.getContainedElements(), predicate );
-			if ( result != null ) {
-				return result;
-			}
+			pushReversed( stack, element.getContainedElements() );
 		}
 		return null;
 	}
 
+	/**
+	 * @param children
+	 *            The elements to search within, including their descendants.
+	 * @param predicate
+	 *            The predicate to test.
+	 * @return The matching elements in document order (pre-order).
+	 */
 	public static List<Element> findElements( final List<Element> children, final Predicate<Element> predicate ) {
 		final List<Element> result = new ArrayList<>();
-		for ( final Element element : children ) {
+		final Deque<Element> stack = new ArrayDeque<>();
+		pushReversed( stack, children );
+		while ( !stack.isEmpty() ) {
+			final Element element = stack.pop();
 			if ( predicate.test( element ) ) {
 				result.add( element );
 			}
-			result.addAll( findElements( element.getContainedElements(), predicate ) );
+			pushReversed( stack, element.getContainedElements() );
 		}
 		return result;
 	}
 
+	// Iterative pre-order traversal, so that deep pages do not overflow the call stack.
+	private static void pushReversed( final Deque<Element> stack, final List<Element> elements ) {
+		for ( int i = elements.size() - 1; i >= 0; i-- ) {
+			stack.push( elements.get( i ) );
+		}
+	}
+
 	public static Element findElementByAttribute( final RootElement lastExpectedState,
 			final RootElement lastActualState, final String attributeName, final Predicate<Object> condition ) {
 		return findElement( lastExpectedState, lastActualState, element -> {
@@ -60,6 +60,23 @@ public class ByBestMatchToRetestId extends By implements Serializable {
 		return result;
 	}
 
+	/**
+	 * Like {@link #findElement(RootElement, RootElement)}, but uses the index and alignment of the states of the given
+	 * driver.
+	 *
+	 * @param driver
+	 *            The driver with the last expected (usually the Golden Master) and actual (usually the current) state.
+	 * @return Maybe an element whose children have a different retest ID than in the Golden Master.
+	 */
+	public Element findElement( final UnbreakableDriver driver ) {
+		final Element result = de.retest.web.selenium.By.findElement( driver,
+				driver.getLastExpectedIndex().findByRetestId( retestId ) );
+		if ( result == null ) {
+			throw new NoElementWithReTestIdFoundException( retestId );
+		}
+		return result;
+	}
+
 	@Override
 	public int hashCode() {
 		return retestId.hashCode();
@@ -0,0 +1,124 @@
+package de.retest.web.selenium;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes the checks of an {@link AutocheckingRecheckDriver} in the background, after the page was captured by the
+ * test thread. The checks are executed one after another in the order they were submitted, as they are added to the
+ * same test. At most {@link #getCapacity()} checks are pending at once; submitting further checks blocks until the
+ * oldest one is done, so that captured pages do not pile up if the test is faster than the checks.
+ *
+ * Failures of checks are not lost, but thrown by {@link #await()}.
+ */
+@Slf4j
+class CheckPipeline implements AutoCloseable {
+
+	private final int capacity;
+	private final Semaphore permits;
+	private final ExecutorService executor;
+	private final List<Future<?>> pending = new ArrayList<>();
+
+	CheckPipeline( final int capacity ) {
+		if ( capacity < 1 ) {
+			throw new IllegalArgumentException( "Capacity must be at least 1, but was " + capacity + "." );
+		}
+		this.capacity = capacity;
+		permits = new Semaphore( capacity );
+		executor = Executors.newSingleThreadExecutor( runnable -> {
+			final Thread thread = new Thread( runnable, "recheck-web-checks" );
+			thread.setDaemon( true );
+			return thread;
+		} );
+	}
+
+	/**
+	 * @return The maximum number of pending checks.
+	 */
+	int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Executes the given check after all previously submitted checks, blocking while the pipeline is full.
+	 */
+	void submit( final Runnable check ) {
+		// Not within the lock, so that pending checks can be awaited while blocking.
+		try {
+			permits.acquire();
+		} catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException( "Interrupted while waiting for pending checks.", e );
+		}
+		try {
+			enqueue( check );
+		} catch ( final RuntimeException e ) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	private synchronized void enqueue( final Runnable check ) {
+		pending.add( executor.submit( () -> {
+			try {
+				check.run();
+			} finally {
+				permits.release();
+			}
+		} ) );
+	}
+
+	/**
+	 * Waits until all submitted checks are done.
+	 *
+	 * @throws RuntimeException
+	 *             The first failure of the checks (if any), after all checks are done.
+	 */
+	synchronized void await() {
+		Throwable failure = null;
+		for ( final Future<?> check : pending ) {
+			try {
+				check.get();
+			} catch ( final InterruptedException e ) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException( "Interrupted while waiting for pending checks.", e );
+			} catch ( final ExecutionException e ) {
+				if ( failure == null ) {
+					failure = e.getCause();
+				} else {
+					log.error( "Check failed in the background.", e.getCause() );
+				}
+			}
+		}
+		pending.clear();
+		if ( failure instanceof RuntimeException ) {
+			throw (RuntimeException) failure;
+		}
+		if ( failure instanceof Error ) {
+			throw (Error) failure;
+		}
+		if ( failure != null ) {
+			throw new IllegalStateException( "Check failed in the background.", failure );
+		}
+	}
+
+	/**
+	 * Waits for the pending checks and stops the background thread.
+	 */
+	@Override
+	public void close() {
+		try {
+			await();
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
@@ -0,0 +1,77 @@
+package de.retest.web.selenium;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caches the locators compiled from strings (e.g. {@link XPath} and {@link CssSelector}), keeping the most recently
+ * used ones. Strings that cannot be compiled are cached as well, i.e. the {@link IllegalArgumentException} of the
+ * compiler is thrown again instead of parsing the string again.
+ *
+ * @param <T>
+ *            The type of the compiled locators.
+ */
+final class CompiledLocatorCache<T> {
+
+	private final Function<String, T> compiler;
+	// Either the compiled locator or the exception of the compiler.
+	private final Map<String, Object> cache;
+
+	/**
+	 * @param capacity
+	 *            The maximum number of cached strings.
+	 * @param compiler
+	 *            Compiles a string, throwing an {@link IllegalArgumentException} if it cannot be compiled.
+	 */
+	CompiledLocatorCache( final int capacity, final Function<String, T> compiler ) {
+		this.compiler = compiler;
+		cache = new LinkedHashMap<String, Object>( 16, 0.75f, true ) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry( final Map.Entry<String, Object> eldest ) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * @return The (cached) compiled locator.
+	 * @throws IllegalArgumentException
+	 *             The (cached) exception of the compiler if the given string cannot be compiled.
+	 */
+	@SuppressWarnings( "unchecked" )
+	T compile( final String string ) {
+		Object compiled;
+		synchronized ( cache ) {
+			compiled = cache.get( string );
+		}
+		if ( compiled == null ) {
+			// Not within the lock, compiling the same string concurrently is harmless.
+			try {
+				compiled = compiler.apply( string );
+			} catch ( final IllegalArgumentException e ) {
+				compiled = e;
+			}
+			synchronized ( cache ) {
+				final Object concurrent = cache.putIfAbsent( string, compiled );
+				if ( concurrent != null ) {
+					compiled = concurrent;
+				}
+			}
+		}
+		if ( compiled instanceof IllegalArgumentException ) {
+			throw (IllegalArgumentException) compiled;
+		}
+		return (T) compiled;
+	}
+
+	int size() {
+		synchronized ( cache ) {
+			return cache.size();
+		}
+	}
+
+}
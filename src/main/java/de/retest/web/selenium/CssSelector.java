@@ -0,0 +1,642 @@
+package de.retest.web.selenium;
+
+import static de.retest.web.AttributesUtil.CLASS;
+import static de.retest.web.AttributesUtil.ID;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+
+/**
+ * A CSS selector compiled into a tree of matchers, which finds the element a test located via
+ * {@code By.cssSelector(...)} within a state (usually the Golden Master). Supported are (see
+ * <a href="https://www.w3.org/TR/selectors-4/">Selectors Level 4</a>):
+ *
+ * <ul>
+ * <li>type, universal ({@code *}), id ({@code #}) and class ({@code .}) selectors,</li>
+ * <li>attribute selectors with and without the operators {@code =}, {@code ~=}, {@code |=}, {@code ^=}, {@code $=}
+ * and {@code *=}, optionally ignoring case ({@code i}),</li>
+ * <li>the descendant, child ({@code >}), next-sibling ({@code +}) and subsequent-sibling ({@code ~}) combinators,</li>
+ * <li>selector lists ({@code ,}),</li>
+ * <li>the pseudo-classes {@code :first-child}, {@code :last-child}, {@code :only-child}, {@code :nth-child()},
+ * {@code :nth-last-child()}, their {@code -of-type} counterparts, {@code :root}, {@code :empty}, {@code :not()},
+ * {@code :is()} and {@code :where()}.</li>
+ * </ul>
+ *
+ * Selectors are compiled once per string. Matching starts with the elements of the {@link ElementIndex} bucket of the
+ * id, class or tag of the rightmost compound selector and goes from right to left from there, so complex selectors
+ * cost about the same as simple ones.
+ */
+final class CssSelector {
+
+	private static final CompiledLocatorCache<CssSelector> cache =
+			new CompiledLocatorCache<>( 1000, string -> new Parser( string ).parse() );
+
+	private final List<Complex> alternatives;
+
+	private CssSelector( final List<Complex> alternatives ) {
+		this.alternatives = alternatives;
+	}
+
+	/**
+	 * @param selector
+	 *            The CSS selector to compile.
+	 * @return The compiled selector, which is cached (as are unsupported selectors).
+	 * @throws UnsupportedSelectorException
+	 *             If the selector is invalid or uses unsupported features.
+	 */
+	static CssSelector compile( final String selector ) {
+		return cache.compile( selector );
+	}
+
+	/**
+	 * @return The first matching element in document order or {@code null}.
+	 */
+	Element findFirst( final ElementIndex index ) {
+		if ( alternatives.size() == 1 ) {
+			final Complex complex = alternatives.get( 0 );
+			return ElementIndex.findFirst( complex.candidates( index ), element -> complex.matches( element, index ) );
+		}
+		return index.findFirst( element -> matches( element, index ) );
+	}
+
+	/**
+	 * @return All matching elements in document order.
+	 */
+	List<Element> findAll( final ElementIndex index ) {
+		if ( alternatives.size() == 1 ) {
+			final Complex complex = alternatives.get( 0 );
+			return ElementIndex.findAll( complex.candidates( index ), element -> complex.matches( element, index ) );
+		}
+		return index.findAll( element -> matches( element, index ) );
+	}
+
+	boolean matches( final Element element, final ElementIndex index ) {
+		for ( final Complex complex : alternatives ) {
+			if ( complex.matches( element, index ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Thrown for invalid selectors as well as for selectors that use unsupported features.
+	 */
+	static class UnsupportedSelectorException extends IllegalArgumentException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String unsupported;
+
+		UnsupportedSelectorException( final String selector, final String unsupported ) {
+			super( "Unsupported CSS selector '" + selector + "' at '" + unsupported + "'." );
+			this.unsupported = unsupported;
+		}
+
+		/**
+		 * @return The part of the selector starting at the first unsupported feature.
+		 */
+		String getUnsupported() {
+			return unsupported;
+		}
+	}
+
+	/**
+	 * Compound selectors joined by combinators, e.g. {@code div.menu > a:first-child}.
+	 */
+	private static class Complex {
+
+		private final List<Compound> compounds;
+		// The combinator at i joins the compounds at i and i + 1.
+		private final List<Character> combinators;
+
+		Complex( final List<Compound> compounds, final List<Character> combinators ) {
+			this.compounds = compounds;
+			this.combinators = combinators;
+		}
+
+		List<Element> candidates( final ElementIndex index ) {
+			final Compound last = compounds.get( compounds.size() - 1 );
+			if ( last.id != null ) {
+				return index.findById( last.id );
+			}
+			if ( !last.classes.isEmpty() ) {
+				return index.findByClass( last.classes.get( 0 ) );
+			}
+			if ( last.tag != null ) {
+				return index.findByTag( last.tag );
+			}
+			return index.getElements();
+		}
+
+		boolean matches( final Element element, final ElementIndex index ) {
+			return matches( compounds.size() - 1, element, index );
+		}
+
+		private boolean matches( final int compound, final Element element, final ElementIndex index ) {
+			if ( !compounds.get( compound ).matches( element, index ) ) {
+				return false;
+			}
+			if ( compound == 0 ) {
+				return true;
+			}
+			final char combinator = combinators.get( compound - 1 );
+			if ( combinator == '>' ) {
+				final Element parent = index.getParent( element );
+				return parent != null && matches( compound - 1, parent, index );
+			}
+			if ( combinator == ' ' ) {
+				for ( Element ancestor = index.getParent( element ); ancestor != null; ancestor =
+						index.getParent( ancestor ) ) {
+					if ( matches( compound - 1, ancestor, index ) ) {
+						return true;
+					}
+				}
+				return false;
+			}
+			final List<Element> siblings = index.getSiblings( element );
+			final int position = index.getPosition( element );
+			if ( combinator == '+' ) {
+				return position > 0 && matches( compound - 1, siblings.get( position - 1 ), index );
+			}
+			for ( int i = position - 1; i >= 0; i-- ) {
+				if ( matches( compound - 1, siblings.get( i ), index ) ) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Simple selectors without combinators, e.g. {@code a.button[href]:first-child}.
+	 */
+	private static class Compound {
+
+		private String tag;
+		private String id;
+		private final List<String> classes = new ArrayList<>();
+		private final List<Condition> conditions = new ArrayList<>();
+
+		boolean matches( final Element element, final ElementIndex index ) {
+			final IdentifyingAttributes identifyingAttributes = element.getIdentifyingAttributes();
+			if ( identifyingAttributes == null ) {
+				return false;
+			}
+			if ( tag != null && !tag.equalsIgnoreCase( identifyingAttributes.getType() ) ) {
+				return false;
+			}
+			if ( id != null && !id.equals( identifyingAttributes.get( ID ) ) ) {
+				return false;
+			}
+			if ( !classes.isEmpty() ) {
+				final Object value = identifyingAttributes.get( CLASS );
+				if ( value == null ) {
+					return false;
+				}
+				final String[] tokens = StringUtils.split( value.toString() );
+				for ( final String cssClass : classes ) {
+					if ( !contains( tokens, cssClass ) ) {
+						return false;
+					}
+				}
+			}
+			for ( final Condition condition : conditions ) {
+				if ( !condition.matches( element, index ) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private interface Condition {
+		boolean matches( Element element, ElementIndex index );
+	}
+
+	private static boolean contains( final String[] tokens, final String token ) {
+		for ( final String candidate : tokens ) {
+			if ( candidate.equals( token ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String getAttribute( final Element element, final String name ) {
+		final Object identifying = element.getIdentifyingAttributes().get( name );
+		if ( identifying != null ) {
+			return identifying.toString();
+		}
+		final Object state = element.getAttributes() != null ? element.getAttributes().get( name ) : null;
+		return state != null ? state.toString() : null;
+	}
+
+	private static Condition attribute( final String name, final String operator, final String expected,
+			final boolean ignoreCase ) {
+		if ( operator == null ) {
+			// Boolean attributes (e.g. disabled) are extracted as true or false.
+			return ( element, index ) -> {
+				final String value = getAttribute( element, name );
+				return value != null && !"false".equals( value );
+			};
+		}
+		final String wanted = ignoreCase ? expected.toLowerCase( Locale.ROOT ) : expected;
+		return ( element, index ) -> {
+			final String found = getAttribute( element, name );
+			if ( found == null ) {
+				return false;
+			}
+			final String value = ignoreCase ? found.toLowerCase( Locale.ROOT ) : found;
+			switch ( operator ) {
+				case "=":
+					return value.equals( wanted );
+				case "~=":
+					return contains( StringUtils.split( value ), wanted );
+				case "|=":
+					return value.equals( wanted ) || value.startsWith( wanted + "-" );
+				case "^=":
+					return !wanted.isEmpty() && value.startsWith( wanted );
+				case "$=":
+					return !wanted.isEmpty() && value.endsWith( wanted );
+				default:
+					return !wanted.isEmpty() && value.contains( wanted );
+			}
+		};
+	}
+
+	/**
+	 * Matches the (1-based) position {@code a * n + b} for some {@code n >= 0}, counted among the siblings (of the same
+	 * type) from the start or the end.
+	 */
+	private static Condition nth( final int a, final int b, final boolean ofType, final boolean fromEnd ) {
+		return ( element, index ) -> {
+			final List<Element> siblings = index.getSiblings( element );
+			final int position = index.getPosition( element );
+			final String type = ofType ? element.getIdentifyingAttributes().getType() : null;
+			int count = 1;
+			final int step = fromEnd ? 1 : -1;
+			for ( int i = position + step; i >= 0 && i < siblings.size(); i += step ) {
+				if ( !ofType || isOfType( siblings.get( i ), type ) ) {
+					count++;
+				}
+			}
+			if ( a == 0 ) {
+				return count == b;
+			}
+			final int n = count - b;
+			return n % a == 0 && n / a >= 0;
+		};
+	}
+
+	private static boolean isOfType( final Element element, final String type ) {
+		return element.getIdentifyingAttributes() != null
+				&& StringUtils.equalsIgnoreCase( type, element.getIdentifyingAttributes().getType() );
+	}
+
+	private static class Parser {
+
+		private static final Pattern AN_PLUS_B = Pattern.compile( "([+-]?\\d*)n([+-]\\d+)?" );
+		private static final Pattern B = Pattern.compile( "[+-]?\\d+" );
+
+		private final String selector;
+		private int position;
+
+		Parser( final String selector ) {
+			this.selector = selector;
+		}
+
+		CssSelector parse() {
+			final List<Complex> alternatives = list();
+			if ( !atEnd() ) {
+				throw unsupported();
+			}
+			return new CssSelector( Collections.unmodifiableList( alternatives ) );
+		}
+
+		private List<Complex> list() {
+			final List<Complex> alternatives = new ArrayList<>();
+			alternatives.add( complex() );
+			while ( consume( ',' ) ) {
+				alternatives.add( complex() );
+			}
+			return alternatives;
+		}
+
+		private Complex complex() {
+			final List<Compound> compounds = new ArrayList<>();
+			final List<Character> combinators = new ArrayList<>();
+			skipWhitespace();
+			compounds.add( compound() );
+			while ( true ) {
+				final boolean whitespace = skipWhitespace();
+				if ( atEnd() || peek() == ',' || peek() == ')' ) {
+					break;
+				}
+				final char next = peek();
+				if ( next == '>' || next == '+' || next == '~' ) {
+					position++;
+					skipWhitespace();
+					combinators.add( next );
+				} else if ( whitespace ) {
+					combinators.add( ' ' );
+				} else {
+					throw unsupported();
+				}
+				compounds.add( compound() );
+			}
+			return new Complex( compounds, combinators );
+		}
+
+		private Compound compound() {
+			final int start = position;
+			final Compound compound = new Compound();
+			if ( !atEnd() && peek() == '*' ) {
+				position++;
+			} else if ( !atEnd() && isNameStart( peek() ) ) {
+				compound.tag = name();
+			}
+			while ( !atEnd() ) {
+				final char next = peek();
+				if ( next == '#' ) {
+					position++;
+					final String id = name();
+					if ( compound.id != null && !compound.id.equals( id ) ) {
+						// Can never match, but is valid.
+						compound.conditions.add( ( element, index ) -> false );
+					}
+					compound.id = id;
+				} else if ( next == '.' ) {
+					position++;
+					compound.classes.add( name() );
+				} else if ( next == '[' ) {
+					compound.conditions.add( attribute() );
+				} else if ( next == ':' ) {
+					compound.conditions.add( pseudoClass() );
+				} else {
+					break;
+				}
+			}
+			if ( position == start ) {
+				throw unsupported();
+			}
+			return compound;
+		}
+
+		private Condition attribute() {
+			final int start = position;
+			position++;
+			skipWhitespace();
+			final String name = name();
+			skipWhitespace();
+			if ( consume( ']' ) ) {
+				return CssSelector.attribute( name, null, null, false );
+			}
+			final String operator;
+			if ( lookingAt( "=" ) ) {
+				operator = "=";
+			} else if ( lookingAt( "~=" ) || lookingAt( "|=" ) || lookingAt( "^=" ) || lookingAt( "$=" )
+					|| lookingAt( "*=" ) ) {
+				operator = selector.substring( position, position + 2 );
+			} else {
+				position = start;
+				throw unsupported();
+			}
+			position += operator.length();
+			skipWhitespace();
+			final String value = atEnd() || peek() != '"' && peek() != '\'' ? name() : string();
+			skipWhitespace();
+			boolean ignoreCase = false;
+			if ( !atEnd() && (peek() == 'i' || peek() == 'I') ) {
+				ignoreCase = true;
+				position++;
+			} else if ( !atEnd() && (peek() == 's' || peek() == 'S') ) {
+				position++;
+			}
+			skipWhitespace();
+			if ( !consume( ']' ) ) {
+				position = start;
+				throw unsupported();
+			}
+			return CssSelector.attribute( name, operator, value, ignoreCase );
+		}
+
+		private Condition pseudoClass() {
+			final int start = position;
+			position++;
+			if ( atEnd() || !isNameStart( peek() ) ) {
+				// E.g. a pseudo-element.
+				position = start;
+				throw unsupported();
+			}
+			final String name = name().toLowerCase( Locale.ROOT );
+			switch ( name ) {
+				case "first-child":
+					return CssSelector.nth( 0, 1, false, false );
+				case "last-child":
+					return CssSelector.nth( 0, 1, false, true );
+				case "only-child":
+					return ( element, index ) -> index.getSiblings( element ).size() == 1;
+				case "first-of-type":
+					return CssSelector.nth( 0, 1, true, false );
+				case "last-of-type":
+					return CssSelector.nth( 0, 1, true, true );
+				case "only-of-type":
+					return and( CssSelector.nth( 0, 1, true, false ), CssSelector.nth( 0, 1, true, true ) );
+				case "root":
+					return ( element, index ) -> index.getParent( element ) == null;
+				case "empty":
+					return ( element, index ) -> element.getContainedElements().isEmpty();
+				default:
+					break;
+			}
+			if ( !consume( '(' ) ) {
+				position = start;
+				throw unsupported();
+			}
+			final Condition condition;
+			switch ( name ) {
+				case "nth-child":
+					condition = nth( start, false, false );
+					break;
+				case "nth-last-child":
+					condition = nth( start, false, true );
+					break;
+				case "nth-of-type":
+					condition = nth( start, true, false );
+					break;
+				case "nth-last-of-type":
+					condition = nth( start, true, true );
+					break;
+				case "not": {
+					final CssSelector argument = new CssSelector( list() );
+					condition = ( element, index ) -> !argument.matches( element, index );
+					break;
+				}
+				case "is":
+				case "where": {
+					final CssSelector argument = new CssSelector( list() );
+					condition = argument::matches;
+					break;
+				}
+				default:
+					position = start;
+					throw unsupported();
+			}
+			skipWhitespace();
+			if ( !consume( ')' ) ) {
+				position = start;
+				throw unsupported();
+			}
+			return condition;
+		}
+
+		private Condition nth( final int start, final boolean ofType, final boolean fromEnd ) {
+			final int end = selector.indexOf( ')', position );
+			if ( end < 0 ) {
+				position = start;
+				throw unsupported();
+			}
+			final String argument = StringUtils.deleteWhitespace( selector.substring( position, end ) )
+					.toLowerCase( Locale.ROOT );
+			position = end;
+			if ( "odd".equals( argument ) ) {
+				return CssSelector.nth( 2, 1, ofType, fromEnd );
+			}
+			if ( "even".equals( argument ) ) {
+				return CssSelector.nth( 2, 0, ofType, fromEnd );
+			}
+			if ( B.matcher( argument ).matches() ) {
+				return CssSelector.nth( 0, Integer.parseInt( argument.replace( "+", "" ) ), ofType, fromEnd );
+			}
+			final Matcher anPlusB = AN_PLUS_B.matcher( argument );
+			if ( !anPlusB.matches() ) {
+				// E.g. the "of S" syntax.
+				position = start;
+				throw unsupported();
+			}
+			final String a = anPlusB.group( 1 ).replace( "+", "" );
+			final int factor = a.isEmpty() ? 1 : "-".equals( a ) ? -1 : Integer.parseInt( a );
+			final int offset = anPlusB.group( 2 ) != null ? Integer.parseInt( anPlusB.group( 2 ).replace( "+", "" ) ) : 0;
+			return CssSelector.nth( factor, offset, ofType, fromEnd );
+		}
+
+		private String name() {
+			final StringBuilder name = new StringBuilder();
+			while ( !atEnd() ) {
+				final char next = peek();
+				if ( next == '\\' ) {
+					position++;
+					name.append( escape() );
+				} else if ( isNameChar( next ) ) {
+					name.append( next );
+					position++;
+				} else {
+					break;
+				}
+			}
+			if ( name.length() == 0 ) {
+				throw unsupported();
+			}
+			return name.toString();
+		}
+
+		private String string() {
+			final int start = position;
+			final char quote = selector.charAt( position++ );
+			final StringBuilder value = new StringBuilder();
+			while ( !atEnd() ) {
+				final char next = selector.charAt( position++ );
+				if ( next == quote ) {
+					return value.toString();
+				}
+				if ( next == '\\' ) {
+					value.append( escape() );
+				} else {
+					value.append( next );
+				}
+			}
+			position = start;
+			throw unsupported();
+		}
+
+		private String escape() {
+			if ( atEnd() ) {
+				throw unsupported();
+			}
+			int end = position;
+			while ( end < selector.length() && end - position < 6 && isHexDigit( selector.charAt( end ) ) ) {
+				end++;
+			}
+			if ( end == position ) {
+				return String.valueOf( selector.charAt( position++ ) );
+			}
+			final int codePoint = Integer.parseInt( selector.substring( position, end ), 16 );
+			position = end;
+			// A single whitespace terminates a hexadecimal escape.
+			if ( !atEnd() && Character.isWhitespace( peek() ) ) {
+				position++;
+			}
+			return new String( Character.toChars( codePoint ) );
+		}
+
+		private static Condition and( final Condition first, final Condition second ) {
+			return ( element, index ) -> first.matches( element, index ) && second.matches( element, index );
+		}
+
+		private static boolean isNameStart( final char c ) {
+			return Character.isLetter( c ) || c == '_' || c == '-' || c == '\\' || c >= 0x80;
+		}
+
+		private static boolean isNameChar( final char c ) {
+			return Character.isLetterOrDigit( c ) || c == '_' || c == '-' || c >= 0x80;
+		}
+
+		private static boolean isHexDigit( final char c ) {
+			return Character.digit( c, 16 ) >= 0;
+		}
+
+		private boolean skipWhitespace() {
+			final int start = position;
+			while ( !atEnd() && Character.isWhitespace( peek() ) ) {
+				position++;
+			}
+			return position > start;
+		}
+
+		private boolean consume( final char expected ) {
+			if ( !atEnd() && peek() == expected ) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		private boolean lookingAt( final String expected ) {
+			return selector.startsWith( expected, position );
+		}
+
+		private char peek() {
+			return selector.charAt( position );
+		}
+
+		private boolean atEnd() {
+			return position >= selector.length();
+		}
+
+		private UnsupportedSelectorException unsupported() {
+			return new UnsupportedSelectorException( selector, selector.substring( Math.min( position,
+					selector.length() ) ) );
+		}
+	}
+
+}
@@ -0,0 +1,289 @@
+package de.retest.web.selenium;
+
+import static de.retest.web.AttributesUtil.CLASS;
+import static de.retest.web.AttributesUtil.ID;
+import static de.retest.web.AttributesUtil.NAME;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.StringUtils;
+
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.web.SubtreeHashes;
+
+/**
+ * Indexes the elements contained in a state (i.e. all descendants of the root element), so that the lookups of the
+ * {@link TestHealer} and {@link ByBestMatchToRetestId} do not have to traverse the whole state each time. The index is
+ * built once in a single pass and is only valid as long as the state is not modified. All lookups return the elements
+ * in document order (pre-order), i.e. the first element is the one a traversal of the state would find first.
+ */
+public class ElementIndex {
+
+	private final RootElement state;
+
+	private final List<Element> elements = new ArrayList<>();
+	private final Map<String, Element> byRetestId = new HashMap<>();
+	private final Map<String, Element> byPath = new HashMap<>();
+	private final Map<String, List<Element>> byId = new HashMap<>();
+	private final Map<String, List<Element>> byName = new HashMap<>();
+	private final Map<String, List<Element>> byClass = new HashMap<>();
+	private final Map<String, List<Element>> byTag = new HashMap<>();
+	private final Map<Element, Element> parents = new IdentityHashMap<>();
+	private final Map<Element, Integer> positions = new IdentityHashMap<>();
+	private final Map<Element, Integer> orders = new IdentityHashMap<>();
+	private final SubtreeHashes hashes = new SubtreeHashes();
+
+	private Map<String, Element> identical;
+
+	private ElementIndex( final RootElement state ) {
+		this.state = state;
+		final Deque<Element> stack = new ArrayDeque<>();
+		pushChildren( stack, state );
+		while ( !stack.isEmpty() ) {
+			final Element element = stack.pop();
+			add( element );
+			pushChildren( stack, element );
+		}
+	}
+
+	/**
+	 * @param state
+	 *            The state to index, must not be modified afterwards.
+	 * @return The index of the elements contained in the given state.
+	 */
+	public static ElementIndex of( final RootElement state ) {
+		if ( state == null ) {
+			throw new IllegalArgumentException( "Cannot index null state." );
+		}
+		return new ElementIndex( state );
+	}
+
+	private void add( final Element element ) {
+		orders.put( element, elements.size() );
+		elements.add( element );
+		if ( element.getRetestId() != null ) {
+			byRetestId.putIfAbsent( element.getRetestId(), element );
+		}
+		final IdentifyingAttributes identifyingAttributes = element.getIdentifyingAttributes();
+		if ( identifyingAttributes == null ) {
+			return;
+		}
+		final String path = identifyingAttributes.getPath();
+		if ( path != null ) {
+			byPath.putIfAbsent( path.toLowerCase(), element );
+		}
+		add( byId, identifyingAttributes.get( ID ), element );
+		add( byName, identifyingAttributes.get( NAME ), element );
+		final String tag = identifyingAttributes.getType();
+		add( byTag, tag != null ? tag.toLowerCase() : null, element );
+		final Object classes = identifyingAttributes.get( CLASS );
+		if ( classes instanceof String ) {
+			for ( final String token : StringUtils.split( (String) classes ) ) {
+				final List<Element> withClass = byClass.computeIfAbsent( token, key -> new ArrayList<>( 1 ) );
+				// Avoid duplicates for classes given twice.
+				if ( withClass.isEmpty() || withClass.get( withClass.size() - 1 ) != element ) {
+					withClass.add( element );
+				}
+			}
+		}
+	}
+
+	private static void add( final Map<String, List<Element>> index, final Object key, final Element element ) {
+		if ( key != null ) {
+			index.computeIfAbsent( key.toString(), k -> new ArrayList<>( 1 ) ).add( element );
+		}
+	}
+
+	private void pushChildren( final Deque<Element> stack, final Element parent ) {
+		final List<Element> children = parent.getContainedElements();
+		for ( int i = children.size() - 1; i >= 0; i-- ) {
+			final Element child = children.get( i );
+			parents.put( child, parent );
+			positions.put( child, i );
+			stack.push( child );
+		}
+	}
+
+	/**
+	 * @return The indexed state.
+	 */
+	public RootElement getState() {
+		return state;
+	}
+
+	/**
+	 * @return The number of indexed elements.
+	 */
+	public int size() {
+		return elements.size();
+	}
+
+	/**
+	 * @return All elements contained in the state.
+	 */
+	public List<Element> getElements() {
+		return Collections.unmodifiableList( elements );
+	}
+
+	/**
+	 * @return The first element with the given retest ID or {@code null}.
+	 */
+	public Element findByRetestId( final String retestId ) {
+		return byRetestId.get( retestId );
+	}
+
+	/**
+	 * @return The first element with the given path (ignoring case) or {@code null}.
+	 */
+	public Element findByPath( final String path ) {
+		return path != null ? byPath.get( path.toLowerCase() ) : null;
+	}
+
+	/**
+	 * @return The elements with the given HTML id.
+	 */
+	public List<Element> findById( final String id ) {
+		return lookup( byId, id );
+	}
+
+	/**
+	 * @return The elements with the given HTML name.
+	 */
+	public List<Element> findByName( final String name ) {
+		return lookup( byName, name );
+	}
+
+	/**
+	 * @return The elements having the given CSS class among their classes.
+	 */
+	public List<Element> findByClass( final String cssClass ) {
+		return lookup( byClass, cssClass );
+	}
+
+	/**
+	 * @return The elements with the given tag (ignoring case).
+	 */
+	public List<Element> findByTag( final String tag ) {
+		return lookup( byTag, tag != null ? tag.toLowerCase() : null );
+	}
+
+	/**
+	 * @return The parent of the given element or {@code null} for the root element of the state.
+	 */
+	Element getParent( final Element element ) {
+		return parents.get( element );
+	}
+
+	/**
+	 * @return The given element and its siblings.
+	 */
+	List<Element> getSiblings( final Element element ) {
+		final Element parent = parents.get( element );
+		return parent != null ? parent.getContainedElements() : Collections.singletonList( element );
+	}
+
+	/**
+	 * @return The (0-based) position of the given element among its siblings.
+	 */
+	int getPosition( final Element element ) {
+		final Integer position = positions.get( element );
+		return position != null ? position : 0;
+	}
+
+	/**
+	 * @return The (0-based) position of the given element in document order or {@link Integer#MAX_VALUE} if it is not
+	 *         indexed (e.g. the root element of the state).
+	 */
+	int getOrder( final Element element ) {
+		final Integer order = orders.get( element );
+		return order != null ? order : Integer.MAX_VALUE;
+	}
+
+	private static List<Element> lookup( final Map<String, List<Element>> index, final String key ) {
+		final List<Element> result = key != null ? index.get( key ) : null;
+		return result != null ? Collections.unmodifiableList( result ) : Collections.emptyList();
+	}
+
+	/**
+	 * For lookups that are not indexed; this still avoids the traversal of the state.
+	 *
+	 * @return The first element matching the given predicate or {@code null}.
+	 */
+	public Element findFirst( final Predicate<Element> predicate ) {
+		return findFirst( elements, predicate );
+	}
+
+	/**
+	 * @return The first of the given elements matching the given predicate or {@code null}.
+	 */
+	public static Element findFirst( final List<Element> candidates, final Predicate<Element> predicate ) {
+		for ( final Element candidate : candidates ) {
+			if ( predicate.test( candidate ) ) {
+				return candidate;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Like {@link #findFirst(Predicate)}, but for all matching elements.
+	 *
+	 * @return The elements matching the given predicate.
+	 */
+	public List<Element> findAll( final Predicate<Element> predicate ) {
+		return findAll( elements, predicate );
+	}
+
+	/**
+	 * @return The given elements matching the given predicate.
+	 */
+	public static List<Element> findAll( final List<Element> candidates, final Predicate<Element> predicate ) {
+		final List<Element> result = new ArrayList<>();
+		for ( final Element candidate : candidates ) {
+			if ( predicate.test( candidate ) ) {
+				result.add( candidate );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Like {@link SubtreeHashes#findIdentical(Element, Element)} for the state (including its root element), but the
+	 * hashes of the state are only looked up once.
+	 *
+	 * @return The only element of the state that is identical to the given element, including its descendants, or
+	 *         {@code null}.
+	 */
+	public Element findIdentical( final Element element ) {
+		if ( identical == null ) {
+			indexIdentical();
+		}
+		return identical.get( hashes.get( element ) );
+	}
+
+	private void indexIdentical() {
+		identical = new HashMap<>( elements.size() * 2 );
+		final Set<String> ambiguous = new HashSet<>();
+		identical.put( hashes.get( state ), state );
+		for ( final Element element : elements ) {
+			final String hash = hashes.get( element );
+			if ( identical.putIfAbsent( hash, element ) != null ) {
+				ambiguous.add( hash );
+			}
+		}
+		identical.keySet().removeAll( ambiguous );
+	}
+
+}
@@ -0,0 +1,155 @@
+package de.retest.web.selenium;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.By;
+
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.web.RecheckWebImpl;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Remembers the elements that broken locators were healed to, persisted next to the Golden Master the locators were
+ * healed with. Subsequent runs can then use the path of the healed element directly, instead of waiting for the broken
+ * locator to fail and searching the Golden Master again. As the memo is only valid for the Golden Master it was
+ * written for, it contains the {@link de.retest.web.SubtreeHashes hash} of its state and is discarded if that does not
+ * match anymore (e.g. after accepting differences). The memo is read (and the hash computed) not before it is used,
+ * i.e. not for checks without healing.
+ *
+ * @see RecheckWebImpl#HEALING_MEMO_PROPERTY
+ */
+@Slf4j
+public class HealingMemo {
+
+	public static final String FILE_NAME = "healing-memo.properties";
+
+	private static final String GOLDEN_MASTER_KEY = "goldenMaster";
+	private static final String PATH_PREFIX = "path.";
+	private static final String RETEST_ID_PREFIX = "retestId.";
+
+	private final File file;
+	private final Supplier<String> goldenMasterHashSupplier;
+	private final Properties entries = new Properties();
+	private String goldenMasterHash;
+	private boolean read;
+
+	private HealingMemo( final File file, final Supplier<String> goldenMasterHashSupplier ) {
+		this.file = file;
+		this.goldenMasterHashSupplier = goldenMasterHashSupplier;
+	}
+
+	/**
+	 * @param goldenMaster
+	 *            The directory of the Golden Master.
+	 * @param goldenMasterHash
+	 *            The hash of the state of the Golden Master.
+	 * @return The memo of the given Golden Master, which is empty if there is none or it is outdated.
+	 */
+	public static HealingMemo load( final File goldenMaster, final String goldenMasterHash ) {
+		return load( goldenMaster, () -> goldenMasterHash );
+	}
+
+	/**
+	 * @param goldenMaster
+	 *            The directory of the Golden Master.
+	 * @param goldenMasterHash
+	 *            Computes the hash of the state of the Golden Master, once the memo is used.
+	 * @return The memo of the given Golden Master, which is empty if there is none or it is outdated.
+	 */
+	public static HealingMemo load( final File goldenMaster, final Supplier<String> goldenMasterHash ) {
+		return new HealingMemo( new File( goldenMaster, FILE_NAME ), goldenMasterHash );
+	}
+
+	private synchronized Properties getEntries() {
+		if ( !read ) {
+			read = true;
+			read();
+		}
+		return entries;
+	}
+
+	private synchronized String getGoldenMasterHash() {
+		if ( goldenMasterHash == null ) {
+			goldenMasterHash = goldenMasterHashSupplier.get();
+		}
+		return goldenMasterHash;
+	}
+
+	private void read() {
+		if ( !file.isFile() ) {
+			return;
+		}
+		try ( final InputStream in = Files.newInputStream( file.toPath() ) ) {
+			entries.load( in );
+		} catch ( final IOException e ) {
+			log.warn( "Could not read healing memo from '{}'.", file, e );
+			entries.clear();
+			return;
+		}
+		if ( !getGoldenMasterHash().equals( entries.getProperty( GOLDEN_MASTER_KEY ) ) ) {
+			log.debug( "Healing memo in '{}' is outdated.", file );
+			entries.clear();
+		}
+	}
+
+	/**
+	 * @return The path of the element the given locator was healed to or {@code null}.
+	 */
+	public String getPath( final By by ) {
+		return getEntries().getProperty( PATH_PREFIX + by );
+	}
+
+	/**
+	 * @return The retest ID of the element the given locator was healed to or {@code null}.
+	 */
+	public String getRetestId( final By by ) {
+		return getEntries().getProperty( RETEST_ID_PREFIX + by );
+	}
+
+	/**
+	 * @param by
+	 *            The broken locator.
+	 * @param element
+	 *            The element the locator was healed to.
+	 */
+	public void put( final By by, final Element element ) {
+		final String path = element.getIdentifyingAttributes().getPath();
+		final String retestId = element.getRetestId();
+		if ( path.equals( getPath( by ) ) && retestId.equals( getRetestId( by ) ) ) {
+			return;
+		}
+		getEntries().setProperty( PATH_PREFIX + by, path );
+		getEntries().setProperty( RETEST_ID_PREFIX + by, retestId );
+		write();
+	}
+
+	/**
+	 * Forgets the given locator, e.g. because the element is not found at the remembered path anymore.
+	 */
+	public void remove( final By by ) {
+		final boolean removed = getEntries().remove( PATH_PREFIX + by ) != null;
+		getEntries().remove( RETEST_ID_PREFIX + by );
+		if ( removed ) {
+			write();
+		}
+	}
+
+	private void write() {
+		if ( !file.getParentFile().isDirectory() ) {
+			return;
+		}
+		entries.setProperty( GOLDEN_MASTER_KEY, getGoldenMasterHash() );
+		try ( final OutputStream out = Files.newOutputStream( file.toPath() ) ) {
+			entries.store( out, "Generated by recheck-web, remembers the elements broken locators were healed to." );
+		} catch ( final IOException e ) {
+			log.warn( "Could not write healing memo to '{}'.", file, e );
+		}
+	}
+
+}
@@ -5,14 +5,23 @@ import static de.retest.web.AttributesUtil.ID;
 import static de.retest.web.AttributesUtil.NAME;
 import static de.retest.web.AttributesUtil.TEXT;
 import static de.retest.web.selenium.ByWhisperer.retrieveCssClassName;
+import static de.retest.web.selenium.ByWhisperer.retrieveCssSelector;
 import static de.retest.web.selenium.ByWhisperer.retrieveId;
 import static de.retest.web.selenium.ByWhisperer.retrieveLinkText;
 import static de.retest.web.selenium.ByWhisperer.retrieveName;
 import static de.retest.web.selenium.ByWhisperer.retrievePartialLinkText;
-
+import static de.retest.web.selenium.ByWhisperer.retrieveTag;
+import static de.retest.web.selenium.ByWhisperer.retrieveXPath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.By.ByClassName;
@@ -30,207 +39,211 @@ import org.slf4j.LoggerFactory;
 import de.retest.recheck.TestCaseFinder;
 import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
-import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
+import de.retest.web.selenium.CssSelector.UnsupportedSelectorException;
+import de.retest.web.selenium.XPath.UnsupportedXPathException;
 
 public class TestHealer {
 
 	private static final String PATH = IdentifyingAttributes.PATH_ATTRIBUTE_KEY;
 	private static final String TYPE = IdentifyingAttributes.TYPE_ATTRIBUTE_KEY;
 
-	private static final Pattern CSS_CLASS = Pattern.compile( "^\\.([a-zA-Z0-9\\-]+)" );
-	private static final Pattern CSS_ID = Pattern.compile( "^\\#([a-zA-Z0-9\\-]+)" );
-	private static final Pattern CSS_TAG = Pattern.compile( "^([a-zA-Z0-9\\-]+)" );
-	private static final Pattern CSS_ATTRIBUTE = Pattern.compile( "^\\[([a-zA-Z0-9\\-=\"]+)\\]" );
-
 	private static final Logger logger = LoggerFactory.getLogger( TestHealer.class );
 	private static final String ELEMENT_NOT_FOUND_MESSAGE = "It appears that even the Golden Master has no element";
 
 	private final UnbreakableDriver wrapped;
-	private final RootElement lastExpectedState;
-	private final RootElement lastActualState;
+	private final ElementIndex lastExpected;
 
 	private TestHealer( final UnbreakableDriver wrapped ) {
 		this.wrapped = wrapped;
-		lastExpectedState = wrapped.getLastExpectedState();
-		if ( lastExpectedState == null ) {
+		if ( wrapped.getLastExpectedState() == null ) {
 			throw new IllegalStateException( "No last expected state to find old element in!" );
 		}
-		lastActualState = wrapped.getLastActualState();
+		lastExpected = wrapped.getLastExpectedIndex();
 	}
 
 	public static WebElement findElement( final By by, final UnbreakableDriver wrapped ) {
-		return new TestHealer( wrapped ).findElement( by );
+		final Element actualElement = heal( by, wrapped );
+		if ( actualElement == null ) {
+			return null;
+		}
+		final WebElement result = wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
+		wrapped.remember( by, actualElement );
+		return result;
+	}
+
+	/**
+	 * Like {@link #findElement(By, UnbreakableDriver)}, but for all elements of the given locator. As an empty result
+	 * is valid for {@code findElements}, locators that cannot be healed result in an empty list.
+	 *
+	 * @return The elements the given locator was healed to, looked up with a single round trip to the browser.
+	 */
+	public static List<WebElement> findElements( final By by, final UnbreakableDriver wrapped ) {
+		final List<String> paths = healAll( by, wrapped ).stream() //
+				.map( element -> element.getIdentifyingAttributes().getPath() ) //
+				.collect( Collectors.toList() );
+		return wrapped.findElementsByPath( paths ).stream() //
+				.filter( Objects::nonNull ) //
+				.collect( Collectors.toList() );
+	}
+
+	/**
+	 * Heals the given locator against the last states of the given driver, without looking up the element in the
+	 * browser. This allows to look up the elements of several locators at once.
+	 *
+	 * @return The element of the last actual state the given locator was healed to or {@code null}.
+	 */
+	public static Element heal( final By by, final UnbreakableDriver wrapped ) {
+		final TestHealer healer = new TestHealer( wrapped );
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.HEALING ).detail( by.toString() );
+		try {
+			final Locator locator = healer.locate( by );
+			return locator != null ? healer.healFirst( locator ) : null;
+		} finally {
+			if ( event.isEnabled() ) {
+				event.elementCount( healer.lastExpected.size() ).commit();
+			}
+		}
 	}
 
-	private WebElement findElement( final By by ) {
+	/**
+	 * Like {@link #heal(By, UnbreakableDriver)}, but for all elements of the given locator.
+	 *
+	 * @return The distinct elements of the last actual state the given locator was healed to, in document order of the
+	 *         last expected state.
+	 */
+	public static List<Element> healAll( final By by, final UnbreakableDriver wrapped ) {
+		final TestHealer healer = new TestHealer( wrapped );
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.HEALING ).detail( by.toString() );
+		try {
+			final Locator locator = healer.locate( by );
+			return locator != null ? healer.healAll( locator ) : Collections.emptyList();
+		} catch ( final UnsupportedOperationException e ) {
+			logger.debug( "Cannot heal all elements of {}.", by, e );
+			return Collections.emptyList();
+		} finally {
+			if ( event.isEnabled() ) {
+				event.elementCount( healer.lastExpected.size() ).commit();
+			}
+		}
+	}
+
+	private Locator locate( final By by ) {
 		if ( by instanceof ById ) {
-			return findElementById( (ById) by );
+			final String id = retrieveId( (ById) by );
+			return new Locator( "id", "HTML id attribute", id, ID, ID, index -> index.findById( id ) );
 		}
 		if ( by instanceof ByClassName ) {
-			return findElementByClassName( (ByClassName) by );
+			final String className = retrieveCssClassName( (ByClassName) by );
+			return new Locator( "CSS class", "HTML class attribute", className, CLASS, "className",
+					index -> findByClass( index, className ) );
 		}
 		if ( by instanceof ByName ) {
-			return findElementByName( (ByName) by );
+			final String name = retrieveName( (ByName) by );
+			return new Locator( NAME, "HTML name attribute", name, NAME, NAME, index -> index.findByName( name ) );
 		}
 		if ( by instanceof ByLinkText ) {
-			return findElementByLinkText( (ByLinkText) by );
+			final String linkText = retrieveLinkText( (ByLinkText) by );
+			return new Locator( "link text", "link text", linkText, TEXT, "linkText",
+					index -> index.findFirst( hasLinkText( linkText ) ),
+					index -> index.findAll( hasLinkText( linkText ) ) );
 		}
 		if ( by instanceof ByCssSelector ) {
-			return findElementByCssSelector( (ByCssSelector) by );
+			return locateByCssSelector( (ByCssSelector) by );
 		}
 		if ( by instanceof ByXPath ) {
-			return findElementByXPath( (ByXPath) by );
+			return locateByXPath( (ByXPath) by );
 		}
 		if ( by instanceof ByTagName ) {
-			return findElementByTagName( (ByTagName) by );
+			final String tag = retrieveTag( (ByTagName) by );
+			return new Locator( "tag", "HTML tag attribute", tag, TYPE, TYPE, index -> index.findByTag( tag ) );
 		}
 		if ( by instanceof ByPartialLinkText ) {
-			return findElementByPartialLinkText( (ByPartialLinkText) by );
+			final String partialLinkText = retrievePartialLinkText( (ByPartialLinkText) by );
+			return new Locator( "link text", "partial link text", partialLinkText, TEXT, "partialLinkText",
+					index -> index.findFirst( hasPartialLinkText( partialLinkText ) ),
+					index -> index.findAll( hasPartialLinkText( partialLinkText ) ) );
 		}
 		throw new UnsupportedOperationException(
 				"Healing tests with " + by.getClass().getSimpleName() + " not yet implemented" );
 	}
 
-	private WebElement findElementById( final ById by ) {
-		final String id = retrieveId( by );
-		final Element actualElement =
-				de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState, hasID( id ) );
-
-		if ( actualElement == null ) {
-			logger.warn( "{} with id '{}'.", ELEMENT_NOT_FOUND_MESSAGE, id );
+	private static Locator locateByCssSelector( final ByCssSelector by ) {
+		final String origSelector = retrieveCssSelector( by );
+		final CssSelector selector;
+		try {
+			selector = CssSelector.compile( origSelector );
+		} catch ( final UnsupportedSelectorException e ) {
+			logger.warn(
+					"Unbreakable tests are not implemented for all CSS selectors. Please report your chosen selector ('{}') at https://github.com/retest/recheck-web/issues.",
+					e.getUnsupported() );
 			return null;
-		} else {
-			writeWarnLogForChangedIdentifier( "HTML id attribute", id,
-					actualElement.getIdentifyingAttributes().get( ID ), ID, actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
 		}
+		return new Locator( "CSS selector", "HTML class attribute", origSelector, CLASS, "cssSelector",
+				selector::findFirst, selector::findAll );
 	}
 
-	private WebElement findElementByClassName( final ByClassName by ) {
-		final String className = retrieveCssClassName( by );
-		final Element actualElement =
-				de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState, hasClass( className ) );
-
-		if ( actualElement == null ) {
-			logger.warn( "{} with CSS class '{}'.", ELEMENT_NOT_FOUND_MESSAGE, className );
+	private static Locator locateByXPath( final ByXPath byXPath ) {
+		final String xpathExpression = retrieveXPath( byXPath );
+		final XPath xpath;
+		try {
+			xpath = XPath.compile( xpathExpression );
+		} catch ( final UnsupportedXPathException e ) {
+			logger.warn(
+					"Unbreakable tests are not implemented for all XPath selectors. Please report your chosen selector ('{}') at https://github.com/retest/recheck-web/issues.",
+					xpathExpression );
 			return null;
-		} else {
-			writeWarnLogForChangedIdentifier( "HTML class attribute", className,
-					actualElement.getIdentifyingAttributes().get( CLASS ), "className", actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
 		}
+		return new Locator( "XPath", "xpath", xpathExpression, PATH, "xpath", xpath::findFirst, xpath::findAll );
 	}
 
-	private WebElement findElementByName( final ByName by ) {
-		final String name = retrieveName( by );
-		final Element actualElement =
-				de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState, hasName( name ) );
-
+	private Element healFirst( final Locator locator ) {
+		final Element actualElement = heal( locator.first.apply( lastExpected ) );
 		if ( actualElement == null ) {
-			logger.warn( "{} with name '{}'.", ELEMENT_NOT_FOUND_MESSAGE, name );
+			logger.warn( "{} with {} '{}'.", ELEMENT_NOT_FOUND_MESSAGE, locator.description, locator.value );
 			return null;
-		} else {
-			writeWarnLogForChangedIdentifier( "HTML name attribute", name,
-					actualElement.getIdentifyingAttributes().get( NAME ), NAME, actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
 		}
+		writeWarnLogForChangedIdentifier( locator, actualElement );
+		return actualElement;
 	}
 
-	private WebElement findElementByLinkText( final ByLinkText by ) {
-		final String linkText = retrieveLinkText( by );
-		final Element actualElement =
-				de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState, hasLinkText( linkText ) );
-
-		if ( actualElement == null ) {
-			logger.warn( "{} with link text '{}'.", ELEMENT_NOT_FOUND_MESSAGE, linkText );
-			return null;
-		} else {
-			writeWarnLogForChangedIdentifier( "link text", linkText,
-					actualElement.getIdentifyingAttributes().get( TEXT ), "linkText", actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
+	private List<Element> healAll( final Locator locator ) {
+		final Set<String> paths = new HashSet<>();
+		final List<Element> actualElements = new ArrayList<>();
+		for ( final Element expectedElement : locator.all.apply( lastExpected ) ) {
+			try {
+				final Element actualElement = heal( expectedElement );
+				if ( paths.add( actualElement.getIdentifyingAttributes().getPath() ) ) {
+					actualElements.add( actualElement );
+				}
+			} catch ( final NoElementWithHighEnoughMatchFoundException e ) {
+				logger.debug( "Skipping element {} without match in the current state.", expectedElement );
+			}
 		}
-	}
-
-	private WebElement findElementByPartialLinkText( final ByPartialLinkText by ) {
-		final String partialLinkText = retrievePartialLinkText( by );
-		final Element actualElement = de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState,
-				hasPartialLinkText( partialLinkText ) );
-
-		if ( actualElement == null ) {
-			logger.warn( "{} with link text '{}'.", ELEMENT_NOT_FOUND_MESSAGE, partialLinkText );
-			return null;
+		if ( actualElements.isEmpty() ) {
+			logger.warn( "{} with {} '{}'.", ELEMENT_NOT_FOUND_MESSAGE, locator.description, locator.value );
 		} else {
-			writeWarnLogForChangedIdentifier( "partial link text", partialLinkText,
-					actualElement.getIdentifyingAttributes().get( TEXT ), "partialLinkText",
-					actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
+			writeWarnLogForChangedIdentifier( locator, actualElements.get( 0 ) );
 		}
+		return actualElements;
 	}
 
-	private WebElement findElementByCssSelector( final ByCssSelector by ) {
-		final String origSelector = ByWhisperer.retrieveCssSelector( by );
-		String selector = origSelector;
-		Predicate<Element> predicate = element -> true;
-		boolean matched = true;
-		while ( !selector.isEmpty() && matched ) {
-			matched = false;
-			final Matcher tagMatcher = CSS_TAG.matcher( selector );
-			if ( tagMatcher.find() ) {
-				final String tag = tagMatcher.group( 1 );
-				predicate = predicate.and( hasTag( tag ) );
-				selector = selector.substring( tag.length() ).trim();
-				matched = true;
-			}
-			final Matcher idMatcher = CSS_ID.matcher( selector );
-			if ( idMatcher.find() ) {
-				final String id = idMatcher.group( 1 );
-				predicate = predicate.and( hasID( id ) );
-				selector = selector.substring( id.length() + 1 ).trim();
-				matched = true;
-			}
-			final Matcher classMatcher = CSS_CLASS.matcher( selector );
-			if ( classMatcher.find() ) {
-				final String cssClass = classMatcher.group( 1 );
-				predicate = predicate.and( hasClass( cssClass ) );
-				selector = selector.substring( cssClass.length() + 1 ).trim();
-				matched = true;
-			}
-			final Matcher attributeMatcher = CSS_ATTRIBUTE.matcher( selector );
-			if ( attributeMatcher.find() ) {
-				final String withoutBrackets = attributeMatcher.group( 1 );
-				final String attribute = getAttribute( withoutBrackets );
-				final String attributeValue = getAttributeValue( withoutBrackets );
-				predicate = predicate.and( hasAttribute( attribute, attributeValue ) );
-				selector = selector.substring( withoutBrackets.length() + 2 ).trim();
-				matched = true;
-			}
-		}
-
-		if ( !selector.isEmpty() ) {
-			logger.warn(
-					"Unbreakable tests are not implemented for all CSS selectors. Please report your chosen selector ('{}') at https://github.com/retest/recheck-web/issues.",
-					selector );
-			return null;
-		}
+	private Element heal( final Element expectedElement ) {
+		return de.retest.web.selenium.By.findElement( wrapped, expectedElement );
+	}
 
-		final Element actualElement =
-				de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState, predicate );
-		if ( actualElement == null ) {
-			logger.warn( "{} with CSS selector '{}'.", ELEMENT_NOT_FOUND_MESSAGE, origSelector );
-			return null;
-		} else {
-			writeWarnLogForChangedIdentifier( "HTML class attribute", origSelector,
-					actualElement.getIdentifyingAttributes().get( CLASS ), "cssSelector", actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
-		}
+	private static Element first( final List<Element> elements ) {
+		return elements.isEmpty() ? null : elements.get( 0 );
 	}
 
-	private static Predicate<Element> hasAttribute( final String attribute, final String attributeValue ) {
-		// TODO Replace with element.getAttribute after 1.6.0 release
-		return element -> element.getIdentifyingAttributes().get( attribute ) != null
-				? element.getIdentifyingAttributes().get( attribute ).equals( attributeValue )
-				: element.getAttributes().get( attribute ) != null
-						? element.getAttributes().get( attribute ).toString().equals( attributeValue ) : false;
+	private static List<Element> findByClass( final ElementIndex index, final String className ) {
+		final List<Element> withClass = index.findByClass( className );
+		if ( !withClass.isEmpty() ) {
+			return withClass;
+		}
+		// Also match parts of classes, like before the elements were indexed.
+		return index.findAll( hasClass( className ) );
 	}
 
 	private static Predicate<Element> hasLinkText( final String linkText ) {
@@ -253,83 +266,10 @@ public class TestHealer {
 				? ((String) element.getIdentifyingAttributes().get( CLASS )).contains( cssClass ) : false;
 	}
 
-	private static Predicate<Element> hasName( final String name ) {
-		return element -> name.equals( element.getIdentifyingAttributes().get( NAME ) );
-	}
-
-	private static Predicate<Element> hasTag( final String tag ) {
-		return element -> element.getIdentifyingAttributes().get( TYPE ).equals( tag );
-	}
-
-	private static Predicate<Element> hasID( final String id ) {
-		return element -> id.equals( element.getIdentifyingAttributes().get( ID ) );
-	}
-
-	private String getAttribute( final String withoutBrackets ) {
-		if ( withoutBrackets.contains( "=" ) ) {
-			return withoutBrackets.substring( 0, withoutBrackets.lastIndexOf( "=" ) );
-		}
-		return withoutBrackets;
-	}
-
-	private String getAttributeValue( final String withoutBrackets ) {
-		if ( !withoutBrackets.contains( "=" ) ) {
-			return "true";
-		}
-		String result = withoutBrackets.substring( withoutBrackets.lastIndexOf( "=" ) + 1 );
-		if ( result.contains( "\"" ) || result.contains( "'" ) ) {
-			result = result.substring( 1, result.length() - 1 );
-		}
-		return result;
-	}
-
-	protected static boolean isNotYetSupportedXPathExpression( final String xpathExpression ) {
-		return xpathExpression.matches( ".*[<>:+\\s\"|'@\\*].*" );
-	}
-
-	private WebElement findElementByXPath( final ByXPath byXPath ) {
-		final String xpathExpression = ByWhisperer.retrieveXPath( byXPath );
-		if ( isNotYetSupportedXPathExpression( xpathExpression ) ) {
-			logger.warn(
-					"Unbreakable tests are not implemented for all XPath selectors. Please report your chosen selector ('{}') at https://github.com/retest/recheck-web/issues.",
-					xpathExpression );
-			return null;
-		}
-
-		Predicate<Element> predicate = element -> true;
-		if ( xpathExpression.startsWith( "//" ) ) {
-			predicate = predicate.and( element -> element.getIdentifyingAttributes().getPath().toLowerCase()
-					.contains( xpathExpression.substring( 1 ).toLowerCase() ) );
-		} else if ( xpathExpression.startsWith( "/" ) ) {
-			predicate = predicate.and( element -> element.getIdentifyingAttributes().getPath().toLowerCase()
-					.startsWith( xpathExpression.substring( 1 ).toLowerCase() ) );
-		}
-
-		final Element actualElement =
-				de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState, predicate );
-		if ( actualElement == null ) {
-			logger.warn( "{} with XPath '{}'.", ELEMENT_NOT_FOUND_MESSAGE, xpathExpression );
-			return null;
-		} else {
-			writeWarnLogForChangedIdentifier( "xpath", xpathExpression,
-					actualElement.getIdentifyingAttributes().get( PATH ), "xpath", actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
-		}
-	}
-
-	private WebElement findElementByTagName( final ByTagName by ) {
-		final String tag = ByWhisperer.retrieveTag( by );
-		final Element actualElement =
-				de.retest.web.selenium.By.findElement( lastExpectedState, lastActualState, hasTag( tag ) );
-
-		if ( actualElement == null ) {
-			logger.warn( "{} with tag '{}'.", ELEMENT_NOT_FOUND_MESSAGE, tag );
-			return null;
-		} else {
-			writeWarnLogForChangedIdentifier( "HTML tag attribute", tag,
-					actualElement.getIdentifyingAttributes().get( TYPE ), TYPE, actualElement.getRetestId() );
-			return wrapped.findElement( By.xpath( actualElement.getIdentifyingAttributes().getPath() ) );
-		}
+	private void writeWarnLogForChangedIdentifier( final Locator locator, final Element actualElement ) {
+		writeWarnLogForChangedIdentifier( locator.identifier, locator.value,
+				actualElement.getIdentifyingAttributes().get( locator.attributeKey ), locator.byMethodName,
+				actualElement.getRetestId() );
 	}
 
 	private void writeWarnLogForChangedIdentifier( final String elementIdentifier, final Object oldValue,
@@ -362,4 +302,36 @@ public class TestHealer {
 		}
 	}
 
+	/**
+	 * How to look up the elements of a locator in a state and how to report healing it.
+	 */
+	private static class Locator {
+
+		private final String description;
+		private final String identifier;
+		private final String value;
+		private final String attributeKey;
+		private final String byMethodName;
+		private final Function<ElementIndex, Element> first;
+		private final Function<ElementIndex, List<Element>> all;
+
+		Locator( final String description, final String identifier, final String value, final String attributeKey,
+				final String byMethodName, final Function<ElementIndex, List<Element>> all ) {
+			this( description, identifier, value, attributeKey, byMethodName, index -> first( all.apply( index ) ),
+					all );
+		}
+
+		Locator( final String description, final String identifier, final String value, final String attributeKey,
+				final String byMethodName, final Function<ElementIndex, Element> first,
+				final Function<ElementIndex, List<Element>> all ) {
+			this.description = description;
+			this.identifier = identifier;
+			this.value = value;
+			this.attributeKey = attributeKey;
+			this.byMethodName = byMethodName;
+			this.first = first;
+			this.all = all;
+		}
+	}
+
 }
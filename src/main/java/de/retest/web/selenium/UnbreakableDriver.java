@@ -1,8 +1,13 @@
 package de.retest.web.selenium;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.Capabilities;
@@ -30,26 +35,54 @@ import org.openqa.selenium.remote.RemoteWebDriver;
 
 import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.diff.Alignment;
 import de.retest.web.RecheckWebImpl;
+import de.retest.web.metrics.CheckMetrics;
+import de.retest.web.metrics.CheckPhaseEvent;
+import de.retest.web.util.PageScript;
 import de.retest.web.util.SeleniumWrapperUtil;
 import de.retest.web.util.SeleniumWrapperUtil.WrapperOf;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * A wrapper for a given {@code RemoteWebDriver}, which can be used with e.g. {@code ChromeDriver}, {@code GeckoDriver},
  * or any other. It enables recheck-web's "Unbreakable Selenium" feature, where it must be used along with
  * {@link RecheckWebImpl}.
+ *
+ * Broken locators that were healed are remembered in the {@link HealingMemo} of the last Golden Master (if given), so
+ * that subsequent lookups with the same locator use the healed element directly.
+ *
+ * {@link #findElements(By)} is only healed if enabled via the {@value #HEAL_FIND_ELEMENTS_PROPERTY} system property,
+ * as an empty result is usually expected (e.g. to assert the absence of an element or to poll for it).
  */
+@Slf4j
 @Getter
 @Setter
 public class UnbreakableDriver implements WebDriver, JavascriptExecutor, FindsById, FindsByClassName, FindsByLinkText,
 		FindsByName, FindsByCssSelector, FindsByTagName, FindsByXPath, HasInputDevices, HasCapabilities, Interactive,
 		TakesScreenshot, WrapsDriver {
 
+	public static final String HEAL_FIND_ELEMENTS_PROPERTY = "de.retest.recheck.web.healFindElements";
+
+	private static final PageScript FIND_ELEMENTS_JS = PageScript.of( "/javascript/findElements.js" );
+
 	private final RemoteWebDriver wrappedDriver;
-	private RootElement lastExpectedState;
-	private RootElement lastActualState;
+	@Setter( AccessLevel.NONE )
+	private volatile RootElement lastExpectedState;
+	@Setter( AccessLevel.NONE )
+	private volatile RootElement lastActualState;
+
+	@Getter( AccessLevel.NONE )
+	private ElementIndex lastExpectedIndex;
+	@Getter( AccessLevel.NONE )
+	private ElementIndex lastActualIndex;
+	@Getter( AccessLevel.NONE )
+	private Alignment lastAlignment;
+
+	private volatile HealingMemo healingMemo;
 
 	/**
 	 * @param wrappedDriver
@@ -60,12 +93,69 @@ public class UnbreakableDriver implements WebDriver, JavascriptExecutor, FindsBy
 		this.wrappedDriver = wrappedDriver;
 	}
 
+	public synchronized void setLastExpectedState( final RootElement lastExpectedState ) {
+		this.lastExpectedState = lastExpectedState;
+		lastExpectedIndex = null;
+		lastAlignment = null;
+	}
+
+	public synchronized void setLastActualState( final RootElement lastActualState ) {
+		this.lastActualState = lastActualState;
+		lastActualIndex = null;
+		lastAlignment = null;
+	}
+
+	/**
+	 * @return The index of the last expected state, which is built on first use and kept until the state changes.
+	 */
+	public synchronized ElementIndex getLastExpectedIndex() {
+		if ( lastExpectedIndex == null && lastExpectedState != null ) {
+			lastExpectedIndex = ElementIndex.of( lastExpectedState );
+		}
+		return lastExpectedIndex;
+	}
+
+	/**
+	 * @return The index of the last actual state, which is built on first use and kept until the state changes.
+	 */
+	public synchronized ElementIndex getLastActualIndex() {
+		if ( lastActualIndex == null && lastActualState != null ) {
+			lastActualIndex = ElementIndex.of( lastActualState );
+		}
+		return lastActualIndex;
+	}
+
+	/**
+	 * @return The alignment of the last expected and the last actual state, which is computed on first use and kept
+	 *         until either state changes.
+	 */
+	public synchronized Alignment getLastAlignment() {
+		final long start = System.nanoTime();
+		final boolean cached = lastAlignment != null;
+		if ( !cached ) {
+			lastAlignment = Alignment.createAlignment( lastExpectedState, lastActualState );
+		}
+		CheckMetrics.publish( () -> CheckPhaseEvent.alignment( System.nanoTime() - start,
+				getLastExpectedIndex().size(), cached ) );
+		return lastAlignment;
+	}
+
+	/**
+	 * Waits until the last states (and the {@link HealingMemo}) are up to date, before they are used for healing. The
+	 * states are only set when checking, so there is nothing to wait for unless checks are executed asynchronously
+	 * (see {@link AutocheckingRecheckDriver}).
+	 */
+	protected void awaitLastStates() {
+		// Checks are synchronous by default.
+	}
+
 	public WebElement findElement( final ByBestMatchToRetestId by ) {
-		if ( lastExpectedState == null ) {
+		awaitLastStates();
+		if ( getLastExpectedState() == null ) {
 			throw new IllegalStateException( "You must use the " + RecheckWebImpl.class.getSimpleName()
 					+ " and first check the state before being able to use the retest ID locator." );
 		}
-		final Element searchedFor = by.findElement( lastExpectedState, lastActualState );
+		final Element searchedFor = by.findElement( this );
 		return wrappedDriver.findElement( By.xpath( searchedFor.getIdentifyingAttributes().getPath() ) );
 	}
 
@@ -78,9 +168,14 @@ public class UnbreakableDriver implements WebDriver, JavascriptExecutor, FindsBy
 		if ( by instanceof ByBestMatchToRetestId ) {
 			return findElement( (ByBestMatchToRetestId) by );
 		}
+		final WebElement remembered = findRemembered( by );
+		if ( remembered != null ) {
+			return remembered;
+		}
 		try {
 			return wrappedDriver.findElement( by );
 		} catch ( final NoSuchElementException e ) {
+			awaitLastStates();
 			final WebElement matchedOld = TestHealer.findElement( by, this );
 			if ( matchedOld == null ) {
 				throw e;
@@ -89,9 +184,205 @@ public class UnbreakableDriver implements WebDriver, JavascriptExecutor, FindsBy
 		}
 	}
 
+	private WebElement findRemembered( final By by ) {
+		final String path = getRememberedPath( by );
+		if ( path == null ) {
+			return null;
+		}
+		try {
+			final WebElement element = wrappedDriver.findElement( By.xpath( path ) );
+			logRemembered( by );
+			return element;
+		} catch ( final NoSuchElementException e ) {
+			healingMemo.remove( by );
+			return null;
+		}
+	}
+
+	private String getRememberedPath( final By by ) {
+		if ( healingMemo == null || healingMemo.getPath( by ) == null ) {
+			return null;
+		}
+		awaitLastStates();
+		final String path = healingMemo != null ? healingMemo.getPath( by ) : null;
+		if ( path == null || getLastActualIndex() == null ) {
+			return null;
+		}
+		// Only use elements that still exist, to not wait for the driver to fail.
+		if ( getLastActualIndex().findByPath( path ) == null ) {
+			healingMemo.remove( by );
+			return null;
+		}
+		return path;
+	}
+
+	private void logRemembered( final By by ) {
+		log.warn( "Using the element healed in a previous run for the broken locator `{}`. "
+				+ "Use `By.retestId(\"{}\")` to update your test.", by, healingMemo.getRetestId( by ) );
+	}
+
+	/**
+	 * Remembers the element the given broken locator was healed to in the {@link HealingMemo} (if any).
+	 */
+	void remember( final By by, final Element healed ) {
+		if ( healingMemo != null ) {
+			healingMemo.put( by, healed );
+		}
+	}
+
+	/**
+	 * Like {@link #findElement(By)} for each of the given locators, but with a single round trip to the browser for
+	 * all locators and another one for all broken locators, which are healed together against the last states. In
+	 * contrast to {@link #findElement(By)}, this does not wait for elements to appear (i.e. implicit waits are ignored),
+	 * except for locators not built into Selenium (e.g. {@link ByBestMatchToRetestId}), which are looked up one by one.
+	 *
+	 * @param bys
+	 *            The locators to look up, e.g. of all fields of a page object.
+	 * @return The element of each of the given locators, in the same order.
+	 * @throws NoSuchElementException
+	 *             If any of the given locators does not find an element, not even with healing.
+	 */
+	public List<WebElement> findEach( final List<By> bys ) {
+		final WebElement[] result = new WebElement[bys.size()];
+		final List<Integer> pending = new ArrayList<>();
+		final List<List<String>> locators = new ArrayList<>();
+		final Set<Integer> remembered = new HashSet<>();
+		for ( int i = 0; i < bys.size(); i++ ) {
+			final By by = bys.get( i );
+			final String path = getRememberedPath( by );
+			final List<String> locator = path != null ? Arrays.asList( "xpath", path ) : toLocator( by );
+			if ( locator != null ) {
+				if ( path != null ) {
+					remembered.add( i );
+				}
+				pending.add( i );
+				locators.add( locator );
+			} else {
+				result[i] = findElement( by );
+			}
+		}
+
+		final List<WebElement> found = findElementsByLocator( locators );
+		final List<Integer> broken = new ArrayList<>();
+		for ( int i = 0; i < pending.size(); i++ ) {
+			final By by = bys.get( pending.get( i ) );
+			final boolean isRemembered = remembered.contains( pending.get( i ) );
+			if ( found.get( i ) == null ) {
+				if ( isRemembered ) {
+					healingMemo.remove( by );
+				}
+				broken.add( pending.get( i ) );
+			} else {
+				if ( isRemembered ) {
+					logRemembered( by );
+				}
+				result[pending.get( i )] = found.get( i );
+			}
+		}
+
+		if ( !broken.isEmpty() ) {
+			heal( bys, broken, result );
+		}
+		return Arrays.asList( result );
+	}
+
+	private void heal( final List<By> bys, final List<Integer> broken, final WebElement[] result ) {
+		final List<Element> healed = new ArrayList<>();
+		awaitLastStates();
+		for ( final Integer i : broken ) {
+			final By by = bys.get( i );
+			final Element actualElement = getLastExpectedState() != null ? TestHealer.heal( by, this ) : null;
+			if ( actualElement == null ) {
+				throw new NoSuchElementException( "Cannot locate an element using " + by );
+			}
+			healed.add( actualElement );
+		}
+		final List<WebElement> found = findElementsByPath( healed.stream() //
+				.map( element -> element.getIdentifyingAttributes().getPath() ) //
+				.collect( Collectors.toList() ) );
+		for ( int i = 0; i < broken.size(); i++ ) {
+			final By by = bys.get( broken.get( i ) );
+			if ( found.get( i ) == null ) {
+				throw new NoSuchElementException( "Cannot locate the element healed for " + by );
+			}
+			result[broken.get( i )] = found.get( i );
+			remember( by, healed.get( i ) );
+		}
+	}
+
+	/**
+	 * @param paths
+	 *            The paths of the elements to look up, e.g. of healed elements.
+	 * @return The element at each of the given paths or {@code null} if there is none, looked up with a single round
+	 *         trip to the browser.
+	 */
+	List<WebElement> findElementsByPath( final List<String> paths ) {
+		return findElementsByLocator( paths.stream() //
+				.map( path -> Arrays.asList( "xpath", path ) ) //
+				.collect( Collectors.toList() ) );
+	}
+
+	private List<WebElement> findElementsByLocator( final List<List<String>> locators ) {
+		if ( locators.isEmpty() ) {
+			return Collections.emptyList();
+		}
+		final List<?> found = (List<?>) FIND_ELEMENTS_JS.execute( wrappedDriver, locators );
+		return found.stream() //
+				.map( element -> element instanceof WebElement ? (WebElement) element : null ) //
+				.collect( Collectors.toList() );
+	}
+
+	/**
+	 * @return The locator as understood by {@code findElements.js} or {@code null} if it is not supported.
+	 */
+	private static List<String> toLocator( final By by ) {
+		if ( by instanceof By.ById ) {
+			return Arrays.asList( "id", ByWhisperer.retrieveId( (By.ById) by ) );
+		}
+		if ( by instanceof By.ByName ) {
+			return Arrays.asList( "name", ByWhisperer.retrieveName( (By.ByName) by ) );
+		}
+		if ( by instanceof By.ByClassName ) {
+			return Arrays.asList( "className", ByWhisperer.retrieveCssClassName( (By.ByClassName) by ) );
+		}
+		if ( by instanceof By.ByCssSelector ) {
+			return Arrays.asList( "cssSelector", ByWhisperer.retrieveCssSelector( (By.ByCssSelector) by ) );
+		}
+		if ( by instanceof By.ByTagName ) {
+			return Arrays.asList( "tagName", ByWhisperer.retrieveTag( (By.ByTagName) by ) );
+		}
+		if ( by instanceof By.ByLinkText ) {
+			return Arrays.asList( "linkText", ByWhisperer.retrieveLinkText( (By.ByLinkText) by ) );
+		}
+		if ( by instanceof By.ByPartialLinkText ) {
+			return Arrays.asList( "partialLinkText",
+					ByWhisperer.retrievePartialLinkText( (By.ByPartialLinkText) by ) );
+		}
+		if ( by instanceof By.ByXPath ) {
+			return Arrays.asList( "xpath", ByWhisperer.retrieveXPath( (By.ByXPath) by ) );
+		}
+		return null;
+	}
+
+	/**
+	 * Heals the given locator if it does not find any element, as long as the last expected state is known and healing
+	 * is enabled via the {@value #HEAL_FIND_ELEMENTS_PROPERTY} system property.
+	 */
 	@Override
 	public List<WebElement> findElements( final By by ) {
-		return wrappedDriver.findElements( by );
+		final List<WebElement> found = wrappedDriver.findElements( by );
+		if ( !found.isEmpty() || by instanceof ByBestMatchToRetestId || !isHealFindElements() ) {
+			return found;
+		}
+		awaitLastStates();
+		if ( getLastExpectedState() == null ) {
+			return found;
+		}
+		return TestHealer.findElements( by, this );
+	}
+
+	static boolean isHealFindElements() {
+		return Boolean.getBoolean( HEAL_FIND_ELEMENTS_PROPERTY );
 	}
 
 	@Override
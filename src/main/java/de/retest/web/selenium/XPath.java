@@ -0,0 +1,1321 @@
+package de.retest.web.selenium;
+
+import static de.retest.web.AttributesUtil.ID;
+import static de.retest.web.AttributesUtil.NAME;
+import static de.retest.web.AttributesUtil.TEXT;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+
+/**
+ * An XPath expression compiled into location steps and predicates, which finds the element a test located via
+ * {@code By.xpath(...)} within a state (usually the Golden Master). The expression is evaluated against the element
+ * tree of the state, with the (not extracted) document as parent of the root element. Supported is the following
+ * subset of <a href="https://www.w3.org/TR/xpath-10/">XPath 1.0</a>:
+ *
+ * <ul>
+ * <li>absolute and relative location paths, including the abbreviations {@code //}, {@code .}, {@code ..} and
+ * {@code @},</li>
+ * <li>the axes {@code child}, {@code descendant}, {@code descendant-or-self}, {@code self}, {@code parent},
+ * {@code ancestor}, {@code ancestor-or-self}, {@code following-sibling}, {@code preceding-sibling} and
+ * {@code attribute} with name tests, {@code *}, {@code node()} and {@code text()},</li>
+ * <li>predicates with positions, comparisons, {@code and}, {@code or}, {@code +} and {@code -},</li>
+ * <li>unions ({@code |}) and filter expressions such as {@code (//a)[2]},</li>
+ * <li>the functions {@code position()}, {@code last()}, {@code count()}, {@code not()}, {@code true()},
+ * {@code false()}, {@code boolean()}, {@code number()}, {@code string()}, {@code string-length()},
+ * {@code contains()}, {@code starts-with()}, {@code normalize-space()}, {@code concat()}, {@code translate()},
+ * {@code name()} and {@code local-name()}.</li>
+ * </ul>
+ *
+ * As only the first text of an element is extracted (and the text nodes of mixed content), {@code text()} yields
+ * these and the string value of an element is the text of its subtree. Element names are compared ignoring case and
+ * the position of a name test (e.g. {@code div[2]}) is the suffix of the path of the element.
+ *
+ * Expressions are compiled once per string. Absolute paths of positional steps (e.g. {@code /html[1]/body[1]/div[2]})
+ * are looked up in the path index of the {@link ElementIndex} and a leading {@code //} step starts with the id, name or
+ * tag bucket of the index, so typical locators do not traverse the whole state.
+ */
+final class XPath {
+
+	private static final CompiledLocatorCache<XPath> cache =
+			new CompiledLocatorCache<>( 1000, string -> new Parser( string ).parse() );
+
+	// The parent of the root element, nodes are either elements, the document or strings (attributes and texts).
+	private static final Object DOCUMENT = new Object();
+	private static final String TEXT_NODE = "textnode";
+
+	private final Expr expression;
+
+	private XPath( final Expr expression ) {
+		this.expression = expression;
+	}
+
+	/**
+	 * @param xpath
+	 *            The XPath expression to compile.
+	 * @return The compiled expression, which is cached (as are unsupported expressions).
+	 * @throws UnsupportedXPathException
+	 *             If the expression is invalid, uses unsupported features or does not select nodes.
+	 */
+	static XPath compile( final String xpath ) {
+		return cache.compile( xpath );
+	}
+
+	/**
+	 * @return The first selected element in document order or {@code null}.
+	 */
+	Element findFirst( final ElementIndex index ) {
+		Element first = null;
+		for ( final Object node : nodes( expression.evaluate( new Context( DOCUMENT, 1, 1, index ) ) ) ) {
+			if ( node instanceof Element && (first == null || order( node, index ) < order( first, index )) ) {
+				first = (Element) node;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * @return All selected elements in document order.
+	 */
+	List<Element> findAll( final ElementIndex index ) {
+		final List<Object> selected =
+				new ArrayList<>( nodes( expression.evaluate( new Context( DOCUMENT, 1, 1, index ) ) ) );
+		sort( selected, index );
+		final List<Element> result = new ArrayList<>( selected.size() );
+		for ( final Object node : selected ) {
+			if ( node instanceof Element && (result.isEmpty() || result.get( result.size() - 1 ) != node) ) {
+				result.add( (Element) node );
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Thrown for invalid expressions as well as for expressions that use unsupported features.
+	 */
+	static class UnsupportedXPathException extends IllegalArgumentException {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String unsupported;
+
+		UnsupportedXPathException( final String xpath, final String unsupported ) {
+			super( "Unsupported XPath '" + xpath + "' at '" + unsupported + "'." );
+			this.unsupported = unsupported;
+		}
+
+		/**
+		 * @return The part of the expression starting at the first unsupported feature.
+		 */
+		String getUnsupported() {
+			return unsupported;
+		}
+	}
+
+	private static class Context {
+
+		private final Object node;
+		private final int position;
+		private final int size;
+		private final ElementIndex index;
+
+		Context( final Object node, final int position, final int size, final ElementIndex index ) {
+			this.node = node;
+			this.position = position;
+			this.size = size;
+			this.index = index;
+		}
+	}
+
+	private enum Type {
+		NODES,
+		NUMBER,
+		OTHER
+	}
+
+	/**
+	 * Evaluates to a {@link Boolean}, {@link Double}, {@link String} or a {@link List} of nodes.
+	 */
+	private interface Expr {
+
+		Object evaluate( Context context );
+
+		default Type type() {
+			return Type.OTHER;
+		}
+	}
+
+	private static Expr typed( final Type type, final Expr expression ) {
+		return new Expr() {
+
+			@Override
+			public Object evaluate( final Context context ) {
+				return expression.evaluate( context );
+			}
+
+			@Override
+			public Type type() {
+				return type;
+			}
+		};
+	}
+
+	private static class Literal implements Expr {
+
+		private final Object value;
+
+		Literal( final Object value ) {
+			this.value = value;
+		}
+
+		@Override
+		public Object evaluate( final Context context ) {
+			return value;
+		}
+
+		@Override
+		public Type type() {
+			return value instanceof Double ? Type.NUMBER : Type.OTHER;
+		}
+	}
+
+	private static class Comparison implements Expr {
+
+		private final String operator;
+		private final Expr left;
+		private final Expr right;
+
+		Comparison( final String operator, final Expr left, final Expr right ) {
+			this.operator = operator;
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		public Object evaluate( final Context context ) {
+			return compare( left.evaluate( context ), operator, right.evaluate( context ) );
+		}
+	}
+
+	private static class Predicate {
+
+		private final Expr expression;
+		// Whether the predicate depends on the position of the node (and thus on the other nodes).
+		private final boolean positional;
+		// For [n], the path suffix of the n-th element with a given name.
+		private final String pathSuffix;
+		// For [@id='value'] and [@name='value'], which can be looked up in the index.
+		private final String attribute;
+		private final String value;
+
+		Predicate( final Expr expression, final boolean usesPosition ) {
+			this.expression = expression;
+			positional = usesPosition || expression.type() == Type.NUMBER;
+			final Object literal = expression instanceof Literal ? ((Literal) expression).value : null;
+			pathSuffix = literal instanceof Double && (Double) literal >= 1 && (Double) literal % 1 == 0
+					? "[" + ((Double) literal).intValue() + "]" : null;
+			String attribute = null;
+			String value = null;
+			if ( expression instanceof Comparison && "=".equals( ((Comparison) expression).operator ) ) {
+				final Comparison comparison = (Comparison) expression;
+				attribute = attributeName( comparison.left );
+				value = stringLiteral( comparison.right );
+				if ( attribute == null || value == null ) {
+					attribute = attributeName( comparison.right );
+					value = stringLiteral( comparison.left );
+				}
+			}
+			this.attribute = value != null ? attribute : null;
+			this.value = attribute != null ? value : null;
+		}
+
+		private static String attributeName( final Expr expression ) {
+			if ( !(expression instanceof LocationPath) ) {
+				return null;
+			}
+			final LocationPath path = (LocationPath) expression;
+			if ( path.absolute || path.steps.size() != 1 ) {
+				return null;
+			}
+			final Step step = path.steps.get( 0 );
+			return step.axis == Axis.ATTRIBUTE && step.predicates.isEmpty() ? step.name : null;
+		}
+
+		private static String stringLiteral( final Expr expression ) {
+			return expression instanceof Literal && ((Literal) expression).value instanceof String
+					? (String) ((Literal) expression).value : null;
+		}
+
+		boolean accepts( final Object node, final int position, final int size, final ElementIndex index ) {
+			final Object result = expression.evaluate( new Context( node, position, size, index ) );
+			return result instanceof Double ? (Double) result == position : toBoolean( result );
+		}
+
+		List<Object> filter( final List<Object> nodes, final ElementIndex index ) {
+			final List<Object> result = new ArrayList<>( nodes.size() );
+			for ( int i = 0; i < nodes.size(); i++ ) {
+				if ( accepts( nodes.get( i ), i + 1, nodes.size(), index ) ) {
+					result.add( nodes.get( i ) );
+				}
+			}
+			return result;
+		}
+	}
+
+	private enum Axis {
+		CHILD( false ),
+		DESCENDANT( false ),
+		DESCENDANT_OR_SELF( false ),
+		SELF( false ),
+		PARENT( true ),
+		ANCESTOR( true ),
+		ANCESTOR_OR_SELF( true ),
+		FOLLOWING_SIBLING( false ),
+		PRECEDING_SIBLING( true ),
+		ATTRIBUTE( false );
+
+		private final boolean reverse;
+
+		Axis( final boolean reverse ) {
+			this.reverse = reverse;
+		}
+
+		static Axis of( final String name ) {
+			for ( final Axis axis : values() ) {
+				if ( axis.name().replace( '_', '-' ).toLowerCase( Locale.ROOT ).equals( name ) ) {
+					return axis;
+				}
+			}
+			return null;
+		}
+	}
+
+	private static class Step {
+
+		private final Axis axis;
+		// The name to test, "*" for any element and null for any node.
+		private final String name;
+		private final boolean text;
+		private final List<Predicate> predicates;
+		// For name[n], the position among the siblings of the same name is the path suffix of the element.
+		private final boolean firstIsPathSegment;
+
+		Step( final Axis axis, final String name, final boolean text, final List<Predicate> predicates ) {
+			this.axis = axis;
+			this.name = name;
+			this.text = text;
+			this.predicates = predicates;
+			firstIsPathSegment = axis == Axis.CHILD && name != null && !"*".equals( name ) && !predicates.isEmpty()
+					&& predicates.get( 0 ).pathSuffix != null;
+		}
+
+		boolean isDescendantOrSelf() {
+			return axis == Axis.DESCENDANT_OR_SELF && name == null && !text && predicates.isEmpty();
+		}
+
+		boolean isPathSegment() {
+			return firstIsPathSegment && predicates.size() == 1 && !TEXT_NODE.equalsIgnoreCase( name );
+		}
+
+		private boolean hasPathSuffix( final Object node ) {
+			final IdentifyingAttributes identifyingAttributes =
+					node instanceof Element ? ((Element) node).getIdentifyingAttributes() : null;
+			final String path = identifyingAttributes != null ? identifyingAttributes.getPath() : null;
+			return path != null && path.endsWith( predicates.get( 0 ).pathSuffix );
+		}
+
+		boolean test( final Object node ) {
+			if ( name == null ) {
+				return true;
+			}
+			final String type = type( node );
+			return type != null && !TEXT_NODE.equals( type ) && ("*".equals( name ) || name.equalsIgnoreCase( type ));
+		}
+
+		List<Object> select( final List<Object> contexts, final ElementIndex index ) {
+			final List<Object> result = new ArrayList<>();
+			final Set<Object> seen = contexts.size() > 1 ? Collections.newSetFromMap( new IdentityHashMap<>() ) : null;
+			for ( final Object context : contexts ) {
+				List<Object> nodes = nodes( context, index );
+				for ( int i = 0; i < predicates.size(); i++ ) {
+					if ( i == 0 && firstIsPathSegment ) {
+						nodes.removeIf( node -> !hasPathSuffix( node ) );
+					} else {
+						nodes = predicates.get( i ).filter( nodes, index );
+					}
+				}
+				for ( final Object node : nodes ) {
+					if ( seen == null || node instanceof String || seen.add( node ) ) {
+						result.add( node );
+					}
+				}
+			}
+			if ( (contexts.size() > 1 || axis.reverse) && axis != Axis.ATTRIBUTE && !text ) {
+				sort( result, index );
+			}
+			return result;
+		}
+
+		private List<Object> nodes( final Object context, final ElementIndex index ) {
+			final List<Object> nodes = new ArrayList<>();
+			switch ( axis ) {
+				case CHILD:
+					if ( text ) {
+						return texts( context );
+					}
+					for ( final Object child : children( context, index ) ) {
+						add( nodes, child );
+					}
+					break;
+				case DESCENDANT_OR_SELF:
+					add( nodes, context );
+					addDescendants( nodes, context, index );
+					break;
+				case DESCENDANT:
+					addDescendants( nodes, context, index );
+					break;
+				case SELF:
+					add( nodes, context );
+					break;
+				case ANCESTOR_OR_SELF:
+					add( nodes, context );
+					addAncestors( nodes, context, index );
+					break;
+				case ANCESTOR:
+					addAncestors( nodes, context, index );
+					break;
+				case PARENT: {
+					final Object parent = parent( context, index );
+					if ( parent != null ) {
+						add( nodes, parent );
+					}
+					break;
+				}
+				case FOLLOWING_SIBLING:
+				case PRECEDING_SIBLING:
+					addSiblings( nodes, context, index );
+					break;
+				default:
+					final String value = context instanceof Element ? getAttribute( (Element) context, name ) : null;
+					if ( value != null ) {
+						nodes.add( value );
+					}
+					break;
+			}
+			return nodes;
+		}
+
+		private void add( final List<Object> nodes, final Object node ) {
+			if ( test( node ) ) {
+				nodes.add( node );
+			}
+		}
+
+		private void addDescendants( final List<Object> nodes, final Object context, final ElementIndex index ) {
+			final Deque<Object> stack = new ArrayDeque<>();
+			pushChildren( stack, context, index );
+			while ( !stack.isEmpty() ) {
+				final Object node = stack.pop();
+				add( nodes, node );
+				pushChildren( stack, node, index );
+			}
+		}
+
+		private void addAncestors( final List<Object> nodes, final Object context, final ElementIndex index ) {
+			for ( Object ancestor = parent( context, index ); ancestor != null; ancestor = parent( ancestor, index ) ) {
+				add( nodes, ancestor );
+			}
+		}
+
+		private void addSiblings( final List<Object> nodes, final Object context, final ElementIndex index ) {
+			if ( !(context instanceof Element) || context == index.getState() ) {
+				return;
+			}
+			final List<Element> siblings = index.getSiblings( (Element) context );
+			final int position = index.getPosition( (Element) context );
+			if ( axis == Axis.FOLLOWING_SIBLING ) {
+				for ( int i = position + 1; i < siblings.size(); i++ ) {
+					add( nodes, siblings.get( i ) );
+				}
+			} else {
+				for ( int i = position - 1; i >= 0; i-- ) {
+					add( nodes, siblings.get( i ) );
+				}
+			}
+		}
+
+		/**
+		 * Selects this (child) step for all descendants of the document, i.e. the step following a leading
+		 * {@code //}, starting with the elements of the matching index bucket instead of traversing the state.
+		 */
+		List<Object> selectFromDocument( final ElementIndex index ) {
+			final List<Element> candidates = candidates( index );
+			for ( int i = firstIsPathSegment ? 1 : 0; i < predicates.size(); i++ ) {
+				if ( predicates.get( i ).positional ) {
+					// Positions depend on the siblings, so select from the parents of the candidates instead.
+					final List<Object> parents = new ArrayList<>();
+					final Set<Object> seen = Collections.newSetFromMap( new IdentityHashMap<>() );
+					if ( test( index.getState() ) ) {
+						parents.add( DOCUMENT );
+					}
+					for ( final Element candidate : candidates ) {
+						final Object parent = parent( candidate, index );
+						if ( test( candidate ) && parent != null && seen.add( parent ) ) {
+							parents.add( parent );
+						}
+					}
+					sort( parents, index );
+					return select( parents, index );
+				}
+			}
+			final List<Object> result = new ArrayList<>();
+			if ( matches( index.getState(), index ) ) {
+				result.add( index.getState() );
+			}
+			for ( final Element candidate : candidates ) {
+				if ( matches( candidate, index ) ) {
+					result.add( candidate );
+				}
+			}
+			return result;
+		}
+
+		private List<Element> candidates( final ElementIndex index ) {
+			for ( final Predicate predicate : predicates ) {
+				if ( ID.equals( predicate.attribute ) ) {
+					return index.findById( predicate.value );
+				}
+				if ( NAME.equals( predicate.attribute ) ) {
+					return index.findByName( predicate.value );
+				}
+			}
+			return name != null && !"*".equals( name ) ? index.findByTag( name ) : index.getElements();
+		}
+
+		private boolean matches( final Element candidate, final ElementIndex index ) {
+			if ( candidate == null || !test( candidate ) ) {
+				return false;
+			}
+			for ( int i = 0; i < predicates.size(); i++ ) {
+				if ( i == 0 && firstIsPathSegment ) {
+					if ( !hasPathSuffix( candidate ) ) {
+						return false;
+					}
+				} else if ( !predicates.get( i ).accepts( candidate, 1, 1, index ) ) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private static class LocationPath implements Expr {
+
+		private final boolean absolute;
+		private final List<Step> steps;
+
+		LocationPath( final boolean absolute, final List<Step> steps ) {
+			this.absolute = absolute;
+			this.steps = steps;
+		}
+
+		@Override
+		public Object evaluate( final Context context ) {
+			if ( !absolute ) {
+				return select( Collections.singletonList( context.node ), 0, context.index );
+			}
+			final ElementIndex index = context.index;
+			int segments = 0;
+			final StringBuilder path = new StringBuilder();
+			while ( segments < steps.size() && steps.get( segments ).isPathSegment() ) {
+				final Step step = steps.get( segments++ );
+				path.append( path.length() > 0 ? "/" : "" ).append( step.name ).append( step.predicates.get( 0 ).pathSuffix );
+			}
+			if ( segments > 0 ) {
+				final Element element = index.findByPath( path.toString() );
+				if ( element != null ) {
+					return select( Collections.singletonList( element ), segments, index );
+				}
+			} else if ( steps.size() > 1 && steps.get( 0 ).isDescendantOrSelf() && steps.get( 1 ).axis == Axis.CHILD
+					&& !steps.get( 1 ).text ) {
+				return select( steps.get( 1 ).selectFromDocument( index ), 2, index );
+			}
+			return select( Collections.singletonList( DOCUMENT ), 0, index );
+		}
+
+		List<Object> select( final List<Object> contexts, final int from, final ElementIndex index ) {
+			List<Object> nodes = contexts;
+			for ( int i = from; i < steps.size() && !nodes.isEmpty(); i++ ) {
+				nodes = steps.get( i ).select( nodes, index );
+			}
+			return nodes;
+		}
+
+		@Override
+		public Type type() {
+			return Type.NODES;
+		}
+	}
+
+	/**
+	 * A primary expression with predicates and a relative location path, e.g. {@code (//a)[2]/span}.
+	 */
+	private static class FilterPath implements Expr {
+
+		private final Expr primary;
+		private final List<Predicate> predicates;
+		private final LocationPath path;
+
+		FilterPath( final Expr primary, final List<Predicate> predicates, final LocationPath path ) {
+			this.primary = primary;
+			this.predicates = predicates;
+			this.path = path;
+		}
+
+		@Override
+		public Object evaluate( final Context context ) {
+			List<Object> nodes = nodes( primary.evaluate( context ) );
+			for ( final Predicate predicate : predicates ) {
+				nodes = predicate.filter( nodes, context.index );
+			}
+			return path != null ? path.select( nodes, 0, context.index ) : nodes;
+		}
+
+		@Override
+		public Type type() {
+			return Type.NODES;
+		}
+	}
+
+	private static class Union implements Expr {
+
+		private final List<Expr> paths;
+
+		Union( final List<Expr> paths ) {
+			this.paths = paths;
+		}
+
+		@Override
+		public Object evaluate( final Context context ) {
+			final List<Object> result = new ArrayList<>();
+			final Set<Object> seen = Collections.newSetFromMap( new IdentityHashMap<>() );
+			boolean onlyNodes = true;
+			for ( final Expr path : paths ) {
+				for ( final Object node : nodes( path.evaluate( context ) ) ) {
+					if ( node instanceof String ) {
+						onlyNodes = false;
+						result.add( node );
+					} else if ( seen.add( node ) ) {
+						result.add( node );
+					}
+				}
+			}
+			if ( onlyNodes ) {
+				sort( result, context.index );
+			}
+			return result;
+		}
+
+		@Override
+		public Type type() {
+			return Type.NODES;
+		}
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private static List<Object> nodes( final Object value ) {
+		return value instanceof List ? (List<Object>) value : Collections.emptyList();
+	}
+
+	private static List<?> children( final Object node, final ElementIndex index ) {
+		if ( node == DOCUMENT ) {
+			return Collections.singletonList( index.getState() );
+		}
+		return node instanceof Element ? ((Element) node).getContainedElements() : Collections.emptyList();
+	}
+
+	private static void pushChildren( final Deque<Object> stack, final Object node, final ElementIndex index ) {
+		final List<?> children = children( node, index );
+		for ( int i = children.size() - 1; i >= 0; i-- ) {
+			stack.push( children.get( i ) );
+		}
+	}
+
+	private static Object parent( final Object node, final ElementIndex index ) {
+		if ( node == index.getState() ) {
+			return DOCUMENT;
+		}
+		return node instanceof Element ? index.getParent( (Element) node ) : null;
+	}
+
+	private static int order( final Object node, final ElementIndex index ) {
+		if ( node == DOCUMENT ) {
+			return -2;
+		}
+		if ( node == index.getState() ) {
+			return -1;
+		}
+		return node instanceof Element ? index.getOrder( (Element) node ) : Integer.MAX_VALUE;
+	}
+
+	private static void sort( final List<Object> nodes, final ElementIndex index ) {
+		nodes.sort( Comparator.comparingInt( node -> order( node, index ) ) );
+	}
+
+	private static String type( final Object node ) {
+		if ( !(node instanceof Element) ) {
+			return null;
+		}
+		final IdentifyingAttributes identifyingAttributes = ((Element) node).getIdentifyingAttributes();
+		return identifyingAttributes != null ? identifyingAttributes.getType() : null;
+	}
+
+	private static String getAttribute( final Element element, final String name ) {
+		final Object identifying =
+				element.getIdentifyingAttributes() != null ? element.getIdentifyingAttributes().get( name ) : null;
+		if ( identifying != null ) {
+			return identifying.toString();
+		}
+		final Object state = element.getAttributes() != null ? element.getAttributes().get( name ) : null;
+		return state != null ? state.toString() : null;
+	}
+
+	private static boolean isTextNode( final Object node ) {
+		return TEXT_NODE.equals( type( node ) );
+	}
+
+	private static boolean hasTextNodes( final Element element ) {
+		for ( final Element child : element.getContainedElements() ) {
+			if ( isTextNode( child ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The texts of the text nodes of mixed content or else the text of the element.
+	 */
+	private static List<Object> texts( final Object node ) {
+		if ( !(node instanceof Element) ) {
+			return Collections.emptyList();
+		}
+		final Element element = (Element) node;
+		final List<Object> texts = new ArrayList<>();
+		if ( hasTextNodes( element ) ) {
+			for ( final Element child : element.getContainedElements() ) {
+				final String text = isTextNode( child ) ? getAttribute( child, TEXT ) : null;
+				if ( text != null ) {
+					texts.add( text );
+				}
+			}
+		} else {
+			final String text = getAttribute( element, TEXT );
+			if ( StringUtils.isNotEmpty( text ) ) {
+				texts.add( text );
+			}
+		}
+		return texts;
+	}
+
+	private static String stringValue( final Object node ) {
+		if ( node instanceof String ) {
+			return (String) node;
+		}
+		if ( !(node instanceof Element) ) {
+			return "";
+		}
+		final StringBuilder value = new StringBuilder();
+		final Deque<Element> stack = new ArrayDeque<>();
+		stack.push( (Element) node );
+		while ( !stack.isEmpty() ) {
+			final Element element = stack.pop();
+			if ( isTextNode( element ) || !hasTextNodes( element ) ) {
+				// Otherwise the text of the element is the one of its first text node.
+				final String text = getAttribute( element, TEXT );
+				value.append( text != null ? text : "" );
+			}
+			final List<Element> children = element.getContainedElements();
+			for ( int i = children.size() - 1; i >= 0; i-- ) {
+				stack.push( children.get( i ) );
+			}
+		}
+		return value.toString();
+	}
+
+	private static boolean toBoolean( final Object value ) {
+		if ( value instanceof Boolean ) {
+			return (Boolean) value;
+		}
+		if ( value instanceof Double ) {
+			final double number = (Double) value;
+			return number != 0 && !Double.isNaN( number );
+		}
+		if ( value instanceof String ) {
+			return !((String) value).isEmpty();
+		}
+		return !nodes( value ).isEmpty();
+	}
+
+	private static double toNumber( final Object value ) {
+		if ( value instanceof Double ) {
+			return (Double) value;
+		}
+		if ( value instanceof Boolean ) {
+			return (Boolean) value ? 1 : 0;
+		}
+		try {
+			return Double.parseDouble( asString( value ).trim() );
+		} catch ( final NumberFormatException e ) {
+			return Double.NaN;
+		}
+	}
+
+	private static String asString( final Object value ) {
+		if ( value instanceof String ) {
+			return (String) value;
+		}
+		if ( value instanceof Double ) {
+			final double number = (Double) value;
+			return number % 1 == 0 && !Double.isInfinite( number ) ? Long.toString( (long) number )
+					: Double.toString( number );
+		}
+		if ( value instanceof Boolean ) {
+			return value.toString();
+		}
+		final List<Object> nodes = nodes( value );
+		return nodes.isEmpty() ? "" : stringValue( nodes.get( 0 ) );
+	}
+
+	private static boolean compare( final Object left, final String operator, final Object right ) {
+		// Node sets are compared by the string values of their nodes, any of which has to match.
+		if ( left instanceof List && !(right instanceof Boolean) ) {
+			for ( final Object node : nodes( left ) ) {
+				if ( compare( stringValue( node ), operator, right ) ) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if ( right instanceof List && !(left instanceof Boolean) ) {
+			for ( final Object node : nodes( right ) ) {
+				if ( compare( left, operator, stringValue( node ) ) ) {
+					return true;
+				}
+			}
+			return false;
+		}
+		if ( "=".equals( operator ) || "!=".equals( operator ) ) {
+			final boolean equal;
+			if ( left instanceof Boolean || right instanceof Boolean ) {
+				equal = toBoolean( left ) == toBoolean( right );
+			} else if ( left instanceof Double || right instanceof Double ) {
+				equal = toNumber( left ) == toNumber( right );
+			} else {
+				equal = asString( left ).equals( asString( right ) );
+			}
+			return "=".equals( operator ) == equal;
+		}
+		final double l = toNumber( left );
+		final double r = toNumber( right );
+		switch ( operator ) {
+			case "<":
+				return l < r;
+			case "<=":
+				return l <= r;
+			case ">":
+				return l > r;
+			default:
+				return l >= r;
+		}
+	}
+
+	private static class Parser {
+
+		private final String xpath;
+		private int position;
+		// Whether position() or last() is used within the current predicate.
+		private boolean usesPosition;
+
+		Parser( final String xpath ) {
+			this.xpath = xpath;
+		}
+
+		XPath parse() {
+			final Expr expression = expression();
+			skipWhitespace();
+			if ( !atEnd() ) {
+				throw unsupported();
+			}
+			if ( expression.type() != Type.NODES ) {
+				position = 0;
+				throw unsupported();
+			}
+			return new XPath( expression );
+		}
+
+		private Expr expression() {
+			return or();
+		}
+
+		private Expr or() {
+			final Expr left = and();
+			if ( !keyword( "or" ) ) {
+				return left;
+			}
+			final Expr right = or();
+			return context -> toBoolean( left.evaluate( context ) ) || toBoolean( right.evaluate( context ) );
+		}
+
+		private Expr and() {
+			final Expr left = equality();
+			if ( !keyword( "and" ) ) {
+				return left;
+			}
+			final Expr right = and();
+			return context -> toBoolean( left.evaluate( context ) ) && toBoolean( right.evaluate( context ) );
+		}
+
+		private Expr equality() {
+			Expr left = relational();
+			while ( true ) {
+				skipWhitespace();
+				final String operator = lookingAt( "!=" ) ? "!=" : lookingAt( "=" ) ? "=" : null;
+				if ( operator == null ) {
+					return left;
+				}
+				position += operator.length();
+				left = new Comparison( operator, left, relational() );
+			}
+		}
+
+		private Expr relational() {
+			Expr left = additive();
+			while ( true ) {
+				skipWhitespace();
+				final String operator = lookingAt( "<=" ) ? "<="
+						: lookingAt( ">=" ) ? ">=" : lookingAt( "<" ) ? "<" : lookingAt( ">" ) ? ">" : null;
+				if ( operator == null ) {
+					return left;
+				}
+				position += operator.length();
+				left = new Comparison( operator, left, additive() );
+			}
+		}
+
+		private Expr additive() {
+			Expr left = unary();
+			while ( true ) {
+				skipWhitespace();
+				if ( atEnd() || peek() != '+' && peek() != '-' ) {
+					return left;
+				}
+				final boolean plus = xpath.charAt( position++ ) == '+';
+				final Expr first = left;
+				final Expr second = unary();
+				left = typed( Type.NUMBER, context -> plus
+						? toNumber( first.evaluate( context ) ) + toNumber( second.evaluate( context ) )
+						: toNumber( first.evaluate( context ) ) - toNumber( second.evaluate( context ) ) );
+			}
+		}
+
+		private Expr unary() {
+			skipWhitespace();
+			if ( consume( '-' ) ) {
+				final Expr operand = unary();
+				return typed( Type.NUMBER, context -> -toNumber( operand.evaluate( context ) ) );
+			}
+			return union();
+		}
+
+		private Expr union() {
+			final Expr first = path();
+			skipWhitespace();
+			if ( atEnd() || peek() != '|' ) {
+				return first;
+			}
+			final List<Expr> paths = new ArrayList<>();
+			paths.add( first );
+			while ( consume( '|' ) ) {
+				final int start = position;
+				final Expr next = path();
+				if ( first.type() != Type.NODES || next.type() != Type.NODES ) {
+					position = start;
+					throw unsupported();
+				}
+				paths.add( next );
+				skipWhitespace();
+			}
+			return new Union( paths );
+		}
+
+		private Expr path() {
+			skipWhitespace();
+			if ( atEnd() ) {
+				throw unsupported();
+			}
+			final char next = peek();
+			final boolean primary = next == '(' || next == '"' || next == '\'' || Character.isDigit( next )
+					|| next == '.' && position + 1 < xpath.length() && Character.isDigit( xpath.charAt( position + 1 ) )
+					|| isFunctionCall();
+			if ( !primary ) {
+				return locationPath();
+			}
+			final int start = position;
+			final Expr expression = primary();
+			final List<Predicate> predicates = predicates();
+			skipWhitespace();
+			final boolean slash = lookingAt( "/" );
+			if ( predicates.isEmpty() && !slash ) {
+				return expression;
+			}
+			if ( expression.type() != Type.NODES ) {
+				position = start;
+				throw unsupported();
+			}
+			return new FilterPath( expression, predicates, slash ? relativeLocationPath( new ArrayList<>() ) : null );
+		}
+
+		private LocationPath locationPath() {
+			final List<Step> steps = new ArrayList<>();
+			if ( lookingAt( "//" ) ) {
+				return new LocationPath( true, relativeLocationPath( steps ).steps );
+			}
+			if ( consume( '/' ) ) {
+				skipWhitespace();
+				if ( !atEnd() && isStepStart( peek() ) ) {
+					steps.add( step() );
+					continueLocationPath( steps );
+				}
+				return new LocationPath( true, steps );
+			}
+			steps.add( step() );
+			continueLocationPath( steps );
+			return new LocationPath( false, steps );
+		}
+
+		/**
+		 * Parses the steps following a slash, i.e. the given steps are the preceding ones.
+		 */
+		private LocationPath relativeLocationPath( final List<Step> steps ) {
+			continueLocationPath( steps );
+			return new LocationPath( false, steps );
+		}
+
+		private void continueLocationPath( final List<Step> steps ) {
+			while ( true ) {
+				skipWhitespace();
+				if ( lookingAt( "//" ) ) {
+					position += 2;
+					steps.add( new Step( Axis.DESCENDANT_OR_SELF, null, false, Collections.emptyList() ) );
+				} else if ( !consume( '/' ) ) {
+					return;
+				}
+				steps.add( step() );
+			}
+		}
+
+		private Step step() {
+			skipWhitespace();
+			if ( lookingAt( ".." ) ) {
+				position += 2;
+				return new Step( Axis.PARENT, null, false, Collections.emptyList() );
+			}
+			if ( consume( '.' ) ) {
+				return new Step( Axis.SELF, null, false, Collections.emptyList() );
+			}
+			final int start = position;
+			Axis axis = Axis.CHILD;
+			if ( consume( '@' ) ) {
+				axis = Axis.ATTRIBUTE;
+			} else if ( !atEnd() && isNameStart( peek() ) ) {
+				final String name = name();
+				skipWhitespace();
+				if ( lookingAt( "::" ) ) {
+					axis = Axis.of( name );
+					if ( axis == null ) {
+						position = start;
+						throw unsupported();
+					}
+					position += 2;
+				} else {
+					position = start;
+				}
+			}
+			skipWhitespace();
+			final int testStart = position;
+			String name = null;
+			boolean text = false;
+			if ( consume( '*' ) ) {
+				name = "*";
+			} else {
+				name = name();
+				skipWhitespace();
+				if ( consume( '(' ) ) {
+					skipWhitespace();
+					if ( !consume( ')' ) || !"node".equals( name ) && !"text".equals( name ) ) {
+						position = testStart;
+						throw unsupported();
+					}
+					text = "text".equals( name );
+					name = null;
+				} else if ( !atEnd() && peek() == ':' && !lookingAt( "::" ) ) {
+					// Namespace prefixes are not supported.
+					position = testStart;
+					throw unsupported();
+				}
+			}
+			if ( axis == Axis.ATTRIBUTE && (name == null || "*".equals( name ))
+					|| text && axis != Axis.CHILD ) {
+				position = testStart;
+				throw unsupported();
+			}
+			return new Step( axis, name, text, predicates() );
+		}
+
+		private List<Predicate> predicates() {
+			final List<Predicate> predicates = new ArrayList<>();
+			while ( true ) {
+				skipWhitespace();
+				if ( !consume( '[' ) ) {
+					return predicates;
+				}
+				final boolean outer = usesPosition;
+				usesPosition = false;
+				final Expr expression = expression();
+				skipWhitespace();
+				if ( !consume( ']' ) ) {
+					throw unsupported();
+				}
+				predicates.add( new Predicate( expression, usesPosition ) );
+				usesPosition = outer;
+			}
+		}
+
+		private Expr primary() {
+			final int start = position;
+			final char next = peek();
+			if ( consume( '(' ) ) {
+				final Expr expression = expression();
+				skipWhitespace();
+				if ( !consume( ')' ) ) {
+					throw unsupported();
+				}
+				return expression;
+			}
+			if ( next == '"' || next == '\'' ) {
+				final int end = xpath.indexOf( next, position + 1 );
+				if ( end < 0 ) {
+					throw unsupported();
+				}
+				final String value = xpath.substring( position + 1, end );
+				position = end + 1;
+				return new Literal( value );
+			}
+			if ( next != '.' && !Character.isDigit( next ) ) {
+				return function();
+			}
+			while ( !atEnd() && (Character.isDigit( peek() ) || peek() == '.') ) {
+				position++;
+			}
+			try {
+				return new Literal( Double.valueOf( xpath.substring( start, position ) ) );
+			} catch ( final NumberFormatException e ) {
+				position = start;
+				throw unsupported();
+			}
+		}
+
+		private Expr function() {
+			final int start = position;
+			final String name = name();
+			skipWhitespace();
+			consume( '(' );
+			final List<Expr> arguments = new ArrayList<>();
+			skipWhitespace();
+			if ( !consume( ')' ) ) {
+				do {
+					arguments.add( expression() );
+					skipWhitespace();
+				} while ( consume( ',' ) );
+				if ( !consume( ')' ) ) {
+					throw unsupported();
+				}
+			}
+			final Expr function = function( name, arguments );
+			if ( function == null ) {
+				position = start;
+				throw unsupported();
+			}
+			return function;
+		}
+
+		private Expr function( final String name, final List<Expr> arguments ) {
+			final int count = arguments.size();
+			// Without arguments, functions apply to the context node.
+			final Expr first = count > 0 ? arguments.get( 0 )
+					: typed( Type.NODES, context -> Collections.singletonList( context.node ) );
+			final Expr second = count > 1 ? arguments.get( 1 ) : null;
+			switch ( name ) {
+				case "position":
+					usesPosition = true;
+					return count == 0 ? typed( Type.NUMBER, context -> (double) context.position ) : null;
+				case "last":
+					usesPosition = true;
+					return count == 0 ? typed( Type.NUMBER, context -> (double) context.size ) : null;
+				case "count":
+					return count == 1 && first.type() == Type.NODES
+							? typed( Type.NUMBER, context -> (double) nodes( first.evaluate( context ) ).size() ) : null;
+				case "true":
+				case "false":
+					return count == 0 ? new Literal( "true".equals( name ) ) : null;
+				case "not":
+					return count == 1 ? context -> !toBoolean( first.evaluate( context ) ) : null;
+				case "boolean":
+					return count == 1 ? context -> toBoolean( first.evaluate( context ) ) : null;
+				case "number":
+					return count <= 1 ? typed( Type.NUMBER, context -> toNumber( first.evaluate( context ) ) ) : null;
+				case "string":
+					return count <= 1 ? context -> asString( first.evaluate( context ) ) : null;
+				case "string-length":
+					return count <= 1
+							? typed( Type.NUMBER, context -> (double) asString( first.evaluate( context ) ).length() )
+							: null;
+				case "normalize-space":
+					return count <= 1 ? context -> StringUtils.normalizeSpace( asString( first.evaluate( context ) ) )
+							: null;
+				case "contains":
+					return count == 2 ? context -> asString( first.evaluate( context ) )
+							.contains( asString( second.evaluate( context ) ) ) : null;
+				case "starts-with":
+					return count == 2 ? context -> asString( first.evaluate( context ) )
+							.startsWith( asString( second.evaluate( context ) ) ) : null;
+				case "concat":
+					return count >= 2 ? context -> {
+						final StringBuilder result = new StringBuilder();
+						for ( final Expr argument : arguments ) {
+							result.append( asString( argument.evaluate( context ) ) );
+						}
+						return result.toString();
+					} : null;
+				case "translate":
+					return count == 3 ? context -> translate( asString( first.evaluate( context ) ),
+							asString( second.evaluate( context ) ), asString( arguments.get( 2 ).evaluate( context ) ) )
+							: null;
+				case "name":
+				case "local-name":
+					return count <= 1 && first.type() == Type.NODES ? context -> {
+						final List<Object> nodes = nodes( first.evaluate( context ) );
+						final String type = nodes.isEmpty() ? null : type( nodes.get( 0 ) );
+						return type != null ? type.toLowerCase( Locale.ROOT ) : "";
+					} : null;
+				default:
+					return null;
+			}
+		}
+
+		private static String translate( final String value, final String from, final String to ) {
+			final StringBuilder result = new StringBuilder( value.length() );
+			for ( final char c : value.toCharArray() ) {
+				final int index = from.indexOf( c );
+				if ( index < 0 ) {
+					result.append( c );
+				} else if ( index < to.length() ) {
+					result.append( to.charAt( index ) );
+				}
+			}
+			return result.toString();
+		}
+
+		private boolean isFunctionCall() {
+			if ( !isNameStart( peek() ) ) {
+				return false;
+			}
+			final int start = position;
+			final String name = name();
+			skipWhitespace();
+			final boolean call = !atEnd() && peek() == '(' && !"node".equals( name ) && !"text".equals( name );
+			position = start;
+			return call;
+		}
+
+		private boolean keyword( final String keyword ) {
+			skipWhitespace();
+			final int end = position + keyword.length();
+			if ( lookingAt( keyword ) && (end == xpath.length() || !isNameChar( xpath.charAt( end ) )) ) {
+				position = end;
+				return true;
+			}
+			return false;
+		}
+
+		private String name() {
+			final int start = position;
+			if ( !atEnd() && isNameStart( peek() ) ) {
+				position++;
+				while ( !atEnd() && isNameChar( peek() ) ) {
+					position++;
+				}
+			}
+			if ( position == start ) {
+				throw unsupported();
+			}
+			return xpath.substring( start, position );
+		}
+
+		private static boolean isStepStart( final char c ) {
+			return isNameStart( c ) || c == '*' || c == '@' || c == '.';
+		}
+
+		private static boolean isNameStart( final char c ) {
+			return Character.isLetter( c ) || c == '_';
+		}
+
+		private static boolean isNameChar( final char c ) {
+			return Character.isLetterOrDigit( c ) || c == '_' || c == '-' || c == '.';
+		}
+
+		private void skipWhitespace() {
+			while ( !atEnd() && Character.isWhitespace( peek() ) ) {
+				position++;
+			}
+		}
+
+		private boolean consume( final char expected ) {
+			if ( !atEnd() && peek() == expected ) {
+				position++;
+				return true;
+			}
+			return false;
+		}
+
+		private boolean lookingAt( final String expected ) {
+			return xpath.startsWith( expected, position );
+		}
+
+		private char peek() {
+			return xpath.charAt( position );
+		}
+
+		private boolean atEnd() {
+			return position >= xpath.length();
+		}
+
+		private UnsupportedXPathException unsupported() {
+			return new UnsupportedXPathException( xpath, xpath.substring( Math.min( position, xpath.length() ) ) );
+		}
+	}
+
+}
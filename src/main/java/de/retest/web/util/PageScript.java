@@ -0,0 +1,133 @@
+package de.retest.web.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.openqa.selenium.JavascriptExecutor;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.retest.web.jfr.PhaseEvent;
+import de.retest.web.jfr.RecordedPhase;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A script from the classpath, which is installed once per document as function of the {@value #NAMESPACE} namespace
+ * of the window. Afterwards, only a small stub invoking this function is sent with each execution, instead of the
+ * whole script. If the function is gone (e.g. after navigation), the script is installed again within the same
+ * execution.
+ */
+@Slf4j
+public final class PageScript {
+
+	static final String NAMESPACE = "__recheck";
+
+	private static final String NOT_INSTALLED = "__recheck_not_installed__";
+
+	private static final Map<String, PageScript> scripts = new ConcurrentHashMap<>();
+
+	private final String name;
+	private final String stub;
+	private final String installer;
+
+	private PageScript( final String name, final String source ) {
+		this.name = name;
+		final String function = "window." + NAMESPACE + "[\"" + name + "\"]";
+		stub = "var f = window." + NAMESPACE + " && " + function + ";\n" //
+				+ "return f ? f.apply(null, arguments) : \"" + NOT_INSTALLED + "\";";
+		installer = "window." + NAMESPACE + " = window." + NAMESPACE + " || {};\n" //
+				+ function + " = function() {\n" + source + "\n};\n" //
+				+ "return " + function + ".apply(null, arguments);";
+	}
+
+	/**
+	 * @param resourcePath
+	 *            The path of the script within the classpath, e.g. {@code /javascript/getAllElementsByPath.js}.
+	 * @return The (cached) script.
+	 */
+	public static PageScript of( final String resourcePath ) {
+		return scripts.computeIfAbsent( resourcePath, path -> load( path, "" ) );
+	}
+
+	/**
+	 * @param resourcePath
+	 *            The path of the script within the classpath, e.g. {@code /javascript/getAllElementsByPath.js}.
+	 * @param constants
+	 *            Values (e.g. configuration tables) that are declared as variables of the given names before the
+	 *            script. They are installed along with the script, so they are not sent with each execution.
+	 * @return The (cached) script.
+	 */
+	public static PageScript of( final String resourcePath, final Map<String, ?> constants ) {
+		final String declarations = declare( constants );
+		return scripts.computeIfAbsent( resourcePath + "\n" + declarations, key -> load( resourcePath, declarations ) );
+	}
+
+	/**
+	 * Executes the script, installing it first if it is not installed within the current document.
+	 *
+	 * @param executor
+	 *            The executor of the document, e.g. the driver.
+	 * @param args
+	 *            The arguments of the script.
+	 * @return The result of the script, see {@link JavascriptExecutor#executeScript(String, Object...)}.
+	 */
+	public Object execute( final JavascriptExecutor executor, final Object... args ) {
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.SCRIPT_EXECUTION ).detail( name );
+		final Object result = executor.executeScript( stub, args );
+		if ( !NOT_INSTALLED.equals( result ) ) {
+			event.byteCount( stub.length() ).commit();
+			return result;
+		}
+		log.debug( "Installing script '{}' within current document.", name );
+		final Object installed = executor.executeScript( installer, args );
+		event.byteCount( stub.length() + installer.length() ).commit();
+		return installed;
+	}
+
+	/**
+	 * @return The name of the function within the namespace, which contains a hash of the script to not mix up
+	 *         different versions.
+	 */
+	String getName() {
+		return name;
+	}
+
+	private static String declare( final Map<String, ?> constants ) {
+		final ObjectMapper mapper = new ObjectMapper();
+		final StringBuilder declarations = new StringBuilder();
+		for ( final Map.Entry<String, ?> constant : new TreeMap<>( constants ).entrySet() ) {
+			try {
+				declarations.append( "var " ).append( constant.getKey() ).append( " = " )
+						.append( mapper.writeValueAsString( constant.getValue() ) ).append( ";\n" );
+			} catch ( final JsonProcessingException e ) {
+				throw new UncheckedIOException( "Exception declaring constant '" + constant.getKey() + "'.", e );
+			}
+		}
+		return declarations.toString();
+	}
+
+	private static PageScript load( final String resourcePath, final String declarations ) {
+		try ( final InputStream url = PageScript.class.getResourceAsStream( resourcePath ) ) {
+			if ( url == null ) {
+				throw new IllegalArgumentException( "Script '" + resourcePath + "' not found." );
+			}
+			final String source =
+					declarations + String.join( "\n", IOUtils.readLines( url, StandardCharsets.UTF_8 ) );
+			final String name = FilenameUtils.getBaseName( resourcePath ) + "@"
+					+ DigestUtils.sha256Hex( source ).substring( 0, 12 );
+			return new PageScript( name, source );
+		} catch ( final IOException e ) {
+			throw new UncheckedIOException( "Exception reading '" + resourcePath + "'.", e );
+		}
+	}
+
+}
@@ -0,0 +1,38 @@
+package de.retest.web.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name( "de.retest.web.Phase" )
+@Label( "Check Phase" )
+@Description( "A phase of a check, e.g. taking the screenshot or converting the extracted elements." )
+@Category( "recheck-web" )
+@StackTrace( false )
+class JfrPhaseEvent extends Event {
+
+	@Label( "Phase" )
+	String phase;
+
+	@Label( "Check Name" )
+	String checkName;
+
+	@Label( "URL" )
+	String url;
+
+	@Label( "Detail" )
+	@Description( "Details of the phase, e.g. the locator that is healed." )
+	String detail;
+
+	@Label( "Element Count" )
+	int elementCount = -1;
+
+	@Label( "Byte Count" )
+	@DataAmount
+	long byteCount = -1;
+
+}
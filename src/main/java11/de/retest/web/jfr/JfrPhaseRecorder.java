@@ -0,0 +1,67 @@
+package de.retest.web.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * Records the phase events as {@link JfrPhaseEvent}. Loading this class fails on Java 8, as JFR is not available.
+ */
+class JfrPhaseRecorder implements PhaseRecorder {
+
+	private final EventType type = EventType.getEventType( JfrPhaseEvent.class );
+
+	@Override
+	public boolean isRecording() {
+		return type.isEnabled();
+	}
+
+	@Override
+	public PhaseEvent begin( final RecordedPhase phase ) {
+		final JfrPhaseEvent event = new JfrPhaseEvent();
+		event.phase = phase.name();
+		event.begin();
+		return new RecordedPhaseEvent( event );
+	}
+
+	private static class RecordedPhaseEvent extends PhaseEvent {
+
+		private final JfrPhaseEvent event;
+
+		RecordedPhaseEvent( final JfrPhaseEvent event ) {
+			this.event = event;
+		}
+
+		@Override
+		public boolean isEnabled() {
+			return true;
+		}
+
+		@Override
+		public PhaseEvent elementCount( final int elementCount ) {
+			event.elementCount = elementCount;
+			return this;
+		}
+
+		@Override
+		public PhaseEvent byteCount( final long byteCount ) {
+			event.byteCount = byteCount;
+			return this;
+		}
+
+		@Override
+		public PhaseEvent detail( final String detail ) {
+			event.detail = detail;
+			return this;
+		}
+
+		@Override
+		public void commit() {
+			event.end();
+			if ( event.shouldCommit() ) {
+				event.checkName = CheckContext.getCheckName();
+				event.url = CheckContext.getUrl();
+				event.commit();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,24 @@
+// returns the elements [offset, offset + count) of a part buffered by getAllElementsByPath.js, along with the dictionary
+// entries that were added for them, the buffer is released with the last chunk
+var token = arguments[0];
+var part = arguments[1];
+var offset = arguments[2];
+var count = arguments[3];
+
+var buffer = window.__recheck && window.__recheck.chunks;
+if (!buffer || buffer.token !== token || part >= buffer.parts.length) {
+    return null;
+}
+var payload = buffer.parts[part];
+var end = Math.min(offset + count, payload.parents.length);
+var chunk = {
+    "keys": payload.keys.slice(offset > 0 ? payload.keyCounts[offset - 1] : 0, payload.keyCounts[end - 1]),
+    "values": payload.values.slice(offset > 0 ? payload.valueCounts[offset - 1] : 0, payload.valueCounts[end - 1]),
+    "parents": payload.parents.slice(offset, end),
+    "indices": payload.indices.slice(offset, end),
+    "attributes": payload.attributes.slice(offset, end)
+};
+if (part == buffer.parts.length - 1 && end == payload.parents.length) {
+    delete window.__recheck.chunks;
+}
+return chunk;
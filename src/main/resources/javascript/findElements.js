@@ -0,0 +1,53 @@
+// Finds the first element of each of the given locators within a single round trip. The locators are given as
+// [strategy, value] pairs, the strategies are named like the factory methods of Selenium's By. Returns null for each
+// locator that does not find an element (or is invalid), i.e. this does not wait for elements to appear.
+var locators = arguments[0];
+
+function byXPath(xpath) {
+    var node = document.evaluate(xpath, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+    return node && node.nodeType === Node.ELEMENT_NODE ? node : null;
+}
+
+function byLinkText(text, partial) {
+    var links = document.getElementsByTagName("a");
+    for (var i = 0; i < links.length; i++) {
+        var linkText = (links[i].innerText || links[i].textContent || "").trim();
+        if (partial ? linkText.indexOf(text) >= 0 : linkText === text) {
+            return links[i];
+        }
+    }
+    return null;
+}
+
+function find(strategy, value) {
+    switch (strategy) {
+    case "id":
+        return document.getElementById(value);
+    case "name":
+        return document.getElementsByName(value)[0] || null;
+    case "className":
+        return document.getElementsByClassName(value)[0] || null;
+    case "cssSelector":
+        return document.querySelector(value);
+    case "tagName":
+        return document.getElementsByTagName(value)[0] || null;
+    case "linkText":
+        return byLinkText(value, false);
+    case "partialLinkText":
+        return byLinkText(value, true);
+    case "xpath":
+        return byXPath(value);
+    default:
+        return null;
+    }
+}
+
+var result = [];
+for (var i = 0; i < locators.length; i++) {
+    try {
+        result.push(find(locators[i][0], locators[i][1]));
+    } catch (e) {
+        result.push(null);
+    }
+}
+return result;
@@ -1,17 +1,23 @@
 cssAttributes = arguments[0];
+compactPayload = arguments.length >= 3 && arguments[2] === "compact";
+extractFrames = arguments.length >= 4 && arguments[3] === true;
+// defaultValues and commonDefaults are declared along with the script (see DefaultWebValueFinder)
+filterDefaults = arguments.length >= 5 && arguments[4] === true;
+// results with more elements are buffered within the page and fetched in chunks (see fetchChunk.js)
+chunkSize = compactPayload && extractFrames && arguments.length >= 6 && arguments[5] > 0 ? arguments[5] : 0;
 
 var Counter = /** @class */ (function () {
     function Counter() {
         this.map = {};
     }
-    Counter.prototype.increase = function (element) {
-        if (element.tagName in this.map) {
-            this.map[element.tagName] = this.map[element.tagName] + 1;
+    Counter.prototype.increase = function (tagName) {
+        if (tagName in this.map) {
+            this.map[tagName] = this.map[tagName] + 1;
         }
         else {
-            this.map[element.tagName] = 1;
+            this.map[tagName] = 1;
         }
-        return this.map[element.tagName];
+        return this.map[tagName];
     };
     ;
     return Counter;
@@ -28,32 +34,46 @@ function getText(node) {
     return "";
 }
 
-function getX(node) {
-    var rect = node.getBoundingClientRect();
-    return rect.left + window.scrollX;
+// nodes of (same-origin) frames belong to the window of the frame
+function getWindow(node) {
+    var doc = node.ownerDocument;
+    return (doc && doc.defaultView) || window;
+}
+
+function hasLayout(node) {
+    return node && typeof node.getBoundingClientRect === "function";
 }
 
-function getY(node) {
+// reads the layout of an element exactly once, its children (and text nodes) refer to it instead of reading it again
+function readLayout(node, scroll, parentLayout) {
     var rect = node.getBoundingClientRect();
-    return rect.top + window.scrollY;
+    return {
+        "x": rect.left + scroll.x,
+        "y": rect.top + scroll.y,
+        "width": rect.width,
+        "height": rect.height,
+        "shown": !!(node.offsetWidth || node.offsetHeight || node.getClientRects().length),
+        "parent": parentLayout
+    };
 }
 
-function addCoordinates(extractedAttributes, node) {
+function addCoordinates(extractedAttributes, layout) {
     // these attributes need special treatment
-    extractedAttributes["absolute-x"] = getX(node);
-    extractedAttributes["absolute-y"] = getY(node);
-    extractedAttributes["absolute-width"] = node.getBoundingClientRect().width;
-    extractedAttributes["absolute-height"] = node.getBoundingClientRect().height;
-    if (typeof node.parentNode.getBoundingClientRect === "function") {
-        extractedAttributes["x"] = getX(node) - getX(node.parentNode);
-        extractedAttributes["y"] = getY(node) - getY(node.parentNode);
-        extractedAttributes["width"] = node.getBoundingClientRect().width - node.parentNode.getBoundingClientRect().width;
-        extractedAttributes["height"] = node.getBoundingClientRect().height - node.parentNode.getBoundingClientRect().height;
+    extractedAttributes["absolute-x"] = layout.x;
+    extractedAttributes["absolute-y"] = layout.y;
+    extractedAttributes["absolute-width"] = layout.width;
+    extractedAttributes["absolute-height"] = layout.height;
+    var parentLayout = layout.parent;
+    if (parentLayout) {
+        extractedAttributes["x"] = layout.x - parentLayout.x;
+        extractedAttributes["y"] = layout.y - parentLayout.y;
+        extractedAttributes["width"] = layout.width - parentLayout.width;
+        extractedAttributes["height"] = layout.height - parentLayout.height;
     } else {
-        extractedAttributes["x"] = getX(node);
-        extractedAttributes["y"] = getY(node);
-        extractedAttributes["width"] = node.getBoundingClientRect().width;
-        extractedAttributes["height"] = node.getBoundingClientRect().height;
+        extractedAttributes["x"] = layout.x;
+        extractedAttributes["y"] = layout.y;
+        extractedAttributes["width"] = layout.width;
+        extractedAttributes["height"] = layout.height;
     }
 }
 
@@ -74,22 +94,54 @@ function isDisabled(node) {
 //extract *given* CSS style attributes
 function getComputedStyleSafely(node) {
     try {
-        return window.getComputedStyle(node) || [];
+        return getWindow(node).getComputedStyle(node) || [];
     } catch (err) {}
     return [];
 }
 
-function transform(node) {
+// mirrors DefaultWebValueFinder#isDefaultValue, default values are dropped when converting anyway
+function isDefaultValue(tagName, attrName, value) {
+    var defaultValue = getDefaultValue(defaultValues[tagName], attrName);
+    if (defaultValue == null) {
+        defaultValue = getDefaultValue(defaultValues["all"], attrName);
+    }
+    if (defaultValue != null) {
+        return value != null && String(value).toLowerCase() === String(defaultValue).toLowerCase();
+    }
+    // like String#trim(), which only trims control characters and spaces
+    if (value == null || /^[\u0000-\u0020]*$/.test(String(value))) {
+        return true;
+    }
+    return commonDefaults.indexOf(String(value)) >= 0;
+}
+
+function getDefaultValue(defaults, attrName) {
+    var key = attrName.toLowerCase();
+    return defaults && Object.prototype.hasOwnProperty.call(defaults, key) ? defaults[key] : null;
+}
+
+// reads the given CSS attributes of an element exactly once, its children compare against them
+function readStyle(node) {
+    var style = getComputedStyleSafely(node);
+    var values = {};
+    for (var i = 0; i < cssAttributes.length; i++) {
+        values[cssAttributes[i]] = style[cssAttributes[i]];
+    }
+    return values;
+}
+
+// text nodes are transformed with the layout of their parent element
+function transform(node, tagName, layout, style, parentStyle) {
     var extractedAttributes = {
-        "tagName": node.tagName.toLowerCase(),
+        "tagName": tagName,
         "text": getText(node),
         "value": node.value,
         "tab-index": node.tabIndex,
-        "shown": isShown(node)
+        "shown": layout.shown
     };
     
     if (node.nodeType == node.TEXT_NODE) {
-        addCoordinates(extractedAttributes, node.parentNode);
+        addCoordinates(extractedAttributes, layout);
         return extractedAttributes;
     }
 
@@ -106,29 +158,21 @@ function transform(node) {
     extractedAttributes["disabled"] = isDisabled(node);
     extractedAttributes["read-only"] = node.readOnly;
 
-    var style = getComputedStyleSafely(node);
-    var parentStyle = getComputedStyleSafely(node.parentNode);
     for (var i = 0; i < cssAttributes.length; i++) {
         var attrName = cssAttributes[i];
         if (!extractedAttributes[attrName]) {
-            if (parentStyle[attrName] != style[attrName]) {
+            if (parentStyle[attrName] != style[attrName] &&
+                !(filterDefaults && isDefaultValue(tagName, attrName, style[attrName]))) {
                 extractedAttributes[attrName] = style[attrName];
             }
         }
     }
 
-    addCoordinates(extractedAttributes, node);
+    addCoordinates(extractedAttributes, layout);
 
     return extractedAttributes;
 }
 
-function isShown(e) {
-    if (e.nodeType == e.TEXT_NODE) {
-        return isShown(e.parentNode);
-    }
-    return !!(e.offsetWidth || e.offsetHeight || e.getClientRects().length);
-}
-
 function isNonEmptyTextNode(node) {
     var nodeValue = (node.nodeValue == null) ? "" : node.nodeValue;
     return node.nodeType == node.TEXT_NODE && nodeValue.trim().length > 0;
@@ -159,25 +203,182 @@ function getElementXPath(node) {
     return paths.length ? "/" + paths.join( "/") : null;
 }
 
-function mapElement(element, parentPath, allElements) {
+// collects the extracted elements as map of paths to attributes
+var MapCollector = /** @class */ (function () {
+    function MapCollector() {
+        this.allElements = {};
+    }
+    MapCollector.prototype.add = function (parentId, path, index, extractedAttributes) {
+        this.allElements[path] = extractedAttributes;
+        return path;
+    };
+    MapCollector.prototype.result = function (rootPath) {
+        return this.allElements;
+    };
+    return MapCollector;
+}());
+
+// collects the extracted elements as key and value dictionaries plus parent and attribute index arrays, if the result
+// may be fetched in chunks, the dictionary sizes after each element are recorded as well
+var CompactCollector = /** @class */ (function () {
+    function CompactCollector(countDictionaries) {
+        this.keyCounts = countDictionaries ? [] : null;
+        this.valueCounts = countDictionaries ? [] : null;
+        this.keys = [];
+        this.keyIndices = {};
+        this.values = [];
+        this.valueIndices = {};
+        this.parents = [];
+        this.indices = [];
+        this.attributes = [];
+    }
+    CompactCollector.prototype.keyIndex = function (key) {
+        var lookup = "$" + key;
+        if (!(lookup in this.keyIndices)) {
+            this.keyIndices[lookup] = this.keys.length;
+            this.keys.push(key);
+        }
+        return this.keyIndices[lookup];
+    };
+    CompactCollector.prototype.valueIndex = function (value) {
+        if (value === undefined) {
+            value = null;
+        }
+        var lookup = typeof value + "$" + value;
+        if (!(lookup in this.valueIndices)) {
+            this.valueIndices[lookup] = this.values.length;
+            this.values.push(value);
+        }
+        return this.valueIndices[lookup];
+    };
+    CompactCollector.prototype.add = function (parentId, path, index, extractedAttributes) {
+        var attributes = [];
+        for (var key in extractedAttributes) {
+            attributes.push(this.keyIndex(key), this.valueIndex(extractedAttributes[key]));
+        }
+        this.parents.push(parentId);
+        this.indices.push(index);
+        this.attributes.push(attributes);
+        if (this.keyCounts) {
+            this.keyCounts.push(this.keys.length);
+            this.valueCounts.push(this.values.length);
+        }
+        return this.parents.length - 1;
+    };
+    CompactCollector.prototype.result = function (rootPath) {
+        var result = {
+            "rootPath": rootPath,
+            "keys": this.keys,
+            "values": this.values,
+            "parents": this.parents,
+            "indices": this.indices,
+            "attributes": this.attributes
+        };
+        if (this.keyCounts) {
+            result["keyCounts"] = this.keyCounts;
+            result["valueCounts"] = this.valueCounts;
+        }
+        return result;
+    };
+    return CompactCollector;
+}());
+
+function isFrame(node) {
+    return node.nodeType == node.ELEMENT_NODE && (node.tagName == "IFRAME" || node.tagName == "FRAME");
+}
+
+// same-origin frames are extracted in the same pass, cross-origin frames are left to the caller
+function extractFrame(frame, framePath, frames) {
+    var frameDocument = null;
+    try {
+        frameDocument = frame.contentDocument;
+    } catch (err) {}
+    if (!frameDocument || !frameDocument.documentElement) {
+        return;
+    }
+    frames[framePath] = extract(frameDocument.documentElement, "//html[1]", framePath, frames);
+}
+
+// the layout and style of the element are passed down, so that each element is only read once (and the page is not
+// written at all, e.g. text nodes are not tagged, to not cause layout flushes in between)
+function mapElement(element, layout, style, parentPath, parentId, collector, scroll, framePath, frames) {
     if (!element || !element.children) {
-        return allElements;
+        return;
     }
     var counter = new Counter();
     for (var i = 0; i < element.childNodes.length; i++) {
         var child = element.childNodes[i];
-        if (child.nodeType == child.ELEMENT_NODE ||
-            (isNonEmptyTextNode(child) && containsOtherElements(element))) {
-            if (child.nodeType == child.TEXT_NODE) {
-                child.tagName = "textnode";
+        if (child.nodeType == child.ELEMENT_NODE) {
+            var cnt = counter.increase(child.tagName);
+            var tagName = child.tagName.toLowerCase();
+            var path = parentPath + "/" + tagName + "[" + cnt + "]";
+            var childLayout = readLayout(child, scroll, layout);
+            var childStyle = readStyle(child);
+            var id = collector.add(parentId, path, cnt, transform(child, tagName, childLayout, childStyle, style));
+            if (frames && isFrame(child)) {
+                extractFrame(child, framePath + "/" + path.replace(/^\/+/, ""), frames);
             }
-            var cnt = counter.increase(child);
-            var path = parentPath + "/" + child.tagName.toLowerCase() + "[" + cnt + "]";
-            allElements[path] = transform(child);
-            mapElement(child, path, allElements);
+            mapElement(child, childLayout, childStyle, path, id, collector, scroll, framePath, frames);
+        } else if (isNonEmptyTextNode(child) && containsOtherElements(element)) {
+            var cnt = counter.increase("textnode");
+            var path = parentPath + "/textnode[" + cnt + "]";
+            collector.add(parentId, path, cnt, transform(child, "textnode", layout, null, null));
+        }
+    }
+}
+
+function extract(rootNode, rootPath, framePath, frames) {
+    var collector = compactPayload ? new CompactCollector(chunkSize > 0) : new MapCollector();
+    var view = getWindow(rootNode);
+    var scroll = {"x": view.scrollX, "y": view.scrollY};
+    var parent = rootNode.parentNode;
+    var parentLayout = hasLayout(parent) ? readLayout(parent, scroll, null) : null;
+    var parentStyle = readStyle(parent);
+    var layout = readLayout(rootNode, scroll, parentLayout);
+    var style = readStyle(rootNode);
+    var rootId = collector.add(-1, rootPath, 1, transform(rootNode, rootNode.tagName.toLowerCase(), layout, style,
+        parentStyle));
+    mapElement(rootNode, layout, style, rootPath, rootId, collector, scroll, framePath, frames);
+    return collector.result(rootPath);
+}
+
+// the document and the frames are the parts of the result, only their sizes are returned if there are too many elements
+function bufferChunks(documentPayload, frames) {
+    var parts = [{"framePath": "", "payload": documentPayload}];
+    for (var framePath in frames) {
+        parts.push({"framePath": framePath, "payload": frames[framePath]});
+    }
+    var size = 0;
+    for (var i = 0; i < parts.length; i++) {
+        size += parts[i].payload.parents.length;
+    }
+    if (size <= chunkSize) {
+        for (var i = 0; i < parts.length; i++) {
+            delete parts[i].payload.keyCounts;
+            delete parts[i].payload.valueCounts;
         }
+        return {
+            "document": documentPayload,
+            "frames": frames
+        };
+    }
+    var token = new Date().getTime() + "-" + Math.random();
+    var header = [];
+    for (var i = 0; i < parts.length; i++) {
+        header.push({
+            "framePath": parts[i].framePath,
+            "rootPath": parts[i].payload.rootPath,
+            "size": parts[i].payload.parents.length
+        });
+        parts[i] = parts[i].payload;
     }
-    return allElements;
+    // replaces the buffer of a previous extraction that was not fetched completely
+    window.__recheck = window.__recheck || {};
+    window.__recheck.chunks = {"token": token, "parts": parts};
+    return {
+        "token": token,
+        "parts": header
+    };
 }
 
 var rootNode = document.getElementsByTagName("html")[0];
@@ -186,8 +387,15 @@ if (arguments.length >= 2 && arguments[1]) {
     rootNode = arguments[1];
     rootPath = getElementXPath(rootNode);
 }
-var root = transform(rootNode);
-var allElements = {};
-allElements[rootPath] = root;
-allElements = mapElement(rootNode, rootPath, allElements);
-return allElements;
+if (!extractFrames) {
+    return extract(rootNode, rootPath, "", null);
+}
+var frames = {};
+var documentPayload = extract(rootNode, rootPath, "", frames);
+if (chunkSize > 0) {
+    return bufferChunks(documentPayload, frames);
+}
+return {
+    "document": documentPayload,
+    "frames": frames
+};
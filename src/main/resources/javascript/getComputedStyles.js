@@ -0,0 +1,50 @@
+// Reads the computed styles of the given elements, which are given as [framePath, path] pairs (the frame path is empty
+// for elements of the document). Returns the values of the given CSS attributes (in the given order) per element or
+// null for each element that is not found (e.g. within cross-origin frames).
+var cssAttributes = arguments[0];
+var elements = arguments[1];
+
+function byXPath(doc, xpath) {
+    var node = doc.evaluate(xpath, doc, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+    return node && node.nodeType === Node.ELEMENT_NODE ? node : null;
+}
+
+var documents = {};
+
+// the path of a nested frame continues with the path of the frame within the document of its parent frame
+function getDocument(framePath) {
+    if (!framePath) {
+        return document;
+    }
+    if (!Object.prototype.hasOwnProperty.call(documents, framePath)) {
+        var index = framePath.lastIndexOf("/html[1]/");
+        var parent = index > 0 ? getDocument(framePath.substring(0, index)) : document;
+        var frame = parent && byXPath(parent, framePath.substring(index));
+        var contentDocument = null;
+        try {
+            contentDocument = frame && frame.contentDocument;
+        } catch (e) {}
+        documents[framePath] = contentDocument || null;
+    }
+    return documents[framePath];
+}
+
+var result = [];
+for (var i = 0; i < elements.length; i++) {
+    var style = null;
+    try {
+        var doc = getDocument(elements[i][0]);
+        var node = doc && byXPath(doc, elements[i][1]);
+        style = node && (doc.defaultView || window).getComputedStyle(node);
+    } catch (e) {}
+    if (!style) {
+        result.push(null);
+        continue;
+    }
+    var values = [];
+    for (var j = 0; j < cssAttributes.length; j++) {
+        values.push(style[cssAttributes[j]]);
+    }
+    result.push(values);
+}
+return result;
@@ -0,0 +1,24 @@
+// Cheap fingerprint of the scroll position and the DOM, to detect changes between extraction and screenshot.
+var element = arguments[0] || document.documentElement;
+
+// Optionally restore the given scroll position first (e.g. after a scrolling screenshot).
+if (arguments.length >= 3) {
+    window.scrollTo(arguments[1], arguments[2]);
+}
+
+var root = document.documentElement;
+var rect = element.getBoundingClientRect();
+return [
+    window.pageXOffset,
+    window.pageYOffset,
+    window.innerWidth,
+    window.innerHeight,
+    root.scrollWidth,
+    root.scrollHeight,
+    rect.left + window.pageXOffset,
+    rect.top + window.pageYOffset,
+    rect.width,
+    rect.height,
+    element.getElementsByTagName("*").length,
+    (element.textContent || "").length
+];
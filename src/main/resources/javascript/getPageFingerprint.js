@@ -0,0 +1,45 @@
+// Cheap fingerprint of the page, to detect whether anything changed since the last check without extracting it again.
+// Counts DOM mutations, input events (as values change without mutations) and scrolled containers with an observer
+// that is installed once per document. Returns null for pages with frames, as changes within frames are not observed.
+var state = window.__recheckChanges;
+if (!state) {
+    state = {
+        "token": new Date().getTime() + "-" + Math.random(),
+        "changes": 0
+    };
+    state.observer = new MutationObserver(function (mutations) {
+        state.changes += mutations.length;
+    });
+    state.observer.observe(document, {
+        "childList": true,
+        "subtree": true,
+        "attributes": true,
+        "characterData": true
+    });
+    var count = function (event) {
+        // The scroll position of the window is part of the fingerprint anyway.
+        if (event.target !== document) {
+            state.changes++;
+        }
+    };
+    var events = ["input", "change", "scroll"];
+    for (var i = 0; i < events.length; i++) {
+        document.addEventListener(events[i], count, true);
+    }
+    window.__recheckChanges = state;
+}
+// flush pending mutation records
+state.changes += state.observer.takeRecords().length;
+
+if (document.getElementsByTagName("iframe").length + document.getElementsByTagName("frame").length > 0) {
+    return null;
+}
+return [
+    state.token,
+    state.changes,
+    window.location.href,
+    window.pageXOffset,
+    window.pageYOffset,
+    window.innerWidth,
+    window.innerHeight
+];
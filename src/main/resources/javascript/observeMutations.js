@@ -0,0 +1,104 @@
+// Tracks changed subtrees of the document between checks, to only extract these again.
+// Returns the token of the observed document and either the topmost changed elements or that a full extraction is
+// required (e.g. because the observer was just installed or there were too many changes).
+var maxDirtyElements = arguments[0];
+
+function install() {
+    var state = {
+        "token": new Date().getTime() + "-" + Math.random(),
+        "dirty": [],
+        "full": true,
+        "size": null
+    };
+    function markDirty(node) {
+        if (state.full) {
+            return;
+        }
+        if (node && node.nodeType !== Node.ELEMENT_NODE) {
+            node = node.parentNode;
+        }
+        if (!node || node.nodeType !== Node.ELEMENT_NODE || state.dirty.indexOf(node) >= 0) {
+            return;
+        }
+        if (state.dirty.length >= maxDirtyElements) {
+            state.full = true;
+            state.dirty = [];
+            return;
+        }
+        state.dirty.push(node);
+    }
+    state.markDirty = markDirty;
+    function markFull() {
+        state.full = true;
+        state.dirty = [];
+    }
+    state.observer = new MutationObserver(function (mutations) {
+        for (var i = 0; i < mutations.length; i++) {
+            markDirty(mutations[i].target);
+        }
+    });
+    state.observer.observe(document, {
+        "childList": true,
+        "subtree": true,
+        "attributes": true,
+        "characterData": true
+    });
+    // state that changes without DOM mutations (e.g. values, :focus and :hover styles, scrolled containers)
+    var events = ["input", "change", "focusin", "focusout", "mouseover", "mouseout", "scroll"];
+    for (var i = 0; i < events.length; i++) {
+        document.addEventListener(events[i], function (event) {
+            markDirty(event.target);
+        }, true);
+    }
+    // changes of the layout outside of the changed subtrees
+    window.addEventListener("resize", markFull, true);
+    document.addEventListener("load", markFull, true);
+    window.__recheckObserver = state;
+    return state;
+}
+
+function isContainedInOther(node, nodes) {
+    for (var i = 0; i < nodes.length; i++) {
+        if (nodes[i] !== node && nodes[i].contains(node)) {
+            return true;
+        }
+    }
+    return false;
+}
+
+var state = window.__recheckObserver;
+if (!state || !state.observer) {
+    state = install();
+}
+// flush pending mutation records
+var records = state.observer.takeRecords();
+for (var i = 0; i < records.length; i++) {
+    state.markDirty(records[i].target);
+}
+
+var root = document.documentElement;
+var size = root ? [root.scrollWidth, root.scrollHeight] : null;
+var full = state.full || !state.size || !size || state.size[0] !== size[0] || state.size[1] !== size[1];
+var dirty = [];
+if (!full) {
+    var connected = [];
+    for (var i = 0; i < state.dirty.length; i++) {
+        if (document.contains(state.dirty[i])) {
+            connected.push(state.dirty[i]);
+        }
+    }
+    for (var i = 0; i < connected.length; i++) {
+        if (!isContainedInOther(connected[i], connected)) {
+            dirty.push(connected[i]);
+        }
+    }
+}
+
+state.full = false;
+state.dirty = [];
+state.size = size;
+return {
+    "token": state.token,
+    "full": full,
+    "dirty": full ? [] : dirty
+};
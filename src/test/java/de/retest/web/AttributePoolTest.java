@@ -0,0 +1,105 @@
+package de.retest.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import de.retest.recheck.ui.descriptors.Attributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.StringAttribute;
+import de.retest.recheck.ui.descriptors.TextAttribute;
+
+class AttributePoolTest {
+
+	@Test
+	void equal_strings_should_be_shared() {
+		final AttributePool cut = new AttributePool( 10 );
+
+		final String first = cut.string( new String( "14px" ) );
+		final String second = cut.string( new String( "14px" ) );
+
+		assertThat( second ).isSameAs( first );
+		assertThat( cut.string( null ) ).isNull();
+	}
+
+	@Test
+	void equal_attributes_should_be_shared() {
+		final AttributePool cut = new AttributePool( 10 );
+
+		final StringAttribute first = cut.attribute( new StringAttribute( "class", "row" ) );
+
+		assertThat( cut.attribute( new StringAttribute( "class", "row" ) ) ).isSameAs( first );
+		assertThat( cut.attribute( new StringAttribute( "class", "cell" ) ) ).isNotSameAs( first );
+	}
+
+	@Test
+	void equal_attributes_of_other_class_should_not_be_shared() {
+		final AttributePool cut = new AttributePool( 10 );
+		cut.attribute( new StringAttribute( "text", "foo" ) );
+
+		final TextAttribute text = new TextAttribute( "text", "foo" );
+
+		assertThat( cut.attribute( text ) ).isSameAs( text );
+	}
+
+	@Test
+	void equal_attribute_sets_should_be_shared() {
+		final AttributePool cut = new AttributePool( 10 );
+
+		final Object first = cut.attributes( attributes( "color", "red" ) );
+
+		assertThat( (Object) cut.attributes( attributes( "color", "red" ) ) ).isSameAs( first );
+		assertThat( (Object) cut.attributes( attributes( "color", "blue" ) ) ).isNotSameAs( first );
+	}
+
+	@Test
+	void pool_should_be_bounded() {
+		final AttributePool cut = new AttributePool( 10 );
+
+		for ( int i = 0; i < 1000; i++ ) {
+			cut.string( "value" + i );
+		}
+
+		assertThat( cut.size() ).isLessThanOrEqualTo( 2 * 10 + 1 );
+	}
+
+	@Test
+	void used_entries_should_survive_eviction() {
+		final AttributePool cut = new AttributePool( 10 );
+		final String used = cut.string( new String( "used" ) );
+
+		for ( int i = 0; i < 100; i++ ) {
+			cut.string( "value" + i );
+			assertThat( cut.string( new String( "used" ) ) ).isSameAs( used );
+		}
+	}
+
+	@Test
+	void disabled_pool_should_not_share() {
+		final AttributePool cut = new AttributePool( 0 );
+
+		final String value = new String( "14px" );
+		cut.string( new String( "14px" ) );
+
+		assertThat( cut.string( value ) ).isSameAs( value );
+		assertThat( cut.size() ).isZero();
+	}
+
+	@Test
+	void pool_size_should_be_configurable() {
+		System.setProperty( AttributePool.POOL_SIZE_PROPERTY, "42" );
+		try {
+			assertThat( AttributePool.getConfiguredSize() ).isEqualTo( 42 );
+		} finally {
+			System.clearProperty( AttributePool.POOL_SIZE_PROPERTY );
+		}
+		assertThat( AttributePool.getConfiguredSize() ).isEqualTo( AttributePool.DEFAULT_SIZE );
+	}
+
+	private static Attributes attributes( final String key, final String value ) {
+		final MutableAttributes attributes = new MutableAttributes();
+		attributes.put( key, value );
+		return attributes.immutable();
+	}
+
+}
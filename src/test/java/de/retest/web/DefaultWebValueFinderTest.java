@@ -70,4 +70,16 @@ class DefaultWebValueFinderTest {
 		assertThat( cut.isDefaultValue( ident, "text-decoration", "" ) ).isFalse();
 		assertThat( cut.isDefaultValue( ident, "text-decoration", null ) ).isFalse();
 	}
+
+	@Test
+	void default_values_passed_to_browser_should_be_default_values() {
+		final DefaultWebValueFinder cut = new DefaultWebValueFinder();
+		cut.getDefaultValues().forEach( ( tag, defaults ) -> defaults.forEach( ( attribute, value ) -> {
+			final IdentifyingAttributes ident = mock( IdentifyingAttributes.class );
+			when( ident.getType() ).thenReturn( tag );
+			assertThat( cut.isDefaultValue( ident, attribute, value.toUpperCase() ) ).isTrue();
+		} ) );
+		assertThat( cut.getDefaultValues() ).containsKey( "all" );
+		assertThat( DefaultWebValueFinder.getCommonDefaults() ).contains( "auto", "none" );
+	}
 }
@@ -0,0 +1,73 @@
+package de.retest.web;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+
+class DeferredScreenshotTest {
+
+	RemoteWebDriver driver;
+	RootElement rootElement;
+	BufferedImage image;
+
+	@BeforeEach
+	void setUp() {
+		driver = mock( RemoteWebDriver.class );
+		rootElement = new RootElement( "html", IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" ),
+				new MutableAttributes().immutable(), null, "title", 1, "title" );
+		image = new BufferedImage( 10, 10, BufferedImage.TYPE_INT_RGB );
+	}
+
+	@Test
+	void screenshot_should_be_attached_if_page_did_not_change() {
+		when( driver.executeScript( anyString(), any() ) ).thenReturn( asList( 0L, 10L, 42L ) );
+		when( driver.executeScript( anyString(), any(), any(), any() ) ).thenReturn( asList( 0L, 10L, 42L ) );
+		final DeferredScreenshot cut = new DeferredScreenshot( driver, null, ( d, e ) -> image );
+
+		cut.attachTo( rootElement );
+
+		assertThat( rootElement.getScreenshot() ).isNotNull();
+		// Scroll position is restored before validating.
+		verify( driver ).executeScript( anyString(), any(), eq( 0L ), eq( 10L ) );
+	}
+
+	@Test
+	void screenshot_should_be_dropped_if_page_changed() {
+		when( driver.executeScript( anyString(), any() ) ).thenReturn( asList( 0L, 10L, 42L ) );
+		when( driver.executeScript( anyString(), any(), any(), any() ) ).thenReturn( asList( 0L, 10L, 43L ) );
+		final DeferredScreenshot cut = new DeferredScreenshot( driver, null, ( d, e ) -> image );
+
+		cut.attachTo( rootElement );
+
+		assertThat( rootElement.getScreenshot() ).isNull();
+	}
+
+	@Test
+	void failed_screenshot_should_not_be_validated() {
+		when( driver.executeScript( anyString(), any() ) ).thenReturn( asList( 0L, 10L, 42L ) );
+		final DeferredScreenshot cut = new DeferredScreenshot( driver, null, ( d, e ) -> null );
+
+		cut.attachTo( rootElement );
+
+		assertThat( rootElement.getScreenshot() ).isNull();
+		verify( driver, never() ).executeScript( anyString(), any(), any(), any() );
+	}
+
+}
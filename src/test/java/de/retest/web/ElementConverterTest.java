@@ -0,0 +1,118 @@
+package de.retest.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import de.retest.recheck.ui.DefaultValueFinder;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.idproviders.RetestIdProvider;
+import de.retest.recheck.util.RetestIdProviderUtil;
+import de.retest.web.mapping.WebData;
+
+class ElementConverterTest {
+
+	final AttributesProvider attributesProvider = YamlAttributesProvider.getTestInstance();
+	final RetestIdProvider retestIdProvider = RetestIdProviderUtil.getConfiguredRetestIdProvider();
+	final DefaultValueFinder defaultValueFinder = ( identifyingAttributes, attributeKey, attributeValue ) -> false;
+
+	@AfterEach
+	void tearDown() {
+		System.clearProperty( ElementConverter.PARALLEL_THRESHOLD_PROPERTY );
+	}
+
+	@Test
+	void parallel_conversion_should_equal_sequential_conversion() throws Exception {
+		final WebElementPeer root = page( 50, 60 );
+
+		retestIdProvider.reset();
+		final Element sequential = new ElementConverter( 0 ).convert( root, null );
+		retestIdProvider.reset();
+		final Element parallel = new ElementConverter( 1 ).convert( root, null );
+
+		assertThat( parallel ).isInstanceOf( sequential.getClass() );
+		assertThat( retestIds( parallel ) ).hasSize( 50 * 60 + 50 + 1 ).isEqualTo( retestIds( sequential ) );
+		assertThat( new SubtreeHashes().get( parallel ) ).isEqualTo( new SubtreeHashes().get( sequential ) );
+	}
+
+	@Test
+	void peers_without_data_should_be_skipped_with_descendants() throws Exception {
+		final WebElementPeer root = new RootElementPeer( retestIdProvider, attributesProvider,
+				data( "html", null, null ), "//html[1]", "title", null, defaultValueFinder );
+		final WebElementPeer skipped = peer( "//html[1]/div[1]", null );
+		skipped.addChild( peer( "//html[1]/div[1]/span[1]", "span" ) );
+		root.addChild( skipped );
+		root.addChild( peer( "//html[1]/p[1]", "p" ) );
+
+		final Element element = new ElementConverter( 1 ).convert( root, null );
+
+		assertThat( element.getContainedElements() ).extracting( child -> child.getIdentifyingAttributes().getPath() )
+				.containsExactly( "html[1]/p[1]" );
+	}
+
+	@Test
+	void threshold_should_be_configurable() throws Exception {
+		assertThat( ElementConverter.getConfiguredParallelThreshold() )
+				.isEqualTo( ElementConverter.DEFAULT_PARALLEL_THRESHOLD );
+
+		System.setProperty( ElementConverter.PARALLEL_THRESHOLD_PROPERTY, " 0 " );
+		assertThat( ElementConverter.getConfiguredParallelThreshold() ).isZero();
+
+		System.setProperty( ElementConverter.PARALLEL_THRESHOLD_PROPERTY, "many" );
+		assertThatThrownBy( ElementConverter::getConfiguredParallelThreshold )
+				.isInstanceOf( IllegalArgumentException.class )
+				.hasMessageContaining( ElementConverter.PARALLEL_THRESHOLD_PROPERTY );
+	}
+
+	private WebElementPeer page( final int sections, final int items ) {
+		final WebElementPeer root = new RootElementPeer( retestIdProvider, attributesProvider,
+				data( "html", null, null ), "//html[1]", "title", null, defaultValueFinder );
+		for ( int i = 1; i <= sections; i++ ) {
+			final String section = "//html[1]/div[" + i + "]";
+			final WebElementPeer div = new WebElementPeer( retestIdProvider, attributesProvider,
+					data( "div", "section", "Section " + i ), section, defaultValueFinder );
+			for ( int j = 1; j <= items; j++ ) {
+				// Equal text in every section, so that the retest IDs depend on the order of assignment.
+				div.addChild( new WebElementPeer( retestIdProvider, attributesProvider,
+						data( "span", "item", "Item " + j ), section + "/span[" + j + "]", defaultValueFinder ) );
+			}
+			root.addChild( div );
+		}
+		return root;
+	}
+
+	private WebElementPeer peer( final String path, final String tag ) {
+		return new WebElementPeer( retestIdProvider, attributesProvider, tag != null ? data( tag, null, null ) : null,
+				path, defaultValueFinder );
+	}
+
+	private static WebData data( final String tag, final String cssClass, final String text ) {
+		final Map<String, Object> data = new HashMap<>();
+		data.put( "tagName", tag );
+		data.put( "class", cssClass );
+		data.put( "text", text );
+		data.put( "color", "rgb(0, 0, 0)" );
+		data.put( "x", 10 );
+		data.put( "y", 10 );
+		data.put( "width", 100 );
+		data.put( "height", 20 );
+		return new WebData( data );
+	}
+
+	private static List<String> retestIds( final Element element ) {
+		final List<String> retestIds = new ArrayList<>();
+		retestIds.add( element.getRetestId() );
+		for ( final Element child : element.getContainedElements() ) {
+			retestIds.addAll( retestIds( child ) );
+		}
+		return retestIds;
+	}
+
+}
@@ -0,0 +1,132 @@
+package de.retest.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriver.TargetLocator;
+
+import de.retest.recheck.ui.DefaultValueFinder;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.descriptors.idproviders.RetestIdProvider;
+import de.retest.recheck.util.RetestIdProviderUtil;
+import de.retest.web.extraction.JavaScriptExtractionEngine;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.PayloadFormat;
+
+class FrameConverterTest {
+
+	final DefaultValueFinder defaultValueFinder = ( identifyingAttributes, attributeKey, attributeValue ) -> false;
+	final RetestIdProvider retestIdProvider = RetestIdProviderUtil.getConfiguredRetestIdProvider();
+
+	WebDriver driver;
+	TargetLocator targetLocator;
+	FrameConverter cut;
+
+	@BeforeEach
+	void setUp() {
+		driver = mock( WebDriver.class );
+		targetLocator = mock( TargetLocator.class );
+		when( driver.switchTo() ).thenReturn( targetLocator );
+		cut = new FrameConverter( new JavaScriptExtractionEngine( PayloadFormat.MAP ), retestIdProvider,
+				YamlAttributesProvider.getInstance(), defaultValueFinder );
+	}
+
+	@Test
+	void already_extracted_frames_should_be_added_without_switching() {
+		final RootElement root = convert( createDocument() );
+
+		final Map<String, Map<String, Object>> frameContent = new HashMap<>();
+		frameContent.put( "//html[1]", toHashMap( "html" ) );
+		frameContent.put( "//html[1]/body[1]", toHashMap( "body" ) );
+		frameContent.put( "//html[1]/body[1]/p[1]", toHashMap( "p" ) );
+		final Map<String, PathsToWebDataMapping> extractedFrames = new HashMap<>();
+		extractedFrames.put( "html[1]/body[1]/iframe[1]",
+				PayloadFormat.MAP.toMapping( "html[1]/body[1]/iframe[1]", frameContent ) );
+
+		cut.addChildrenFromFrames( driver, Collections.emptySet(), root, extractedFrames );
+
+		verify( driver, never() ).switchTo();
+		final Element frame = root.getContainedElements().get( 0 ).getContainedElements().get( 0 );
+		assertThat( frame.getContainedElements() ).hasSize( 1 );
+		final Element body = frame.getContainedElements().get( 0 );
+		assertThat( body.getIdentifyingAttributes().getPath() ).isEqualTo( "html[1]/body[1]/iframe[1]/html[1]/body[1]" );
+		assertThat( body.getContainedElements() ).hasSize( 1 );
+	}
+
+	@Test
+	void not_extracted_frames_should_fall_back_to_switching() {
+		final RootElement root = convert( createDocument() );
+		when( driver.findElement( any() ) ).thenThrow( new RuntimeException( "cross-origin" ) );
+
+		cut.addChildrenFromFrames( driver, Collections.emptySet(), root, Collections.emptyMap() );
+
+		verify( driver ).findElement( org.openqa.selenium.By.xpath( "/html[1]/body[1]/iframe[1]" ) );
+		verify( targetLocator ).defaultContent();
+	}
+
+	@Test
+	void extractFrames_should_only_switch_to_not_extracted_frames() {
+		final Map<String, Map<String, Object>> document = createDocument();
+		document.put( "//html[1]/body[1]/iframe[2]", toHashMap( "IFRAME" ) );
+		final Map<String, PathsToWebDataMapping> extractedFrames = new HashMap<>();
+		final PathsToWebDataMapping extracted = new PathsToWebDataMapping( Collections.emptyMap() );
+		extractedFrames.put( "html[1]/body[1]/iframe[1]", extracted );
+		when( driver.findElement( any() ) ).thenThrow( new RuntimeException( "cross-origin" ) );
+
+		final Map<String, PathsToWebDataMapping> frames = cut.extractFrames( driver, Collections.emptySet(),
+				new PathsToWebDataMapping( document ), extractedFrames );
+
+		verify( driver ).findElement( org.openqa.selenium.By.xpath( "/html[1]/body[1]/iframe[2]" ) );
+		verify( driver, never() ).findElement( org.openqa.selenium.By.xpath( "/html[1]/body[1]/iframe[1]" ) );
+		verify( targetLocator ).defaultContent();
+		assertThat( frames ).containsOnlyKeys( "html[1]/body[1]/iframe[1]" );
+		assertThat( frames.get( "html[1]/body[1]/iframe[1]" ) ).isSameAs( extracted );
+	}
+
+	@Test
+	void not_extracted_frames_should_be_skipped_without_driver() {
+		final RootElement root = convert( createDocument() );
+
+		cut.addChildrenFromFrames( null, Collections.emptySet(), root, Collections.emptyMap() );
+
+		final Element frame = root.getContainedElements().get( 0 ).getContainedElements().get( 0 );
+		assertThat( frame.getContainedElements() ).isEmpty();
+	}
+
+	private RootElement convert( final Map<String, Map<String, Object>> data ) {
+		final PathsToWebDataMapping mapping = new PathsToWebDataMapping( data );
+		return new PeerConverter( retestIdProvider, YamlAttributesProvider.getInstance(), mapping, "title", null,
+				defaultValueFinder ).convertToPeers();
+	}
+
+	private static Map<String, Map<String, Object>> createDocument() {
+		final Map<String, Map<String, Object>> data = new HashMap<>();
+		data.put( "//html[1]", toHashMap( "html" ) );
+		data.put( "//html[1]/body[1]", toHashMap( "body" ) );
+		data.put( "//html[1]/body[1]/iframe[1]", toHashMap( "iframe" ) );
+		return data;
+	}
+
+	private static Map<String, Object> toHashMap( final String tagName ) {
+		final Map<String, Object> result = new HashMap<>();
+		result.put( "tagName", tagName );
+		result.put( "x", "10" );
+		result.put( "y", "10" );
+		result.put( "height", "100" );
+		result.put( "width", "100" );
+		return result;
+	}
+
+}
@@ -2,14 +2,17 @@ package de.retest.web;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 
 import de.retest.recheck.ui.DefaultValueFinder;
+import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.RootElement;
 import de.retest.recheck.ui.diff.RootElementDifference;
 import de.retest.recheck.ui.diff.RootElementDifferenceFinder;
@@ -18,16 +21,6 @@ import de.retest.web.mapping.PathsToWebDataMapping;
 
 class PeerConverterTest {
 
-	@Test
-	void getParentPath_should_return_null_for_toplevel() {
-		assertThat( PeerConverter.getParentPath( "//HTML[1]" ) ).isNull();
-	}
-
-	@Test
-	void getParentPath_should_return_parent_path() {
-		assertThat( PeerConverter.getParentPath( "//HTML[1]/BODY[1]" ) ).isEqualTo( "//HTML[1]" );
-	}
-
 	@Test
 	void convertToPeers_should_result_in_valid_tree() throws Exception {
 		final Map<String, Map<String, Object>> data = new HashMap<>();
@@ -47,7 +40,7 @@ class PeerConverterTest {
 
 		final DefaultValueFinder defaultValueFinder = ( identifyingAttributes, attributeKey, attributeValue ) -> false;
 		final PeerConverter cut = new PeerConverter( RetestIdProviderUtil.getConfiguredRetestIdProvider(),
-				YamlAttributesProvider.getInstance(), mapping, "title", null, defaultValueFinder, null );
+				YamlAttributesProvider.getInstance(), mapping, "title", null, defaultValueFinder );
 		final RootElement root = cut.convertToPeers();
 
 		final RootElementDifferenceFinder diffFinder = new RootElementDifferenceFinder( defaultValueFinder );
@@ -56,6 +49,74 @@ class PeerConverterTest {
 		assertThat( diffs ).isEmpty();
 	}
 
+	@Test
+	void ignored_elements_should_only_be_converted_with_converted_descendants() throws Exception {
+		final Map<String, Map<String, Object>> data = new LinkedHashMap<>();
+		data.put( "//HTML[1]", toHashMap( "HTML" ) );
+		data.put( "//HTML[1]/BODY[1]", toHashMap( "BODY" ) );
+		data.put( "//HTML[1]/BODY[1]/DIV[1]", hidden( "DIV" ) );
+		data.put( "//HTML[1]/BODY[1]/DIV[1]/SPAN[1]", toHashMap( "SPAN" ) );
+		data.put( "//HTML[1]/BODY[1]/DIV[2]", hidden( "DIV" ) );
+		data.put( "//HTML[1]/BODY[1]/DIV[2]/SPAN[1]", hidden( "SPAN" ) );
+		data.put( "//HTML[1]/BODY[1]/P[1]", toHashMap( "P" ) );
+
+		final PeerConverter cut = new PeerConverter( RetestIdProviderUtil.getConfiguredRetestIdProvider(),
+				YamlAttributesProvider.getInstance(), new PathsToWebDataMapping( data ), "title", null,
+				( identifyingAttributes, attributeKey, attributeValue ) -> false );
+		final RootElement root = cut.convertToPeers();
+
+		final Element body = root.getContainedElements().get( 0 );
+		assertThat( body.getContainedElements() ).extracting( element -> element.getIdentifyingAttributes().getPath() )
+				.containsExactly( "HTML[1]/BODY[1]/DIV[1]", "HTML[1]/BODY[1]/P[1]" );
+		assertThat( body.getContainedElements().get( 0 ).getContainedElements() ).hasSize( 1 );
+	}
+
+	@Test
+	void orphaned_elements_should_fail_conversion() throws Exception {
+		final Map<String, Map<String, Object>> data = new LinkedHashMap<>();
+		data.put( "//HTML[1]", toHashMap( "HTML" ) );
+		data.put( "//HTML[1]/BODY[1]", toHashMap( "BODY" ) );
+		// the parent DIV[1] is missing
+		data.put( "//HTML[1]/BODY[1]/DIV[1]/SPAN[1]", toHashMap( "SPAN" ) );
+
+		final PeerConverter cut = new PeerConverter( RetestIdProviderUtil.getConfiguredRetestIdProvider(),
+				YamlAttributesProvider.getInstance(), new PathsToWebDataMapping( data ), "title", null,
+				( identifyingAttributes, attributeKey, attributeValue ) -> false );
+
+		assertThatThrownBy( cut::convertToPeers ).isInstanceOf( ConversionException.class )
+				.hasMessageContaining( "/HTML[1]/BODY[1]/DIV[1]/SPAN[1]" );
+	}
+
+	@Test
+	void deep_pages_should_be_converted_without_stack_overflow() throws Exception {
+		final int depth = 2_000;
+		final Map<String, Map<String, Object>> data = new LinkedHashMap<>();
+		final StringBuilder path = new StringBuilder( "//HTML[1]" );
+		data.put( path.toString(), toHashMap( "HTML" ) );
+		for ( int i = 1; i < depth; i++ ) {
+			data.put( path.append( "/B[1]" ).toString(), toHashMap( "B" ) );
+		}
+
+		final PeerConverter cut = new PeerConverter( RetestIdProviderUtil.getConfiguredRetestIdProvider(),
+				YamlAttributesProvider.getInstance(), new PathsToWebDataMapping( data ), "title", null,
+				( identifyingAttributes, attributeKey, attributeValue ) -> false );
+		final RootElement root = cut.convertToPeers();
+
+		Element element = root;
+		for ( int i = 1; i < depth; i++ ) {
+			assertThat( element.getContainedElements() ).hasSize( 1 );
+			element = element.getContainedElements().get( 0 );
+		}
+		assertThat( element.getContainedElements() ).isEmpty();
+		assertThat( new SubtreeHashes().get( root ) ).isNotNull();
+	}
+
+	private Map<String, Object> hidden( final String tagName ) {
+		final Map<String, Object> result = toHashMap( tagName );
+		result.put( "shown", false );
+		return result;
+	}
+
 	private Map<String, Object> toHashMap( final String tagName ) {
 		final Map<String, Object> result = new HashMap<>();
 		result.put( "tagName", tagName );
@@ -1,17 +1,22 @@
 package de.retest.web;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,6 +36,12 @@ import org.openqa.selenium.remote.RemoteWebElement;
 import org.openqa.selenium.safari.SafariDriver;
 
 import de.retest.recheck.RecheckAdapter;
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.web.extraction.Extraction;
+import de.retest.web.mapping.PathsToWebDataMapping;
 import de.retest.web.selenium.AutocheckingRecheckDriver;
 import de.retest.web.selenium.RecheckDriver;
 import de.retest.web.selenium.UnbreakableDriver;
@@ -191,6 +202,60 @@ class RecheckSeleniumAdapterTest {
 		verify( cut, never() ).convertWebElement( any() );
 	}
 
+	@Test
+	void convert_should_not_access_browser_for_CapturedPage() {
+		final UnbreakableDriver driver = mock( UnbreakableDriver.class );
+		final Map<String, Map<String, Object>> data = new HashMap<>();
+		data.put( "//html[1]", toHashMap( "html" ) );
+		data.put( "//html[1]/body[1]", toHashMap( "body" ) );
+		final Extraction extraction = new Extraction( new PathsToWebDataMapping( data ), Collections.emptyMap() );
+		final CapturedPage page = new CapturedPage( driver, "https://retest.de", "title", null, extraction );
+
+		assertThat( cut.canCheck( page ) ).isTrue();
+		final RootElement converted = cut.convert( page ).iterator().next();
+
+		assertThat( converted.getContainedElements() ).hasSize( 1 );
+		verify( driver ).setLastActualState( converted );
+		verifyNoMoreInteractions( driver );
+	}
+
+	@Test
+	void convert_should_reuse_last_state_for_unchanged_page() {
+		final UnbreakableDriver driver = mock( UnbreakableDriver.class );
+		final RootElement previous = mock( RootElement.class );
+		when( driver.getLastActualState() ).thenReturn( previous );
+
+		assertThat( cut.convert( CapturedPage.unchanged( driver ) ) ).containsExactly( previous );
+		verify( driver ).getLastActualState();
+		verifyNoMoreInteractions( driver );
+	}
+
+	@Test
+	void convert_should_defer_screenshot_of_reused_state_for_current_page() {
+		final UnbreakableDriver driver = mock( UnbreakableDriver.class );
+		final RootElement previous = createState();
+		when( driver.getLastActualState() ).thenReturn( previous );
+		when( driver.executeScript( anyString(), any() ) ).thenReturn( asList( 0L, 0L, 42L ) );
+		System.setProperty( DeferredScreenshot.LAZY_SCREENSHOT_PROPERTY, "true" );
+		try {
+			assertThat( cut.convert( CapturedPage.unchanged( driver, true ) ) ).containsExactly( previous );
+			verify( driver ).executeScript( anyString(), any() );
+
+			// not within the background
+			assertThat( cut.convert( CapturedPage.unchanged( driver, false ) ) ).containsExactly( previous );
+			verify( driver ).executeScript( anyString(), any() );
+		} finally {
+			System.clearProperty( DeferredScreenshot.LAZY_SCREENSHOT_PROPERTY );
+		}
+	}
+
+	@Test
+	void convert_should_fail_for_unchanged_page_without_last_state() {
+		final CapturedPage page = CapturedPage.unchanged( mock( UnbreakableDriver.class ) );
+
+		assertThatThrownBy( () -> cut.convert( page ) ).isInstanceOf( IllegalStateException.class );
+	}
+
 	@Test
 	void convert_should_reject_WebElement() throws Exception {
 		final RecheckSeleniumAdapter cut = spy( new RecheckSeleniumAdapter() );
@@ -207,6 +272,11 @@ class RecheckSeleniumAdapterTest {
 		assertThatCode( () -> cut.convert( mock( WebDriver.class ) ) ).isInstanceOf( IllegalArgumentException.class );
 	}
 
+	private static RootElement createState() {
+		return new RootElement( "html", IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" ),
+				new MutableAttributes().immutable(), null, "title", 1, "title" );
+	}
+
 	private WrappingRemoteWebElement createOuterWrappingElement( final WrappingRemoteWebElement inner ) {
 		final WrappingRemoteWebElement outer = mock( WrappingRemoteWebElement.class );
 		when( outer.getWrappedElement() ).thenReturn( inner );
@@ -231,6 +301,16 @@ class RecheckSeleniumAdapterTest {
 		return inner;
 	}
 
+	private static Map<String, Object> toHashMap( final String tagName ) {
+		final Map<String, Object> result = new HashMap<>();
+		result.put( "tagName", tagName );
+		result.put( "x", "10" );
+		result.put( "y", "10" );
+		result.put( "height", "100" );
+		result.put( "width", "100" );
+		return result;
+	}
+
 	static class WrappingRemoteWebElement extends RemoteWebElement implements WrapsElement {
 
 		@Override
@@ -0,0 +1,102 @@
+package de.retest.web;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.retest.recheck.RecheckAdapter;
+import de.retest.recheck.RecheckOptions;
+import de.retest.recheck.persistence.SeparatePathsProjectLayout;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.web.selenium.UnbreakableDriver;
+
+class RecheckWebImplTest {
+
+	Path states;
+	RecheckWebImpl cut;
+	UnbreakableDriver driver;
+	RecheckAdapter adapter;
+	RootElement converted;
+
+	@BeforeEach
+	void setUp( @TempDir final Path temp ) {
+		states = temp.resolve( "states" );
+		cut = new RecheckWebImpl( RecheckOptions.builder() //
+				.suiteName( "suite" ) //
+				.projectLayout( new SeparatePathsProjectLayout( states, temp.resolve( "reports" ) ) ) //
+				.build() );
+		driver = mock( UnbreakableDriver.class );
+		adapter = mock( RecheckAdapter.class );
+		when( adapter.getDefaultValueFinder() ).thenReturn( ( identifyingAttributes, key, value ) -> false );
+		when( adapter.convert( any() ) ).then( invocation -> {
+			converted = createState();
+			return singleton( converted );
+		} );
+	}
+
+	@AfterEach
+	void tearDown() {
+		System.clearProperty( RecheckWebImpl.SKIP_UNCHANGED_PROPERTY );
+	}
+
+	@Test
+	void unchanged_state_should_skip_loading_golden_master_if_enabled() {
+		System.setProperty( RecheckWebImpl.SKIP_UNCHANGED_PROPERTY, "true" );
+		cut.startTest( "test" );
+		cut.check( driver, adapter, "step" );
+		assertThat( new File( getGoldenMaster(), StateHashFile.FILE_NAME ) ).exists();
+
+		cut.startTest( "test" );
+		cut.check( driver, adapter, "step" );
+
+		verify( adapter, times( 2 ) ).convert( driver );
+		// The actual state instead of a loaded one serves as expected state.
+		final RootElement actual = converted;
+		verify( driver ).setLastExpectedState( argThat( state -> state == actual ) );
+	}
+
+	@Test
+	void golden_master_should_not_get_hash_by_default() {
+		cut.startTest( "test" );
+		cut.check( driver, adapter, "step" );
+		cut.startTest( "test" );
+		cut.check( driver, adapter, "step" );
+
+		assertThat( getGoldenMaster() ).isDirectory();
+		assertThat( new File( getGoldenMaster(), StateHashFile.FILE_NAME ) ).doesNotExist();
+		final RootElement actual = converted;
+		verify( driver, times( 0 ) ).setLastExpectedState( argThat( state -> state == actual ) );
+	}
+
+	private File getGoldenMaster() {
+		return states.resolve( "suite" ).resolve( "test.step.recheck" ).toFile();
+	}
+
+	private static RootElement createState() {
+		final RootElement root = new RootElement( "html",
+				IdentifyingAttributes.create( de.retest.recheck.ui.Path.fromString( "html[1]" ), "html" ),
+				new MutableAttributes().immutable(), null, "title", 1, "title" );
+		root.addChildren( singletonList( Element.create( "body", root,
+				IdentifyingAttributes.create( de.retest.recheck.ui.Path.fromString( "html[1]/body[1]" ), "body" ),
+				new MutableAttributes().immutable() ) ) );
+		return root;
+	}
+
+}
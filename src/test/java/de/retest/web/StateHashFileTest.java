@@ -0,0 +1,103 @@
+package de.retest.web;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.retest.recheck.persistence.RecheckSutState;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.descriptors.SutState;
+
+class StateHashFileTest {
+
+	File goldenMaster;
+	SutState state;
+
+	@BeforeEach
+	void setUp( @TempDir final Path temp ) throws IOException {
+		goldenMaster = temp.resolve( "check.recheck" ).toFile();
+		goldenMaster.mkdirs();
+		writeGoldenMaster( "<sutState/>" );
+		state = new SutState( singletonList( new RootElement( "html",
+				IdentifyingAttributes.create( de.retest.recheck.ui.Path.fromString( "html[1]" ), "html" ),
+				new MutableAttributes().immutable(), null, "title", 1, "title" ) ) );
+	}
+
+	@Test
+	void written_hash_should_be_read() {
+		final StateHashFile cut = new StateHashFile( goldenMaster );
+
+		assertThat( cut.read() ).isNull();
+		cut.write( new SubtreeHashes().get( state ) );
+
+		assertThat( new StateHashFile( goldenMaster ).read() ).isEqualTo( new SubtreeHashes().get( state ) );
+	}
+
+	@Test
+	void changed_golden_master_should_invalidate_hash() throws IOException {
+		new StateHashFile( goldenMaster ).write( new SubtreeHashes().get( state ) );
+
+		writeGoldenMaster( "<sutState>changed</sutState>" );
+
+		assertThat( new StateHashFile( goldenMaster ).read() ).isNull();
+	}
+
+	@Test
+	void missing_golden_master_should_not_write_hash() {
+		final File missing = new File( goldenMaster.getParentFile(), "missing.recheck" );
+
+		new StateHashFile( missing ).write( new SubtreeHashes().get( state ) );
+
+		assertThat( new File( missing, StateHashFile.FILE_NAME ) ).doesNotExist();
+	}
+
+	@Test
+	void hash_should_survive_persisting_golden_master() {
+		final File persisted = new File( goldenMaster.getParentFile(), "persisted.recheck" );
+		final SutState converted = new SutState( singletonList( convert() ) );
+
+		RecheckSutState.createNew( persisted, converted );
+		final SutState loaded = RecheckSutState.loadExpected( persisted );
+
+		assertThat( new SubtreeHashes().get( loaded ) ).isEqualTo( new SubtreeHashes().get( converted ) );
+	}
+
+	private static RootElement convert() {
+		final Map<String, Map<String, Object>> data = new HashMap<>();
+		data.put( "//html[1]", toHashMap( "html", null ) );
+		data.put( "//html[1]/body[1]", toHashMap( "body", null ) );
+		data.put( "//html[1]/body[1]/div[1]", toHashMap( "div", "some text" ) );
+		return new RecheckSeleniumAdapter().convert( data, "url", "title", null );
+	}
+
+	private static Map<String, Object> toHashMap( final String tagName, final String text ) {
+		final Map<String, Object> result = new HashMap<>();
+		result.put( "tagName", tagName );
+		result.put( "text", text );
+		result.put( "class", "some-class" );
+		result.put( "color", "rgb(1, 2, 3)" );
+		result.put( "x", "10" );
+		result.put( "y", "20" );
+		result.put( "height", "100" );
+		result.put( "width", "200" );
+		return result;
+	}
+
+	private void writeGoldenMaster( final String content ) throws IOException {
+		Files.write( new File( goldenMaster, "retest.xml" ).toPath(), content.getBytes( StandardCharsets.UTF_8 ) );
+	}
+
+}
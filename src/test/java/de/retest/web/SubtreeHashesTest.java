@@ -0,0 +1,93 @@
+package de.retest.web;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.descriptors.SutState;
+
+class SubtreeHashesTest {
+
+	SubtreeHashes cut = new SubtreeHashes();
+
+	@Test
+	void identical_trees_should_have_equal_hashes() {
+		final RootElement first = createState( "a" );
+		final RootElement second = createState( "a" );
+
+		assertThat( cut.get( first ) ).isEqualTo( cut.get( second ) );
+		assertThat( cut.get( new SutState( singletonList( first ) ) ) )
+				.isEqualTo( cut.get( new SutState( singletonList( second ) ) ) );
+	}
+
+	@Test
+	void changed_descendant_should_change_hashes_up_to_root() {
+		final RootElement first = createState( "a" );
+		final RootElement second = createState( "b" );
+
+		assertThat( cut.get( first ) ).isNotEqualTo( cut.get( second ) );
+		assertThat( cut.get( body( first ) ) ).isNotEqualTo( cut.get( body( second ) ) );
+	}
+
+	@Test
+	void hashes_should_be_cached_per_instance() {
+		final RootElement root = createState( "a" );
+		final String before = cut.get( root );
+		final Element div = body( root ).getContainedElements().get( 0 );
+
+		div.addChildren( singletonList( create( "p", "html[1]/body[1]/div[1]/p[1]", div, "c" ) ) );
+		assertThat( cut.get( root ) ).isEqualTo( before );
+		assertThat( new SubtreeHashes().get( root ) ).isNotEqualTo( before );
+	}
+
+	@Test
+	void findIdentical_should_return_unique_identical_subtree() {
+		final RootElement expected = createState( "a" );
+		final RootElement actual = createState( "a" );
+
+		assertThat( cut.findIdentical( body( expected ), actual ) ).isSameAs( body( actual ) );
+		assertThat( cut.findIdentical( body( expected ), createState( "b" ) ) ).isNull();
+	}
+
+	@Test
+	void findIdentical_should_not_pair_ambiguous_subtrees() {
+		final RootElement expected = createState( "a" );
+		final RootElement actual = createState( "a" );
+		final Element body = body( actual );
+		body.addChildren( singletonList( create( "div", "html[1]/body[1]/div[1]", body, "a" ) ) );
+
+		final Element div = body( expected ).getContainedElements().get( 0 );
+		assertThat( cut.findIdentical( div, actual ) ).isNull();
+	}
+
+	private static RootElement createState( final String clazz ) {
+		final IdentifyingAttributes identifyingAttributes =
+				IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" );
+		final RootElement root = new RootElement( "html", identifyingAttributes, new MutableAttributes().immutable(),
+				null, "title", 1, "title" );
+		final Element body = create( "body", "html[1]/body[1]", root, null );
+		body.addChildren( singletonList( create( "div", "html[1]/body[1]/div[1]", body, clazz ) ) );
+		root.addChildren( singletonList( body ) );
+		return root;
+	}
+
+	private static Element create( final String type, final String path, final Element parent, final String clazz ) {
+		final MutableAttributes attributes = new MutableAttributes();
+		if ( clazz != null ) {
+			attributes.put( "class", clazz );
+		}
+		return Element.create( type, parent, IdentifyingAttributes.create( Path.fromString( path ), type ),
+				attributes.immutable() );
+	}
+
+	private static Element body( final RootElement root ) {
+		return root.getContainedElements().get( 0 );
+	}
+
+}
@@ -1,7 +1,6 @@
 package de.retest.web;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -12,42 +11,90 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import de.retest.recheck.ui.DefaultValueFinder;
+import de.retest.recheck.ui.Path;
 import de.retest.recheck.ui.descriptors.Attributes;
 import de.retest.recheck.ui.descriptors.Element;
 import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
 import de.retest.recheck.ui.descriptors.idproviders.RetestIdProvider;
+import de.retest.recheck.util.RetestIdProviderUtil;
 import de.retest.web.mapping.WebData;
 
 class WebElementPeerTest {
 
 	AttributesProvider attributesProvider;
-	WebElementPeer cut;
+	RetestIdProvider retestIdProvider;
+	DefaultValueFinder defaultValueFinder;
+	RootElement parent;
 
 	@BeforeEach
 	void setUp() {
+		parent = new RootElement( "html", IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" ),
+				new Attributes(), null, "screen", 1, "title" );
 		attributesProvider = YamlAttributesProvider.getTestInstance();
-		cut = new WebElementPeer( mock( RetestIdProvider.class ), attributesProvider, null, null, null );
+		retestIdProvider = RetestIdProviderUtil.getConfiguredRetestIdProvider();
+		defaultValueFinder = ( identifyingAttributes, attributeKey, attributeValue ) -> false;
 	}
 
 	@Test
 	void converted_children_should_only_contain_non_null_elements() throws Exception {
-		final Element el0 = mock( Element.class );
-
-		final WebElementPeer child0 = mock( WebElementPeer.class );
-		when( child0.toElement( any() ) ).thenReturn( el0 );
-
-		final WebElementPeer child1 = mock( WebElementPeer.class );
-		when( child1.toElement( any() ) ).thenReturn( null );
-
+		final WebElementPeer cut = peer( "html[1]/body[1]" );
+		final WebElementPeer child0 = peer( "html[1]/body[1]/div[1]" );
+		final WebElementPeer child1 = new WebElementPeer( retestIdProvider, attributesProvider, null,
+				"html[1]/body[1]/div[2]", defaultValueFinder );
+		child1.addChild( peer( "html[1]/body[1]/div[2]/span[1]" ) );
 		cut.addChild( child0 );
 		cut.addChild( child1 );
 
-		assertThat( cut.convertChildren( null ) ).containsExactly( el0 );
+		final Element element = cut.toElement( parent );
+
+		assertThat( element.getContainedElements() ).extracting( child -> child.getIdentifyingAttributes().getPath() )
+				.containsExactly( "html[1]/body[1]/div[1]" );
 	}
 
 	@Test
 	void converted_children_should_never_be_null() throws Exception {
-		assertThat( cut.convertChildren( null ) ).isEmpty();
+		assertThat( peer( "html[1]/body[1]" ).toElement( parent ).getContainedElements() ).isEmpty();
+	}
+
+	@Test
+	void converted_children_should_keep_order() throws Exception {
+		final WebElementPeer cut = peer( "html[1]/body[1]" );
+		final WebElementPeer div = peer( "html[1]/body[1]/div[1]" );
+		div.addChild( peer( "html[1]/body[1]/div[1]/span[1]" ) );
+		div.addChild( peer( "html[1]/body[1]/div[1]/span[2]" ) );
+		cut.addChild( div );
+		cut.addChild( peer( "html[1]/body[1]/p[1]" ) );
+
+		final Element element = cut.toElement( parent );
+
+		assertThat( element.getContainedElements() ).extracting( child -> child.getIdentifyingAttributes().getPath() )
+				.containsExactly( "html[1]/body[1]/div[1]", "html[1]/body[1]/p[1]" );
+		assertThat( element.getContainedElements().get( 0 ).getContainedElements() )
+				.extracting( child -> child.getIdentifyingAttributes().getPath() )
+				.containsExactly( "html[1]/body[1]/div[1]/span[1]", "html[1]/body[1]/div[1]/span[2]" );
+		assertThat( element.getContainedElements().get( 0 ).getContainedElements().get( 0 ).getParent() )
+				.isSameAs( element.getContainedElements().get( 0 ) );
+	}
+
+	@Test
+	void deep_trees_should_not_overflow_stack() throws Exception {
+		final int depth = 10_000;
+		final WebElementPeer cut = peer( "div[1]" );
+		WebElementPeer last = cut;
+		for ( int i = 1; i < depth; i++ ) {
+			final WebElementPeer child = peer( "div[1]" );
+			last.addChild( child );
+			last = child;
+		}
+
+		Element element = cut.toElement( parent );
+
+		for ( int i = 1; i < depth; i++ ) {
+			assertThat( element.getContainedElements() ).hasSize( 1 );
+			element = element.getContainedElements().get( 0 );
+		}
+		assertThat( element.getContainedElements() ).isEmpty();
 	}
 
 	@Test
@@ -108,6 +155,13 @@ class WebElementPeerTest {
 		assertThat( attributes.size() ).isEqualTo( 0 );
 	}
 
+	private WebElementPeer peer( final String path ) {
+		final Map<String, Object> wrappedData = new HashMap<>();
+		wrappedData.put( AttributesUtil.TAG_NAME, path.substring( path.lastIndexOf( '/' ) + 1, path.lastIndexOf( '[' ) ) );
+		return new WebElementPeer( retestIdProvider, attributesProvider, new WebData( wrappedData ), path,
+				defaultValueFinder );
+	}
+
 	@Test
 	void retrieveStateAttributes_should_contain_non_null_non_identifying_non_default_attributes() {
 		final String attributeKey = "someKey";
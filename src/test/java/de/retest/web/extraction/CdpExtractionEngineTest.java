@@ -0,0 +1,47 @@
+package de.retest.web.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+class CdpExtractionEngineTest {
+
+	final Set<String> cssAttributes = Collections.singleton( "color" );
+
+	RemoteWebDriver driver;
+	JavaScriptExtractionEngine fallback;
+	Extraction fallbackExtraction;
+	CdpExtractionEngine cut;
+
+	@BeforeEach
+	void setUp() {
+		driver = mock( RemoteWebDriver.class );
+		fallback = mock( JavaScriptExtractionEngine.class );
+		fallbackExtraction = mock( Extraction.class );
+		cut = new CdpExtractionEngine( fallback );
+	}
+
+	@Test
+	void single_elements_should_be_extracted_via_javascript() {
+		final WebElement element = mock( WebElement.class );
+		when( fallback.extract( driver, element, cssAttributes ) ).thenReturn( fallbackExtraction );
+
+		assertThat( cut.extract( driver, element, cssAttributes ) ).isSameAs( fallbackExtraction );
+	}
+
+	@Test
+	void drivers_without_devtools_should_be_extracted_via_javascript() {
+		when( fallback.extract( driver, null, cssAttributes ) ).thenReturn( fallbackExtraction );
+
+		assertThat( cut.extract( driver, null, cssAttributes ) ).isSameAs( fallbackExtraction );
+	}
+
+}
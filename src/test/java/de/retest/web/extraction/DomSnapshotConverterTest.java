@@ -0,0 +1,111 @@
+package de.retest.web.extraction;
+
+import static de.retest.web.testutils.ExtractionAssertions.assertEquivalent;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import static de.retest.web.extraction.ExtractionFixtures.read;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import de.retest.web.extraction.DomSnapshotConverter.StyleReader;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.PayloadFormat;
+
+/**
+ * See {@link ExtractionFixtures} for the fixtures and how to record them.
+ */
+class DomSnapshotConverterTest {
+
+	@ParameterizedTest
+	@ValueSource( strings = { "simple", "forms", "frames" } )
+	void snapshot_should_be_converted_like_script_extracts( final String fixture ) throws Exception {
+		final Map<String, Object> snapshot = read( fixture, ExtractionFixtures.SNAPSHOT_FILE );
+		@SuppressWarnings( "unchecked" )
+		final Map<String, Object> params = (Map<String, Object>) snapshot.get( "params" );
+		@SuppressWarnings( "unchecked" )
+		final List<String> cssAttributes = (List<String>) params.get( "computedStyles" );
+		@SuppressWarnings( "unchecked" )
+		final Map<String, Object> result = (Map<String, Object>) snapshot.get( "result" );
+
+		final StyleReader styles = ExtractionFixtures.readStyles( fixture );
+
+		final Extraction expected =
+				Extraction.fromPayload( PayloadFormat.MAP, read( fixture, ExtractionFixtures.EXPECTED_FILE ) );
+		final Extraction actual = Extraction.fromPayload( PayloadFormat.MAP,
+				new DomSnapshotConverter( cssAttributes, styles ).convert( result ) );
+
+		// Without recorded styles, the styles of elements that are not rendered are approximated.
+		assertEquivalent( expected, actual, cssAttributes, 0, styles != null );
+	}
+
+	@Test
+	void styles_of_elements_that_are_not_rendered_should_be_read() throws Exception {
+		final Map<String, Object> snapshot = read( "simple", ExtractionFixtures.SNAPSHOT_FILE );
+		@SuppressWarnings( "unchecked" )
+		final Map<String, Object> result = (Map<String, Object>) snapshot.get( "result" );
+		final List<String> cssAttributes = Arrays.asList( "color", "display" );
+		final List<List<String>> requested = new ArrayList<>();
+
+		final Extraction extraction = Extraction.fromPayload( PayloadFormat.MAP,
+				new DomSnapshotConverter( cssAttributes, elements -> {
+					requested.addAll( elements );
+					final List<List<String>> styles = new ArrayList<>();
+					elements.forEach( element -> styles.add( readStyle( element.get( 1 ) ) ) );
+					return styles;
+				} ).convert( result ) );
+
+		assertThat( requested ).contains( Arrays.asList( "", "//html[1]/head[1]" ),
+				Arrays.asList( "", "//html[1]/head[1]/title[1]" ), Arrays.asList( "", "//html[1]/body[1]/div[2]" ),
+				Arrays.asList( "", "//html[1]/body[1]/div[2]/p[1]" ) );
+		assertThat( requested ).doesNotContain( Arrays.asList( "", "//html[1]/body[1]" ) );
+		final PathsToWebDataMapping document = extraction.getDocument();
+		// Compared with the (rendered) parent and the read styles of the parent, respectively.
+		assertThat( document.getWebData( "//html[1]/head[1]" ).getAsString( "display" ) ).isEqualTo( "none" );
+		assertThat( document.getWebData( "//html[1]/head[1]" ).getAsString( "color" ) ).isEqualTo( "rgb(1, 2, 3)" );
+		assertThat( document.getWebData( "//html[1]/head[1]/title[1]" ).getAsString( "display" ) ).isNull();
+		assertThat( document.getWebData( "//html[1]/head[1]/title[1]" ).getAsString( "color" ) ).isNull();
+		assertThat( document.getWebData( "//html[1]/body[1]/div[2]/p[1]" ).getAsString( "display" ) )
+				.isEqualTo( "block" );
+	}
+
+	private static List<String> readStyle( final String path ) {
+		return Arrays.asList( "rgb(1, 2, 3)", path.endsWith( "/p[1]" ) ? "block" : "none" );
+	}
+
+	@Test
+	void frames_should_be_mapped_by_path() throws Exception {
+		@SuppressWarnings( "unchecked" )
+		final Map<String, Object> result =
+				(Map<String, Object>) read( "frames", ExtractionFixtures.SNAPSHOT_FILE ).get( "result" );
+
+		final Extraction extraction = Extraction.fromPayload( PayloadFormat.MAP,
+				new DomSnapshotConverter( Collections.emptyList(), null ).convert( result ) );
+
+		assertThat( extraction.getFrames() ).containsOnlyKeys( "html[1]/body[1]/iframe[1]",
+				"html[1]/body[1]/iframe[1]/html[1]/body[1]/iframe[1]", "html[1]/body[1]/div[1]/iframe[1]" );
+		assertThat( extraction.getFrames().get( "html[1]/body[1]/iframe[1]" ).getRootPath() )
+				.isEqualTo( "html[1]/body[1]/iframe[1]/html[1]" );
+	}
+
+	@Test
+	void numbers_should_be_typed_like_selenium_returns_them() {
+		assertThat( DomSnapshotConverter.toNumber( 8.0 ) ).isEqualTo( 8L );
+		assertThat( DomSnapshotConverter.toNumber( -0.0 ) ).isEqualTo( 0L );
+		assertThat( DomSnapshotConverter.toNumber( 8.5 ) ).isEqualTo( 8.5 );
+	}
+
+	@Test
+	void trim_should_remove_non_breaking_spaces() {
+		assertThat( DomSnapshotConverter.trim( "\u00a0 \n" ) ).isEmpty();
+		assertThat( DomSnapshotConverter.trim( "\u00a0a b\t" ) ).isEqualTo( "a b" );
+	}
+
+}
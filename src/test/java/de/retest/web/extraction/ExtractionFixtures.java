@@ -0,0 +1,111 @@
+package de.retest.web.extraction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openqa.selenium.WebDriver;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import de.retest.web.extraction.DomSnapshotConverter.StyleReader;
+import de.retest.web.mapping.PayloadFormat;
+
+/**
+ * Records and reads the fixtures of {@link DomSnapshotConverterTest} from a real browser. A fixture consists of
+ *
+ * <ul>
+ * <li>{@code snapshot.json}: the parameters and result of {@code DOMSnapshot.captureSnapshot},</li>
+ * <li>{@code styles.json}: the computed styles of the elements that are not rendered (optional) and</li>
+ * <li>{@code expected.json}: the result of {@code getAllElementsByPath.js} for the same page.</li>
+ * </ul>
+ */
+public class ExtractionFixtures {
+
+	public static final String RECORD_DIRECTORY_PROPERTY = "de.retest.recheck.web.recordExtractionFixtures";
+
+	static final String SNAPSHOT_FILE = "snapshot.json";
+	static final String STYLES_FILE = "styles.json";
+	static final String EXPECTED_FILE = "expected.json";
+
+	private static final ObjectMapper mapper = new ObjectMapper().enable( SerializationFeature.INDENT_OUTPUT );
+
+	private ExtractionFixtures() {}
+
+	/**
+	 * Records the fixture for the current page of the given Chrome driver.
+	 */
+	public static void record( final WebDriver driver, final Set<String> cssAttributes, final Path directory )
+			throws IOException {
+		final List<String> computedStyles = CdpExtractionEngine.getSupportedCssAttributes( driver, cssAttributes );
+		final Map<String, Object> params = new LinkedHashMap<>();
+		params.put( "computedStyles", computedStyles );
+		params.put( "includeDOMRects", false );
+		final Map<String, Object> result =
+				ChromeDevTools.of( driver ).send( CdpExtractionEngine.CAPTURE_SNAPSHOT, params );
+
+		final Map<String, Object> styles = new LinkedHashMap<>();
+		new DomSnapshotConverter( computedStyles, elements -> {
+			final List<List<String>> read = CdpExtractionEngine.readStyles( driver, computedStyles, elements );
+			styles.put( "elements", elements );
+			styles.put( "styles", read );
+			return read;
+		} ).convert( result );
+
+		// The snapshot contains all computed styles, so the script must not filter default values either.
+		final Map<String, Object> expected =
+				new JavaScriptExtractionEngine( PayloadFormat.MAP, false, 0 ).execute( driver, null, cssAttributes );
+
+		final Map<String, Object> snapshot = new LinkedHashMap<>();
+		snapshot.put( "params", params );
+		snapshot.put( "result", result );
+		Files.createDirectories( directory );
+		mapper.writeValue( directory.resolve( SNAPSHOT_FILE ).toFile(), snapshot );
+		mapper.writeValue( directory.resolve( EXPECTED_FILE ).toFile(), expected );
+		if ( !styles.isEmpty() ) {
+			mapper.writeValue( directory.resolve( STYLES_FILE ).toFile(), styles );
+		}
+	}
+
+	static Map<String, Object> read( final String fixture, final String file ) throws IOException {
+		try ( InputStream in = open( fixture, file ) ) {
+			return in == null ? null : mapper.readValue( in, new TypeReference<Map<String, Object>>() {} );
+		}
+	}
+
+	/**
+	 * @return A reader of the recorded styles or {@code null} if the fixture has none.
+	 */
+	@SuppressWarnings( "unchecked" )
+	static StyleReader readStyles( final String fixture ) throws IOException {
+		final Map<String, Object> recorded = read( fixture, STYLES_FILE );
+		if ( recorded == null ) {
+			return null;
+		}
+		final List<List<String>> elements = (List<List<String>>) recorded.get( "elements" );
+		final List<List<String>> styles = (List<List<String>>) recorded.get( "styles" );
+		final Map<List<String>, List<String>> stylesByElement = new HashMap<>();
+		for ( int i = 0; i < elements.size(); i++ ) {
+			stylesByElement.put( elements.get( i ), styles.get( i ) );
+		}
+		return requested -> {
+			final List<List<String>> result = new ArrayList<>();
+			requested.forEach( element -> result.add( stylesByElement.get( element ) ) );
+			return result;
+		};
+	}
+
+	private static InputStream open( final String fixture, final String file ) {
+		return ExtractionFixtures.class.getResourceAsStream( "/extraction/" + fixture + "/" + file );
+	}
+
+}
@@ -0,0 +1,153 @@
+package de.retest.web.extraction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import de.retest.web.mapping.PathsToWebDataMapping;
+
+class IncrementalExtractionEngineTest {
+
+	final Set<String> cssAttributes = Collections.singleton( "color" );
+
+	RemoteWebDriver driver;
+	ExtractionEngine fullEngine;
+	JavaScriptExtractionEngine subtreeEngine;
+	IncrementalExtractionEngine cut;
+
+	@BeforeEach
+	void setUp() {
+		driver = mock( RemoteWebDriver.class );
+		fullEngine = mock( ExtractionEngine.class );
+		subtreeEngine = mock( JavaScriptExtractionEngine.class );
+		cut = new IncrementalExtractionEngine( fullEngine, subtreeEngine );
+
+		when( fullEngine.extract( driver, null, cssAttributes ) ).thenReturn( page( "old" ) );
+	}
+
+	@Test
+	void first_extraction_should_be_full() {
+		changes( "doc", true );
+
+		final Extraction extraction = cut.extract( driver, null, cssAttributes );
+
+		assertThat( extraction.getDocument().getWebData( "//html[1]/body[1]/div[1]" ).getText() ).isEqualTo( "old" );
+		verify( fullEngine ).extract( driver, null, cssAttributes );
+	}
+
+	@Test
+	void unchanged_page_should_not_be_extracted_again() {
+		changes( "doc", true );
+		final Extraction first = cut.extract( driver, null, cssAttributes );
+		changes( "doc", false );
+
+		final Extraction second = cut.extract( driver, null, cssAttributes );
+
+		assertThat( second.getDocument() ).isSameAs( first.getDocument() );
+		verify( fullEngine, times( 1 ) ).extract( driver, null, cssAttributes );
+	}
+
+	@Test
+	void changed_subtrees_should_be_merged() {
+		changes( "doc", true );
+		cut.extract( driver, null, cssAttributes );
+		final WebElement div = mock( WebElement.class );
+		changes( "doc", false, div );
+		when( subtreeEngine.extract( driver, div, cssAttributes ) ).thenReturn( subtree( "new", 10 ) );
+
+		final Extraction extraction = cut.extract( driver, null, cssAttributes );
+
+		final PathsToWebDataMapping document = extraction.getDocument();
+		assertThat( document.getWebData( "//html[1]/body[1]/div[1]" ).getText() ).isEqualTo( "new" );
+		assertThat( document.getWebData( "//html[1]/body[1]/div[1]/span[1]" ) ).isNull();
+		assertThat( document.getWebData( "//html[1]/body[1]/div[1]/p[1]" ) ).isNotNull();
+		assertThat( document.getWebData( "//html[1]/body[1]" ) ).isNotNull();
+		verify( fullEngine, times( 1 ) ).extract( driver, null, cssAttributes );
+	}
+
+	@Test
+	void changed_outline_of_subtree_should_cause_full_extraction() {
+		changes( "doc", true );
+		cut.extract( driver, null, cssAttributes );
+		final WebElement div = mock( WebElement.class );
+		changes( "doc", false, div );
+		when( subtreeEngine.extract( driver, div, cssAttributes ) ).thenReturn( subtree( "new", 20 ) );
+
+		cut.extract( driver, null, cssAttributes );
+
+		verify( fullEngine, times( 2 ) ).extract( driver, null, cssAttributes );
+	}
+
+	@Test
+	void new_document_should_cause_full_extraction() {
+		changes( "doc", true );
+		cut.extract( driver, null, cssAttributes );
+		changes( "other", false );
+
+		cut.extract( driver, null, cssAttributes );
+
+		verify( fullEngine, times( 2 ) ).extract( driver, null, cssAttributes );
+	}
+
+	@Test
+	void single_elements_should_not_be_tracked() {
+		final WebElement element = mock( WebElement.class );
+
+		cut.extract( driver, element, cssAttributes );
+
+		verify( fullEngine ).extract( driver, element, cssAttributes );
+		verify( driver, never() ).executeScript( anyString(), any() );
+	}
+
+	private void changes( final String token, final boolean full, final WebElement... dirty ) {
+		final Map<String, Object> changes = new HashMap<>();
+		changes.put( "token", token );
+		changes.put( "full", full );
+		changes.put( "dirty", Arrays.asList( dirty ) );
+		when( driver.executeScript( anyString(), any() ) ).thenReturn( changes );
+	}
+
+	private static Extraction page( final String text ) {
+		final Map<String, Map<String, Object>> data = new HashMap<>();
+		data.put( "//html[1]", webData( "html", null, 100 ) );
+		data.put( "//html[1]/body[1]", webData( "body", null, 100 ) );
+		data.put( "//html[1]/body[1]/div[1]", webData( "div", text, 10 ) );
+		data.put( "//html[1]/body[1]/div[1]/span[1]", webData( "span", text, 5 ) );
+		return new Extraction( new PathsToWebDataMapping( data ), Collections.emptyMap() );
+	}
+
+	private static Extraction subtree( final String text, final int height ) {
+		final Map<String, Map<String, Object>> data = new HashMap<>();
+		data.put( "/html[1]/body[1]/div[1]", webData( "div", text, height ) );
+		data.put( "/html[1]/body[1]/div[1]/p[1]", webData( "p", text, 5 ) );
+		return new Extraction( new PathsToWebDataMapping( data ), Collections.emptyMap() );
+	}
+
+	private static Map<String, Object> webData( final String tag, final String text, final int height ) {
+		final Map<String, Object> data = new HashMap<>();
+		data.put( "tagName", tag );
+		data.put( "text", text );
+		data.put( "absolute-x", 0L );
+		data.put( "absolute-y", 0L );
+		data.put( "absolute-width", 100L );
+		data.put( "absolute-height", (long) height );
+		return data;
+	}
+
+}
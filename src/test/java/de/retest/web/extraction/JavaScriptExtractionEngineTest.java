@@ -0,0 +1,112 @@
+package de.retest.web.extraction;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import de.retest.web.ConversionException;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.PayloadFormat;
+
+class JavaScriptExtractionEngineTest {
+
+	static final String IFRAME = "html[1]/body[1]/iframe[1]";
+
+	final Set<String> cssAttributes = Collections.singleton( "color" );
+
+	RemoteWebDriver driver;
+	Map<Integer, Object> chunks;
+
+	@BeforeEach
+	void setUp() {
+		driver = mock( RemoteWebDriver.class );
+		chunks = new HashMap<>();
+		when( driver.executeScript( anyString(), any() ) ).thenAnswer( invocation -> {
+			final Object[] args = invocation.getArguments();
+			if ( args.length == 5 ) {
+				// fetchChunk.js, i.e. script, token, part, offset, count
+				return "token".equals( args[1] ) ? chunks.get( (Integer) args[2] * 100 + (Integer) args[3] ) : null;
+			}
+			return header();
+		} );
+	}
+
+	@Test
+	void chunks_should_be_fetched_and_decoded() {
+		chunks.put( 0, chunk( asList( "tagName" ), asList( "html", "body" ), asList( -1L, 0L ), asList( 1L, 1L ),
+				asList( 0L, 0L ), asList( 0L, 1L ) ) );
+		chunks.put( 2, chunk( asList(), asList( "iframe" ), asList( 1L ), asList( 1L ), asList( 0L, 2L ) ) );
+		chunks.put( 100, chunk( asList( "tagName" ), asList( "html" ), asList( -1L ), asList( 1L ), //
+				asList( 0L, 0L ) ) );
+		final JavaScriptExtractionEngine cut = new JavaScriptExtractionEngine( PayloadFormat.MAP, true, 2 );
+
+		final Extraction extraction = cut.extract( driver, null, cssAttributes );
+
+		final PathsToWebDataMapping document = extraction.getDocument();
+		assertThat( document.size() ).isEqualTo( 3 );
+		assertThat( document.getWebData( "//html[1]/body[1]/iframe[1]" ).getTag() ).isEqualTo( "iframe" );
+		assertThat( document.getParentIndex( 2 ) ).isEqualTo( 1 );
+		assertThat( extraction.getFrames() ).containsOnlyKeys( IFRAME );
+		assertThat( extraction.getFrames().get( IFRAME ).getRootPath() ).isEqualTo( IFRAME + "/html[1]" );
+	}
+
+	@Test
+	void missing_buffer_should_fail_extraction() {
+		final JavaScriptExtractionEngine cut = new JavaScriptExtractionEngine( PayloadFormat.COMPACT, true, 2 );
+
+		assertThatThrownBy( () -> cut.extract( driver, null, cssAttributes ) )
+				.isInstanceOf( ConversionException.class ).hasMessageContaining( "after 0 of 3 elements" );
+	}
+
+	@Test
+	void chunk_size_should_be_configurable() {
+		System.setProperty( JavaScriptExtractionEngine.CHUNK_SIZE_PROPERTY, "5000" );
+		try {
+			assertThat( JavaScriptExtractionEngine.getConfiguredChunkSize() ).isEqualTo( 5000 );
+		} finally {
+			System.clearProperty( JavaScriptExtractionEngine.CHUNK_SIZE_PROPERTY );
+		}
+		assertThat( JavaScriptExtractionEngine.getConfiguredChunkSize() ).isZero();
+	}
+
+	private static Map<String, Object> header() {
+		final Map<String, Object> header = new HashMap<>();
+		header.put( JavaScriptExtractionEngine.TOKEN_KEY, "token" );
+		header.put( JavaScriptExtractionEngine.PARTS_KEY,
+				asList( part( "", 3 ), part( "/" + IFRAME, 1 ) ) );
+		return header;
+	}
+
+	private static Map<String, Object> part( final String framePath, final long size ) {
+		final Map<String, Object> part = new HashMap<>();
+		part.put( "framePath", framePath );
+		part.put( "rootPath", "//html[1]" );
+		part.put( "size", size );
+		return part;
+	}
+
+	private static Map<String, Object> chunk( final Object keys, final Object values, final Object parents,
+			final Object indices, final Object... attributes ) {
+		final Map<String, Object> chunk = new HashMap<>();
+		chunk.put( "keys", keys );
+		chunk.put( "values", values );
+		chunk.put( "parents", parents );
+		chunk.put( "indices", indices );
+		chunk.put( "attributes", asList( attributes ) );
+		return chunk;
+	}
+
+}
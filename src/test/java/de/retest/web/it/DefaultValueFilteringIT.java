@@ -0,0 +1,54 @@
+package de.retest.web.it;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openqa.selenium.WebDriver;
+
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.web.RecheckSeleniumAdapter;
+import de.retest.web.SubtreeHashes;
+import de.retest.web.extraction.JavaScriptExtractionEngine;
+import de.retest.web.testutils.WebDriverFactory;
+import de.retest.web.testutils.WebDriverFactory.Driver;
+
+class DefaultValueFilteringIT {
+
+	WebDriver driver;
+
+	@BeforeEach
+	void setUp() {
+		driver = WebDriverFactory.driver( Driver.CHROME );
+	}
+
+	@ParameterizedTest
+	@MethodSource( "de.retest.web.testutils.PageFactory#pages" )
+	void filtering_default_values_in_browser_should_not_change_checked_state( final String page ) throws Exception {
+		driver.get( page );
+
+		final RootElement unfiltered = convert( false );
+		final RootElement filtered = convert( true );
+
+		// The hash covers the retest IDs, identifying and state attributes of all elements.
+		assertThat( filtered.countAllContainedElements() ).isEqualTo( unfiltered.countAllContainedElements() );
+		assertThat( new SubtreeHashes().get( filtered ) ).isEqualTo( new SubtreeHashes().get( unfiltered ) );
+	}
+
+	private RootElement convert( final boolean filterDefaults ) {
+		System.setProperty( JavaScriptExtractionEngine.FILTER_DEFAULTS_PROPERTY, Boolean.toString( filterDefaults ) );
+		try {
+			return new RecheckSeleniumAdapter().convert( driver ).iterator().next();
+		} finally {
+			System.clearProperty( JavaScriptExtractionEngine.FILTER_DEFAULTS_PROPERTY );
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		driver.quit();
+	}
+
+}
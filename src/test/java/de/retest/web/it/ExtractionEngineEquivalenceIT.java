@@ -0,0 +1,65 @@
+package de.retest.web.it;
+
+import static de.retest.web.testutils.ExtractionAssertions.assertEquivalent;
+
+import java.net.URI;
+import java.nio.file.Paths;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openqa.selenium.WebDriver;
+
+import de.retest.web.YamlAttributesProvider;
+import de.retest.web.extraction.CdpExtractionEngine;
+import de.retest.web.extraction.Extraction;
+import de.retest.web.extraction.ExtractionFixtures;
+import de.retest.web.extraction.JavaScriptExtractionEngine;
+import de.retest.web.mapping.PayloadFormat;
+import de.retest.web.testutils.WebDriverFactory;
+import de.retest.web.testutils.WebDriverFactory.Driver;
+
+/**
+ * Records the pages as fixtures of the {@code DomSnapshotConverterTest} into the directory given via
+ * {@value ExtractionFixtures#RECORD_DIRECTORY_PROPERTY}.
+ */
+class ExtractionEngineEquivalenceIT {
+
+	// Bounds of the snapshot are layout units, the script reads (possibly transformed) client rects.
+	private static final double TOLERANCE = 0.5;
+
+	WebDriver driver;
+
+	@BeforeEach
+	void setUp() {
+		driver = WebDriverFactory.driver( Driver.CHROME );
+	}
+
+	@ParameterizedTest
+	@MethodSource( "de.retest.web.testutils.PageFactory#pages" )
+	void cdp_extraction_should_be_equivalent_to_javascript_extraction( final String page ) throws Exception {
+		driver.get( page );
+		final Set<String> cssAttributes = YamlAttributesProvider.getInstance().getCssAttributes();
+
+		// The snapshot contains all computed styles, so the script must not filter default values either.
+		final Extraction expected = new JavaScriptExtractionEngine( PayloadFormat.getConfigured(), false )
+				.extract( driver, null, cssAttributes );
+		final Extraction actual = new CdpExtractionEngine().extract( driver, null, cssAttributes );
+
+		assertEquivalent( expected, actual, cssAttributes, TOLERANCE );
+
+		final String fixtures = System.getProperty( ExtractionFixtures.RECORD_DIRECTORY_PROPERTY );
+		if ( fixtures != null ) {
+			final String name = Paths.get( new URI( page ).getPath() ).getFileName().toString().replace( ".html", "" );
+			ExtractionFixtures.record( driver, cssAttributes, Paths.get( fixtures, name ) );
+		}
+	}
+
+	@AfterEach
+	void tearDown() {
+		driver.quit();
+	}
+
+}
@@ -0,0 +1,29 @@
+package de.retest.web.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CheckContextTest {
+
+	@Test
+	void context_should_not_be_held_if_phase_events_are_not_recorded() throws Exception {
+		try ( final CheckContext context = CheckContext.enter( "check" ) ) {
+			CheckContext.setUrl( "http://example.org" );
+
+			assertThat( context ).isNull();
+			assertThat( CheckContext.getCheckName() ).isNull();
+			assertThat( CheckContext.getUrl() ).isNull();
+		}
+	}
+
+	@Test
+	void disabled_event_should_ignore_fields() throws Exception {
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.SCREENSHOT );
+
+		assertThat( event.isEnabled() ).isFalse();
+		assertThat( event.elementCount( 1 ).byteCount( 2L ).detail( "detail" ) ).isSameAs( event );
+		event.commit();
+	}
+
+}
@@ -0,0 +1,95 @@
+package de.retest.web.mapping;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import de.retest.web.ConversionException;
+
+class CompactChunkDecoderTest {
+
+	@Test
+	void chunks_should_be_decoded_like_whole_payload() {
+		final PathsToWebDataMapping expected = new CompactPathsToWebDataMapping( createPayload() );
+
+		final CompactChunkDecoder cut = new CompactChunkDecoder( "/", "//html[1]", 4 );
+		cut.add( chunk( asList( "tagName" ), asList( "html", "body" ), asList( -1L, 0L ), asList( 1L, 1L ), //
+				asList( 0L, 0L ), asList( 0L, 1L ) ) );
+		cut.add( chunk( asList( "class", "x" ), asList( "div", "a", 10L ), asList( 1L, 1L ), asList( 1L, 2L ), //
+				asList( 0L, 2L, 1L, 3L ), asList( 0L, 2L, 1L, 3L, 2L, 4L ) ) );
+		final PathsToWebDataMapping mapping = cut.build();
+
+		assertThat( mapping.getRootPath() ).isEqualTo( expected.getRootPath() );
+		assertThat( toPaths( mapping ) ).isEqualTo( toPaths( expected ) );
+		for ( int i = 0; i < expected.size(); i++ ) {
+			assertThat( mapping.getParentIndex( i ) ).isEqualTo( expected.getParentIndex( i ) );
+			assertThat( mapping.getWebData( i ).getKeys() ).isEqualTo( expected.getWebData( i ).getKeys() );
+			for ( final String key : expected.getWebData( i ).getKeys() ) {
+				assertThat( mapping.getWebData( i ).getAsString( key ) )
+						.isEqualTo( expected.getWebData( i ).getAsString( key ) );
+			}
+		}
+	}
+
+	@Test
+	void should_prefix_frame_parent_path() {
+		final CompactChunkDecoder cut = new CompactChunkDecoder( "html[1]/body[1]/iframe[1]", "//html[1]", 1 );
+		cut.add( chunk( asList( "tagName" ), asList( "html" ), asList( -1L ), asList( 1L ), asList( 0L, 0L ) ) );
+
+		assertThat( cut.build().getRootPath() ).isEqualTo( "html[1]/body[1]/iframe[1]/html[1]" );
+	}
+
+	@Test
+	void incomplete_payload_should_be_rejected() {
+		final CompactChunkDecoder cut = new CompactChunkDecoder( "/", "//html[1]", 2 );
+		cut.add( chunk( asList( "tagName" ), asList( "html" ), asList( -1L ), asList( 1L ), asList( 0L, 0L ) ) );
+
+		assertThat( cut.getDecoded() ).isEqualTo( 1 );
+		assertThatThrownBy( cut::build ).isInstanceOf( ConversionException.class )
+				.hasMessageContaining( "Only 1 of 2" );
+	}
+
+	@Test
+	void too_large_chunk_should_be_rejected() {
+		final CompactChunkDecoder cut = new CompactChunkDecoder( "/", "//html[1]", 1 );
+
+		assertThatThrownBy( () -> cut.add( chunk( asList( "tagName" ), asList( "html", "body" ), asList( -1L, 0L ),
+				asList( 1L, 1L ), asList( 0L, 0L ), asList( 0L, 1L ) ) ) ).isInstanceOf( ConversionException.class );
+	}
+
+	private static List<String> toPaths( final PathsToWebDataMapping mapping ) {
+		final List<String> paths = new ArrayList<>();
+		mapping.forEach( entry -> paths.add( entry.getKey() ) );
+		return paths;
+	}
+
+	private static Map<String, Object> createPayload() {
+		final Map<String, Object> payload = chunk( asList( "tagName", "class", "x" ),
+				asList( "html", "body", "div", "a", 10L ), asList( -1L, 0L, 1L, 1L ), asList( 1L, 1L, 1L, 2L ), //
+				asList( 0L, 0L ), //
+				asList( 0L, 1L ), //
+				asList( 0L, 2L, 1L, 3L ), //
+				asList( 0L, 2L, 1L, 3L, 2L, 4L ) );
+		payload.put( CompactPathsToWebDataMapping.ROOT_PATH, "//html[1]" );
+		return payload;
+	}
+
+	private static Map<String, Object> chunk( final Object keys, final Object values, final Object parents,
+			final Object indices, final Object... attributes ) {
+		final Map<String, Object> chunk = new HashMap<>();
+		chunk.put( CompactPathsToWebDataMapping.KEYS, keys );
+		chunk.put( CompactPathsToWebDataMapping.VALUES, values );
+		chunk.put( CompactPathsToWebDataMapping.PARENTS, parents );
+		chunk.put( CompactPathsToWebDataMapping.INDICES, indices );
+		chunk.put( CompactPathsToWebDataMapping.ATTRIBUTES, asList( attributes ) );
+		return chunk;
+	}
+
+}
@@ -0,0 +1,101 @@
+package de.retest.web.mapping;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.junit.jupiter.api.Test;
+
+import de.retest.web.ConversionException;
+
+class CompactPathsToWebDataMappingTest {
+
+	@Test
+	void should_decode_paths_and_attributes() {
+		final CompactPathsToWebDataMapping cut = new CompactPathsToWebDataMapping( createPayload() );
+
+		assertThat( cut.size() ).isEqualTo( 4 );
+		assertThat( cut.getRootPath() ).isEqualTo( "//html[1]" );
+		assertThat( cut.getWebData( "//html[1]" ).getTag() ).isEqualTo( "html" );
+		assertThat( cut.getWebData( "//html[1]/body[1]" ).getTag() ).isEqualTo( "body" );
+		assertThat( cut.getWebData( "//html[1]/body[1]/div[1]" ).getAsString( "class" ) ).isEqualTo( "a" );
+		assertThat( cut.getWebData( "//html[1]/body[1]/div[2]" ).getAsString( "class" ) ).isEqualTo( "a" );
+		assertThat( cut.getWebData( "//html[1]/body[1]/div[2]" ).getAsInt( "x" ) ).isEqualTo( 10 );
+		assertThat( cut.getWebData( "//html[1]/body[1]/div[1]" ).getKeys() ).containsOnly( "tagName", "class" );
+	}
+
+	@Test
+	void should_iterate_in_document_order() {
+		final CompactPathsToWebDataMapping cut = new CompactPathsToWebDataMapping( createPayload() );
+
+		assertThat( cut ).extracting( Entry::getKey ).containsExactly( "//html[1]", "//html[1]/body[1]",
+				"//html[1]/body[1]/div[1]", "//html[1]/body[1]/div[2]" );
+	}
+
+	@Test
+	void should_prefix_frame_parent_path() {
+		final CompactPathsToWebDataMapping cut =
+				new CompactPathsToWebDataMapping( "//html[1]/body[1]/div[1]/iframe[1]", createPayload() );
+
+		assertThat( cut.getRootPath() ).isEqualTo( "//html[1]/body[1]/div[1]/iframe[1]/html[1]" );
+		assertThat( cut.getWebData( "//html[1]/body[1]/div[1]/iframe[1]/html[1]/body[1]/div[2]" ) ).isNotNull();
+	}
+
+	@Test
+	void should_be_equivalent_to_map_format() {
+		final Map<String, Map<String, Object>> raw = new HashMap<>();
+		raw.put( "//html[1]", data( "tagName", "html" ) );
+		raw.put( "//html[1]/body[1]", data( "tagName", "body" ) );
+		raw.put( "//html[1]/body[1]/div[1]", data( "tagName", "div", "class", "a" ) );
+		raw.put( "//html[1]/body[1]/div[2]", data( "tagName", "div", "class", "a", "x", 10L ) );
+		final PathsToWebDataMapping expected = new PathsToWebDataMapping( raw );
+
+		final CompactPathsToWebDataMapping cut = new CompactPathsToWebDataMapping( createPayload() );
+
+		assertThat( cut.getRootPath() ).isEqualTo( expected.getRootPath() );
+		for ( final Entry<String, WebData> entry : expected ) {
+			final WebData actual = cut.getWebData( entry.getKey() );
+			assertThat( actual.getKeys() ).isEqualTo( entry.getValue().getKeys() );
+			for ( final String key : actual.getKeys() ) {
+				assertThat( actual.getAsString( key ) ).isEqualTo( entry.getValue().getAsString( key ) );
+			}
+		}
+	}
+
+	@Test
+	void should_reject_invalid_payload() {
+		final Map<String, Object> payload = createPayload();
+		payload.remove( CompactPathsToWebDataMapping.KEYS );
+
+		assertThatThrownBy( () -> new CompactPathsToWebDataMapping( payload ) )
+				.isInstanceOf( ConversionException.class ).hasMessageContaining( "'keys'" );
+	}
+
+	private static Map<String, Object> createPayload() {
+		final Map<String, Object> payload = new HashMap<>();
+		payload.put( CompactPathsToWebDataMapping.ROOT_PATH, "//html[1]" );
+		payload.put( CompactPathsToWebDataMapping.KEYS, asList( "tagName", "class", "x" ) );
+		payload.put( CompactPathsToWebDataMapping.VALUES, asList( "html", "body", "div", "a", 10L ) );
+		payload.put( CompactPathsToWebDataMapping.PARENTS, asList( -1L, 0L, 1L, 1L ) );
+		payload.put( CompactPathsToWebDataMapping.INDICES, asList( 1L, 1L, 1L, 2L ) );
+		payload.put( CompactPathsToWebDataMapping.ATTRIBUTES, asList( //
+				asList( 0L, 0L ), //
+				asList( 0L, 1L ), //
+				asList( 0L, 2L, 1L, 3L ), //
+				asList( 0L, 2L, 1L, 3L, 2L, 4L ) ) );
+		return payload;
+	}
+
+	private static Map<String, Object> data( final Object... keyValues ) {
+		final Map<String, Object> result = new HashMap<>();
+		for ( int i = 0; i < keyValues.length; i += 2 ) {
+			result.put( (String) keyValues[i], keyValues[i + 1] );
+		}
+		return result;
+	}
+
+}
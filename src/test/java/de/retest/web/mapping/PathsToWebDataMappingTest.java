@@ -2,7 +2,10 @@ package de.retest.web.mapping;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -23,4 +26,66 @@ class PathsToWebDataMappingTest {
 		assertThat( cut2.getRootPath() ).isEqualTo( "//html[1]/body[1]/div[1]/iframe[1]/html[1]" );
 	}
 
+	@Test
+	void subtree_should_be_replaced_in_place() {
+		final Map<String, Map<String, Object>> mapping = new LinkedHashMap<>();
+		mapping.put( "//html[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]/div[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]/div[1]/p[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]/div[10]", new HashMap<>() );
+		final Map<String, Map<String, Object>> subtree = new LinkedHashMap<>();
+		subtree.put( "/html[1]/body[1]/div[1]", new HashMap<>() );
+		subtree.put( "/html[1]/body[1]/div[1]/span[1]", new HashMap<>() );
+
+		final PathsToWebDataMapping cut =
+				new PathsToWebDataMapping( mapping ).withSubtree( new PathsToWebDataMapping( subtree ) );
+
+		final List<String> paths = new ArrayList<>();
+		cut.forEach( entry -> paths.add( entry.getKey() ) );
+		assertThat( paths ).containsExactly( "//html[1]", "//html[1]/body[1]", "//html[1]/body[1]/div[1]",
+				"//html[1]/body[1]/div[1]/span[1]", "//html[1]/body[1]/div[10]" );
+		assertThat( cut.getRootPath() ).isEqualTo( "//html[1]" );
+	}
+
+	@Test
+	void parents_should_be_resolved_by_index() {
+		final Map<String, Map<String, Object>> mapping = new LinkedHashMap<>();
+		mapping.put( "//html[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]/div[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]/div[2]", new HashMap<>() );
+
+		final PathsToWebDataMapping cut = new PathsToWebDataMapping( mapping );
+
+		assertThat( cut.getParentIndex( 0 ) ).isEqualTo( PathsToWebDataMapping.NO_PARENT );
+		assertThat( cut.getParentIndex( 1 ) ).isEqualTo( 0 );
+		assertThat( cut.getParentIndex( 2 ) ).isEqualTo( 1 );
+		assertThat( cut.getParentIndex( 3 ) ).isEqualTo( 1 );
+		assertThat( cut.getChildIndices( 1 ) ).containsExactly( 2, 3 );
+		assertThat( cut.getChildIndices( 3 ) ).isEmpty();
+	}
+
+	@Test
+	void parents_should_precede_children_regardless_of_given_order() {
+		final Map<String, Map<String, Object>> mapping = new LinkedHashMap<>();
+		mapping.put( "//html[1]/body[1]/div[1]/p[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]/div[2]", new HashMap<>() );
+		mapping.put( "//html[1]", new HashMap<>() );
+		mapping.put( "//html[1]/body[1]/div[1]", new HashMap<>() );
+
+		final PathsToWebDataMapping cut = new PathsToWebDataMapping( mapping );
+
+		final List<String> paths = new ArrayList<>();
+		cut.forEach( entry -> paths.add( entry.getKey() ) );
+		assertThat( paths ).containsExactly( "//html[1]", "//html[1]/body[1]", "//html[1]/body[1]/div[2]",
+				"//html[1]/body[1]/div[1]", "//html[1]/body[1]/div[1]/p[1]" );
+		for ( int i = 1; i < cut.size(); i++ ) {
+			assertThat( cut.getPath( cut.getParentIndex( i ) ) )
+					.isEqualTo( cut.getPath( i ).substring( 0, cut.getPath( i ).lastIndexOf( '/' ) ) );
+		}
+		assertThat( cut.getRootPath() ).isEqualTo( "//html[1]" );
+	}
+
 }
@@ -0,0 +1,91 @@
+package de.retest.web.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JsonCheckMetricsReportTest {
+
+	File report;
+	JsonCheckMetricsReport cut;
+
+	@BeforeEach
+	void setUp( @TempDir final Path temp ) {
+		report = temp.resolve( "metrics/report.json" ).toFile();
+		cut = new JsonCheckMetricsReport( report );
+	}
+
+	@Test
+	void phases_should_be_aggregated() throws IOException {
+		cut.phaseFinished( CheckPhaseEvent.screenshot( millis( 100 ), new BufferedImage( 800, 2000, 1 ) ) );
+		cut.phaseFinished( CheckPhaseEvent.conversion( millis( 10 ), 500 ) );
+		cut.phaseFinished( CheckPhaseEvent.conversion( millis( 30 ), 700 ) );
+		cut.phaseFinished( CheckPhaseEvent.deserialization( millis( 5 ), 500, 2, 10000 ) );
+
+		cut.write();
+
+		final JsonNode json = new ObjectMapper().readTree( report );
+		assertThat( json.get( "checks" ).asInt() ).isEqualTo( 2 );
+		final JsonNode conversion = json.get( "phases" ).get( "CONVERSION" );
+		assertThat( conversion.get( "count" ).asInt() ).isEqualTo( 2 );
+		assertThat( conversion.get( "totalMillis" ).asDouble() ).isEqualTo( 40.0 );
+		assertThat( conversion.get( "minMillis" ).asDouble() ).isEqualTo( 10.0 );
+		assertThat( conversion.get( "maxMillis" ).asDouble() ).isEqualTo( 30.0 );
+		assertThat( conversion.get( "meanMillis" ).asDouble() ).isEqualTo( 20.0 );
+		assertThat( conversion.get( "elements" ).asLong() ).isEqualTo( 1200 );
+		final JsonNode deserialization = json.get( "phases" ).get( "DESERIALIZATION" );
+		assertThat( deserialization.get( "frames" ).asLong() ).isEqualTo( 2 );
+		assertThat( deserialization.get( "attributeValues" ).asLong() ).isEqualTo( 10000 );
+		final JsonNode screenshot = json.get( "phases" ).get( "SCREENSHOT" );
+		assertThat( screenshot.get( "maxScreenshotWidth" ).asInt() ).isEqualTo( 800 );
+		assertThat( screenshot.get( "maxScreenshotHeight" ).asInt() ).isEqualTo( 2000 );
+		assertThat( screenshot.get( "elements" ).asLong() ).isZero();
+		assertThat( screenshot.has( "cacheHitRatio" ) ).isFalse();
+	}
+
+	@Test
+	void cache_hit_ratio_should_be_reported() throws IOException {
+		cut.phaseFinished( CheckPhaseEvent.alignment( millis( 200 ), 1000, false ) );
+		cut.phaseFinished( CheckPhaseEvent.alignment( 0, 1000, true ) );
+		cut.phaseFinished( CheckPhaseEvent.alignment( 0, 1000, true ) );
+		cut.phaseFinished( CheckPhaseEvent.alignment( 0, 1000, true ) );
+
+		cut.write();
+
+		final JsonNode alignment = new ObjectMapper().readTree( report ).get( "phases" ).get( "ALIGNMENT" );
+		assertThat( alignment.get( "count" ).asInt() ).isEqualTo( 4 );
+		assertThat( alignment.get( "cacheHits" ).asInt() ).isEqualTo( 3 );
+		assertThat( alignment.get( "cacheHitRatio" ).asDouble() ).isEqualTo( 0.75 );
+	}
+
+	@Test
+	void report_should_only_be_enabled_with_file() {
+		assertThat( cut.isEnabled() ).isTrue();
+		assertThat( new JsonCheckMetricsReport( null ).isEnabled() ).isFalse();
+	}
+
+	@Test
+	void report_should_be_discovered_but_disabled_by_default() {
+		assertThat( ServiceLoader.load( CheckMetricsListener.class ) )
+				.hasAtLeastOneElementOfType( JsonCheckMetricsReport.class );
+		assertThat( CheckMetrics.loadListeners() ).isEmpty();
+		assertThat( CheckMetrics.isEnabled() ).isFalse();
+	}
+
+	private static long millis( final long millis ) {
+		return TimeUnit.MILLISECONDS.toNanos( millis );
+	}
+
+}
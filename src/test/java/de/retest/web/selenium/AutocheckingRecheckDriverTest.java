@@ -0,0 +1,293 @@
+package de.retest.web.selenium;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.remote.RemoteWebDriver;
+
+import de.retest.recheck.RecheckOptions;
+import de.retest.recheck.persistence.SeparatePathsProjectLayout;
+import de.retest.recheck.ui.descriptors.RootElement;
+
+class AutocheckingRecheckDriverTest {
+
+	static final String URL = "https://retest.de";
+
+	RemoteWebDriver wrapped;
+	AutocheckingRecheckDriver cut;
+
+	Object fingerprint;
+	List<Thread> extractedBy;
+	List<String> lazyScreenshots;
+	List<Thread> convertedBy;
+	CountDownLatch conversion;
+	boolean failConversion;
+
+	@BeforeEach
+	void setUp( @TempDir final Path temp ) {
+		fingerprint = "fingerprint";
+		extractedBy = new CopyOnWriteArrayList<>();
+		lazyScreenshots = new CopyOnWriteArrayList<>();
+		convertedBy = new CopyOnWriteArrayList<>();
+		conversion = new CountDownLatch( 0 );
+		wrapped = mock( RemoteWebDriver.class );
+		when( wrapped.getCurrentUrl() ).thenReturn( URL );
+		when( wrapped.getTitle() ).thenReturn( "title" );
+		when( wrapped.executeScript( anyString(), any() ) ).thenAnswer( invocation -> {
+			final String script = invocation.getArgument( 0 );
+			if ( script.contains( "getPageFingerprint" ) ) {
+				return fingerprint;
+			}
+			if ( script.contains( "getFingerprint" ) ) {
+				lazyScreenshots.add( script );
+				return null;
+			}
+			if ( script.contains( "getAllElementsByPath" ) ) {
+				extractedBy.add( Thread.currentThread() );
+				return payload();
+			}
+			return null;
+		} );
+		cut = new AutocheckingRecheckDriver( wrapped, RecheckOptions.builder() //
+				.suiteName( "suite" ) //
+				.projectLayout( new SeparatePathsProjectLayout( temp.resolve( "states" ), temp.resolve( "reports" ) ) ) //
+				.build() ) {
+			@Override
+			public void setLastActualState( final RootElement lastActualState ) {
+				convertedBy.add( Thread.currentThread() );
+				await( conversion );
+				if ( failConversion ) {
+					failConversion = false;
+					throw new IllegalStateException( "Conversion failed." );
+				}
+				super.setLastActualState( lastActualState );
+			}
+		};
+	}
+
+	@AfterEach
+	void tearDown() {
+		conversion.countDown();
+		try {
+			cut.quit();
+		} catch ( final AssertionError e ) {
+			// the Golden Masters were created
+		} finally {
+			System.clearProperty( AutocheckingRecheckDriver.ASYNC_CHECKS_PROPERTY );
+			System.clearProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY );
+			System.clearProperty( "de.retest.recheck.web.lazyScreenshot" );
+		}
+	}
+
+	@Test
+	void async_check_should_capture_page_on_test_thread_and_convert_it_in_background() {
+		System.setProperty( AutocheckingRecheckDriver.ASYNC_CHECKS_PROPERTY, "true" );
+		conversion = new CountDownLatch( 1 );
+		cut.startTest( "test" );
+
+		cut.get( URL );
+
+		assertThat( extractedBy ).containsExactly( Thread.currentThread() );
+		assertThat( cut.getLastActualState() ).isNull();
+
+		conversion.countDown();
+		cut.awaitLastStates();
+
+		assertThat( convertedBy ).hasSize( 1 );
+		assertThat( convertedBy.get( 0 ) ).isNotSameAs( Thread.currentThread() );
+		assertThat( cut.getLastActualState() ).isNotNull();
+	}
+
+	@Test
+	void healing_should_await_pending_checks() throws Exception {
+		System.setProperty( AutocheckingRecheckDriver.ASYNC_CHECKS_PROPERTY, "true" );
+		conversion = new CountDownLatch( 1 );
+		cut.startTest( "test" );
+		cut.get( URL );
+		when( wrapped.findElement( any() ) ).thenThrow( new NoSuchElementException( "broken" ) );
+		final Thread release = new Thread( () -> {
+			sleep( 200 );
+			conversion.countDown();
+		} );
+		release.start();
+
+		try {
+			cut.findElement( By.id( "broken" ) );
+		} catch ( final RuntimeException e ) {
+			// nothing to heal with, as there is no Golden Master
+		}
+
+		// the last states are up to date without waiting any further
+		assertThat( cut.getLastActualState() ).isNotNull();
+		release.join();
+	}
+
+	@Test
+	void check_should_not_be_skipped_if_previous_check_failed_in_background() {
+		System.setProperty( AutocheckingRecheckDriver.ASYNC_CHECKS_PROPERTY, "true" );
+		System.setProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY, "true" );
+		failConversion = true;
+		cut.startTest( "test" );
+
+		cut.get( URL );
+		assertThatThrownBy( cut::awaitLastStates ).hasStackTraceContaining( "Conversion failed." );
+		cut.get( URL );
+		cut.awaitLastStates();
+
+		assertThat( cut.getSkippedChecks() ).isZero();
+		assertThat( extractedBy ).hasSize( 2 );
+		assertThat( cut.getLastActualState() ).isNotNull();
+	}
+
+	@Test
+	void unchanged_page_should_not_be_extracted_again() {
+		System.setProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY, "true" );
+		cut.startTest( "test" );
+
+		cut.get( URL );
+		final RootElement checked = cut.getLastActualState();
+		cut.get( URL );
+
+		assertThat( cut.getSkippedChecks() ).isEqualTo( 1 );
+		assertThat( extractedBy ).hasSize( 1 );
+		assertThat( cut.getLastActualState() ).isSameAs( checked );
+	}
+
+	@Test
+	void changed_page_should_be_extracted_again() {
+		System.setProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY, "true" );
+		cut.startTest( "test" );
+
+		cut.get( URL );
+		fingerprint = "changed";
+		cut.get( URL );
+
+		assertThat( cut.getSkippedChecks() ).isZero();
+		assertThat( extractedBy ).hasSize( 2 );
+	}
+
+	@Test
+	void redundant_checks_should_not_be_skipped_by_default() {
+		cut.startTest( "test" );
+
+		cut.get( URL );
+		cut.get( URL );
+
+		assertThat( cut.getSkippedChecks() ).isZero();
+		assertThat( extractedBy ).hasSize( 2 );
+	}
+
+	@Test
+	void page_with_frames_should_always_be_extracted() {
+		System.setProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY, "true" );
+		// the fingerprint script returns null for pages with frames
+		fingerprint = null;
+		cut.startTest( "test" );
+
+		cut.get( URL );
+		cut.get( URL );
+
+		assertThat( cut.getSkippedChecks() ).isZero();
+		assertThat( extractedBy ).hasSize( 2 );
+	}
+
+	@Test
+	void skipped_checks_should_be_reset_when_starting_test() {
+		System.setProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY, "true" );
+		cut.startTest( "test" );
+		cut.get( URL );
+		cut.get( URL );
+		assertThat( cut.getSkippedChecks() ).isEqualTo( 1 );
+
+		cut.startTest( "other" );
+		assertThat( cut.getSkippedChecks() ).isZero();
+		cut.get( URL );
+
+		// the first check of a test is never skipped
+		assertThat( cut.getSkippedChecks() ).isZero();
+		assertThat( extractedBy ).hasSize( 2 );
+	}
+
+	@Test
+	void unchanged_page_should_be_skipped_after_async_check_succeeded() {
+		System.setProperty( AutocheckingRecheckDriver.ASYNC_CHECKS_PROPERTY, "true" );
+		System.setProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY, "true" );
+		cut.startTest( "test" );
+
+		cut.get( URL );
+		cut.awaitLastStates();
+		cut.get( URL );
+		cut.awaitLastStates();
+
+		assertThat( cut.getSkippedChecks() ).isEqualTo( 1 );
+		assertThat( extractedBy ).hasSize( 1 );
+	}
+
+	@Test
+	void lazy_screenshot_should_be_prepared_for_reused_state() {
+		System.setProperty( AutocheckingRecheckDriver.SKIP_REDUNDANT_CHECKS_PROPERTY, "true" );
+		System.setProperty( "de.retest.recheck.web.lazyScreenshot", "true" );
+		cut.startTest( "test" );
+
+		cut.get( URL );
+		cut.get( URL );
+
+		assertThat( cut.getSkippedChecks() ).isEqualTo( 1 );
+		// the screenshot of the first check was never taken, so it is prepared again for the reused state
+		assertThat( cut.getLastActualState().getScreenshot() ).isNull();
+		assertThat( lazyScreenshots ).hasSize( 2 );
+	}
+
+	private static Map<String, Object> payload() {
+		final Map<String, Object> document = new HashMap<>();
+		document.put( "//html[1]", webData( "html" ) );
+		document.put( "//html[1]/body[1]", webData( "body" ) );
+		return Collections.singletonMap( "document", document );
+	}
+
+	private static Map<String, Object> webData( final String tagName ) {
+		final Map<String, Object> result = new HashMap<>();
+		result.put( "tagName", tagName );
+		result.put( "x", "10" );
+		result.put( "y", "10" );
+		result.put( "height", "100" );
+		result.put( "width", "100" );
+		return result;
+	}
+
+	private static void await( final CountDownLatch latch ) {
+		try {
+			latch.await( 5, TimeUnit.SECONDS );
+		} catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep( final long millis ) {
+		try {
+			Thread.sleep( millis );
+		} catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
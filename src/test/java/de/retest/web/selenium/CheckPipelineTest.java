@@ -0,0 +1,89 @@
+package de.retest.web.selenium;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CheckPipelineTest {
+
+	CheckPipeline cut;
+
+	@BeforeEach
+	void setUp() {
+		cut = new CheckPipeline( 1 );
+	}
+
+	@AfterEach
+	void tearDown() {
+		cut.close();
+	}
+
+	@Test
+	void checks_should_be_executed_in_order() throws Exception {
+		final List<Integer> executed = new CopyOnWriteArrayList<>();
+		for ( int i = 0; i < 5; i++ ) {
+			final int check = i;
+			cut.submit( () -> executed.add( check ) );
+		}
+
+		cut.await();
+
+		assertThat( executed ).containsExactly( 0, 1, 2, 3, 4 );
+	}
+
+	@Test
+	void submit_should_block_while_pipeline_is_full() throws Exception {
+		final CountDownLatch release = new CountDownLatch( 1 );
+		cut.submit( () -> await( release ) );
+		final AtomicBoolean submitted = new AtomicBoolean();
+		final Thread submitter = new Thread( () -> {
+			cut.submit( () -> {} );
+			submitted.set( true );
+		} );
+		submitter.start();
+
+		submitter.join( 200 );
+		assertThat( submitted ).isFalse();
+
+		release.countDown();
+		submitter.join( 5000 );
+		assertThat( submitted ).isTrue();
+	}
+
+	@Test
+	void failures_should_be_thrown_when_awaiting() throws Exception {
+		final List<Integer> executed = new CopyOnWriteArrayList<>();
+		cut.submit( () -> {
+			throw new IllegalStateException( "first" );
+		} );
+		cut.submit( () -> executed.add( 1 ) );
+
+		assertThatThrownBy( cut::await ).isInstanceOf( IllegalStateException.class ).hasMessage( "first" );
+		assertThat( executed ).containsExactly( 1 );
+		// the failure is only thrown once
+		cut.await();
+	}
+
+	@Test
+	void capacity_should_be_positive() throws Exception {
+		assertThatThrownBy( () -> new CheckPipeline( 0 ) ).isInstanceOf( IllegalArgumentException.class );
+	}
+
+	private static void await( final CountDownLatch latch ) {
+		try {
+			latch.await( 5, TimeUnit.SECONDS );
+		} catch ( final InterruptedException e ) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
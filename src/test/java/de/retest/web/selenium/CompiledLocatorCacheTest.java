@@ -0,0 +1,61 @@
+package de.retest.web.selenium;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledLocatorCacheTest {
+
+	List<String> compiled;
+	CompiledLocatorCache<String> cut;
+
+	@BeforeEach
+	void setUp() {
+		compiled = new CopyOnWriteArrayList<>();
+		cut = new CompiledLocatorCache<>( 2, string -> {
+			compiled.add( string );
+			if ( string.isEmpty() ) {
+				throw new IllegalArgumentException( "Empty locator." );
+			}
+			return string.toUpperCase();
+		} );
+	}
+
+	@Test
+	void compiled_locators_should_be_cached() throws Exception {
+		assertThat( cut.compile( "a" ) ).isEqualTo( "A" );
+		assertThat( cut.compile( "a" ) ).isEqualTo( "A" );
+
+		assertThat( compiled ).containsExactly( "a" );
+	}
+
+	@Test
+	void failures_should_be_cached() throws Exception {
+		final Throwable first = catchThrowable( () -> cut.compile( "" ) );
+		final Throwable second = catchThrowable( () -> cut.compile( "" ) );
+
+		assertThat( first ).isInstanceOf( IllegalArgumentException.class ).hasMessage( "Empty locator." );
+		assertThat( second ).isSameAs( first );
+		assertThat( compiled ).containsExactly( "" );
+	}
+
+	@Test
+	void least_recently_used_locators_should_be_evicted() throws Exception {
+		cut.compile( "a" );
+		cut.compile( "b" );
+		cut.compile( "a" );
+		cut.compile( "c" );
+
+		assertThat( cut.size() ).isEqualTo( 2 );
+		cut.compile( "a" );
+		cut.compile( "b" );
+
+		assertThat( compiled ).containsExactly( "a", "b", "c", "b" );
+	}
+
+}
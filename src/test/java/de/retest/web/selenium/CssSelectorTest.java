@@ -0,0 +1,150 @@
+package de.retest.web.selenium;
+
+import static de.retest.web.testutils.ElementFactory.element;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.web.selenium.CssSelector.UnsupportedSelectorException;
+
+class CssSelectorTest {
+
+	ElementIndex index;
+
+	@BeforeEach
+	void setUp() {
+		final RootElement html = new RootElement( "html",
+				IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" ), new MutableAttributes().immutable(),
+				null, "screen", 1, "title" );
+		final Element body = element( html, "body", "html[1]/body[1]", "body" );
+		final Element div = element( body, "div", "html[1]/body[1]/div[1]", "div", "id", "main", "class", "menu open" );
+		final Element link = element( div, "link", "html[1]/body[1]/div[1]/a[1]", "a", "class", "btn", "href",
+				"https://retest.de/manual.pdf", "lang", "en-US" );
+		final Element span = element( div, "span", "html[1]/body[1]/div[1]/span[1]", "span" );
+		final Element button = element( div, "button", "html[1]/body[1]/div[1]/a[2]", "a", "class", "btn primary",
+				"data-id", "Submit" );
+		div.addChildren( link, span, button );
+		final Element list = element( body, "list", "html[1]/body[1]/ul[1]", "ul" );
+		final List<Element> items = new ArrayList<>();
+		for ( int i = 1; i <= 5; i++ ) {
+			items.add( element( list, "li" + i, "html[1]/body[1]/ul[1]/li[" + i + "]", "li", "class",
+					i == 3 ? "item important" : "item" ) );
+		}
+		list.addChildren( items );
+		final Element paragraph = element( body, "p", "html[1]/body[1]/p[1]", "P", "id", "123" );
+		body.addChildren( div, list, paragraph );
+		html.addChildren( body );
+		index = ElementIndex.of( html );
+	}
+
+	@Test
+	void combinators_should_match() throws Exception {
+		assertThat( find( "#main > a" ) ).isEqualTo( "link" );
+		assertThat( find( "body a.primary" ) ).isEqualTo( "button" );
+		assertThat( find( "html body > div a" ) ).isEqualTo( "link" );
+		assertThat( find( "span + a" ) ).isEqualTo( "button" );
+		assertThat( find( "a ~ span" ) ).isEqualTo( "span" );
+		assertThat( find( "span+a" ) ).isEqualTo( "button" );
+		assertThat( find( "ul > a" ) ).isNull();
+		assertThat( find( "span ~ span" ) ).isNull();
+	}
+
+	@Test
+	void attribute_selectors_should_match() throws Exception {
+		assertThat( find( "[href$=\".pdf\"]" ) ).isEqualTo( "link" );
+		assertThat( find( "[href^=https]" ) ).isEqualTo( "link" );
+		assertThat( find( "[href*='retest']" ) ).isEqualTo( "link" );
+		assertThat( find( "[lang|=en]" ) ).isEqualTo( "link" );
+		assertThat( find( "[class~=primary]" ) ).isEqualTo( "button" );
+		assertThat( find( "a[data-id=submit i]" ) ).isEqualTo( "button" );
+		assertThat( find( "a[data-id=submit]" ) ).isNull();
+		assertThat( find( "[ data-id ]" ) ).isEqualTo( "button" );
+		assertThat( find( "[href^=\"\"]" ) ).isNull();
+	}
+
+	@Test
+	void structural_pseudo_classes_should_match() throws Exception {
+		assertThat( findAll( "li:nth-child(odd)" ) ).containsExactly( "li1", "li3", "li5" );
+		assertThat( findAll( "li:nth-child( 2n + 2 )" ) ).containsExactly( "li2", "li4" );
+		assertThat( findAll( "li:nth-child(-n+2)" ) ).containsExactly( "li1", "li2" );
+		assertThat( findAll( "li:nth-last-child(2)" ) ).containsExactly( "li4" );
+		assertThat( findAll( "li:first-child, li:last-child" ) ).containsExactly( "li1", "li5" );
+		assertThat( findAll( "a:first-of-type" ) ).containsExactly( "link" );
+		assertThat( findAll( "a:nth-of-type(2)" ) ).containsExactly( "button" );
+		assertThat( findAll( "a:nth-last-of-type(1)" ) ).containsExactly( "button" );
+		assertThat( findAll( "span:only-of-type" ) ).containsExactly( "span" );
+		assertThat( findAll( ":root > *" ) ).containsExactly( "body" );
+		assertThat( findAll( "body > :only-child" ) ).isEmpty();
+		assertThat( findAll( "p:empty" ) ).containsExactly( "p" );
+	}
+
+	@Test
+	void logical_pseudo_classes_should_match() throws Exception {
+		assertThat( findAll( ".item:not(.important)" ) ).containsExactly( "li1", "li2", "li4", "li5" );
+		assertThat( findAll( "li:not(:first-child):not(:last-child)" ) ).containsExactly( "li2", "li3", "li4" );
+		assertThat( findAll( ":is(span, p)" ) ).containsExactly( "span", "p" );
+		assertThat( findAll( "div :where(.primary)" ) ).containsExactly( "button" );
+	}
+
+	@Test
+	void selector_lists_should_return_first_match_in_document_order() throws Exception {
+		assertThat( find( "p, span" ) ).isEqualTo( "span" );
+		assertThat( find( "*" ) ).isEqualTo( "body" );
+	}
+
+	@Test
+	void tags_should_match_ignoring_case_and_escapes_should_be_resolved() throws Exception {
+		assertThat( find( "p" ) ).isEqualTo( "p" );
+		assertThat( find( "DIV#main" ) ).isEqualTo( "div" );
+		assertThat( find( "#\\31 23" ) ).isEqualTo( "p" );
+	}
+
+	@Test
+	void compiled_selectors_should_be_cached() throws Exception {
+		assertThat( CssSelector.compile( "div > a.btn" ) ).isSameAs( CssSelector.compile( "div > a.btn" ) );
+	}
+
+	@Test
+	void unsupported_selectors_should_be_rejected() throws Exception {
+		assertUnsupported( "", "" );
+		assertUnsupported( "div >", "" );
+		assertUnsupported( "a:hover", ":hover" );
+		assertUnsupported( "a::before", "::before" );
+		assertUnsupported( "a[href", "[href" );
+		assertUnsupported( "a[href=\"x]", "\"x]" );
+		assertUnsupported( "li:nth-child(n of a)", ":nth-child(n of a)" );
+		assertUnsupported( "div, ", "" );
+	}
+
+	private void assertUnsupported( final String selector, final String unsupported ) {
+		assertThatThrownBy( () -> CssSelector.compile( selector ) ) //
+				.isInstanceOf( UnsupportedSelectorException.class ) //
+				.extracting( e -> ((UnsupportedSelectorException) e).getUnsupported() ) //
+				.isEqualTo( unsupported );
+	}
+
+	private String find( final String selector ) {
+		final Element found = CssSelector.compile( selector ).findFirst( index );
+		return found != null ? found.getRetestId() : null;
+	}
+
+	private List<String> findAll( final String selector ) {
+		final CssSelector compiled = CssSelector.compile( selector );
+		return index.getElements().stream() //
+				.filter( element -> compiled.matches( element, index ) ) //
+				.map( Element::getRetestId ) //
+				.collect( Collectors.toList() );
+	}
+
+}
@@ -0,0 +1,73 @@
+package de.retest.web.selenium;
+
+import static de.retest.web.testutils.ElementFactory.element;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.Attributes;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+
+class ElementIndexTest {
+
+	RootElement state;
+	Element body;
+	Element first;
+	Element nested;
+	Element second;
+
+	@BeforeEach
+	void setUp() {
+		state = new RootElement( "html", IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" ),
+				new Attributes(), null, "screen", 1, "title" );
+		body = element( state, "body", "html[1]/body[1]", "body" );
+		first = element( body, "first", "html[1]/body[1]/div[1]", "div", "id", "main", "class", "box primary" );
+		nested = element( first, "nested", "html[1]/body[1]/div[1]/a[1]", "a", "id", "link", "class", "button" );
+		second = element( body, "second", "html[1]/body[1]/div[2]", "div", "id", "main", "class", "box" );
+		first.addChildren( nested );
+		body.addChildren( first, second );
+		state.addChildren( body );
+	}
+
+	@Test
+	void lookups_should_return_elements_in_document_order() throws Exception {
+		final ElementIndex cut = ElementIndex.of( state );
+
+		assertThat( cut.size() ).isEqualTo( 4 );
+		assertThat( cut.getElements() ).containsExactly( body, first, nested, second );
+		assertThat( cut.findByRetestId( "nested" ) ).isSameAs( nested );
+		assertThat( cut.findById( "main" ) ).containsExactly( first, second );
+		assertThat( cut.findByClass( "box" ) ).containsExactly( first, second );
+		assertThat( cut.findByClass( "primary" ) ).containsExactly( first );
+		assertThat( cut.findByTag( "div" ) ).containsExactly( first, second );
+		assertThat( cut.findByPath( "HTML[1]/BODY[1]/DIV[2]" ) ).isSameAs( second );
+		assertThat( cut.findFirst( element -> element.getContainedElements().isEmpty() ) ).isSameAs( nested );
+	}
+
+	@Test
+	void missing_keys_should_not_be_found() throws Exception {
+		final ElementIndex cut = ElementIndex.of( state );
+
+		assertThat( cut.findByRetestId( "html" ) ).isNull();
+		assertThat( cut.findById( "missing" ) ).isEmpty();
+		assertThat( cut.findByName( null ) ).isEmpty();
+		assertThat( cut.findByClass( "bo" ) ).isEmpty();
+		assertThat( cut.findByPath( "html[1]/body[1]/div[3]" ) ).isNull();
+	}
+
+	@Test
+	void find_identical_should_only_return_unique_subtrees() throws Exception {
+		second.addChildren(
+				element( second, "nested", "html[1]/body[1]/div[1]/a[1]", "a", "id", "link", "class", "button" ) );
+		final ElementIndex cut = ElementIndex.of( state );
+
+		assertThat( cut.findIdentical( first ) ).isSameAs( first );
+		assertThat( cut.findIdentical( state ) ).isSameAs( state );
+		assertThat( cut.findIdentical( nested ) ).isNull();
+	}
+
+}
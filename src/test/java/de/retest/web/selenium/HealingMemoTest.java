@@ -0,0 +1,101 @@
+package de.retest.web.selenium;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.By;
+
+import de.retest.recheck.ui.descriptors.Attributes;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+
+class HealingMemoTest {
+
+	File goldenMaster;
+	Element healed;
+
+	@BeforeEach
+	void setUp( @TempDir final Path temp ) {
+		goldenMaster = temp.resolve( "check.recheck" ).toFile();
+		goldenMaster.mkdirs();
+		final RootElement state = new RootElement( "html",
+				IdentifyingAttributes.create( de.retest.recheck.ui.Path.fromString( "html[1]" ), "html" ),
+				new Attributes(), null, "screen", 1, "title" );
+		healed = Element.create( "button", state,
+				IdentifyingAttributes.create( de.retest.recheck.ui.Path.fromString( "html[1]/button[1]" ), "button" ),
+				new Attributes() );
+	}
+
+	@Test
+	void remembered_locators_should_be_persisted() {
+		final HealingMemo cut = HealingMemo.load( goldenMaster, "hash" );
+		assertThat( cut.getPath( By.id( "old" ) ) ).isNull();
+
+		cut.put( By.id( "old" ), healed );
+
+		final HealingMemo reloaded = HealingMemo.load( goldenMaster, "hash" );
+		assertThat( reloaded.getPath( By.id( "old" ) ) ).isEqualTo( "html[1]/button[1]" );
+		assertThat( reloaded.getRetestId( By.id( "old" ) ) ).isEqualTo( "button" );
+		assertThat( reloaded.getPath( By.name( "old" ) ) ).isNull();
+	}
+
+	@Test
+	void golden_master_should_only_be_hashed_once_memo_is_used() {
+		final AtomicInteger hashed = new AtomicInteger();
+		final Supplier<String> hash = () -> {
+			hashed.incrementAndGet();
+			return "hash";
+		};
+
+		final HealingMemo empty = HealingMemo.load( goldenMaster, hash );
+		assertThat( empty.getPath( By.id( "old" ) ) ).isNull();
+		assertThat( hashed ).hasValue( 0 );
+		empty.put( By.id( "old" ), healed );
+		assertThat( hashed ).hasValue( 1 );
+
+		final HealingMemo cut = HealingMemo.load( goldenMaster, hash );
+		assertThat( hashed ).hasValue( 1 );
+		assertThat( cut.getPath( By.id( "old" ) ) ).isEqualTo( "html[1]/button[1]" );
+		assertThat( cut.getRetestId( By.id( "old" ) ) ).isEqualTo( "button" );
+		assertThat( hashed ).hasValue( 2 );
+	}
+
+	@Test
+	void changed_golden_master_should_invalidate_memo() {
+		HealingMemo.load( goldenMaster, "hash" ).put( By.id( "old" ), healed );
+
+		assertThat( HealingMemo.load( goldenMaster, "changed" ).getPath( By.id( "old" ) ) ).isNull();
+	}
+
+	@Test
+	void removed_locators_should_be_forgotten() {
+		final HealingMemo cut = HealingMemo.load( goldenMaster, "hash" );
+		cut.put( By.id( "old" ), healed );
+		cut.put( By.cssSelector( "#old > a" ), healed );
+
+		cut.remove( By.id( "old" ) );
+
+		final HealingMemo reloaded = HealingMemo.load( goldenMaster, "hash" );
+		assertThat( reloaded.getPath( By.id( "old" ) ) ).isNull();
+		assertThat( reloaded.getRetestId( By.id( "old" ) ) ).isNull();
+		assertThat( reloaded.getPath( By.cssSelector( "#old > a" ) ) ).isEqualTo( "html[1]/button[1]" );
+	}
+
+	@Test
+	void missing_golden_master_should_not_write_memo() {
+		final File missing = new File( goldenMaster.getParentFile(), "missing.recheck" );
+
+		HealingMemo.load( missing, "hash" ).put( By.id( "old" ), healed );
+
+		assertThat( missing ).doesNotExist();
+	}
+
+}
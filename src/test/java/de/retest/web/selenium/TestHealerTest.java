@@ -6,11 +6,12 @@ import static de.retest.web.AttributesUtil.ID;
 import static de.retest.web.AttributesUtil.NAME;
 import static de.retest.web.AttributesUtil.TEXT;
 import static de.retest.web.selenium.TestHealer.findElement;
-import static de.retest.web.selenium.TestHealer.isNotYetSupportedXPathExpression;
+import static de.retest.web.selenium.TestHealer.findElements;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -18,6 +19,7 @@ import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openqa.selenium.By;
+import org.openqa.selenium.support.pagefactory.ByChained;
 import org.slf4j.LoggerFactory;
 
 import ch.qos.logback.classic.Logger;
@@ -45,6 +47,9 @@ class TestHealerTest {
 		state = mock( RootElement.class );
 		when( wrapped.getLastExpectedState() ).thenReturn( state );
 		when( wrapped.getLastActualState() ).thenReturn( state );
+		// The tests stub the contained elements of the state afterwards.
+		when( wrapped.getLastExpectedIndex() ).thenAnswer( invocation -> ElementIndex.of( state ) );
+		when( wrapped.getLastActualIndex() ).thenAnswer( invocation -> ElementIndex.of( state ) );
 	}
 
 	@Test
@@ -122,7 +127,8 @@ class TestHealerTest {
 
 		assertThat( findElement( By.cssSelector( ".pure-button" ), wrapped ) ).isEqualTo( resultMarker );
 		assertThat( findElement( By.cssSelector( ".pure-button.my-button" ), wrapped ) ).isEqualTo( resultMarker );
-		assertThat( findElement( By.cssSelector( ".pure-button .my-button" ), wrapped ) ).isEqualTo( resultMarker );
+		// Descendant combinator, but the element has no ancestor with the class.
+		assertThat( findElement( By.cssSelector( ".pure-button .my-button" ), wrapped ) ).isNull();
 
 		assertThat( findElement( By.cssSelector( ".special-class" ), wrapped ) ).isEqualTo( null );
 		assertThat( findElement( By.cssSelector( ".pure-button.special-class" ), wrapped ) ).isEqualTo( null );
@@ -148,56 +154,65 @@ class TestHealerTest {
 		((Logger) LoggerFactory.getLogger( TestHealer.class )).addAppender( listAppender );
 		final List<ILoggingEvent> logsList = listAppender.list;
 
-		assertThat( findElement( By.cssSelector( ".open > .dropdown-toggle.btn-primary" ), wrapped ) ).isNull();
+		assertThat( findElement( By.cssSelector( "a:hover" ), wrapped ) ).isNull();
 		assertThat( logsList.get( 0 ).getMessage() )
 				.startsWith( "Unbreakable tests are not implemented for all CSS selectors." );
-		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( "> .dropdown-toggle.btn-primary" );
+		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( ":hover" );
 		logsList.clear();
 
-		assertThat( findElement( By.cssSelector( ".btn:not(:first-child):not(:last-child)" ), wrapped ) ).isNull();
-		assertThat( logsList.get( 0 ).getMessage() )
-				.startsWith( "Unbreakable tests are not implemented for all CSS selectors." );
-		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( ":not(:first-child):not(:last-child)" );
+		assertThat( findElement( By.cssSelector( "p::first-line" ), wrapped ) ).isNull();
+		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( "::first-line" );
 		logsList.clear();
 
-		assertThat( findElement( By.cssSelector( ".input-group[class*=\"col-\"]" ), wrapped ) ).isNull();
-		assertThat( logsList.get( 0 ).getMessage() )
-				.startsWith( "Unbreakable tests are not implemented for all CSS selectors." );
-		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( "[class*=\"col-\"]" );
+		assertThat( findElement( By.cssSelector( "li:nth-child(2 of .important)" ), wrapped ) ).isNull();
+		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( ":nth-child(2 of .important)" );
 		logsList.clear();
 
-		assertThat( findElement( By.cssSelector( "div~p" ), wrapped ) ).isNull();
-		assertThat( logsList.get( 0 ).getMessage() )
-				.startsWith( "Unbreakable tests are not implemented for all CSS selectors." );
-		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( "~p" );
+		assertThat( findElement( By.cssSelector( "svg|rect" ), wrapped ) ).isNull();
+		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( "|rect" );
 		logsList.clear();
+	}
 
-		assertThat( findElement( By.cssSelector( "[href*=\"w3schools\"]" ), wrapped ) ).isNull();
-		assertThat( logsList.get( 0 ).getMessage() )
-				.startsWith( "Unbreakable tests are not implemented for all CSS selectors." );
-		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( "[href*=\"w3schools\"]" );
-		logsList.clear();
+	@Test
+	public void ByCssSelector_with_combinators_should_redirect() {
+		final String xpath = "HTML[1]/DIV[1]/A[2]";
+		final Element parent = create( "parent", state,
+				new IdentifyingAttributes( withClass( "HTML[1]/DIV[1]", "DIV", "open" ) ),
+				new MutableAttributes().immutable() );
+		final Element sibling = create( "sibling", parent,
+				new IdentifyingAttributes( withClass( "HTML[1]/DIV[1]/A[1]", "A", "btn" ) ),
+				new MutableAttributes().immutable() );
+		final Element element = create( ID, parent,
+				new IdentifyingAttributes( withClass( xpath, "A", "dropdown-toggle btn btn-primary" ) ),
+				new MutableAttributes().immutable() );
+		parent.addChildren( sibling, element );
+		when( state.getContainedElements() ).thenReturn( Collections.singletonList( parent ) );
+		when( wrapped.findElement( By.xpath( xpath ) ) ).thenReturn( resultMarker );
 
-		assertThat( findElement( By.cssSelector( "div,p" ), wrapped ) ).isNull();
-		assertThat( logsList.get( 0 ).getMessage() )
-				.startsWith( "Unbreakable tests are not implemented for all CSS selectors." );
-		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( ",p" );
-		logsList.clear();
+		assertThat( findElement( By.cssSelector( ".open > .dropdown-toggle.btn-primary" ), wrapped ) )
+				.isEqualTo( resultMarker );
+		assertThat( findElement( By.cssSelector( ".btn:not(:first-child)" ), wrapped ) ).isEqualTo( resultMarker );
+		assertThat( findElement( By.cssSelector( "a.btn + a" ), wrapped ) ).isEqualTo( resultMarker );
+		assertThat( findElement( By.cssSelector( "div a:nth-child(2n)" ), wrapped ) ).isEqualTo( resultMarker );
+		assertThat( findElement( By.cssSelector( "[class*=\"toggle\"]" ), wrapped ) ).isEqualTo( resultMarker );
+	}
 
-		// TODO
-		// [attribute~=value]	[title~=flower]			Selects all elements with a title attribute containing the word "flower"
-		// [attribute|=value]	[lang|=en]				Selects all elements with a lang attribute value starting with "en"
-		// [attribute^=value]	a[href^="https"]		Selects every element whose href attribute value begins with "https"
-		// [attribute$=value]	a[href$=".pdf"]			Selects every element whose href attribute value ends with ".pdf"
-		// [attribute*=value]	a[href*="w3schools"]	Selects every element whose href attribute value contains the substring "w3schools"
+	private static Collection<Attribute> withClass( final String xpath, final String tag, final String cssClass ) {
+		final Collection<Attribute> identifying = IdentifyingAttributes.createList( fromString( xpath ), tag );
+		identifying.add( new StringAttribute( "class", cssClass ) );
+		return identifying;
 	}
 
 	@Test
 	public void ByXPathExpression_matches_elements_with_given_xpath() {
 		final String xpath = "HTML[1]/DIV[3]/DIV[3]/DIV[3]/DIV[2]";
-		final IdentifyingAttributes identifying = IdentifyingAttributes.create( fromString( xpath ), "DIV" );
-		final Element element = create( ID, state, identifying, new Attributes() );
-		when( state.getContainedElements() ).thenReturn( Collections.singletonList( element ) );
+		final Element first = div( state, "first", "HTML[1]/DIV[3]" );
+		final Element second = div( first, "second", "HTML[1]/DIV[3]/DIV[3]" );
+		final Element third = div( second, "third", "HTML[1]/DIV[3]/DIV[3]/DIV[3]" );
+		final Element element = create( ID, third, IdentifyingAttributes.create( fromString( xpath ), "DIV" ),
+				new Attributes() );
+		third.addChildren( element );
+		when( state.getContainedElements() ).thenReturn( Collections.singletonList( first ) );
 		when( wrapped.findElement( By.xpath( xpath ) ) ).thenReturn( resultMarker );
 
 		assertThat( findElement( By.xpath( "//div[3]/div[3]/div[3]/div[2]" ), wrapped ) ).isEqualTo( resultMarker );
@@ -206,6 +221,40 @@ class TestHealerTest {
 		assertThat( findElement( By.xpath( "//div[1]" ), wrapped ) ).isEqualTo( null );
 	}
 
+	private static Element div( final Element parent, final String retestId, final String xpath ) {
+		final Element div = create( retestId, parent, IdentifyingAttributes.create( fromString( xpath ), "DIV" ),
+				new Attributes() );
+		parent.addChildren( div );
+		return div;
+	}
+
+	@Test
+	public void ByXPathExpression_with_predicates_should_redirect() {
+		final String xpath = "HTML[1]/DIV[1]/BUTTON[2]";
+		final Collection<Attribute> parentCrit = IdentifyingAttributes.createList( fromString( "HTML[1]/DIV[1]" ), "DIV" );
+		parentCrit.add( new StringAttribute( ID, "mw-content-text" ) );
+		final Element parent = create( "parent", state, new IdentifyingAttributes( parentCrit ),
+				new MutableAttributes().immutable() );
+		final Element sibling = create( "sibling", parent,
+				IdentifyingAttributes.create( fromString( "HTML[1]/DIV[1]/BUTTON[1]" ), "BUTTON" ),
+				new MutableAttributes().immutable() );
+		final Collection<Attribute> identCrit = IdentifyingAttributes.createList( fromString( xpath ), "BUTTON" );
+		identCrit.add( new StringAttribute( TEXT, "Search" ) );
+		final Element element =
+				create( ID, parent, new IdentifyingAttributes( identCrit ), new MutableAttributes().immutable() );
+		parent.addChildren( sibling, element );
+		when( state.getContainedElements() ).thenReturn( Collections.singletonList( parent ) );
+		when( wrapped.findElement( By.xpath( xpath ) ) ).thenReturn( resultMarker );
+
+		assertThat( findElement( By.xpath( "//div[@id='mw-content-text']/button[2]" ), wrapped ) )
+				.isEqualTo( resultMarker );
+		assertThat( findElement( By.xpath( "//button[contains(.,'Search')]" ), wrapped ) ).isEqualTo( resultMarker );
+		assertThat( findElement( By.xpath( "//*[text()='Search']" ), wrapped ) ).isEqualTo( resultMarker );
+		assertThat( findElement( By.xpath( "(//button)[last()]" ), wrapped ) ).isEqualTo( resultMarker );
+		assertThat( findElement( By.xpath( "//button[1]/following-sibling::button" ), wrapped ) )
+				.isEqualTo( resultMarker );
+	}
+
 	@Test
 	public void ByLinkText_should_find_element() {
 		final String xpath = "html[1]/a[1]";
@@ -246,6 +295,29 @@ class TestHealerTest {
 		assertThat( findElement( By.className( "myOther" ), wrapped ) ).isEqualTo( resultMarker );
 	}
 
+	@Test
+	public void ByClassName_should_find_all_elements() {
+		final Element first = create( "first", state, classified( "html[1]/a[1]", "a", "myClass" ),
+				new MutableAttributes().immutable() );
+		final Element other = create( "other", state, classified( "html[1]/div[1]", "div", "other" ),
+				new MutableAttributes().immutable() );
+		final Element second = create( "second", state, classified( "html[1]/a[2]", "a", "myClass myOther" ),
+				new MutableAttributes().immutable() );
+		when( state.getContainedElements() ).thenReturn( Arrays.asList( first, other, second ) );
+		when( wrapped.findElementsByPath( Arrays.asList( "html[1]/a[1]", "html[1]/a[2]" ) ) )
+				.thenReturn( Arrays.asList( resultMarker, null ) );
+
+		assertThat( findElements( By.className( "myClass" ), wrapped ) ).containsExactly( resultMarker );
+		assertThat( findElements( By.className( "missing" ), wrapped ) ).isEmpty();
+	}
+
+	@Test
+	public void unsupported_locators_should_not_find_all_elements() {
+		when( state.getContainedElements() ).thenReturn( Collections.emptyList() );
+
+		assertThat( findElements( new ByChained( By.id( "a" ), By.id( "b" ) ), wrapped ) ).isEmpty();
+	}
+
 	@Test
 	public void ByTagName_should_find_element() {
 		final String xpath = "html[1]/a[1]";
@@ -286,7 +358,27 @@ class TestHealerTest {
 
 	@Test
 	public void not_yet_implemented_ByXPathExpression_should_log_warning() {
-		assertThat( isNotYetSupportedXPathExpression( "//div[@id='mw-content-text']/div[2]" ) ).isTrue();
-		assertThat( isNotYetSupportedXPathExpression( "//button[contains(.,'Search')]" ) ).isTrue();
+		final ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+		listAppender.start();
+		((Logger) LoggerFactory.getLogger( TestHealer.class )).addAppender( listAppender );
+		final List<ILoggingEvent> logsList = listAppender.list;
+
+		assertThat( findElement( By.xpath( "//a/following::div" ), wrapped ) ).isNull();
+		assertThat( logsList.get( 0 ).getMessage() )
+				.startsWith( "Unbreakable tests are not implemented for all XPath selectors." );
+		assertThat( logsList.get( 0 ).getArgumentArray()[0] ).isEqualTo( "//a/following::div" );
+		logsList.clear();
+
+		assertThat( findElement( By.xpath( "//svg:rect" ), wrapped ) ).isNull();
+		assertThat( logsList.get( 0 ).getMessage() )
+				.startsWith( "Unbreakable tests are not implemented for all XPath selectors." );
+		logsList.clear();
 	}
+
+	private static IdentifyingAttributes classified( final String xpath, final String tag, final String classes ) {
+		final Collection<Attribute> identCrit = IdentifyingAttributes.createList( fromString( xpath ), tag );
+		identCrit.add( new StringAttribute( AttributesUtil.CLASS, classes ) );
+		return new IdentifyingAttributes( identCrit );
+	}
+
 }
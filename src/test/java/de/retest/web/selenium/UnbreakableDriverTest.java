@@ -1,14 +1,33 @@
 package de.retest.web.selenium;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.junit.jupiter.api.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebElement;
 import org.openqa.selenium.WrapsDriver;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.Attributes;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.recheck.ui.diff.Alignment;
+
 class UnbreakableDriverTest {
 
 	@Test
@@ -28,4 +47,161 @@ class UnbreakableDriverTest {
 		assertThat( new UnbreakableDriver( newOuter ).getWrappedDriver() ).isSameAs( inner );
 	}
 
+	@Test
+	void index_should_be_cached_until_state_changes() throws Exception {
+		final RootElement state = state();
+		final UnbreakableDriver cut = new UnbreakableDriver( mock( RemoteWebDriver.class ) );
+		assertThat( cut.getLastExpectedIndex() ).isNull();
+
+		cut.setLastExpectedState( state );
+		final ElementIndex index = cut.getLastExpectedIndex();
+		assertThat( index.getState() ).isSameAs( state );
+		assertThat( cut.getLastExpectedIndex() ).isSameAs( index );
+
+		cut.setLastExpectedState( state );
+		assertThat( cut.getLastExpectedIndex() ).isNotSameAs( index );
+	}
+
+	@Test
+	void alignment_should_be_cached_until_state_changes() throws Exception {
+		final RootElement expected = state();
+		final RootElement actual = state();
+		final UnbreakableDriver cut = new UnbreakableDriver( mock( RemoteWebDriver.class ) );
+		cut.setLastExpectedState( expected );
+		cut.setLastActualState( actual );
+
+		final Alignment alignment = cut.getLastAlignment();
+		assertThat( alignment.get( expected.getContainedElements().get( 0 ) ) )
+				.isSameAs( actual.getContainedElements().get( 0 ) );
+		assertThat( cut.getLastAlignment() ).isSameAs( alignment );
+
+		cut.setLastActualState( actual );
+		assertThat( cut.getLastAlignment() ).isNotSameAs( alignment );
+		final Alignment realigned = cut.getLastAlignment();
+		cut.setLastExpectedState( expected );
+		assertThat( cut.getLastAlignment() ).isNotSameAs( realigned );
+	}
+
+	@Test
+	void remembered_locator_should_skip_native_lookup() throws Exception {
+		final RemoteWebDriver wrapped = mock( RemoteWebDriver.class );
+		final WebElement body = mock( WebElement.class );
+		when( wrapped.findElement( By.xpath( "html[1]/body[1]" ) ) ).thenReturn( body );
+		final HealingMemo memo = mock( HealingMemo.class );
+		when( memo.getPath( By.id( "old" ) ) ).thenReturn( "html[1]/body[1]" );
+		final UnbreakableDriver cut = new UnbreakableDriver( wrapped );
+		cut.setLastActualState( state() );
+		cut.setHealingMemo( memo );
+
+		assertThat( cut.findElement( By.id( "old" ) ) ).isSameAs( body );
+		verify( wrapped, never() ).findElement( By.id( "old" ) );
+	}
+
+	@Test
+	void remembered_locator_should_be_forgotten_if_element_is_gone() throws Exception {
+		final RemoteWebDriver wrapped = mock( RemoteWebDriver.class );
+		final WebElement body = mock( WebElement.class );
+		when( wrapped.findElement( By.id( "old" ) ) ).thenReturn( body );
+		when( wrapped.findElement( By.xpath( "html[1]/div[1]" ) ) ).thenThrow( NoSuchElementException.class );
+		final HealingMemo memo = mock( HealingMemo.class );
+		when( memo.getPath( By.id( "old" ) ) ).thenReturn( "html[1]/div[1]" );
+		final UnbreakableDriver cut = new UnbreakableDriver( wrapped );
+		cut.setLastActualState( state() );
+		cut.setHealingMemo( memo );
+
+		assertThat( cut.findElement( By.id( "old" ) ) ).isSameAs( body );
+		verify( memo ).remove( By.id( "old" ) );
+		verify( wrapped, never() ).findElement( By.xpath( "html[1]/div[1]" ) );
+	}
+
+	@Test
+	void findEach_should_look_up_all_locators_at_once() throws Exception {
+		final RemoteWebDriver wrapped = mock( RemoteWebDriver.class );
+		final WebElement first = mock( WebElement.class );
+		final WebElement second = mock( WebElement.class );
+		when( wrapped.executeScript( anyString(), any() ) ).thenReturn( Arrays.asList( first, second ) );
+		final UnbreakableDriver cut = new UnbreakableDriver( wrapped );
+
+		assertThat( cut.findEach( Arrays.asList( By.id( "first" ), By.cssSelector( ".second" ) ) ) )
+				.containsExactly( first, second );
+		verify( wrapped ).executeScript( anyString(),
+				eq( Arrays.asList( Arrays.asList( "id", "first" ), Arrays.asList( "cssSelector", ".second" ) ) ) );
+		verify( wrapped, never() ).findElement( any() );
+	}
+
+	@Test
+	void findEach_should_heal_broken_locators_at_once() throws Exception {
+		final RemoteWebDriver wrapped = mock( RemoteWebDriver.class );
+		final WebElement first = mock( WebElement.class );
+		final WebElement body = mock( WebElement.class );
+		when( wrapped.executeScript( anyString(), any() ) ) //
+				.thenReturn( Arrays.asList( first, null ) ) //
+				.thenReturn( Collections.singletonList( body ) );
+		final UnbreakableDriver cut = new UnbreakableDriver( wrapped );
+		cut.setLastExpectedState( state() );
+		cut.setLastActualState( state() );
+
+		assertThat( cut.findEach( Arrays.asList( By.id( "first" ), By.tagName( "body" ) ) ) )
+				.containsExactly( first, body );
+		verify( wrapped ).executeScript( anyString(),
+				eq( Collections.singletonList( Arrays.asList( "xpath", "html[1]/body[1]" ) ) ) );
+	}
+
+	@Test
+	void findEach_should_throw_if_broken_locator_cannot_be_healed() throws Exception {
+		final RemoteWebDriver wrapped = mock( RemoteWebDriver.class );
+		when( wrapped.executeScript( anyString(), any() ) ).thenReturn( Collections.singletonList( null ) );
+		final UnbreakableDriver cut = new UnbreakableDriver( wrapped );
+
+		assertThatThrownBy( () -> cut.findEach( Collections.singletonList( By.id( "missing" ) ) ) )
+				.isInstanceOf( NoSuchElementException.class );
+	}
+
+	@Test
+	void findElements_should_heal_if_nothing_is_found_and_enabled() throws Exception {
+		final RemoteWebDriver wrapped = mock( RemoteWebDriver.class );
+		final WebElement body = mock( WebElement.class );
+		when( wrapped.findElements( By.tagName( "body" ) ) ).thenReturn( Collections.emptyList() );
+		when( wrapped.executeScript( anyString(), any() ) ).thenReturn( Collections.singletonList( body ) );
+		final UnbreakableDriver cut = new UnbreakableDriver( wrapped );
+		System.setProperty( UnbreakableDriver.HEAL_FIND_ELEMENTS_PROPERTY, "true" );
+		try {
+			assertThat( cut.findElements( By.tagName( "body" ) ) ).isEmpty();
+
+			cut.setLastExpectedState( state() );
+			cut.setLastActualState( state() );
+
+			assertThat( cut.findElements( By.tagName( "body" ) ) ).containsExactly( body );
+			assertThat( cut.findElements( By.tagName( "div" ) ) ).isEmpty();
+		} finally {
+			System.clearProperty( UnbreakableDriver.HEAL_FIND_ELEMENTS_PROPERTY );
+		}
+	}
+
+	@Test
+	void findElements_should_neither_heal_nor_await_states_by_default() throws Exception {
+		final RemoteWebDriver wrapped = mock( RemoteWebDriver.class );
+		when( wrapped.findElements( By.tagName( "body" ) ) ).thenReturn( Collections.emptyList() );
+		final UnbreakableDriver cut = new UnbreakableDriver( wrapped ) {
+			@Override
+			protected void awaitLastStates() {
+				throw new AssertionError( "Must not wait for checks." );
+			}
+		};
+		cut.setLastExpectedState( state() );
+		cut.setLastActualState( state() );
+
+		assertThat( cut.findElements( By.tagName( "body" ) ) ).isEmpty();
+		verify( wrapped, never() ).executeScript( anyString(), any() );
+	}
+
+	private static RootElement state() {
+		final RootElement state = new RootElement( "html",
+				IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" ), new Attributes(), null, "screen",
+				1, "title" );
+		state.addChildren( Element.create( "body", state,
+				IdentifyingAttributes.create( Path.fromString( "html[1]/body[1]" ), "body" ), new Attributes() ) );
+		return state;
+	}
+
 }
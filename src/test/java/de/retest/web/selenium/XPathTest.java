@@ -0,0 +1,144 @@
+package de.retest.web.selenium;
+
+import static de.retest.web.testutils.ElementFactory.element;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.RootElement;
+import de.retest.web.selenium.XPath.UnsupportedXPathException;
+
+class XPathTest {
+
+	ElementIndex index;
+
+	@BeforeEach
+	void setUp() {
+		final RootElement html = new RootElement( "html",
+				IdentifyingAttributes.create( Path.fromString( "html[1]" ), "html" ), new MutableAttributes().immutable(),
+				null, "screen", 1, "title" );
+		final Element body = element( html, "body", "html[1]/body[1]", "body" );
+		final Element div = element( body, "div", "html[1]/body[1]/div[1]", "div", "id", "main", "class", "menu open" );
+		final Element link = element( div, "link", "html[1]/body[1]/div[1]/a[1]", "a", "class", "btn", "href",
+				"https://retest.de/manual.pdf", "text", "Manual" );
+		final Element span = element( div, "span", "html[1]/body[1]/div[1]/span[1]", "span", "text", "or" );
+		final Element button = element( div, "button", "html[1]/body[1]/div[1]/a[2]", "a", "class", "btn primary",
+				"name", "submit", "text", "  Submit   now " );
+		div.addChildren( link, span, button );
+		final Element list = element( body, "list", "html[1]/body[1]/ul[1]", "ul" );
+		final List<Element> items = new ArrayList<>();
+		for ( int i = 1; i <= 5; i++ ) {
+			items.add( element( list, "li" + i, "html[1]/body[1]/ul[1]/li[" + i + "]", "li", "text", "Item " + i ) );
+		}
+		list.addChildren( items );
+		final Element paragraph = element( body, "p", "html[1]/body[1]/p[1]", "P", "text", "Hello " );
+		final Element bold = element( paragraph, "b", "html[1]/body[1]/p[1]/b[1]", "b", "text", "big" );
+		paragraph.addChildren( element( paragraph, "text1", "html[1]/body[1]/p[1]/textnode[1]", "textnode", "text",
+				"Hello " ), bold, element( paragraph, "text2", "html[1]/body[1]/p[1]/textnode[2]", "textnode", "text",
+						" world" ) );
+		body.addChildren( div, list, paragraph );
+		html.addChildren( body );
+		index = ElementIndex.of( html );
+	}
+
+	@Test
+	void location_paths_should_select_elements() throws Exception {
+		assertThat( find( "/html[1]/body[1]/div[1]/a[2]" ) ).isEqualTo( "button" );
+		assertThat( find( "/HTML/BODY/UL/LI[3]" ) ).isEqualTo( "li3" );
+		assertThat( find( "/html" ) ).isEqualTo( "html" );
+		assertThat( find( "//a" ) ).isEqualTo( "link" );
+		assertThat( find( "//div/a[2]" ) ).isEqualTo( "button" );
+		assertThat( find( "//body//li[2]" ) ).isEqualTo( "li2" );
+		assertThat( find( "//li[2]/.." ) ).isEqualTo( "list" );
+		assertThat( find( "//span/./following-sibling::*" ) ).isEqualTo( "button" );
+		assertThat( find( "//a[2]/preceding-sibling::*[1]" ) ).isEqualTo( "span" );
+		assertThat( find( "//b/ancestor::*[last()]" ) ).isEqualTo( "html" );
+		assertThat( find( "//ul/descendant::li[last()]" ) ).isEqualTo( "li5" );
+		assertThat( find( "/html[1]/body[1]/div[2]" ) ).isNull();
+		assertThat( find( "//li[6]" ) ).isNull();
+		assertThat( find( "/" ) ).isNull();
+	}
+
+	@Test
+	void attribute_predicates_should_select_elements() throws Exception {
+		assertThat( find( "//*[@id='main']/a" ) ).isEqualTo( "link" );
+		assertThat( find( "//a[@name=\"submit\"]" ) ).isEqualTo( "button" );
+		assertThat( find( "//a[@class='btn']" ) ).isEqualTo( "link" );
+		assertThat( find( "//a[contains(@class, 'primary')]" ) ).isEqualTo( "button" );
+		assertThat( find( "//a[starts-with(@href, 'https://')]" ) ).isEqualTo( "link" );
+		assertThat( find( "//*[@name]" ) ).isEqualTo( "button" );
+		assertThat( find( "//a[not(@name)]" ) ).isEqualTo( "link" );
+		assertThat( find( "//*[@id='missing']" ) ).isNull();
+	}
+
+	@Test
+	void text_predicates_should_select_elements() throws Exception {
+		assertThat( find( "//span[text()='or']" ) ).isEqualTo( "span" );
+		assertThat( find( "//*[.='Manual']" ) ).isEqualTo( "link" );
+		assertThat( find( "//a[normalize-space()='Submit now']" ) ).isEqualTo( "button" );
+		assertThat( find( "//p[contains(., 'Hello big world')]" ) ).isEqualTo( "p" );
+		assertThat( find( "//p[text()=' world']" ) ).isEqualTo( "p" );
+		assertThat( find( "//*[contains(text(), 'Item')][3]" ) ).isEqualTo( "li3" );
+		assertThat( find( "//li[translate(., 'ITEM', 'item')='item 4']" ) ).isEqualTo( "li4" );
+		assertThat( find( "//p/text()" ) ).isNull();
+	}
+
+	@Test
+	void positions_and_functions_should_be_evaluated() throws Exception {
+		assertThat( find( "//li[position() > 3]" ) ).isEqualTo( "li4" );
+		assertThat( find( "//li[last() - 1]" ) ).isEqualTo( "li4" );
+		assertThat( find( "//li[position() = last()]" ) ).isEqualTo( "li5" );
+		assertThat( find( "//ul[count(li) = 5]" ) ).isEqualTo( "list" );
+		assertThat( find( "//div[a and span]" ) ).isEqualTo( "div" );
+		assertThat( find( "//*[name()='ul' or @id='main']" ) ).isEqualTo( "div" );
+		assertThat( find( "//li[string-length() = 6][2]" ) ).isEqualTo( "li2" );
+		assertThat( find( "//li[@missing or position() = 2]" ) ).isEqualTo( "li2" );
+	}
+
+	@Test
+	void unions_and_filters_should_be_in_document_order() throws Exception {
+		assertThat( find( "//p | //span" ) ).isEqualTo( "span" );
+		assertThat( find( "(//li)[4]" ) ).isEqualTo( "li4" );
+		assertThat( find( "(//a | //li)[last()]" ) ).isEqualTo( "li5" );
+		assertThat( find( "(//div)[1]/a[@name]" ) ).isEqualTo( "button" );
+	}
+
+	@Test
+	void compiled_expressions_should_be_cached() throws Exception {
+		assertThat( XPath.compile( "//div/a[1]" ) ).isSameAs( XPath.compile( "//div/a[1]" ) );
+	}
+
+	@Test
+	void unsupported_expressions_should_be_rejected() throws Exception {
+		assertUnsupported( "", "" );
+		assertUnsupported( "//div[", "" );
+		assertUnsupported( "//a/following::div", "following::div" );
+		assertUnsupported( "//svg:rect", "svg:rect" );
+		assertUnsupported( "//a/@*", "*" );
+		assertUnsupported( "//a[lower-case(@id)='x']", "lower-case(@id)='x']" );
+		assertUnsupported( "count(//a)", "count(//a)" );
+		assertUnsupported( "//a[@id='x]", "'x]" );
+	}
+
+	private void assertUnsupported( final String xpath, final String unsupported ) {
+		assertThatThrownBy( () -> XPath.compile( xpath ) ) //
+				.isInstanceOf( UnsupportedXPathException.class ) //
+				.extracting( e -> ((UnsupportedXPathException) e).getUnsupported() ) //
+				.isEqualTo( unsupported );
+	}
+
+	private String find( final String xpath ) {
+		final Element found = XPath.compile( xpath ).findFirst( index );
+		return found != null ? found.getRetestId() : null;
+	}
+
+}
@@ -0,0 +1,40 @@
+package de.retest.web.testutils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import de.retest.recheck.ui.Path;
+import de.retest.recheck.ui.descriptors.Attribute;
+import de.retest.recheck.ui.descriptors.Element;
+import de.retest.recheck.ui.descriptors.IdentifyingAttributes;
+import de.retest.recheck.ui.descriptors.MutableAttributes;
+import de.retest.recheck.ui.descriptors.StringAttribute;
+
+/**
+ * Creates the elements of states to locate elements within (e.g. when healing).
+ */
+public class ElementFactory {
+
+	private static final List<String> IDENTIFYING = Arrays.asList( "id", "class", "name" );
+
+	/**
+	 * @param attributes
+	 *            Pairs of attribute keys and values, where {@code id}, {@code class} and {@code name} are identifying
+	 *            attributes.
+	 */
+	public static Element element( final Element parent, final String retestId, final String path, final String tag,
+			final String... attributes ) {
+		final Collection<Attribute> identifying = IdentifyingAttributes.createList( Path.fromString( path ), tag );
+		final MutableAttributes state = new MutableAttributes();
+		for ( int i = 0; i < attributes.length; i += 2 ) {
+			if ( IDENTIFYING.contains( attributes[i] ) ) {
+				identifying.add( new StringAttribute( attributes[i], attributes[i + 1] ) );
+			} else {
+				state.put( attributes[i], attributes[i + 1] );
+			}
+		}
+		return Element.create( retestId, parent, new IdentifyingAttributes( identifying ), state.immutable() );
+	}
+
+}
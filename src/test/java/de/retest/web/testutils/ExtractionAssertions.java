@@ -0,0 +1,93 @@
+package de.retest.web.testutils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.assertj.core.api.SoftAssertions;
+
+import de.retest.web.extraction.Extraction;
+import de.retest.web.mapping.PathsToWebDataMapping;
+import de.retest.web.mapping.WebData;
+
+public class ExtractionAssertions {
+
+	/**
+	 * Asserts that both extractions contain the same elements with the same attributes.
+	 *
+	 * @param tolerance
+	 *            The maximum difference of numeric values, if {@code 0} values have to be equal as string.
+	 */
+	public static void assertEquivalent( final Extraction expected, final Extraction actual,
+			final Collection<String> cssAttributes, final double tolerance ) {
+		assertEquivalent( expected, actual, cssAttributes, tolerance, true );
+	}
+
+	/**
+	 * @param hiddenStyles
+	 *            If CSS attributes of elements that are not shown are compared, which the CDP extraction approximates
+	 *            if it cannot read them.
+	 */
+	public static void assertEquivalent( final Extraction expected, final Extraction actual,
+			final Collection<String> cssAttributes, final double tolerance, final boolean hiddenStyles ) {
+		final SoftAssertions softly = new SoftAssertions();
+		assertEquivalent( softly, "document", expected.getDocument(), actual.getDocument(), cssAttributes,
+				tolerance, hiddenStyles );
+		assertThat( actual.getFrames().keySet() ).isEqualTo( expected.getFrames().keySet() );
+		expected.getFrames().forEach( ( path, frame ) -> assertEquivalent( softly, "frame " + path, frame,
+				actual.getFrames().get( path ), cssAttributes, tolerance, hiddenStyles ) );
+		softly.assertAll();
+	}
+
+	private static void assertEquivalent( final SoftAssertions softly, final String description,
+			final PathsToWebDataMapping expected, final PathsToWebDataMapping actual,
+			final Collection<String> cssAttributes, final double tolerance, final boolean hiddenStyles ) {
+		softly.assertThat( actual.getRootPath() ).as( description ).isEqualTo( expected.getRootPath() );
+		softly.assertThat( paths( actual ) ).as( description ).isEqualTo( paths( expected ) );
+		for ( final Entry<String, WebData> entry : expected ) {
+			final WebData expectedData = entry.getValue();
+			final WebData actualData = actual.getWebData( entry.getKey() );
+			if ( actualData == null ) {
+				continue;
+			}
+			final Set<String> keys = new TreeSet<>( expectedData.getKeys() );
+			keys.addAll( actualData.getKeys() );
+			if ( !hiddenStyles && "false".equals( expectedData.getAsString( "shown" ) ) ) {
+				keys.removeAll( new HashSet<>( cssAttributes ) );
+			}
+			for ( final String key : keys ) {
+				final String expectedValue = expectedData.getAsString( key );
+				final String actualValue = actualData.getAsString( key );
+				if ( !isClose( expectedValue, actualValue, tolerance ) ) {
+					softly.assertThat( actualValue ).as( "%s: %s of %s", description, key, entry.getKey() )
+							.isEqualTo( expectedValue );
+				}
+			}
+		}
+	}
+
+	private static Set<String> paths( final PathsToWebDataMapping mapping ) {
+		final Set<String> paths = new TreeSet<>();
+		mapping.forEach( entry -> paths.add( entry.getKey() ) );
+		return paths;
+	}
+
+	private static boolean isClose( final String expected, final String actual, final double tolerance ) {
+		if ( expected == null || actual == null ) {
+			return expected == actual;
+		}
+		if ( expected.equals( actual ) || tolerance == 0 ) {
+			return expected.equals( actual );
+		}
+		try {
+			return Math.abs( Double.parseDouble( expected ) - Double.parseDouble( actual ) ) <= tolerance;
+		} catch ( final NumberFormatException e ) {
+			return false;
+		}
+	}
+
+}
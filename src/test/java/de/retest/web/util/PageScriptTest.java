@@ -0,0 +1,81 @@
+package de.retest.web.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openqa.selenium.JavascriptExecutor;
+
+class PageScriptTest {
+
+	static final String SCRIPT_PATH = "/javascript/getFingerprint.js";
+
+	JavascriptExecutor executor;
+	PageScript cut;
+
+	@BeforeEach
+	void setUp() {
+		executor = mock( JavascriptExecutor.class );
+		cut = PageScript.of( SCRIPT_PATH );
+	}
+
+	@Test
+	void scripts_should_be_cached() {
+		assertThat( PageScript.of( SCRIPT_PATH ) ).isSameAs( cut );
+		assertThat( cut.getName() ).matches( "getFingerprint@[0-9a-f]{12}" );
+	}
+
+	@Test
+	void installed_script_should_only_be_invoked() {
+		when( executor.executeScript( anyString(), eq( "arg" ) ) ).thenReturn( "result" );
+
+		assertThat( cut.execute( executor, "arg" ) ).isEqualTo( "result" );
+
+		final ArgumentCaptor<String> script = ArgumentCaptor.forClass( String.class );
+		verify( executor ).executeScript( script.capture(), eq( "arg" ) );
+		assertThat( script.getValue() ).contains( cut.getName() ).doesNotContain( "function" );
+	}
+
+	@Test
+	void missing_script_should_be_installed_and_invoked() {
+		when( executor.executeScript( anyString(), eq( "arg" ) ) ).thenReturn( "__recheck_not_installed__" );
+		when( executor.executeScript( contains( "function" ), eq( "arg" ) ) ).thenReturn( "result" );
+
+		assertThat( cut.execute( executor, "arg" ) ).isEqualTo( "result" );
+
+		verify( executor, times( 2 ) ).executeScript( anyString(), eq( "arg" ) );
+	}
+
+	@Test
+	void constants_should_be_installed_along_with_script() {
+		final PageScript withConstants = PageScript.of( SCRIPT_PATH, Collections.singletonMap( "answer", 42 ) );
+		when( executor.executeScript( anyString(), eq( "arg" ) ) ).thenReturn( "__recheck_not_installed__" );
+		when( executor.executeScript( contains( "function" ), eq( "arg" ) ) ).thenReturn( "result" );
+
+		assertThat( withConstants.execute( executor, "arg" ) ).isEqualTo( "result" );
+
+		final ArgumentCaptor<String> script = ArgumentCaptor.forClass( String.class );
+		verify( executor, times( 2 ) ).executeScript( script.capture(), eq( "arg" ) );
+		assertThat( script.getAllValues().get( 1 ) ).contains( "var answer = 42;" );
+		assertThat( withConstants.getName() ).isNotEqualTo( cut.getName() );
+		assertThat( PageScript.of( SCRIPT_PATH, Collections.singletonMap( "answer", 42 ) ) ).isSameAs( withConstants );
+	}
+
+	@Test
+	void unknown_script_should_throw() {
+		assertThatThrownBy( () -> PageScript.of( "/javascript/unknown.js" ) )
+				.isInstanceOf( IllegalArgumentException.class );
+	}
+
+}
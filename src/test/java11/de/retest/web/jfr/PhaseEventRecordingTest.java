@@ -0,0 +1,59 @@
+package de.retest.web.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+class PhaseEventRecordingTest {
+
+	static final String EVENT_NAME = "de.retest.web.Phase";
+
+	@Test
+	void phase_event_should_be_recorded_if_enabled( @TempDir final Path temp ) throws Exception {
+		final Path file = temp.resolve( "phases.jfr" );
+		try ( final Recording recording = new Recording() ) {
+			recording.enable( EVENT_NAME );
+			recording.start();
+			try ( final CheckContext context = CheckContext.enter( "check" ) ) {
+				CheckContext.setUrl( "http://example.org" );
+				final PhaseEvent event = PhaseEvent.begin( RecordedPhase.SCREENSHOT );
+				assertThat( event.isEnabled() ).isTrue();
+				event.elementCount( 1 ).byteCount( 2L ).detail( "detail" ).commit();
+			}
+			recording.stop();
+			recording.dump( file );
+		}
+
+		final List<RecordedEvent> events = RecordingFile.readAllEvents( file ).stream()
+				.filter( event -> event.getEventType().getName().equals( EVENT_NAME ) ) //
+				.collect( Collectors.toList() );
+		assertThat( events ).hasSize( 1 );
+		final RecordedEvent event = events.get( 0 );
+		assertThat( event.getString( "phase" ) ).isEqualTo( "SCREENSHOT" );
+		assertThat( event.getInt( "elementCount" ) ).isEqualTo( 1 );
+		assertThat( event.getLong( "byteCount" ) ).isEqualTo( 2L );
+		assertThat( event.getString( "detail" ) ).isEqualTo( "detail" );
+		assertThat( event.getString( "checkName" ) ).isEqualTo( "check" );
+		assertThat( event.getString( "url" ) ).isEqualTo( "http://example.org" );
+	}
+
+	@Test
+	void phase_event_should_not_be_allocated_if_not_recorded() throws Exception {
+		assertThat( PhaseEvent.isRecording() ).isFalse();
+
+		final PhaseEvent event = PhaseEvent.begin( RecordedPhase.SCREENSHOT );
+
+		assertThat( event.isEnabled() ).isFalse();
+		assertThat( PhaseEvent.begin( RecordedPhase.PEER_CONVERSION ) ).isSameAs( event );
+	}
+
+}